@@ -59,6 +59,8 @@ if "%CLASSPATH%"=="" set _USE_CLASSPATH=no
 rem Slurp the command line arguments. This loop allows for an unlimited number
 rem of arguments (up to the command line limit, anyway).
 set DITA_CMD_LINE_ARGS=
+set _DAEMON_CLIENT=no
+if ""%1""==""-client"" goto setDaemonClient
 :setupArgs
 if ""%1""=="""" goto doneStart
 if ""%1""==""-noclasspath"" goto clearclasspath
@@ -72,6 +74,12 @@ set _USE_CLASSPATH=no
 shift
 goto setupArgs
 
+rem send build to a running daemon started with "dita -daemon"
+:setDaemonClient
+set _DAEMON_CLIENT=yes
+shift
+goto setupArgs
+
 rem This label provides a place for the argument list loop to break out
 rem and for NT handling to skip to.
 
@@ -121,6 +129,9 @@ if "%_JAVACMD%" == "" set _JAVACMD=%JAVA_HOME%\bin\java.exe
 if "%_JAVACMD%" == "" set _JAVACMD=java.exe
 
 :runAnt
+if "%_DAEMON_CLIENT%"=="yes" goto runDaemonClient
+rem Use class data sharing archive created by "ant -f integrator.xml cds"
+if exist "%DITA_HOME%\lib\dost.jsa" set ANT_OPTS=%ANT_OPTS% "-XX:SharedArchiveFile=%DITA_HOME%\lib\dost.jsa" -Xshare:auto
 if "%_USE_CLASSPATH%"=="no" goto runAntNoClasspath
 :runAntWithClasspath
 "%_JAVACMD%" %ANT_OPTS% -classpath "%DITA_HOME%\lib\ant-launcher.jar" "-Dant.home=%DITA_HOME%" org.apache.tools.ant.launch.Launcher %ANT_ARGS% -cp "%CLASSPATH%" %DITA_CMD_LINE_ARGS% -buildfile "%DITA_HOME%\build.xml" -main "org.dita.dost.invoker.Main"
@@ -136,6 +147,11 @@ if not "%OS%"=="Windows_NT" goto onError
 set ANT_ERROR=%ERRORLEVEL%
 goto end
 
+:runDaemonClient
+"%_JAVACMD%" -classpath "%DITA_HOME%\lib\dost.jar" org.dita.dost.invoker.DaemonClient %DITA_CMD_LINE_ARGS%
+set ANT_ERROR=%ERRORLEVEL%
+goto end
+
 :onError
 rem Windows 9x way of checking the error code.  It matches via brute force.
 for %%i in (1 10 100) do set err%%i=
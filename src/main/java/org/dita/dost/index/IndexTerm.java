@@ -15,6 +15,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
+import org.dita.dost.util.BuildContext;
 import org.dita.dost.util.DITAOTCollator;
 
 /**
@@ -25,9 +26,6 @@ import org.dita.dost.util.DITAOTCollator;
  * @author Wu, Zhi Qiang
  */
 public final class IndexTerm implements Comparable<IndexTerm> {
-    /** The locale of  the indexterm, used for sorting. */
-    private static Locale termLocale = null;
-
     /** The name of the indexterm. */
     private String termName = null;
 
@@ -75,21 +73,23 @@ public final class IndexTerm implements Comparable<IndexTerm> {
     }
 
     /**
-     * Get the global locale of indexterm.
+     * Get the locale of indexterm for the current build.
      * 
      * @return Locale language
+     * @see BuildContext#getTermLocale()
      */
     public static Locale getTermLocale() {
-        return termLocale;
+        return BuildContext.getCurrent().getTermLocale();
     }
 
     /**
-     * Set the global locale of indexterm.
+     * Set the locale of indexterm for the current build.
      * 
      * @param locale locale
+     * @see BuildContext#setTermLocale(Locale)
      */
     public static void setTermLocale(final Locale locale) {
-        termLocale = locale;
+        BuildContext.getCurrent().setTermLocale(locale);
     }
 
     /**
@@ -287,7 +287,7 @@ public final class IndexTerm implements Comparable<IndexTerm> {
      */
     @Override
     public int compareTo(final IndexTerm obj) {
-        return DITAOTCollator.getInstance(termLocale).compare(termKey, obj.getTermKey());
+        return DITAOTCollator.getInstance(getTermLocale()).compare(termKey, obj.getTermKey());
     }
 
     /**
@@ -371,6 +371,7 @@ public final class IndexTerm implements Comparable<IndexTerm> {
         if (termPrefix == null){
             return termName;
         }else{
+            final Locale termLocale = getTermLocale();
             if (termLocale == null){
                 return termPrefix + STRING_BLANK + termName;
             }else if (rtlLocaleList.contains(termLocale.toString())){
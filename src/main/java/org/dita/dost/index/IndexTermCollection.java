@@ -19,6 +19,7 @@ import java.util.Locale;
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.DITAOTJavaLogger;
 import org.dita.dost.pipeline.PipelineHashIO;
+import org.dita.dost.util.BuildContext;
 import org.dita.dost.writer.AbstractExtendDitaWriter;
 import org.dita.dost.writer.AbstractWriter;
 import org.dita.dost.writer.CHMIndexWriter;
@@ -34,8 +35,6 @@ import org.dita.dost.writer.JavaHelpIndexWriter;
  * @author Wu, Zhi Qiang
  */
 public final class IndexTermCollection {
-    /** The collection of index terms. */
-    private static IndexTermCollection collection = null;
     /** The list of all index term. */
     private final List<IndexTerm> termList = new ArrayList<IndexTerm>(16);
 
@@ -55,21 +54,20 @@ public final class IndexTermCollection {
     private PipelineHashIO pipelineHashIO = null;
 
     /**
-     * Private constructor used to forbid instance.
+     * Create new index term collection. Use {@link #getInstantce()} to access
+     * the collection of the current build.
      */
-    private IndexTermCollection() {
+    public IndexTermCollection() {
         javaLogger = new DITAOTJavaLogger();
     }
 
     /**
-     * The only interface to access IndexTermCollection instance.
-     * @return Singleton IndexTermCollection instance
+     * Get IndexTermCollection instance of the current build.
+     * @return IndexTermCollection instance of the current build
+     * @see BuildContext#getIndexTermCollection()
      */
-    public static synchronized IndexTermCollection getInstantce(){
-        if(collection == null){
-            collection = new IndexTermCollection();
-        }
-        return collection;
+    public static IndexTermCollection getInstantce(){
+        return BuildContext.getCurrent().getIndexTermCollection();
     }
 
     /**
@@ -141,6 +139,19 @@ public final class IndexTermCollection {
         }
     }
 
+    /**
+     * Add all terms of another collection into this collection in order.
+     * Adding the terms of collections read from separate files gives the same
+     * result as adding the terms of the files into a single collection.
+     *
+     * @param terms index term collection
+     */
+    public void addTerms(final IndexTermCollection terms) {
+        for (final IndexTerm term : terms.getTermList()) {
+            addTerm(term);
+        }
+    }
+
     /**
      * Get all the term list from the collection.
      * 
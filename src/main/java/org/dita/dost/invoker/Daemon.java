@@ -0,0 +1,310 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.invoker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Long-lived build server. The daemon keeps a single JVM running so that class
+ * loading, message and configuration parsing, catalog setup and the DTD grammar
+ * pool are only paid for once, and runs builds requested by {@link DaemonClient}
+ * over a loopback socket.
+ *
+ * <p>The loopback socket is reachable by every local user, so each request must
+ * start with a secret that the daemon writes on startup to a file only readable
+ * by its owner, see {@link #getSecretFile(int)}. Requests cannot override the
+ * build file the daemon was started with.</p>
+ *
+ * <p>Builds are run one at a time on the thread that called {@link #run()}.
+ * Ant redirects {@link System#out} and {@link System#err} for the duration of a
+ * build and the grammar pool is thread local, so serial execution on a single
+ * thread is both required for correctness and what keeps the caches warm.</p>
+ *
+ * <p>Wire protocol, using {@link DataOutputStream} encoding:</p>
+ * <ul>
+ *   <li>request: UTF secret, UTF working directory, int argument count, UTF arguments</li>
+ *   <li>response: a sequence of frames, each a type byte followed by either an
+ *     int length and bytes for {@link #FRAME_OUT} and {@link #FRAME_ERR}, or an
+ *     int exit status for {@link #FRAME_EXIT}, which terminates the response</li>
+ * </ul>
+ */
+public final class Daemon {
+
+    /** Default daemon port. */
+    public static final int DEFAULT_PORT = 8321;
+    /** Client argument that stops the daemon. */
+    public static final String ARG_SHUTDOWN = "-shutdown";
+    /** Frame type for exit status. */
+    static final int FRAME_EXIT = 0;
+    /** Frame type for standard output bytes. */
+    static final int FRAME_OUT = 1;
+    /** Frame type for standard error bytes. */
+    static final int FRAME_ERR = 2;
+    /** Timeout in milliseconds for reading a request. */
+    private static final int REQUEST_TIMEOUT = 10000;
+    /** Arguments that clients are not allowed to pass to the daemon. */
+    private static final List<String> REJECTED_ARGS = Collections.unmodifiableList(Arrays.asList(
+            "-buildfile", "-file", "-main", "-lib", "-daemon"));
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final int port;
+    private final File buildFile;
+    private volatile boolean running;
+    private byte[] secret;
+
+    /**
+     * Create new daemon.
+     *
+     * @param port local port to listen to
+     * @param buildFile build file passed to every build
+     */
+    public Daemon(final int port, final File buildFile) {
+        this.port = port;
+        this.buildFile = buildFile;
+    }
+
+    /**
+     * Serve build requests until a client sends {@link #ARG_SHUTDOWN}.
+     *
+     * @throws IOException if opening the server socket failed
+     */
+    public void run() throws IOException {
+        final ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        final File secretFile = getSecretFile(server.getLocalPort());
+        try {
+            secret = writeSecret(secretFile);
+        } catch (final IOException e) {
+            server.close();
+            throw new IOException("Failed to write daemon secret " + secretFile + ": " + e.getMessage(), e);
+        }
+        System.out.println("DITA-OT daemon listening on port " + server.getLocalPort());
+        running = true;
+        try {
+            while (running) {
+                final Socket socket = server.accept();
+                try {
+                    serve(socket);
+                } catch (final IOException e) {
+                    System.err.println("Failed to serve daemon request: " + e.getMessage());
+                } finally {
+                    socket.close();
+                }
+            }
+        } finally {
+            server.close();
+            secretFile.delete();
+        }
+    }
+
+    /**
+     * Get file that stores the secret of the daemon listening to a port.
+     *
+     * @param port daemon port
+     * @return secret file in the user's home directory
+     */
+    static File getSecretFile(final int port) {
+        return new File(new File(System.getProperty("user.home"), ".dita-ot"), "daemon-" + port + ".secret");
+    }
+
+    /**
+     * Generate a new secret and write it to a file only the current user can read.
+     *
+     * @param file secret file, an existing file is replaced
+     * @return secret as UTF-8 bytes
+     */
+    private static byte[] writeSecret(final File file) throws IOException {
+        final byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        final StringBuilder buf = new StringBuilder(random.length * 2);
+        for (final byte b: random) {
+            buf.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        final byte[] res = buf.toString().getBytes(UTF8);
+
+        final Path path = file.toPath();
+        final boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (posix) {
+            Files.createDirectories(path.getParent(),
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(path.getParent());
+        }
+        Files.deleteIfExists(path);
+        if (posix) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(path);
+            final AclFileAttributeView acl = Files.getFileAttributeView(path, AclFileAttributeView.class);
+            if (acl == null) {
+                Files.delete(path);
+                throw new IOException("File system does not support owner only permissions");
+            }
+            acl.setAcl(Collections.singletonList(AclEntry.newBuilder()
+                    .setType(AclEntryType.ALLOW)
+                    .setPrincipal(acl.getOwner())
+                    .setPermissions(EnumSet.allOf(AclEntryPermission.class))
+                    .build()));
+        }
+        Files.write(path, res);
+        return res;
+    }
+
+    /**
+     * Read one build request from the socket, run it and stream results back.
+     */
+    private void serve(final Socket socket) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        final File baseDir;
+        final List<String> args;
+        socket.setSoTimeout(REQUEST_TIMEOUT);
+        try {
+            if (!MessageDigest.isEqual(secret, in.readUTF().getBytes(UTF8))) {
+                System.err.println("Rejected daemon request with invalid secret");
+                return;
+            }
+            baseDir = new File(in.readUTF());
+            final int argc = in.readInt();
+            args = new ArrayList<String>();
+            for (int i = 0; i < argc; i++) {
+                args.add(in.readUTF());
+            }
+        } catch (final SocketTimeoutException e) {
+            System.err.println("Rejected daemon request that was not received in time");
+            return;
+        }
+        socket.setSoTimeout(0);
+
+        String rejected = null;
+        for (final String arg: args) {
+            if (REJECTED_ARGS.contains(arg)) {
+                rejected = arg;
+                break;
+            }
+        }
+
+        final int status;
+        if (rejected != null) {
+            final PrintStream err = new PrintStream(new FrameOutputStream(data, FRAME_ERR), true);
+            err.println("Error: Argument " + rejected + " is not supported by the DITA-OT daemon");
+            status = 1;
+        } else if (args.contains(ARG_SHUTDOWN)) {
+            running = false;
+            status = 0;
+        } else {
+            if (buildFile != null) {
+                args.add("-buildfile");
+                args.add(buildFile.getAbsolutePath());
+            }
+            status = build(baseDir, args.toArray(new String[args.size()]), data);
+        }
+
+        synchronized (data) {
+            data.writeByte(FRAME_EXIT);
+            data.writeInt(status);
+            data.flush();
+        }
+    }
+
+    /**
+     * Run a single build with standard streams redirected to the client.
+     *
+     * @return exit status of the build
+     */
+    private int build(final File baseDir, final String[] args, final DataOutputStream data) {
+        final PrintStream savedOut = System.out;
+        final PrintStream savedErr = System.err;
+        final PrintStream out = new PrintStream(new FrameOutputStream(data, FRAME_OUT), true);
+        final PrintStream err = new PrintStream(new FrameOutputStream(data, FRAME_ERR), true);
+        final int[] status = { 1 };
+        System.setOut(out);
+        System.setErr(err);
+        try {
+            final Main main = new Main(baseDir) {
+                @Override
+                protected void exit(final int exitCode) {
+                    status[0] = exitCode;
+                }
+            };
+            main.startAnt(args, null, null);
+        } catch (final Throwable e) {
+            e.printStackTrace(err);
+            status[0] = 1;
+        } finally {
+            out.flush();
+            err.flush();
+            System.setOut(savedOut);
+            System.setErr(savedErr);
+        }
+        return status[0];
+    }
+
+    /**
+     * Output stream that writes its content as frames of the given type.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream data;
+        private final int type;
+
+        FrameOutputStream(final DataOutputStream data, final int type) {
+            this.data = data;
+            this.type = type;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (data) {
+                data.writeByte(type);
+                data.writeInt(len);
+                data.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (data) {
+                data.flush();
+            }
+        }
+
+    }
+
+}
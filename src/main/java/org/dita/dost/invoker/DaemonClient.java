@@ -0,0 +1,131 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.invoker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thin command line client for {@link Daemon}. The client only depends on the
+ * JDK, so it starts fast; it forwards its arguments and working directory to the
+ * daemon, copies the streamed build log to standard output and error, and exits
+ * with the status of the build. Requests are authenticated with the secret the
+ * daemon stores in {@link Daemon#getSecretFile(int)}, so only the user who
+ * started the daemon can use it.
+ *
+ * <p>Usage: {@code DaemonClient [-port <port>] <dita arguments>}, or
+ * {@code dita -client [-port <port>] <dita arguments>} with the launch scripts.</p>
+ */
+public final class DaemonClient {
+
+    private DaemonClient() {
+    }
+
+    /**
+     * Command line entry point.
+     *
+     * @param args command line arguments
+     */
+    public static void main(final String[] args) {
+        int port = Daemon.DEFAULT_PORT;
+        final List<String> forward = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-port") && i < args.length - 1) {
+                try {
+                    port = Integer.parseInt(args[++i]);
+                } catch (final NumberFormatException e) {
+                    System.err.println("Error: Unrecognized daemon port: " + args[i]);
+                    System.exit(1);
+                }
+            } else {
+                forward.add(args[i]);
+            }
+        }
+        int status;
+        try {
+            status = execute(port, new File(System.getProperty("user.dir")), forward, System.out, System.err);
+        } catch (final IOException e) {
+            System.err.println("Error: Failed to connect to DITA-OT daemon on port " + port + ": " + e.getMessage());
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Send build request to daemon and copy the response to output streams.
+     *
+     * @param port daemon port
+     * @param baseDir working directory for the build
+     * @param args build arguments
+     * @param out stream for standard output
+     * @param err stream for standard error
+     * @return exit status of the build
+     * @throws IOException if communication with the daemon failed
+     */
+    public static int execute(final int port, final File baseDir, final List<String> args,
+            final PrintStream out, final PrintStream err) throws IOException {
+        final String secret;
+        try {
+            secret = new String(Files.readAllBytes(Daemon.getSecretFile(port).toPath()), Charset.forName("UTF-8"));
+        } catch (final NoSuchFileException e) {
+            throw new IOException("Daemon secret " + e.getFile() + " not found, is the daemon running?");
+        }
+        final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        try {
+            final DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            request.writeUTF(secret);
+            request.writeUTF(baseDir.getAbsolutePath());
+            request.writeInt(args.size());
+            for (final String arg: args) {
+                request.writeUTF(arg);
+            }
+            request.flush();
+
+            final DataInputStream response = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte[] buf = new byte[8192];
+            while (true) {
+                final int type;
+                try {
+                    type = response.readByte();
+                } catch (final EOFException e) {
+                    throw new IOException("Daemon closed connection before build finished");
+                }
+                switch (type) {
+                case Daemon.FRAME_EXIT:
+                    out.flush();
+                    err.flush();
+                    return response.readInt();
+                case Daemon.FRAME_OUT:
+                case Daemon.FRAME_ERR:
+                    final int len = response.readInt();
+                    if (len > buf.length) {
+                        buf = new byte[len];
+                    }
+                    response.readFully(buf, 0, len);
+                    (type == Daemon.FRAME_OUT ? out : err).write(buf, 0, len);
+                    break;
+                default:
+                    throw new IOException("Unrecognized daemon frame type " + type);
+                }
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+}
@@ -11,9 +11,13 @@ package org.dita.dost.invoker;
 import static org.dita.dost.util.Constants.*;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -26,11 +30,15 @@ import org.apache.tools.ant.Task;
 import org.apache.tools.ant.types.Mapper;
 import org.apache.tools.ant.types.XMLCatalog;
 import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.log.AsyncLogger;
 import org.dita.dost.log.DITAOTAntLogger;
+import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.module.AbstractPipelineModule;
 import org.dita.dost.module.XsltModule;
 import org.dita.dost.pipeline.PipelineFacade;
 import org.dita.dost.pipeline.PipelineHashIO;
+import org.dita.dost.util.BuildContext;
+import org.dita.dost.util.Configuration;
 import org.dita.dost.util.Job;
 
 /**
@@ -135,10 +143,12 @@ public final class ExtensibleAntInvoker extends Task {
         }
 
         long start, end;
-        final DITAOTAntLogger logger = new DITAOTAntLogger(getProject());
-        logger.setTask(this);
+        final DITAOTAntLogger antLogger = new DITAOTAntLogger(getProject());
+        antLogger.setTask(this);
+        final DITAOTLogger logger = getLogger(antLogger);
         pipeline.setLogger(logger);
         pipeline.setJob(getJob(tempDir, getProject()));
+        pipeline.setContext(getContext(getProject()));
         try {
             for (final Module m: modules) {
                 final PipelineHashIO pipelineInput = new PipelineHashIO();
@@ -174,9 +184,16 @@ public final class ExtensibleAntInvoker extends Task {
                             x.setParam(p.getName(), p.getValue());
                         }
                     }
-                    start = System.currentTimeMillis();
-                    pipeline.execute(x, pipelineInput);
-                    end = System.currentTimeMillis();
+                    // XSLT messages are written directly to console, log synchronously to keep them in order
+                    flush(logger);
+                    pipeline.setLogger(antLogger);
+                    try {
+                        start = System.currentTimeMillis();
+                        pipeline.execute(x, pipelineInput);
+                        end = System.currentTimeMillis();
+                    } finally {
+                        pipeline.setLogger(logger);
+                    }
                 } else {
                     for (final Param p : m.params) {
                         if (!p.isValid()) {
@@ -194,11 +211,59 @@ public final class ExtensibleAntInvoker extends Task {
                     end = System.currentTimeMillis();
                 }
                 logger.debug("Module processing took " + (end - start) + " ms");
+                // keep module messages ahead of output written by following tasks
+                flush(logger);
             }
         } catch (final DITAOTException e) {
             throw new BuildException("Failed to run pipeline: " + e.getMessage(), e);
+        } finally {
+            if (logger instanceof AsyncLogger) {
+                try {
+                    ((AsyncLogger) logger).close();
+                } catch (final IOException e) {
+                    antLogger.error("Failed to close log: " + e.getMessage(), e);
+                }
+            }
         }
     }
+
+    /**
+     * Write pending messages of an asynchronous logger.
+     * 
+     * @param logger pipeline logger
+     */
+    private static void flush(final DITAOTLogger logger) {
+        if (logger instanceof AsyncLogger) {
+            ((AsyncLogger) logger).flush();
+        }
+    }
+
+    /**
+     * Get pipeline logger. If asynchronous logging is enabled with the
+     * {@value org.dita.dost.util.Constants#CONF_LOGGING_ASYNC} configuration
+     * property or a JSON log file is set with the
+     * {@value org.dita.dost.util.Constants#ANT_PROPERTY_LOG_JSON} Ant property,
+     * messages are logged asynchronously.
+     * 
+     * @param antLogger Ant logger
+     * @return pipeline logger
+     */
+    private DITAOTLogger getLogger(final DITAOTAntLogger antLogger) {
+        final String jsonLog = getProject().getProperty(ANT_PROPERTY_LOG_JSON);
+        if (jsonLog == null && !Boolean.parseBoolean(Configuration.configuration.get(CONF_LOGGING_ASYNC))) {
+            return antLogger;
+        }
+        Writer json = null;
+        if (jsonLog != null) {
+            final File jsonFile = getProject().resolveFile(jsonLog);
+            try {
+                json = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(jsonFile, true), "UTF-8"));
+            } catch (final IOException e) {
+                antLogger.error("Failed to open JSON log file " + jsonFile + ": " + e.getMessage(), e);
+            }
+        }
+        return new AsyncLogger(antLogger, json);
+    }
     
     /**
      * Get job configuration from Ant project reference or create new.
@@ -224,7 +289,29 @@ public final class ExtensibleAntInvoker extends Task {
         return job;
     }
     
-    private Set<File> readListFile(final List<Xslt.IncludesFile> includes, final DITAOTAntLogger logger) {
+    /**
+     * Get build context from Ant project reference or create new.
+     * 
+     * <p>Project references are not inherited by all subprojects, so a new
+     * context is initialized with the DITA-OT directory from the project.</p>
+     * 
+     * @param project Ant project
+     * @return build context
+     */
+    public static BuildContext getContext(final Project project) {
+        BuildContext context = (BuildContext) project.getReference(ANT_REFERENCE_CONTEXT);
+        if (context == null) {
+            context = new BuildContext();
+            final String ditaDir = project.getProperty("dita.dir");
+            if (ditaDir != null) {
+                context.setDitaDir(new File(ditaDir).getAbsoluteFile());
+            }
+            project.addReference(ANT_REFERENCE_CONTEXT, context);
+        }
+        return context;
+    }
+    
+    private Set<File> readListFile(final List<Xslt.IncludesFile> includes, final DITAOTLogger logger) {
     	final Set<File> inc = new HashSet<File>();
     	for (final Xslt.IncludesFile i: includes) {
             if (!isValid(i.ifProperty, null)) {
@@ -0,0 +1,506 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.invoker;
+
+import static org.dita.dost.util.Constants.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.BuildListener;
+import org.apache.tools.ant.MagicNames;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.ProjectHelper;
+import org.apache.tools.ant.Target;
+import org.apache.tools.ant.Task;
+import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.log.MessageUtils;
+import org.dita.dost.module.DebugAndFilterModule;
+import org.dita.dost.util.Configuration;
+import org.dita.dost.util.ParallelUtils;
+
+/**
+ * Ant task that runs several transtypes with shared preprocessing.
+ *
+ * <p>Transtypes whose preprocessing is the same are grouped and preprocessing
+ * is run once per group. Preprocessing of two transtypes is the same when their
+ * {@code dita2<transtype>.init} targets set the same {@code preprocess.*} and
+ * {@code args.*} properties, and when both are print transtypes, both are
+ * Eclipse help or neither is, because preprocessing modules depend on the
+ * transtype only through those.</p>
+ *
+ * <p>Output stages of all transtypes are run concurrently after preprocessing.
+ * Each output stage has its own temporary directory: the first transtype of a
+ * group uses the directory preprocessing was run in, and the other transtypes
+ * of the group use copies of it made before any output stage is started. Thus
+ * no output stage can modify temporary files another one is reading. Output of
+ * each transtype is written into a subdirectory of the output directory named
+ * after the transtype.</p>
+ *
+ * <p>Preprocessing steps are skipped in output stages by setting the properties
+ * named in the {@code unless} attributes of the targets {@code preprocess}
+ * depends on, and the properties set by preprocessing are passed to the output
+ * stages. Steps that copy resources into the output directory are run in the
+ * output stages instead of preprocessing.</p>
+ *
+ * <p>Additional DITAVAL profiles given with {@code args.filter.profiles} are
+ * filtered in the same debug-filter pass as the main profile. For each transtype
+ * and profile, an output stage named {@code <transtype>-<profile>} runs the
+ * preprocessing steps after debug-filter and the transtype in a copy of the
+ * profile temporary directory, with the profile DITAVAL as the filter file.</p>
+ *
+ * @since 2.0
+ */
+public final class FanOutTask extends Task {
+
+    private static final String TARGET_PREPROCESS = "preprocess";
+    private static final String TARGET_BUILD_INIT = "build-init";
+    private static final String TARGET_DEBUG_FILTER = "debug-filter";
+    private static final String TARGET_COPY_FILES = "copy-files";
+    /** Preprocessing targets that are run once for all profiles. */
+    private static final List<String> PROFILE_SHARED_TARGETS = Arrays.asList("gen-list", "debug-filter");
+    /** Preprocessing targets that copy files into the output directory. */
+    private static final List<String> OUTPUT_TARGETS = Arrays.asList("copy-image", "copy-html", "copy-flag");
+    /** Property to skip temporary directory initialization in build-init. */
+    private static final String PROPERTY_INIT_TEMP_SKIP = "init-temp.skip";
+    private static final String PROPERTY_TEMP_DIR = "dita.temp.dir";
+    private static final String PROPERTY_OUTPUT_DIR = "output.dir";
+    private static final String PROPERTY_PROFILES = "args.filter.profiles";
+    private static final String PROPERTY_FILTER = "args.filter";
+    private static final String PROPERTY_VALFILE = "dita.input.valfile";
+    private static final String PRINT_PREPROCESS = "print";
+
+    private final List<String> transtypes = new ArrayList<String>();
+
+    /**
+     * Set transtypes to run.
+     *
+     * @param transtypes comma or whitespace separated list of transtypes
+     */
+    public void setTranstypes(final String transtypes) {
+        this.transtypes.clear();
+        for (final String transtype: transtypes.split("[,\\s]+")) {
+            if (transtype.length() > 0 && !this.transtypes.contains(transtype)) {
+                this.transtypes.add(transtype);
+            }
+        }
+    }
+
+    @Override
+    public void execute() throws BuildException {
+        if (transtypes.isEmpty()) {
+            throw new BuildException("transtypes attribute must be specified");
+        }
+        final Project project = getProject();
+        for (final String transtype: transtypes) {
+            if (!project.getTargets().containsKey(getTarget(transtype))) {
+                throw new BuildException(MessageUtils.getInstance().getMessage("DOTA001F", transtype).toString());
+            }
+        }
+        final File tempDir = project.resolveFile(project.getProperty(PROPERTY_TEMP_DIR));
+        final File outputDir = project.resolveFile(project.getProperty(PROPERTY_OUTPUT_DIR));
+
+        final Set<String> outputTargets = getDependencies(OUTPUT_TARGETS);
+        final Set<String> stageSkippedTargets = getDependencies(Arrays.asList(TARGET_PREPROCESS));
+        stageSkippedTargets.removeAll(outputTargets);
+        stageSkippedTargets.remove(TARGET_COPY_FILES);
+        final Map<String, String> preprocessSkip = getSkipProperties(outputTargets);
+        final Map<String, String> stageSkip = getSkipProperties(stageSkippedTargets);
+        stageSkip.put(PROPERTY_INIT_TEMP_SKIP, "true");
+        final Map<String, File> profiles = getProfiles();
+        final Set<String> profileSkippedTargets = getDependencies(PROFILE_SHARED_TARGETS);
+        profileSkippedTargets.removeAll(outputTargets);
+        final Map<String, String> profileSkip = getSkipProperties(profileSkippedTargets);
+        profileSkip.put(PROPERTY_INIT_TEMP_SKIP, "true");
+
+        final Map<String, Map<String, String>> stageProperties = new LinkedHashMap<String, Map<String, String>>();
+        for (final List<String> group: getGroups()) {
+            final String first = group.get(0);
+            final File groupTempDir = new File(tempDir, first);
+            final File groupOutputDir = new File(outputDir, first);
+            log("Preprocess " + group, Project.MSG_INFO);
+            final Map<String, String> props = new HashMap<String, String>(preprocessSkip);
+            props.put(ANT_INVOKER_EXT_PARAM_TRANSTYPE, first);
+            props.put(PROPERTY_TEMP_DIR, groupTempDir.getAbsolutePath());
+            props.put(PROPERTY_OUTPUT_DIR, groupOutputDir.getAbsolutePath());
+            final PropertySnapshot init = new PropertySnapshot(TARGET_BUILD_INIT);
+            final PropertySnapshot preprocess = new PropertySnapshot(TARGET_PREPROCESS);
+            final PropertySnapshot filter = new PropertySnapshot(TARGET_DEBUG_FILTER);
+            final List<String> targets = new ArrayList<String>();
+            if (project.getTargets().containsKey(getInitTarget(first))) {
+                targets.add(getInitTarget(first));
+            }
+            targets.add(TARGET_BUILD_INIT);
+            targets.add(TARGET_PREPROCESS);
+            project.addBuildListener(init);
+            project.addBuildListener(preprocess);
+            project.addBuildListener(filter);
+            try {
+                runTargets(targets, props);
+            } finally {
+                project.removeBuildListener(init);
+                project.removeBuildListener(preprocess);
+                project.removeBuildListener(filter);
+            }
+            if (init.properties == null || preprocess.properties == null
+                    || (!profiles.isEmpty() && filter.properties == null)) {
+                throw new BuildException("Failed to preprocess " + group);
+            }
+
+            final Map<String, Map<String, String>> profileStages = new LinkedHashMap<String, Map<String, String>>();
+            if (!profiles.isEmpty()) {
+                final File profilesDir = new File(groupTempDir, DebugAndFilterModule.PROFILES_DIR);
+                for (final String transtype: group) {
+                    for (final Map.Entry<String, File> profile: profiles.entrySet()) {
+                        final String name = transtype + "-" + profile.getKey();
+                        final File stageTempDir = new File(tempDir, name);
+                        final File stageOutputDir = new File(outputDir, name);
+                        try {
+                            deleteDir(stageTempDir);
+                            copyDir(new File(profilesDir, profile.getKey()), stageTempDir);
+                        } catch (final IOException e) {
+                            throw new BuildException("Failed to copy profile temporary directory " + profile.getKey() + ": " + e.getMessage(), e);
+                        }
+                        final Map<String, String> stage = getChangedProperties(init.properties, filter.properties,
+                                groupTempDir, stageTempDir, groupOutputDir, stageOutputDir);
+                        stage.putAll(profileSkip);
+                        stage.put(ANT_INVOKER_EXT_PARAM_TRANSTYPE, transtype);
+                        stage.put(PROPERTY_TEMP_DIR, stageTempDir.getAbsolutePath());
+                        stage.put(PROPERTY_OUTPUT_DIR, stageOutputDir.getAbsolutePath());
+                        stage.put(PROPERTY_FILTER, profile.getValue().getAbsolutePath());
+                        stage.put(PROPERTY_VALFILE, profile.getValue().getAbsolutePath());
+                        profileStages.put(name, stage);
+                    }
+                }
+                try {
+                    deleteDir(profilesDir);
+                } catch (final IOException e) {
+                    throw new BuildException("Failed to delete " + profilesDir + ": " + e.getMessage(), e);
+                }
+            }
+
+            for (final String transtype: group) {
+                final File stageTempDir = new File(tempDir, transtype);
+                final File stageOutputDir = new File(outputDir, transtype);
+                if (!transtype.equals(first)) {
+                    try {
+                        copyDir(groupTempDir, stageTempDir);
+                    } catch (final IOException e) {
+                        throw new BuildException("Failed to copy temporary directory " + groupTempDir + ": " + e.getMessage(), e);
+                    }
+                }
+                final Map<String, String> stage = getChangedProperties(init.properties, preprocess.properties,
+                        groupTempDir, stageTempDir, groupOutputDir, stageOutputDir);
+                stage.putAll(stageSkip);
+                stage.put(ANT_INVOKER_EXT_PARAM_TRANSTYPE, transtype);
+                stage.put(PROPERTY_TEMP_DIR, stageTempDir.getAbsolutePath());
+                stage.put(PROPERTY_OUTPUT_DIR, stageOutputDir.getAbsolutePath());
+                stageProperties.put(transtype, stage);
+            }
+            stageProperties.putAll(profileStages);
+        }
+
+        final List<Callable<Void>> stages = new ArrayList<Callable<Void>>();
+        for (final Map.Entry<String, Map<String, String>> e: stageProperties.entrySet()) {
+            final Map<String, String> props = e.getValue();
+            final List<String> targets = Arrays.asList(getTarget(props.get(ANT_INVOKER_EXT_PARAM_TRANSTYPE)));
+            stages.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    runTargets(targets, props);
+                    return null;
+                }
+            });
+        }
+        log("Run output stages " + stageProperties.keySet(), Project.MSG_INFO);
+        try {
+            ParallelUtils.invokeAll(stages);
+        } catch (final DITAOTException e) {
+            throw new BuildException(e);
+        }
+    }
+
+    /**
+     * Get properties a target set or changed, with paths moved to stage directories.
+     *
+     * @param before properties before the target
+     * @param after properties after the target
+     * @return changed string properties
+     */
+    private static Map<String, String> getChangedProperties(final Map<String, Object> before, final Map<String, Object> after,
+            final File groupTempDir, final File stageTempDir, final File groupOutputDir, final File stageOutputDir) {
+        final Map<String, String> res = new HashMap<String, String>();
+        for (final Map.Entry<String, Object> e: after.entrySet()) {
+            if (e.getValue() instanceof String && !e.getValue().equals(before.get(e.getKey()))) {
+                res.put(e.getKey(), ((String) e.getValue())
+                        .replace(groupTempDir.getAbsolutePath(), stageTempDir.getAbsolutePath())
+                        .replace(groupOutputDir.getAbsolutePath(), stageOutputDir.getAbsolutePath()));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Get additional DITAVAL profiles.
+     *
+     * @return DITAVAL files by profile name in the order they were given
+     */
+    private Map<String, File> getProfiles() {
+        final Map<String, File> res = new LinkedHashMap<String, File>();
+        for (final File profile: DebugAndFilterModule.getProfileFiles(getProject().getProperty(PROPERTY_PROFILES),
+                                                                     getProject().getBaseDir())) {
+            if (res.put(DebugAndFilterModule.getProfileName(profile), profile) != null) {
+                throw new BuildException("Duplicate profile name " + DebugAndFilterModule.getProfileName(profile)
+                        + " for DITAVAL file " + profile.getPath());
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Group transtypes that have the same preprocessing.
+     *
+     * @return transtype groups in the order of the transtypes
+     */
+    private Collection<List<String>> getGroups() {
+        final Map<String, List<String>> groups = new LinkedHashMap<String, List<String>>();
+        for (final String transtype: transtypes) {
+            final String key = getPreprocessKey(transtype);
+            List<String> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<String>();
+                groups.put(key, group);
+            }
+            group.add(transtype);
+        }
+        return groups.values();
+    }
+
+    /**
+     * Get key that is equal for transtypes with the same preprocessing.
+     */
+    private String getPreprocessKey(final String transtype) {
+        final String type = INDEX_TYPE_ECLIPSEHELP.equals(transtype) ? transtype
+                          : Configuration.printTranstype.contains(transtype) ? PRINT_PREPROCESS
+                          : "";
+        final Map<String, Object> props = new TreeMap<String, Object>();
+        final String initTarget = getInitTarget(transtype);
+        if (getProject().getTargets().containsKey(initTarget)) {
+            final PropertySnapshot init = new PropertySnapshot(initTarget);
+            final Map<String, String> transtypeProps = new HashMap<String, String>();
+            transtypeProps.put(ANT_INVOKER_EXT_PARAM_TRANSTYPE, transtype);
+            getProject().addBuildListener(init);
+            try {
+                runTargets(Arrays.asList(initTarget), transtypeProps);
+            } finally {
+                getProject().removeBuildListener(init);
+            }
+            if (init.properties != null) {
+                for (final Map.Entry<String, Object> e: init.properties.entrySet()) {
+                    if (e.getKey().startsWith("preprocess.") || e.getKey().startsWith("args.")) {
+                        props.put(e.getKey(), e.getValue());
+                    }
+                }
+            }
+        }
+        return type + props.toString();
+    }
+
+    /**
+     * Get names of targets and their dependencies.
+     */
+    private Set<String> getDependencies(final List<String> targets) {
+        final Set<String> res = new HashSet<String>();
+        for (final String target: targets) {
+            if (getProject().getTargets().containsKey(target)) {
+                for (final Target t: getProject().topoSort(target, getProject().getTargets(), false)) {
+                    res.add(t.getName());
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Get properties that skip targets.
+     */
+    private Map<String, String> getSkipProperties(final Set<String> targets) {
+        final Map<String, String> res = new HashMap<String, String>();
+        for (final String target: targets) {
+            final String unless = getProject().getTargets().get(target).getUnless();
+            if (unless != null && unless.length() > 0) {
+                res.put(unless, "true");
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Run targets of the current build file in a subproject that inherits all
+     * properties. Unlike nested properties of the {@code ant} task, the given
+     * properties override user properties, e.g. {@code transtype} and
+     * {@code output.dir} given on the command line.
+     */
+    private void runTargets(final List<String> targets, final Map<String, String> properties) {
+        final Project project = getProject();
+        final File antFile = new File(project.getProperty(MagicNames.ANT_FILE));
+        final Project sub = project.createSubProject();
+        sub.setJavaVersionProperty();
+        for (final BuildListener listener: project.getBuildListeners()) {
+            sub.addBuildListener(listener);
+        }
+        project.initSubProject(sub);
+        project.copyUserProperties(sub);
+        project.copyInheritedProperties(sub);
+        for (final Map.Entry<String, String> e: properties.entrySet()) {
+            sub.setUserProperty(e.getKey(), e.getValue());
+        }
+        for (final Map.Entry<String, Object> e: project.getProperties().entrySet()) {
+            if (e.getValue() instanceof String && sub.getProperty(e.getKey()) == null
+                    && !e.getKey().equals(MagicNames.PROJECT_BASEDIR) && !e.getKey().equals(MagicNames.ANT_FILE)) {
+                sub.setNewProperty(e.getKey(), (String) e.getValue());
+            }
+        }
+        sub.setBaseDir(project.getBaseDir());
+        sub.setUserProperty(MagicNames.ANT_FILE, antFile.getAbsolutePath());
+        ProjectHelper.configureProject(sub, antFile);
+        sub.fireSubBuildStarted();
+        Throwable error = null;
+        try {
+            sub.executeTargets(new Vector<String>(targets));
+        } catch (final BuildException e) {
+            error = e;
+            throw e;
+        } finally {
+            sub.fireSubBuildFinished(error);
+        }
+    }
+
+    private static String getTarget(final String transtype) {
+        return "dita2" + transtype;
+    }
+
+    private static String getInitTarget(final String transtype) {
+        return getTarget(transtype) + ".init";
+    }
+
+    /**
+     * Copy directory recursively.
+     */
+    private static void copyDir(final File src, final File dst) throws IOException {
+        final Path srcPath = src.toPath();
+        final Path dstPath = dst.toPath();
+        Files.walkFileTree(srcPath, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(dstPath.resolve(srcPath.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.copy(file, dstPath.resolve(srcPath.relativize(file)), StandardCopyOption.REPLACE_EXISTING);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Delete directory recursively if it exists.
+     */
+    private static void deleteDir(final File dir) throws IOException {
+        if (!dir.exists()) {
+            return;
+        }
+        Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+            @Override
+            public FileVisitResult postVisitDirectory(final Path d, final IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Build listener that records the properties of a subproject when a target finishes.
+     */
+    private final class PropertySnapshot implements BuildListener {
+
+        private final String target;
+        /** Subproject properties, {@code null} if the target has not finished. */
+        Map<String, Object> properties;
+
+        PropertySnapshot(final String target) {
+            this.target = target;
+        }
+
+        @Override
+        public void targetFinished(final BuildEvent event) {
+            if (event.getProject() != getProject() && event.getException() == null
+                    && event.getTarget().getName().equals(target)) {
+                properties = new HashMap<String, Object>(event.getProject().getProperties());
+            }
+        }
+
+        @Override
+        public void buildStarted(final BuildEvent event) {
+            // NOOP
+        }
+
+        @Override
+        public void buildFinished(final BuildEvent event) {
+            // NOOP
+        }
+
+        @Override
+        public void targetStarted(final BuildEvent event) {
+            // NOOP
+        }
+
+        @Override
+        public void taskStarted(final BuildEvent event) {
+            // NOOP
+        }
+
+        @Override
+        public void taskFinished(final BuildEvent event) {
+            // NOOP
+        }
+
+        @Override
+        public void messageLogged(final BuildEvent event) {
+            // NOOP
+        }
+
+    }
+
+}
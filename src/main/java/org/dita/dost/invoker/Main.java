@@ -75,7 +75,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             this.property = property;
         }
 
-        abstract String getValue(final String value);
+        abstract String getValue(final File baseDir, final String value);
     }
 
     private static class StringArgument extends Argument {
@@ -84,7 +84,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         }
 
         @Override
-        String getValue(final String value) {
+        String getValue(final File baseDir, final String value) {
             return value;
         }
     }
@@ -95,8 +95,9 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         }
 
         @Override
-        String getValue(final String value) {
-            return new File(value).getAbsolutePath();
+        String getValue(final File baseDir, final String value) {
+            final File f = new File(value);
+            return (f.isAbsolute() ? f : new File(baseDir, value)).getAbsolutePath();
         }
     }
 
@@ -200,11 +201,17 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
     /** Plug-in uninstall ID. */
     private String uninstallId;
 
+    /** Build daemon port, {@code null} if not running as a daemon. */
+    private Integer daemonPort;
+
     /** Stream to use for logging. */
-    private static PrintStream out = System.out;
+    private PrintStream out = System.out;
 
     /** Stream that we are using for logging error messages. */
-    private static PrintStream err = System.err;
+    private PrintStream err = System.err;
+
+    /** Directory relative file arguments are resolved against. */
+    private final File baseDir;
 
     /** The build targets. */
     private final Vector<String> targets = new Vector<String>();
@@ -257,7 +264,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
      * Whether or not a logfile is being used. This is used to check if the
      * output streams must be closed.
      */
-    private static boolean isLogFileUsed = false;
+    private boolean isLogFileUsed = false;
 
     /**
      * optional thread priority
@@ -332,6 +339,20 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             }
         }
 
+        if (readyToRun && daemonPort != null) {
+            int exitCode = 0;
+            try {
+                new Daemon(daemonPort, buildFile).run();
+            } catch (final Throwable exc) {
+                printMessage(exc);
+                exitCode = 1;
+            } finally {
+                handleLogfile();
+            }
+            exit(exitCode);
+            return;
+        }
+
         // expect the worst
         int exitCode = 1;
         try {
@@ -373,7 +394,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
      * 
      * @since Ant 1.6
      */
-    private static void handleLogfile() {
+    private void handleLogfile() {
         if (isLogFileUsed) {
             FileUtils.close(out);
             FileUtils.close(err);
@@ -395,6 +416,17 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
      * Constructor used when creating Main for later arg processing and startup
      */
     public Main() {
+        this(new File(System.getProperty("user.dir")));
+    }
+
+    /**
+     * Constructor used when file arguments should be resolved against a directory
+     * other than the current working directory, e.g. by a build {@link Daemon}.
+     * 
+     * @param baseDir base directory for relative file arguments
+     */
+    Main(final File baseDir) {
+        this.baseDir = baseDir.getAbsoluteFile();
     }
 
     /**
@@ -427,6 +459,8 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
                 i = handleArgInstall(args, i);
             } else if (arg.equals("-uninstall")) {
                 i = handleArgUninstall(args, i);
+            } else if (arg.equals("-daemon")) {
+                i = handleArgDaemon(args, i);
             } else if (arg.equals("-diagnostics")) {
                 justPrintDiagnostics = true;
                 // } else if (arg.equals("-quiet") || arg.equals("-q")) {
@@ -439,7 +473,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
                 allowInput = false;
             } else if (arg.equals("-logfile") || arg.equals("-l")) {
                 try {
-                    final File logFile = new File(args[i + 1]);
+                    final File logFile = resolveFile(args[i + 1]);
                     i++;
                     logTo = new PrintStream(new FileOutputStream(logFile));
                     isLogFileUsed = true;
@@ -521,7 +555,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             targets.clear();
             if (installFile != null) {
                 targets.add("install");                
-                final File f = new File(installFile.replace('/', File.separatorChar)).getAbsoluteFile();
+                final File f = resolveFile(installFile.replace('/', File.separatorChar));
                 if (f.exists()) {
                     definedProps.put("plugin.file", f.getAbsolutePath());
                 } else {
@@ -531,6 +565,8 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
                 targets.add("uninstall");
                 definedProps.put("plugin.id", uninstallId);
             }
+        } else if (daemonPort != null) {
+            // build parameters are given by daemon clients
         } else {
             if (!definedProps.containsKey("transtype")) {
                 System.err.println("Error: Transformation type not defined");
@@ -546,7 +582,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             }
             // default values
             if (!definedProps.containsKey("output.dir")) {
-                definedProps.put("output.dir", new File(new File("."), "out").getAbsolutePath());
+                definedProps.put("output.dir", new File(baseDir, "out").getAbsolutePath());
             }
             if (!definedProps.containsKey("base.temp.dir") && !definedProps.containsKey("dita.temp.dir")) {
                 definedProps.put("base.temp.dir", new File(System.getProperty("java.io.tmpdir")).getAbsolutePath());
@@ -558,7 +594,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             // but -find then search for it
             if (searchForFile) {
                 if (searchForThis != null) {
-                    buildFile = findBuildFile(System.getProperty("user.dir"), searchForThis);
+                    buildFile = findBuildFile(baseDir.getAbsolutePath(), searchForThis);
                     if (buildFile == null) {
                         throw new BuildException("Could not locate a build file!");
                     }
@@ -572,7 +608,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
                         if (msgOutputLevel >= Project.MSG_VERBOSE) {
                             System.out.println("Searching the default build file: " + searchForThis);
                         }
-                        buildFile = findBuildFile(System.getProperty("user.dir"), searchForThis);
+                        buildFile = findBuildFile(baseDir.getAbsolutePath(), searchForThis);
                     } while (buildFile == null && it.hasNext());
                     if (buildFile == null) {
                         throw new BuildException("Could not locate a build file!");
@@ -650,6 +686,19 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         return pos;
     }
     
+    /** Handle the -daemon argument */
+    private int handleArgDaemon(final String[] args, int pos) {
+        daemonPort = Daemon.DEFAULT_PORT;
+        if (pos < args.length - 1 && !args[pos + 1].startsWith("-")) {
+            try {
+                daemonPort = Integer.valueOf(args[++pos]);
+            } catch (final NumberFormatException e) {
+                throw new BuildException("Unrecognized daemon port: " + args[pos]);
+            }
+        }
+        return pos;
+    }
+
     /** Handle the -buildfile, -file, -f argument */
     private int handleArgBuildFile(final String[] args, int pos) {
         try {
@@ -719,7 +768,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         }
         final Argument a = ARGUMENTS.get(name);
         
-        definedProps.put(a.property, a.getValue(value));
+        definedProps.put(a.property, a.getValue(baseDir, value));
         return argPos;
     }
     
@@ -739,7 +788,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         }
         final Argument a = LEGACY_ARGUMENTS.get(name);
         
-        definedProps.put(a.property, a.getValue(value));
+        definedProps.put(a.property, a.getValue(baseDir, value));
         return argPos;
     }
 
@@ -812,7 +861,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             final Properties props = new Properties();
             FileInputStream fis = null;
             try {
-                fis = new FileInputStream(filename);
+                fis = new FileInputStream(resolveFile(filename));
                 props.load(fis);
             } catch (final IOException e) {
                 System.out.println("Could not load property file " + filename + ": " + e.getMessage());
@@ -831,6 +880,17 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         }
     }
 
+    /**
+     * Resolve file name against base directory.
+     * 
+     * @param name file name, may be relative
+     * @return absolute file
+     */
+    private File resolveFile(final String name) {
+        final File f = new File(name);
+        return f.isAbsolute() ? f : new File(baseDir, name);
+    }
+
     /**
      * Helper to get the parent file for a given file.
      * <p>
@@ -1116,6 +1176,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         msg.append("Usage: dita -f <name> -i <file> [options]" + lSep);
         msg.append("   or: dita -install <file>" + lSep);
         msg.append("   or: dita -uninstall <id>" + lSep);
+        msg.append("   or: dita -client [-port <port>] -f <name> -i <file> [options]" + lSep);
         msg.append("   or: dita -help" + lSep);
         msg.append("   or: dita -version" + lSep);        
         msg.append("Arguments: " + lSep);
@@ -1125,6 +1186,10 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         msg.append("  -uninstall <id>        uninstall plug-in with the ID" + lSep);
         msg.append("  -h, -help              print this message" + lSep);
         msg.append("  -version               print version information and exit" + lSep);
+        msg.append("  -daemon [port]         run as a build daemon that serves requests" + lSep);
+        msg.append("                         on a local port (default " + Daemon.DEFAULT_PORT + ")" + lSep);
+        msg.append("  -client                send the build to a running daemon, must be" + lSep);
+        msg.append("                         the first argument" + lSep);
         msg.append("Options: " + lSep);
         msg.append("  -o, -output <dir>      output directory" + lSep);   
         // msg.append("  -projecthelp, -p       print project help information" + lSep);
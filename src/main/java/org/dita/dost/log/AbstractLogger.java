@@ -0,0 +1,42 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.log;
+
+import java.text.MessageFormat;
+
+/**
+ * Base logger that implements message ID and pattern logging with the basic
+ * logging methods. Messages are formatted when they are logged.
+ * 
+ * @since 2.0
+ */
+public abstract class AbstractLogger implements DITAOTLogger {
+
+    @Override
+    public void log(final String id, final String... params) {
+        final MessageBean msg = MessageUtils.getInstance().getMessage(id, params);
+        final String type = msg.getType();
+        if (type.equals(MessageBean.FATAL) || type.equals(MessageBean.ERROR)) {
+            error(msg.toString());
+        } else if (type.equals(MessageBean.WARN)) {
+            warn(msg.toString());
+        } else if (type.equals(MessageBean.DEBUG)) {
+            debug(msg.toString());
+        } else {
+            info(msg.toString());
+        }
+    }
+
+    @Override
+    public void info(final String pattern, final Object... args) {
+        info(MessageFormat.format(pattern, args));
+    }
+
+    @Override
+    public void debug(final String pattern, final Object... args) {
+        debug(MessageFormat.format(pattern, args));
+    }
+
+}
@@ -0,0 +1,428 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Asynchronous logger.
+ *
+ * <p>Log records are put into a bounded queue and written by a background
+ * thread in batches, so that callers do not wait for console output or log
+ * listeners. If the queue is full, callers block until there is room, so no
+ * records are lost. Records are forwarded to a delegate logger and optionally
+ * written as JSON objects, one per line, with the {@link LogContext logging
+ * context} of the calling thread.</p>
+ *
+ * <p>Messages logged with {@link #log(String, String...)},
+ * {@link #info(String, Object...)} and {@link #debug(String, Object...)} are
+ * looked up and formatted by the background thread.</p>
+ *
+ * <p>Instances are thread-safe. Pending records are written with
+ * {@link #flush()}, e.g. before other output is written to the console. The
+ * logger must be {@link #close() closed} to write pending records. Errors
+ * thrown while writing records are rethrown by {@link #close()}.</p>
+ *
+ * @since 2.0
+ */
+public final class AsyncLogger implements DITAOTLogger, Closeable {
+
+    /** Default queue capacity. */
+    public static final int DEFAULT_CAPACITY = 8192;
+    /** Maximum number of records written in one batch. */
+    private static final int BATCH_SIZE = 512;
+    /** Record that stops the background thread. */
+    private static final Record STOP = new Record(null, null, null, null, null, null, null);
+
+    private final DITAOTLogger delegate;
+    private final Writer json;
+    private final BlockingQueue<Record> queue;
+    private final Thread worker;
+    private volatile boolean closed;
+    /** First error thrown while writing records. */
+    private IOException failure;
+
+    /**
+     * Create new asynchronous logger.
+     *
+     * @param delegate logger to forward records to, may be {@code null}
+     * @param json writer for JSON records, may be {@code null}
+     * @param capacity queue capacity
+     */
+    public AsyncLogger(final DITAOTLogger delegate, final Writer json, final int capacity) {
+        this.delegate = delegate;
+        this.json = json;
+        queue = new ArrayBlockingQueue<Record>(capacity);
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "dita-ot-logger");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Create new asynchronous logger with default capacity.
+     *
+     * @param delegate logger to forward records to, may be {@code null}
+     * @param json writer for JSON records, may be {@code null}
+     */
+    public AsyncLogger(final DITAOTLogger delegate, final Writer json) {
+        this(delegate, json, DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public void info(final String msg) {
+        add(new Record(MessageBean.INFO, msg, null, null, null, null, LogContext.getCurrent()));
+    }
+
+    @Override
+    public void warn(final String msg) {
+        add(new Record(MessageBean.WARN, msg, null, null, null, null, LogContext.getCurrent()));
+    }
+
+    @Override
+    public void error(final String msg) {
+        add(new Record(MessageBean.ERROR, msg, null, null, null, null, LogContext.getCurrent()));
+    }
+
+    @Override
+    public void error(final String msg, final Throwable t) {
+        add(new Record(MessageBean.ERROR, msg, null, null, null, t, LogContext.getCurrent()));
+    }
+
+    @Override
+    public void debug(final String msg) {
+        add(new Record(MessageBean.DEBUG, msg, null, null, null, null, LogContext.getCurrent()));
+    }
+
+    /**
+     * {@inheritDoc} The message is looked up and formatted asynchronously.
+     */
+    @Override
+    public void log(final String id, final String... params) {
+        add(new Record(null, null, id, params, null, null, LogContext.getCurrent()));
+    }
+
+    /**
+     * {@inheritDoc} The message is formatted asynchronously.
+     */
+    @Override
+    public void info(final String pattern, final Object... args) {
+        add(new Record(MessageBean.INFO, pattern, null, null, args, null, LogContext.getCurrent()));
+    }
+
+    /**
+     * {@inheritDoc} The message is formatted asynchronously.
+     */
+    @Override
+    public void debug(final String pattern, final Object... args) {
+        add(new Record(MessageBean.DEBUG, pattern, null, null, args, null, LogContext.getCurrent()));
+    }
+
+    /**
+     * Write pending records and wait until they have been written.
+     */
+    public void flush() {
+        final Record barrier = new Record(new CountDownLatch(1));
+        add(barrier);
+        boolean interrupted = false;
+        while (true) {
+            try {
+                barrier.barrier.await();
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write pending records, stop the background thread and close the JSON writer.
+     * Records logged after closing are forwarded to the delegate logger synchronously.
+     *
+     * @throws IOException if writing records or closing the JSON writer failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(STOP);
+                worker.join();
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        // records queued while closing
+        synchronized (this) {
+            for (Record record = queue.poll(); record != null; record = queue.poll()) {
+                write(record);
+            }
+        }
+        if (json != null) {
+            json.close();
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    // Private methods
+
+    private void add(final Record record) {
+        if (closed) {
+            synchronized (this) {
+                if (record.barrier != null) {
+                    record.barrier.countDown();
+                } else {
+                    record.format();
+                    if (delegate != null) {
+                        forward(record);
+                    }
+                }
+            }
+            return;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(record);
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write queued records until stopped.
+     */
+    private void drain() {
+        final List<Record> batch = new ArrayList<Record>(BATCH_SIZE);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                synchronized (this) {
+                    for (final Record record: batch) {
+                        if (record == STOP) {
+                            flushJSON();
+                            return;
+                        }
+                        write(record);
+                    }
+                    flushJSON();
+                }
+                batch.clear();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(final Record record) {
+        if (record.barrier != null) {
+            flushJSON();
+            record.barrier.countDown();
+            return;
+        }
+        try {
+            record.format();
+            if (delegate != null) {
+                forward(record);
+            }
+            if (json != null) {
+                writeJSON(record);
+            }
+        } catch (final RuntimeException e) {
+            fail(new IOException("Failed to write log record: " + e.getMessage(), e));
+        } catch (final IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Store writing error to be thrown on close. Only the first error is stored.
+     *
+     * @param e writing error
+     */
+    private void fail(final IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private void forward(final Record record) {
+        if (record.level.equals(MessageBean.DEBUG)) {
+            delegate.debug(record.msg);
+        } else if (record.level.equals(MessageBean.INFO)) {
+            delegate.info(record.msg);
+        } else if (record.level.equals(MessageBean.WARN)) {
+            delegate.warn(record.msg);
+        } else if (record.t != null) {
+            delegate.error(record.msg, record.t);
+        } else {
+            delegate.error(record.msg);
+        }
+    }
+
+    private void flushJSON() {
+        if (json != null) {
+            try {
+                json.flush();
+            } catch (final IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    private void writeJSON(final Record record) throws IOException {
+        json.write("{\"time\":");
+        json.write(Long.toString(record.time));
+        json.write(",\"level\":");
+        writeString(record.level);
+        if (record.id != null) {
+            json.write(",\"id\":");
+            writeString(record.id);
+        }
+        if (record.context.getModule() != null) {
+            json.write(",\"module\":");
+            writeString(record.context.getModule());
+        }
+        if (record.context.getFile() != null) {
+            json.write(",\"file\":");
+            writeString(record.context.getFile());
+        }
+        json.write(",\"thread\":");
+        writeString(record.thread);
+        json.write(",\"message\":");
+        writeString(record.msg);
+        if (record.t != null) {
+            final StringWriter buf = new StringWriter();
+            record.t.printStackTrace(new PrintWriter(buf));
+            json.write(",\"exception\":");
+            writeString(buf.toString());
+        }
+        json.write("}\n");
+    }
+
+    private void writeString(final String value) throws IOException {
+        if (value == null) {
+            json.write("null");
+            return;
+        }
+        json.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                json.write("\\\"");
+                break;
+            case '\\':
+                json.write("\\\\");
+                break;
+            case '\n':
+                json.write("\\n");
+                break;
+            case '\r':
+                json.write("\\r");
+                break;
+            case '\t':
+                json.write("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    json.write(String.format("\\u%04x", (int) c));
+                } else {
+                    json.write(c);
+                }
+            }
+        }
+        json.write('"');
+    }
+
+    /** Log record. */
+    private static final class Record {
+        final long time = System.currentTimeMillis();
+        final String thread = Thread.currentThread().getName();
+        final String id;
+        final String[] params;
+        final Throwable t;
+        final LogContext context;
+        /** Latch released when preceding records have been written, {@code null} for log records. */
+        final CountDownLatch barrier;
+        String level;
+        String msg;
+        /** Message pattern arguments, {@code null} when message is formatted. */
+        Object[] args;
+
+        Record(final String level, final String msg, final String id, final String[] params, final Object[] args,
+                final Throwable t, final LogContext context) {
+            this.level = level;
+            this.msg = msg;
+            this.id = id;
+            this.params = params;
+            this.args = args;
+            this.t = t;
+            this.context = context;
+            this.barrier = null;
+        }
+
+        Record(final CountDownLatch barrier) {
+            this.level = null;
+            this.msg = null;
+            this.id = null;
+            this.params = null;
+            this.args = null;
+            this.t = null;
+            this.context = null;
+            this.barrier = barrier;
+        }
+
+        /**
+         * Look up and format message from the message configuration or message pattern.
+         */
+        void format() {
+            if (msg == null && id != null) {
+                final MessageBean bean = MessageUtils.getInstance().getMessage(id, params);
+                msg = bean.toString();
+                level = bean.getType().equals(MessageBean.FATAL) ? MessageBean.ERROR : bean.getType();
+            } else if (args != null) {
+                msg = MessageFormat.format(msg, args);
+                args = null;
+            }
+        }
+    }
+
+}
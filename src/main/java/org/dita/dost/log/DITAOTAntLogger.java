@@ -13,7 +13,7 @@ import org.apache.tools.ant.Task;
  * 
  * @author Jarno Elovirta
  */
-public final class DITAOTAntLogger implements DITAOTLogger {
+public final class DITAOTAntLogger extends AbstractLogger {
 
     private final Project project;
     private Task task;
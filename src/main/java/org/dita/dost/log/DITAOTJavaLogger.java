@@ -13,7 +13,7 @@ import org.dita.dost.util.LogUtils;
  * 
  * @author Wu, Zhi Qiang
  */
-public final class DITAOTJavaLogger implements DITAOTLogger {
+public final class DITAOTJavaLogger extends AbstractLogger {
     private static boolean debugMode = false;
 
     /**
@@ -88,4 +88,17 @@ public final class DITAOTJavaLogger implements DITAOTLogger {
         }
     }
 
+    /**
+     * Log debug info when DEBUG mode enabled.
+     * 
+     * @param pattern message pattern
+     * @param args message arguments
+     */
+    @Override
+    public void debug(final String pattern, final Object... args) {
+        if (debugMode) {
+            super.debug(pattern, args);
+        }
+    }
+
 }
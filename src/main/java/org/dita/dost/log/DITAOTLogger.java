@@ -49,4 +49,31 @@ public interface DITAOTLogger {
      */
     public void debug(final String msg);
 
+    /**
+     * Log a message from the message configuration. The level is taken from
+     * the message type. Formatting may be deferred.
+     * 
+     * @param id message ID
+     * @param params message parameters
+     */
+    public void log(final String id, final String... params);
+
+    /**
+     * Log an information message formatted with {@link java.text.MessageFormat}.
+     * Formatting may be deferred, so arguments must not be modified after the call.
+     * 
+     * @param pattern message pattern
+     * @param args message arguments
+     */
+    public void info(final String pattern, final Object... args);
+
+    /**
+     * Log a debug message formatted with {@link java.text.MessageFormat}.
+     * Formatting may be deferred, so arguments must not be modified after the call.
+     * 
+     * @param pattern message pattern
+     * @param args message arguments
+     */
+    public void debug(final String pattern, final Object... args);
+
 }
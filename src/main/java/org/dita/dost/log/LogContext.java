@@ -0,0 +1,100 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.log;
+
+/**
+ * Logging context of the current thread.
+ *
+ * <p>The context holds the name of the running pipeline module and the file
+ * being processed, and is attached to log records by {@link AsyncLogger}.
+ * {@link org.dita.dost.pipeline.PipelineFacade PipelineFacade} binds the module,
+ * modules may bind the current file, and
+ * {@link org.dita.dost.util.ParallelUtils ParallelUtils} binds the context of
+ * the calling thread to worker threads.</p>
+ *
+ * <p>Instances are immutable.</p>
+ *
+ * @since 2.0
+ */
+public final class LogContext {
+
+    /** Empty context. */
+    public static final LogContext EMPTY = new LogContext(null, null);
+    /** Context bound to the current thread. */
+    private static final ThreadLocal<LogContext> current = new ThreadLocal<LogContext>();
+
+    private final String module;
+    private final String file;
+
+    private LogContext(final String module, final String file) {
+        this.module = module;
+        this.file = file;
+    }
+
+    /**
+     * Get context bound to current thread.
+     *
+     * @return bound context, or {@link #EMPTY} if none is bound
+     */
+    public static LogContext getCurrent() {
+        final LogContext context = current.get();
+        return context != null ? context : EMPTY;
+    }
+
+    /**
+     * Bind context to current thread.
+     *
+     * @param context context to bind, {@code null} to unbind
+     * @return previously bound context, may be {@code null}
+     */
+    public static LogContext bind(final LogContext context) {
+        final LogContext previous = current.get();
+        if (context != null) {
+            current.set(context);
+        } else {
+            current.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * Create context with module name. The file is cleared.
+     *
+     * @param module module name, may be {@code null}
+     * @return new context
+     */
+    public LogContext withModule(final String module) {
+        return new LogContext(module, null);
+    }
+
+    /**
+     * Create context with file.
+     *
+     * @param file file being processed, may be {@code null}
+     * @return new context
+     */
+    public LogContext withFile(final String file) {
+        return new LogContext(module, file);
+    }
+
+    /**
+     * Get module name.
+     *
+     * @return module name, may be {@code null}
+     */
+    public String getModule() {
+        return module;
+    }
+
+    /**
+     * Get file being processed.
+     *
+     * @return file, may be {@code null}
+     */
+    public String getFile() {
+        return file;
+    }
+
+}
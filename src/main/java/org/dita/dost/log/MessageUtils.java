@@ -8,11 +8,20 @@
  */
 package org.dita.dost.log;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Hashtable;
+import java.util.List;
 
 import javax.xml.parsers.DocumentBuilder;
 
@@ -40,11 +49,26 @@ public final class MessageUtils {
     private static final String ATTRIBUTE_TYPE = "type";
     private static final String CLASSPATH_RESOURCE = "messages.xml";
     private static final String RESOURCE = "resources/messages.xml";
+    /** Precompiled message catalog classpath resource. */
+    private static final String CLASSPATH_CATALOG = "messages.bin";
+    /** Precompiled message catalog file. */
+    private static final String CATALOG = "resources/messages.bin";
+    /** Precompiled message catalog format identifier. */
+    private static final int CATALOG_MAGIC = 0x444F544D;
+    private static final int CATALOG_VERSION = 1;
 
     // Variables
 
     private final Hashtable<String, MessageBean> hashTable = new Hashtable<String, MessageBean>();
-    private static MessageUtils utils;
+
+    /** Lazy holder for the singleton instance. */
+    private static final class Holder {
+        private static final MessageUtils utils;
+        static {
+            utils = new MessageUtils();
+            utils.loadDefaultMessages();
+        }
+    }
 
     // Constructors
 
@@ -59,26 +83,33 @@ public final class MessageUtils {
      * 
      * @return MessageUtils singleton instance
      */
-    public static synchronized MessageUtils getInstance(){
-        if(utils == null){
-            utils = new MessageUtils();
-            utils.loadDefaultMessages();
-        }
-        return utils;
+    public static MessageUtils getInstance(){
+        return Holder.utils;
     }
 
     // Methods
 
     /**
-     * Just bypass to invoke member function loadDefMsg().
-     *
+     * Load default messages. A precompiled message catalog is used if it is
+     * available and not older than the messages configuration file.
      */
     void loadDefaultMessages() {
 		InputStream msg = null;
 		try {
-		    if (new File(RESOURCE).exists()) {
-		    	msg = new FileInputStream(new File(RESOURCE));
+		    final File resource = new File(RESOURCE);
+		    final File catalog = new File(CATALOG);
+		    if (catalog.exists() && (!resource.exists() || catalog.lastModified() >= resource.lastModified())) {
+		        msg = new FileInputStream(catalog);
+		        loadCatalog(msg);
+		        return;
+		    } else if (resource.exists()) {
+		    	msg = new FileInputStream(resource);
 		    } else {
+		        msg = this.getClass().getClassLoader().getResourceAsStream(CLASSPATH_CATALOG);
+		        if (msg != null) {
+		            loadCatalog(msg);
+		            return;
+		        }
 		    	msg = this.getClass().getClassLoader().getResourceAsStream(CLASSPATH_RESOURCE);
 			}
 		    if (msg == null) {
@@ -135,6 +166,80 @@ public final class MessageUtils {
     	}
     }
 
+    /**
+     * Load messages from a precompiled message catalog.
+     * 
+     * @param in message catalog input stream
+     */
+    void loadCatalog(final InputStream in) throws Exception {
+        synchronized (hashTable) {
+            hashTable.clear();
+            try {
+                final DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+                if (data.readInt() != CATALOG_MAGIC || data.readInt() != CATALOG_VERSION) {
+                    throw new IOException("Unsupported message catalog format");
+                }
+                final int count = data.readInt();
+                for (int i = 0; i < count; i++) {
+                    final String id = data.readUTF();
+                    final String type = data.readUTF();
+                    final String reason = data.readUTF();
+                    final String response = data.readBoolean() ? data.readUTF() : null;
+                    hashTable.put(id, new MessageBean(id, type, reason, response));
+                }
+            } catch (final Exception e) {
+                throw new Exception("Failed to read message catalog: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Compile messages configuration file into a precompiled message catalog.
+     * 
+     * @param src messages configuration file
+     * @param dst message catalog file
+     * @throws Exception if reading messages or writing message catalog failed
+     */
+    public static void writeCatalog(final File src, final File dst) throws Exception {
+        final MessageUtils messages = new MessageUtils();
+        InputStream in = null;
+        try {
+            in = new FileInputStream(src);
+            messages.loadMessages(in);
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+        }
+        final List<MessageBean> beans = new ArrayList<MessageBean>(messages.hashTable.values());
+        Collections.sort(beans, new Comparator<MessageBean>() {
+            @Override
+            public int compare(final MessageBean o1, final MessageBean o2) {
+                return o1.getId().compareTo(o2.getId());
+            }
+        });
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dst)));
+            out.writeInt(CATALOG_MAGIC);
+            out.writeInt(CATALOG_VERSION);
+            out.writeInt(beans.size());
+            for (final MessageBean bean: beans) {
+                out.writeUTF(bean.getId());
+                out.writeUTF(bean.getType());
+                out.writeUTF(bean.getReason());
+                out.writeBoolean(bean.getResponse() != null);
+                if (bean.getResponse() != null) {
+                    out.writeUTF(bean.getResponse());
+                }
+            }
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
     /**
      * Get the message respond to the given id, if no message found,
      * an empty message with this id will be returned.
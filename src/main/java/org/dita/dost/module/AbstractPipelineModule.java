@@ -12,6 +12,7 @@ import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
+import org.dita.dost.util.BuildContext;
 import org.dita.dost.util.Job;
 
 /**
@@ -43,5 +44,13 @@ public interface AbstractPipelineModule {
     public void setLogger(DITAOTLogger logger);
 
     public void setJob(Job job);
+
+    /**
+     * Set build context. The context is also bound to the executing thread; it
+     * must be explicitly bound to any worker threads the module starts.
+     * 
+     * @param context build context
+     */
+    public void setContext(BuildContext context);
     
 }
@@ -8,6 +8,7 @@ import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
+import org.dita.dost.util.BuildContext;
 import org.dita.dost.util.Job;
 
 /**
@@ -17,6 +18,7 @@ public abstract class AbstractPipelineModuleImpl implements AbstractPipelineModu
 
     protected DITAOTLogger logger;
     protected Job job;
+    protected BuildContext context;
 
     @Override
     public void setLogger(final DITAOTLogger logger) {
@@ -27,6 +29,11 @@ public abstract class AbstractPipelineModuleImpl implements AbstractPipelineModu
     public void setJob(final Job job) {
         this.job = job;
     }
+
+    @Override
+    public void setContext(final BuildContext context) {
+        this.context = context;
+    }
     
     abstract public AbstractPipelineOutput execute(AbstractPipelineInput input) throws DITAOTException;
 
@@ -13,15 +13,21 @@ import static org.dita.dost.util.Constants.*;
 import static org.dita.dost.util.URLUtils.*;
 import static org.dita.dost.util.FileUtils.*;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -35,7 +41,11 @@ import org.dita.dost.util.Job.FileInfo;
 import org.dita.dost.writer.TopicRefWriter;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * The chunking module class.
@@ -143,20 +153,58 @@ final public class ChunkModule extends AbstractPipelineModuleImpl {
 
     /**
      * Update href attributes in ditamap and topic files.
+     *
+     * <p>Only files that reference a changed topic are rewritten. Files are
+     * first scanned in parallel to find their references, and the referencing
+     * files are then rewritten in parallel.</p>
      */
     private void updateRefOfDita(final Map<String, String> changeTable, final Map<String, String> conflictTable) {
-        final TopicRefWriter topicRefWriter = new TopicRefWriter();
-        topicRefWriter.setLogger(logger);
-        topicRefWriter.setJob(job);
-        topicRefWriter.setChangeTable(changeTable);
-        topicRefWriter.setup(conflictTable);
+        final Set<String> changedFiles = new HashSet<String>();
+        for (final String key: changeTable.keySet()) {
+            changedFiles.add(stripFragment(key));
+        }
+        final List<FileInfo> files = new ArrayList<FileInfo>();
+        for (final FileInfo f : job.getFileInfo()) {
+            if (ATTR_FORMAT_VALUE_DITA.equals(f.format) || ATTR_FORMAT_VALUE_DITAMAP.equals(f.format)) {
+                files.add(f);
+            }
+        }
         try {
-            for (final FileInfo f : job.getFileInfo()) {
-                if (ATTR_FORMAT_VALUE_DITA.equals(f.format) || ATTR_FORMAT_VALUE_DITAMAP.equals(f.format)) {
-                    topicRefWriter.setFixpath(relativePath2fix.get(f.file));
-                    topicRefWriter.write(new File(job.tempDir.getAbsoluteFile(), f.file.getPath()).getAbsoluteFile());
+            final List<Callable<Boolean>> scanTasks = new ArrayList<Callable<Boolean>>(files.size());
+            for (final FileInfo f : files) {
+                final File file = new File(job.tempDir.getAbsoluteFile(), f.file.getPath()).getAbsoluteFile();
+                final boolean hasFixpath = relativePath2fix.get(f.file) != null;
+                scanTasks.add(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws DITAOTException {
+                        return hasFixpath || referencesAny(file, changedFiles);
+                    }
+                });
+            }
+            final List<Boolean> referencing = ParallelUtils.invokeAll(scanTasks);
+
+            final List<Callable<Void>> writeTasks = new ArrayList<Callable<Void>>();
+            for (int i = 0; i < files.size(); i++) {
+                if (!referencing.get(i)) {
+                    continue;
                 }
+                final FileInfo f = files.get(i);
+                writeTasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws DITAOTException {
+                        final TopicRefWriter topicRefWriter = new TopicRefWriter();
+                        topicRefWriter.setLogger(logger);
+                        topicRefWriter.setJob(job);
+                        topicRefWriter.setChangeTable(changeTable);
+                        topicRefWriter.setup(conflictTable);
+                        topicRefWriter.setFixpath(relativePath2fix.get(f.file));
+                        topicRefWriter.write(new File(job.tempDir.getAbsoluteFile(), f.file.getPath()).getAbsoluteFile());
+                        return null;
+                    }
+                });
             }
+            logger.debug("Rewriting references in " + writeTasks.size() + " of " + files.size() + " files");
+            ParallelUtils.invokeAll(writeTasks);
         } catch (final RuntimeException e) {
             throw e;
         } catch (final DITAOTException ex) {
@@ -165,6 +213,64 @@ final public class ChunkModule extends AbstractPipelineModuleImpl {
 
     }
 
+    /**
+     * Test whether a file contains references to any of the given files.
+     *
+     * @param file absolute file to scan
+     * @param targets absolute paths of target files, without fragments
+     * @return {@code true} if file has an {@code href} or {@code data} attribute that refers to a target file
+     * @throws DITAOTException if reading the file failed
+     */
+    private static boolean referencesAny(final File file, final Set<String> targets) throws DITAOTException {
+        final File dir = file.getParentFile();
+        final boolean[] found = new boolean[1];
+        InputStream in = null;
+        XMLReader reader = null;
+        try {
+            reader = XMLUtils.borrowXMLReader();
+            reader.setContentHandler(new DefaultHandler() {
+                @Override
+                public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+                    if (found[0]) {
+                        return;
+                    }
+                    final String href = atts.getValue(ATTRIBUTE_NAME_HREF);
+                    if (href != null && refersTo(dir, href, targets)) {
+                        found[0] = true;
+                        return;
+                    }
+                    final String data = atts.getValue(ATTRIBUTE_NAME_DATA);
+                    if (data != null && refersTo(dir, data, targets)) {
+                        found[0] = true;
+                    }
+                }
+            });
+            in = new BufferedInputStream(new FileInputStream(file));
+            final InputSource source = new InputSource(in);
+            source.setSystemId(file.toURI().toString());
+            reader.parse(source);
+        } catch (final SAXException e) {
+            throw new DITAOTException("Failed to parse " + file + ": " + e.getMessage(), e);
+        } catch (final IOException e) {
+            throw new DITAOTException("Failed to parse " + file + ": " + e.getMessage(), e);
+        } finally {
+            XMLUtils.releaseXMLReader(reader);
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (final IOException e) {
+                    // ignore
+                }
+            }
+        }
+        return found[0];
+    }
+
+    private static boolean refersTo(final File dir, final String href, final Set<String> targets) {
+        final String path = stripFragment(href);
+        return !path.isEmpty() && targets.contains(resolve(dir, path).getPath());
+    }
+
     /**
      * Update Job configuration to include new generated files
      */
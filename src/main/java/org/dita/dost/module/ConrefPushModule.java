@@ -9,9 +9,12 @@
 package org.dita.dost.module;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.pipeline.AbstractPipelineInput;
@@ -20,11 +23,17 @@ import org.dita.dost.reader.ConrefPushReader;
 import org.dita.dost.reader.ConrefPushReader.MoveKey;
 import org.dita.dost.util.Job.FileInfo;
 import org.dita.dost.util.Job.FileInfo.Filter;
+import org.dita.dost.util.ParallelUtils;
+import org.dita.dost.util.SAXEventBuffer;
 import org.dita.dost.writer.ConrefPushParser;
-import org.w3c.dom.DocumentFragment;
 
 /**
  * Conref push module.
+ * 
+ * <p>Push sources are read concurrently, one reader per file, and their push
+ * tables are merged in job order into an immutable table. Target files are then
+ * rewritten concurrently, one parser per target, and the job configuration is
+ * written once at the end.</p>
  */
 final class ConrefPushModule extends AbstractPipelineModuleImpl {
 
@@ -38,25 +47,46 @@ final class ConrefPushModule extends AbstractPipelineModuleImpl {
             }
         });
         if (!fis.isEmpty()) {
-            final ConrefPushReader reader = new ConrefPushReader();
-            reader.setLogger(logger);
-            for(final FileInfo f: fis) {
-                final File file = new File(job.tempDir, f.file.getPath());
-                logger.info("Reading  " + file.getAbsolutePath());
-                //FIXME: this reader calculate parent directory
-                reader.read(file.getAbsoluteFile());
-            }            
-            final Map<File, Hashtable<MoveKey, DocumentFragment>> pushSet = reader.getPushMap();
-            for (final Map.Entry<File, Hashtable<MoveKey, DocumentFragment>> entry: pushSet.entrySet()) {
-                logger.info("Processing " + entry.getKey().getAbsolutePath());
-                final ConrefPushParser parser = new ConrefPushParser();
-                parser.setJob(job);
-                parser.setLogger(logger);
-                parser.setMoveTable(entry.getValue());
-                //pass the tempdir to ConrefPushParser
-                parser.setTempDir(job.tempDir.getAbsoluteFile());
-                //FIXME:This writer creates and renames files, have to
-                parser.write(entry.getKey());
+            final List<Callable<Map<File, Map<MoveKey, SAXEventBuffer>>>> readTasks = new ArrayList<Callable<Map<File, Map<MoveKey, SAXEventBuffer>>>>(fis.size());
+            for (final FileInfo f: fis) {
+                readTasks.add(new Callable<Map<File, Map<MoveKey, SAXEventBuffer>>>() {
+                    @Override
+                    public Map<File, Map<MoveKey, SAXEventBuffer>> call() {
+                        final File file = new File(job.tempDir, f.file.getPath());
+                        logger.info("Reading {0}", file.getAbsolutePath());
+                        final ConrefPushReader reader = new ConrefPushReader();
+                        reader.setLogger(logger);
+                        //FIXME: this reader calculate parent directory
+                        reader.read(file.getAbsoluteFile());
+                        return reader.getPushMap();
+                    }
+                });
+            }
+            final Map<File, Map<MoveKey, SAXEventBuffer>> pushSet = ConrefPushReader.merge(ParallelUtils.invokeAll(readTasks), logger);
+            
+            final List<Callable<Void>> writeTasks = new ArrayList<Callable<Void>>(pushSet.size());
+            for (final Map.Entry<File, Map<MoveKey, SAXEventBuffer>> entry: pushSet.entrySet()) {
+                writeTasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws DITAOTException {
+                        logger.info("Processing {0}", entry.getKey().getAbsolutePath());
+                        final ConrefPushParser parser = new ConrefPushParser();
+                        parser.setJob(job);
+                        parser.setLogger(logger);
+                        parser.setMoveTable(entry.getValue());
+                        //pass the tempdir to ConrefPushParser
+                        parser.setTempDir(job.tempDir.getAbsoluteFile());
+                        //FIXME:This writer creates and renames files, have to
+                        parser.write(entry.getKey());
+                        return null;
+                    }
+                });
+            }
+            ParallelUtils.invokeAll(writeTasks);
+            try {
+                job.write();
+            } catch (final IOException e) {
+                throw new DITAOTException(e);
             }
         }
         return null;
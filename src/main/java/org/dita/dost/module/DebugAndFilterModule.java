@@ -22,26 +22,33 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 
 import org.apache.xerces.xni.grammars.XMLGrammarPool;
 import org.apache.xml.resolver.tools.CatalogResolver;
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.exception.DITAOTXMLErrorHandler;
-import org.dita.dost.log.MessageUtils;
+import org.dita.dost.log.LogContext;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
+import org.dita.dost.reader.DTDDefaultsFilter;
 import org.dita.dost.reader.DitaValReader;
 import org.dita.dost.reader.GrammarPoolManager;
+import org.dita.dost.reader.SubjectSchemeCache;
+import org.dita.dost.reader.SubjectSchemeCache.SubjectScheme;
 import org.dita.dost.reader.SubjectSchemeReader;
 import org.dita.dost.util.*;
 import org.dita.dost.writer.*;
@@ -50,6 +57,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.*;
+import org.xml.sax.ext.LexicalHandler;
 import org.xml.sax.helpers.XMLFilterImpl;
 
 
@@ -58,10 +66,21 @@ import org.xml.sax.helpers.XMLFilterImpl;
  * information into every dita files and filter out the information that is not
  * necessary.
  * 
+ * <p>Additional DITAVAL profiles can be given with the {@code profiles} parameter.
+ * Each file is then parsed once and the filtered variants are written into
+ * {@code profiles/<name>} directories of the temporary directory, where name is
+ * the DITAVAL file name without extension. The job configuration and other
+ * temporary files are copied into the profile directories, and
+ * {@link org.dita.dost.invoker.FanOutTask} runs the rest of the processing
+ * with a profile directory as the temporary directory.</p>
+ * 
  * @author Zhang, Yuan Peng
  */
 public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
 
+    /** Directory for profile temporary directories, relative to temporary directory. */
+    public static final String PROFILES_DIR = "profiles";
+
     private Mode processingMode;
     /** Generate {@code xtrf} and {@code xtrc} attributes */
     private boolean genDebugInfo;
@@ -90,10 +109,19 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
     /** Absolute path to current source file. */
     private File currentFile;
     private Map<File, Set<File>> dic;
-    private SubjectSchemeReader subjectSchemeReader;
+    private SubjectSchemeCache subjectSchemeCache;
     private FilterUtils baseFilterUtils;
     private ForceUniqueFilter forceUniqueFilter;
+    /** Add image metadata to topics. */
+    private boolean imageMetadata;
+    private ImageMetadataFilter imageMetadataFilter;
     private DitaWriterFilter ditaWriterFilter;
+    private boolean duplicateTopicIds;
+    private ValidationFilter validationFilter;
+    /** DITAVAL files of additional profiles. */
+    private List<File> profileFiles;
+    /** Additional profiles written into separate temporary directories. */
+    private final List<Profile> profiles = new ArrayList<Profile>();
 
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
@@ -107,13 +135,23 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
             for (final FileInfo f: job.getFileInfo()) {
                 if (ATTR_FORMAT_VALUE_DITA.equals(f.format) || ATTR_FORMAT_VALUE_DITAMAP.equals(f.format)
                         || f.isConrefTarget || f.isCopyToSource) {
-                    processFile(f);
+                    final LogContext previous = LogContext.bind(LogContext.getCurrent().withFile(f.file.getPath()));
+                    try {
+                        processFile(f);
+                    } finally {
+                        LogContext.bind(previous);
+                    }
                 }
             }
 
-            performCopytoTask();
+            if (imageMetadataFilter != null && !imageMetadataFilter.hasUnresolvedImages()) {
+                job.setProperty(PROPERTY_IMAGE_METADATA, Boolean.TRUE.toString());
+            }
+
+            performCopytoTask(job, getCopytoMap(forceUnique ? forceUniqueFilter : null));
 
             job.write();
+            writeProfileFiles();
         } catch (final Exception e) {
             e.printStackTrace();
             throw new DITAOTException("Exception doing debug and filter module processing: " + e.getMessage(), e);
@@ -126,7 +164,7 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
         currentFile = new File(f.src);
         if (!currentFile.exists()) {
             // Assuming this is an copy-to target file, ignore it
-            logger.debug("Ignoring a copy-to file " + f.file);
+            logger.debug("Ignoring a copy-to file {0}", f.file);
             return;
         }
         outputFile = new File(job.tempDir, f.file.getPath());
@@ -135,35 +173,27 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
             logger.error("Failed to create output directory " + outputDir.getAbsolutePath());
             return;
         }
-        logger.info("Processing " + f.src);
+        logger.info("Processing {0}", f.src);
 
-        final Set<File> schemaSet = dic.get(f.file);
-        if (schemaSet != null && !schemaSet.isEmpty()) {
-            logger.debug("Loading subject schemes");
-            subjectSchemeReader.reset();
-            for (final File schema : schemaSet) {
-                subjectSchemeReader.loadSubjectScheme(new File(FileUtils.resolve(job.tempDir.getAbsolutePath(), schema.getPath()) + SUBJECT_SCHEME_EXTENSION));
-            }
-            validateMap = subjectSchemeReader.getValidValuesMap();
-            defaultValueMap = subjectSchemeReader.getDefaultValueMap();
-        } else {
-            validateMap = Collections.EMPTY_MAP;
-            defaultValueMap = Collections.EMPTY_MAP;
-        }
+        final SubjectScheme subjectScheme = subjectSchemeCache.get(dic.get(f.file));
+        validateMap = subjectScheme.getValidValuesMap();
+        defaultValueMap = subjectScheme.getDefaultValueMap();
         if (profilingEnabled) {
-            filterUtils = baseFilterUtils.refine(subjectSchemeReader.getSubjectSchemeMap());
+            filterUtils = subjectScheme.refine(baseFilterUtils);
         }
 
         OutputStream out = null;
+        Transformer serializer = null;
+        final List<OutputStream> profileOuts = new ArrayList<OutputStream>();
         try {
             out = new FileOutputStream(outputFile);
 
             reader.setErrorHandler(new DITAOTXMLErrorHandler(currentFile.getAbsolutePath(), logger));
 
-            final TransformerFactory tf = TransformerFactory.newInstance();
-            final Transformer serializer = tf.newTransformer();
+            serializer = XMLUtils.borrowTransformer();
+            final ForkFilter profileFork = profiles.isEmpty() ? null : getProfileFork(f, subjectScheme, profileOuts);
             XMLReader xmlSource = reader;
-            for (final XMLFilter filter: getProcessingPipe(currentFile.toURI())) {
+            for (final XMLFilter filter: getProcessingPipe(currentFile.toURI(), profileFork)) {
                 filter.setParent(xmlSource);
                 xmlSource = filter;
             }
@@ -179,6 +209,7 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
         } catch (final Exception e) {
             logger.error(e.getMessage(), e) ;
         } finally {
+            XMLUtils.releaseTransformer(serializer);
             if (out != null) {
                 try {
                     out.close();
@@ -186,14 +217,76 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
                     logger.error(e.getMessage(), e) ;
                 }
             }
+            for (final OutputStream profileOut: profileOuts) {
+                try {
+                    profileOut.close();
+                } catch (final Exception e) {
+                    logger.error(e.getMessage(), e) ;
+                }
+            }
         }
     }
 
+    /**
+     * Get filter that forks the processing pipe into profile specific pipes.
+     * Each profile pipe filters, validates, normalizes, optionally forces unique
+     * topic references, and writes the file into the temporary directory of the
+     * profile.
+     *
+     * @param f file to process
+     * @param subjectScheme subject schemes of the file
+     * @param outs list to add opened profile output streams to
+     */
+    private ForkFilter getProfileFork(final FileInfo f, final SubjectScheme subjectScheme, final List<OutputStream> outs)
+            throws IOException, TransformerConfigurationException {
+        final SAXTransformerFactory tf = (SAXTransformerFactory) XMLUtils.getTransformerFactory();
+        final List<ContentHandler> branches = new ArrayList<ContentHandler>(profiles.size());
+        final List<LexicalHandler> lexicalBranches = new ArrayList<LexicalHandler>(profiles.size());
+        for (final Profile profile: profiles) {
+            final File profileOutputFile = new File(profile.tempDir, f.file.getPath());
+            final File profileOutputDir = profileOutputFile.getParentFile();
+            if (!profileOutputDir.exists() && !profileOutputDir.mkdirs()) {
+                throw new IOException("Failed to create output directory " + profileOutputDir.getAbsolutePath());
+            }
+            final OutputStream profileOut = new FileOutputStream(profileOutputFile);
+            outs.add(profileOut);
+            final TransformerHandler serializer = tf.newTransformerHandler();
+            serializer.setResult(new StreamResult(profileOut));
+
+            profile.ditaWriterFilter.setDefaultValueMap(defaultValueMap);
+            profile.ditaWriterFilter.setCurrentFile(currentFile);
+            profile.ditaWriterFilter.setOutputFile(profileOutputFile);
+            profile.ditaWriterFilter.setContentHandler(serializer);
+
+            final NormalizeFilter normalizeFilter = new NormalizeFilter();
+            normalizeFilter.setLogger(logger);
+            normalizeFilter.setContentHandler(profile.ditaWriterFilter);
+
+            profile.validationFilter.setValidateMap(validateMap);
+            profile.validationFilter.setCurrentFile(currentFile.toURI());
+            if (forceUnique) {
+                profile.forceUniqueFilter.setCurrentFile(currentFile);
+                profile.forceUniqueFilter.setContentHandler(profile.ditaWriterFilter);
+                normalizeFilter.setContentHandler(profile.forceUniqueFilter);
+            }
+
+            profile.validationFilter.setContentHandler(normalizeFilter);
+
+            final ProfilingFilter profilingFilter = new ProfilingFilter();
+            profilingFilter.setLogger(logger);
+            profilingFilter.setFilterUtils(subjectScheme.refine(profile.filterUtils));
+            profilingFilter.setContentHandler(profile.validationFilter);
+
+            branches.add(profilingFilter);
+            lexicalBranches.add(serializer);
+        }
+        return new ForkFilter(branches, lexicalBranches);
+    }
+
     private void init() throws IOException, DITAOTException, SAXException {
         // Output subject schemas
         outputSubjectScheme();
-        subjectSchemeReader = new SubjectSchemeReader();
-        subjectSchemeReader.setLogger(logger);
+        subjectSchemeCache = new SubjectSchemeCache(job.tempDir, logger);
         dic = SubjectSchemeReader.readMapFromXML(new File(job.tempDir, FILE_NAME_SUBJECT_DICTIONARY));
 
         if (profilingEnabled) {
@@ -210,11 +303,69 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
             baseFilterUtils = new FilterUtils(printTranstype.contains(transtype), filterMap);
             baseFilterUtils.setLogger(logger);
         }
+        initProfiles();
 
         initXmlReader();
 
         initFilters();
     }
+
+    /**
+     * Read additional profiles.
+     */
+    private void initProfiles() throws DITAOTException {
+        profiles.clear();
+        final Set<String> names = new HashSet<String>();
+        for (final File profileFile: profileFiles) {
+            final String name = getProfileName(profileFile);
+            if (!names.add(name)) {
+                throw new DITAOTException("Duplicate profile name " + name + " for DITAVAL file " + profileFile.getPath());
+            }
+            final DitaValReader filterReader = new DitaValReader();
+            filterReader.setLogger(logger);
+            filterReader.initXMLReader(setSystemId);
+            filterReader.read(profileFile.getAbsoluteFile());
+            final FilterUtils profileFilterUtils = new FilterUtils(printTranstype.contains(transtype), filterReader.getFilterMap());
+            profileFilterUtils.setLogger(logger);
+            profiles.add(new Profile(new File(new File(job.tempDir, PROFILES_DIR), name), profileFilterUtils));
+        }
+    }
+
+    /**
+     * Parse list of additional profile DITAVAL files.
+     *
+     * @param value DITAVAL files separated by the path separator, may be {@code null}
+     * @param baseDir base directory for relative DITAVAL files
+     * @return absolute DITAVAL files
+     */
+    public static List<File> getProfileFiles(final String value, final File baseDir) {
+        final List<File> res = new ArrayList<File>();
+        if (value != null) {
+            for (final String p: value.split(File.pathSeparator)) {
+                if (p.trim().length() != 0) {
+                    File profileFile = new File(p.trim());
+                    if (!profileFile.isAbsolute()) {
+                        profileFile = new File(baseDir, profileFile.getPath());
+                    }
+                    res.add(profileFile.getAbsoluteFile());
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Get profile name, the DITAVAL file name without extension.
+     *
+     * @param profileFile profile DITAVAL file
+     * @return profile name
+     */
+    public static String getProfileName(final File profileFile) {
+        final String name = profileFile.getName();
+        final int i = name.lastIndexOf('.');
+        return i > 0 ? name.substring(0, i) : name;
+    }
+
     /**
      * Init xml reader used for pipeline parsing.
      */
@@ -228,6 +379,14 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
             } catch (final SAXNotRecognizedException e) {
                 // Not Xerces, ignore exception
             }
+        } else {
+            try {
+                reader = new DTDDefaultsFilter(reader, gramcache);
+            } catch (final SAXNotRecognizedException e) {
+                logger.debug("Parser cannot skip external DTD subsets, DTD defaults are read by the parser");
+            } catch (final SAXNotSupportedException e) {
+                logger.debug("Parser cannot skip external DTD subsets, DTD defaults are read by the parser");
+            }
         }
         reader.setFeature(FEATURE_NAMESPACE, true);
         final CatalogResolver resolver = CatalogUtils.getCatalogResolver();
@@ -250,7 +409,24 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
     /**
      * Initialize reusable filters.
      */
-    private void initFilters() {
+    private void initFilters() throws DITAOTException {
+        if (imageMetadata) {
+            final List<URI> images = new ArrayList<URI>();
+            for (final FileInfo f: job.getFileInfo()) {
+                if (ATTR_FORMAT_VALUE_IMAGE.equals(f.format) && f.src != null) {
+                    images.add(f.src);
+                }
+            }
+            imageMetadataFilter = new ImageMetadataFilter(ImageMetadataFilter.readMetadata(images, logger));
+            imageMetadataFilter.setLogger(logger);
+        }
+
+        validationFilter = new ValidationFilter();
+        validationFilter.setLogger(logger);
+        validationFilter.setJob(job);
+        validationFilter.setProcessingMode(processingMode);
+        validationFilter.setCheckDuplicateTopicIds(duplicateTopicIds);
+
         forceUniqueFilter = new ForceUniqueFilter();
         forceUniqueFilter.setLogger(logger);
         forceUniqueFilter.setJob(job);
@@ -260,14 +436,32 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
         ditaWriterFilter.setLogger(logger);
         ditaWriterFilter.setJob(job);
         ditaWriterFilter.setEntityResolver(reader.getEntityResolver());
+
+        for (final Profile profile: profiles) {
+            profile.validationFilter.setLogger(logger);
+            profile.validationFilter.setJob(job);
+            profile.validationFilter.setProcessingMode(processingMode);
+            profile.validationFilter.setCheckDuplicateTopicIds(duplicateTopicIds);
+            profile.forceUniqueFilter.setLogger(logger);
+            profile.forceUniqueFilter.setJob(job);
+            profile.forceUniqueFilter.setEntityResolver(reader.getEntityResolver());
+            profile.ditaWriterFilter.setLogger(logger);
+            profile.ditaWriterFilter.setJob(job);
+            profile.ditaWriterFilter.setEntityResolver(reader.getEntityResolver());
+        }
     }
 
     /**
      * Get pipe line filters
      *
+     * <p>With additional profiles, image metadata is shared by all profiles
+     * and added before the pipe is forked into profile specific pipes. Each
+     * profile pipe validates its own filtered content.</p>
+     *
      * @param fileToParse absolute URI to current file being processed
+     * @param profileFork filter to fork profile pipes, {@code null} if there are no additional profiles
      */
-    private List<XMLFilter> getProcessingPipe(final URI fileToParse) {
+    private List<XMLFilter> getProcessingPipe(final URI fileToParse, final ForkFilter profileFork) {
         final List<XMLFilter> pipe = new ArrayList<XMLFilter>();
 
         if (genDebugInfo) {
@@ -277,6 +471,16 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
             pipe.add(debugFilter);
         }
 
+        if (imageMetadataFilter != null) {
+            imageMetadataFilter.setCurrentFile(fileToParse);
+        }
+        if (profileFork != null) {
+            if (imageMetadataFilter != null) {
+                pipe.add(imageMetadataFilter);
+            }
+            pipe.add(profileFork);
+        }
+
         if (filterUtils != null) {
             final ProfilingFilter profilingFilter = new ProfilingFilter();
             profilingFilter.setLogger(logger);
@@ -284,12 +488,8 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
             pipe.add(profilingFilter);
         }
 
-        final ValidationFilter validationFilter = new ValidationFilter();
-        validationFilter.setLogger(logger);
         validationFilter.setValidateMap(validateMap);
         validationFilter.setCurrentFile(fileToParse);
-        validationFilter.setJob(job);
-        validationFilter.setProcessingMode(processingMode);
         pipe.add(validationFilter);
 
         final NormalizeFilter normalizeFilter = new NormalizeFilter();
@@ -301,6 +501,10 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
             pipe.add(forceUniqueFilter);
         }
 
+        if (imageMetadataFilter != null && profileFork == null) {
+            pipe.add(imageMetadataFilter);
+        }
+
         ditaWriterFilter.setDefaultValueMap(defaultValueMap);
         ditaWriterFilter.setCurrentFile(currentFile);
         ditaWriterFilter.setOutputFile(outputFile);
@@ -332,6 +536,9 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
         genDebugInfo = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_GENERATE_DEBUG_ATTR));
         final String mode = input.getAttribute(ANT_INVOKER_EXT_PARAM_PROCESSING_MODE);
         processingMode = mode != null ? Mode.valueOf(mode.toUpperCase()) : Mode.LAX;
+        imageMetadata = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_IMAGE_METADATA));
+        duplicateTopicIds = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_DUPLICATE_TOPIC_IDS));
+        profileFiles = getProfileFiles(input.getAttribute(ANT_INVOKER_EXT_PARAM_PROFILES), new File(baseDir));
 
         inputDir = job.getInputDir();
         if (!inputDir.isAbsolute()) {
@@ -509,17 +716,18 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
             throw new DITAOTException("Failed to make directory " + p.getAbsolutePath());
         }
         FileOutputStream out = null;
+        Transformer tf = null;
         try {
             out = new FileOutputStream(filename);
             final StreamResult res = new StreamResult(out);
             final DOMSource ds = new DOMSource(root);
-            final TransformerFactory tff = TransformerFactory.newInstance();
-            final Transformer tf = tff.newTransformer();
+            tf = XMLUtils.borrowTransformer();
             tf.transform(ds, res);
         } catch (final Exception e) {
             logger.error(e.getMessage(), e) ;
             throw new DITAOTException(e);
         } finally {
+            XMLUtils.releaseTransformer(tf);
             if (out != null) {
                 try {
                     out.close();
@@ -532,9 +740,12 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
 
 
     /**
-     * Execute copy-to task, generate copy-to targets base on sources
+     * Get copy-to mappings of the job and generated copy-to mappings.
+     *
+     * @param forceUniqueFilter filter that generated copy-to mappings, may be {@code null}
+     * @return copy-to mappings, key is target and value is source
      */
-    private void performCopytoTask() {
+    private Map<File, File> getCopytoMap(final ForceUniqueFilter forceUniqueFilter) {
         final Map<File, File> copytoMap = new HashMap<File, File>();
         for (final Map.Entry<URI, URI> e: job.getCopytoMap().entrySet()) {
             copytoMap.put(toFile(e.getKey()), toFile(e.getValue()));
@@ -542,24 +753,68 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
         if (forceUniqueFilter != null) {
             copytoMap.putAll(forceUniqueFilter.copyToMap);
         }
-        
+        return copytoMap;
+    }
+
+    /**
+     * Execute copy-to task, generate copy-to targets base on sources
+     *
+     * @param targetJob job of the temporary directory to write copy-to targets into
+     * @param copytoMap copy-to mappings, key is target and value is source
+     */
+    private void performCopytoTask(final Job targetJob, final Map<File, File> copytoMap) {
         for (final Map.Entry<File, File> entry: copytoMap.entrySet()) {
             final File copytoTarget = entry.getKey();
             final File copytoSource = entry.getValue();
-            final File srcFile = new File(job.tempDir, copytoSource.getPath());
-            final File targetFile = new File(job.tempDir, copytoTarget.getPath());
+            final File srcFile = new File(targetJob.tempDir, copytoSource.getPath());
+            final File targetFile = new File(targetJob.tempDir, copytoTarget.getPath());
 
             if (targetFile.exists()) {
-                logger.warn(MessageUtils.getInstance().getMessage("DOTX064W", copytoTarget.getPath()).toString());
+                logger.log("DOTX064W", copytoTarget.getPath());
             } else {
-                final File inputMapInTemp = new File(job.tempDir, job.getInputMap().getPath()).getAbsoluteFile();
+                final File inputMapInTemp = new File(targetJob.tempDir, targetJob.getInputMap().getPath()).getAbsoluteFile();
                 copyFileWithPIReplaced(srcFile, targetFile, copytoTarget, inputMapInTemp);
                 // add new file info into job
-                final FileInfo src = job.getFileInfo(toURI(copytoSource));
+                final FileInfo src = targetJob.getFileInfo(toURI(copytoSource));
                 final FileInfo.Builder b = src != null ? new FileInfo.Builder(src) : new FileInfo.Builder();
                 final FileInfo dst = b.uri(toURI(copytoTarget)).isCopyToSource(false).build();
-                job.add(dst);
+                targetJob.add(dst);
+            }
+        }
+    }
+
+    /**
+     * Copy job configuration and other temporary files that are not job
+     * content files into profile temporary directories, and create copy-to
+     * targets of each profile. Copy-to targets generated for the main profile
+     * are replaced in the profile jobs with the ones generated for the profile.
+     */
+    private void writeProfileFiles() throws IOException {
+        final File[] files = job.tempDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (final Profile profile: profiles) {
+            if (!profile.tempDir.exists() && !profile.tempDir.mkdirs()) {
+                throw new IOException("Failed to create directory " + profile.tempDir.getAbsolutePath());
+            }
+            for (final File file: files) {
+                if (file.isFile() && job.getFileInfo(toURI(file.getName())) == null) {
+                    final File dst = new File(profile.tempDir, file.getName());
+                    Files.copy(file.toPath(), dst.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
             }
+            final Job profileJob = new Job(profile.tempDir);
+            if (forceUnique) {
+                for (final File generated: forceUniqueFilter.copyToMap.keySet()) {
+                    final FileInfo fi = profileJob.getFileInfo(toURI(generated));
+                    if (fi != null) {
+                        profileJob.remove(fi);
+                    }
+                }
+            }
+            performCopytoTask(profileJob, getCopytoMap(forceUnique ? profile.forceUniqueFilter : null));
+            profileJob.write();
         }
     }
     
@@ -581,7 +836,7 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
         final File workdir = target.getParentFile();
         XMLFilter filter = new CopyToFilter(workdir, path2project);
         
-        logger.info("Processing " + src.getAbsolutePath() + " to " + target.getAbsolutePath());
+        logger.info("Processing {0} to {1}", src.getAbsolutePath(), target.getAbsolutePath());
         try {
             XMLUtils.transform(src, target, Arrays.asList(filter));
         } catch (final DITAOTException e) {
@@ -696,4 +951,22 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
         return !(relativePath.getPath().length() == 0 || !relativePath.getPath().startsWith(".."));
     }
 
+    /**
+     * Additional DITAVAL profile.
+     */
+    private static final class Profile {
+        /** Absolute temporary directory of the profile. */
+        final File tempDir;
+        /** Filter of the profile before subject scheme refinement. */
+        final FilterUtils filterUtils;
+        final ValidationFilter validationFilter = new ValidationFilter();
+        final ForceUniqueFilter forceUniqueFilter = new ForceUniqueFilter();
+        final DitaWriterFilter ditaWriterFilter = new DitaWriterFilter();
+
+        Profile(final File tempDir, final FilterUtils filterUtils) {
+            this.tempDir = tempDir;
+            this.filterUtils = filterUtils;
+        }
+    }
+
 }
@@ -29,6 +29,9 @@ import org.dita.dost.pipeline.AbstractPipelineOutput;
  */
 final class EscapeUnicodeModule extends AbstractPipelineModuleImpl {
 
+    /** Size of the character buffer. Runs of ASCII characters are written in blocks. */
+    private static final int BUFFER_SIZE = 8192;
+
     /**
      * Entry point of EscapeUnicodeModule.
      * 
@@ -50,15 +53,21 @@ final class EscapeUnicodeModule extends AbstractPipelineModuleImpl {
         try {
             br = new BufferedReader(new InputStreamReader(new FileInputStream(new File(inputFile)), "UTF-8"));
             fw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(outputFile))));
-            int codePoint = br.read();
-            while (codePoint != -1) {
-                if (codePoint < 128) {
-                    fw.append((char) codePoint);
-                } else {
-                    fw.append("\\uc0");
-                    fw.append("\\u").append(Integer.toString(codePoint)).append(' ');
+            final char[] buf = new char[BUFFER_SIZE];
+            int length = br.read(buf);
+            while (length != -1) {
+                int start = 0;
+                for (int i = 0; i < length; i++) {
+                    final char c = buf[i];
+                    if (c >= 128) {
+                        fw.write(buf, start, i - start);
+                        fw.append("\\uc0");
+                        fw.append("\\u").append(Integer.toString(c)).append(' ');
+                        start = i + 1;
+                    }
                 }
-                codePoint = br.read();
+                fw.write(buf, start, length - start);
+                length = br.read(buf);
             }
             fw.flush();
         } catch (final IOException e) {
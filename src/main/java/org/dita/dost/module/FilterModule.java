@@ -19,6 +19,7 @@ import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.reader.DitaValReader;
+import org.dita.dost.reader.SubjectSchemeCache;
 import org.dita.dost.reader.SubjectSchemeReader;
 import org.dita.dost.util.FilterUtils;
 import org.dita.dost.util.Job.FileInfo;
@@ -55,8 +56,7 @@ final class FilterModule extends AbstractPipelineModuleImpl {
         writer.setJob(job);
         writer.setFilterUtils(filterUtils);
 
-        final SubjectSchemeReader subjectSchemeReader = new SubjectSchemeReader();
-        subjectSchemeReader.setLogger(logger);
+        final SubjectSchemeCache subjectSchemeCache = new SubjectSchemeCache(job.tempDir, logger);
         Map<File, Set<File>> dic;
         try {
             dic = SubjectSchemeReader.readMapFromXML(new File(job.tempDir, FILE_NAME_SUBJECT_DICTIONARY));
@@ -69,16 +69,7 @@ final class FilterModule extends AbstractPipelineModuleImpl {
                 final File file = new File(job.tempDir, f.file.getPath());
                 logger.info("Processing " + file.getAbsolutePath());
 
-                subjectSchemeReader.reset();
-                final Set<File> schemaSet = dic.get(f.file);
-                if (schemaSet != null && !schemaSet.isEmpty()) {
-                    logger.info("Loading subject schemes");
-                    for (final File schema : schemaSet) {
-                        subjectSchemeReader.loadSubjectScheme(new File(org.dita.dost.util.FileUtils.resolve(job.tempDir.getAbsolutePath(), schema.getPath()) + SUBJECT_SCHEME_EXTENSION));
-                    }
-                }
-
-                writer.setFilterUtils(filterUtils.refine(subjectSchemeReader.getSubjectSchemeMap()));
+                writer.setFilterUtils(subjectSchemeCache.get(dic.get(f.file)).refine(filterUtils));
 
                 try {
                     writer.write(file.getAbsoluteFile());
@@ -306,6 +306,13 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
         } else {
             final String msg = MessageUtils.getInstance().getMessage("DOTJ037W").toString();
             logger.warn(msg);
+            try {
+                reader = new DTDDefaultsFilter(reader, gramcache);
+            } catch (final SAXNotRecognizedException e) {
+                logger.debug("Parser cannot skip external DTD subsets, DTD defaults are read by the parser");
+            } catch (final SAXNotSupportedException e) {
+                logger.debug("Parser cannot skip external DTD subsets, DTD defaults are read by the parser");
+            }
         }
         if (gramcache) {
             final XMLGrammarPool grammarPool = GrammarPoolManager.getGrammarPool();
@@ -449,7 +456,7 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
      */
     private void processFile(final URI currentFile) throws DITAOTException {
         assert currentFile.isAbsolute();
-        logger.info("Processing " + currentFile);
+        logger.info("Processing {0}", currentFile);
         final String[] params = { currentFile.toString() };
         
         try {
@@ -468,7 +475,7 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
                 processParseResult(currentFile);
                 categorizeCurrentFile(currentFile);
             } else if (!currentFile.equals(rootFile)) {
-                logger.warn(MessageUtils.getInstance().getMessage("DOTJ021W", params).toString());
+                logger.log("DOTJ021W", params);
             }
         } catch (final RuntimeException e) {
             throw e;
@@ -533,7 +540,7 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
             final URI key = e.getKey();
             final URI value = e.getValue();
             if (copytoMap.containsKey(key)) {
-                logger.warn(MessageUtils.getInstance().getMessage("DOTX065W", value.getPath(), key.getPath()).toString());
+                logger.log("DOTX065W", value.getPath(), key.getPath());
                 ignoredCopytoSourceSet.add(value);
             } else {
                 updateUplevels(key);
@@ -654,7 +661,7 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
             imageSet.add(file.filename);
             final File image = toFile(file.filename);
             if (!image.exists()){
-                logger.warn(MessageUtils.getInstance().getMessage("DOTX008W", image.getAbsolutePath()).toString());
+                logger.log("DOTX008W", image.getAbsolutePath());
             }
         } else { //if (FileUtils.isHTMLFile(lcasefn) || FileUtils.isResourceFile(lcasefn)) {
             htmlSet.add(file.filename);
@@ -1065,6 +1072,7 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
             // Output plugin id
             final File pluginIdFile = new File(job.tempDir, FILE_NAME_PLUGIN_XML);
             final DelayConrefUtils delayConrefUtils = new DelayConrefUtils();
+            delayConrefUtils.setLogger(logger);
             delayConrefUtils.writeMapToXML(exportAnchorsFilter.getPluginMap(), pluginIdFile);
             OutputStream exportStream = null;
             XMLStreamWriter export = null;
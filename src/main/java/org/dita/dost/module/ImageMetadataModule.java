@@ -38,6 +38,10 @@ final class ImageMetadataModule extends AbstractPipelineModuleImpl {
         if (logger == null) {
             throw new IllegalStateException("Logger not set");
         }
+        if (Boolean.parseBoolean(job.getProperty(PROPERTY_IMAGE_METADATA))) {
+            logger.info("Image metadata already added during preprocessing");
+            return null;
+        }
         final ImageMetadataFilter writer = new ImageMetadataFilter(new File(input.getAttribute(ANT_INVOKER_EXT_PARAM_OUTPUTDIR)), job);
         writer.setLogger(logger);
         writer.setJob(job);
@@ -15,6 +15,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.index.IndexTerm;
 import org.dita.dost.index.IndexTermCollection;
@@ -26,8 +28,10 @@ import org.dita.dost.reader.DitamapIndexTermReader;
 import org.dita.dost.reader.IndexTermReader;
 import org.dita.dost.util.FileUtils;
 import org.dita.dost.util.Job.FileInfo;
+import org.dita.dost.util.ParallelUtils;
 import org.dita.dost.util.StringUtils;
 import org.dita.dost.util.XMLUtils;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
@@ -124,86 +128,107 @@ final class IndexTermExtractModule extends AbstractPipelineModuleImpl {
         }
     }
 
-    private void extractIndexTerm() throws SAXException {
-        final int topicNum = topicList.size();
-        final int ditamapNum = ditamapList.size();
-        FileInputStream inputStream = null;
-        XMLReader xmlReader = null;
-        final IndexTermReader handler = new IndexTermReader(indexTermCollection);
-        handler.setLogger(logger);
-        final DitamapIndexTermReader ditamapIndexTermReader = new DitamapIndexTermReader(indexTermCollection, true);
-        ditamapIndexTermReader.setLogger(logger);
-        
-        xmlReader = XMLUtils.getXMLReader();
+    /**
+     * Extract index terms from topics and maps. Each file is read into its own
+     * index term collection and the collections are merged in file order, so
+     * the result is the same as when reading the files one by one. The term
+     * locale is set from the first {@code xml:lang} attribute if it is not
+     * set with a parameter, so files are read one by one until the locale is
+     * known and the rest are read concurrently.
+     */
+    private void extractIndexTerm() throws DITAOTException {
+        final List<Callable<IndexTermCollection>> tasks = new ArrayList<Callable<IndexTermCollection>>();
+        for (final String topic : topicList) {
+            tasks.add(new Callable<IndexTermCollection>() {
+                @Override
+                public IndexTermCollection call() {
+                    return extractTopicIndexTerm(topic);
+                }
+            });
+        }
+        for (final String ditamap : ditamapList) {
+            tasks.add(new Callable<IndexTermCollection>() {
+                @Override
+                public IndexTermCollection call() {
+                    return extractMapIndexTerm(ditamap);
+                }
+            });
+        }
 
-        try {
-            xmlReader.setContentHandler(handler);
+        int i = 0;
+        for (; i < tasks.size() && IndexTerm.getTermLocale() == null; i++) {
+            try {
+                indexTermCollection.addTerms(tasks.get(i).call());
+            } catch (final Exception e) {
+                throw new DITAOTException(e.getMessage(), e);
+            }
+        }
+        for (final IndexTermCollection terms : ParallelUtils.invokeAll(tasks.subList(i, tasks.size()))) {
+            indexTermCollection.addTerms(terms);
+        }
+    }
 
-            for (String aTopicList : topicList) {
-                String target;
-                String targetPathFromMap;
-                String targetPathFromMapWithoutExt;
-                handler.reset();
-                target = aTopicList;
-                targetPathFromMap = FileUtils.getRelativeUnixPath(
-                        inputMap, target);
-                targetPathFromMapWithoutExt = targetPathFromMap
-                        .substring(0, targetPathFromMap.lastIndexOf("."));
-                handler.setTargetFile(targetPathFromMapWithoutExt + targetExt);
+    private IndexTermCollection extractTopicIndexTerm(final String target) {
+        final IndexTermCollection terms = new IndexTermCollection();
+        final IndexTermReader handler = new IndexTermReader(terms);
+        handler.setLogger(logger);
+        final String targetPathFromMap = FileUtils.getRelativeUnixPath(
+                inputMap, target);
+        final String targetPathFromMapWithoutExt = targetPathFromMap
+                .substring(0, targetPathFromMap.lastIndexOf("."));
+        handler.setTargetFile(targetPathFromMapWithoutExt + targetExt);
 
-                try {
-                    /*if(!new File(job.tempDir, target).exists()){
-                        logger.logWarn("Cannot find file "+ target);
-						continue;
-					}*/
-                    inputStream = new FileInputStream(
-                            new File(job.tempDir, target));
-                    xmlReader.parse(new InputSource(inputStream));
-                    inputStream.close();
-                } catch (final Exception e) {
-                    final StringBuilder buff = new StringBuilder();
-                    String msg = null;
-                    msg = MessageUtils.getInstance().getMessage("DOTJ013E", target).toString();
-                    logger.error(buff.append(msg).append(e.getMessage()).toString());
-                }
-            }
+        try {
+            parse(new File(job.tempDir, target), handler);
+        } catch (final Exception e) {
+            final StringBuilder buff = new StringBuilder();
+            String msg = null;
+            msg = MessageUtils.getInstance().getMessage("DOTJ013E", target).toString();
+            logger.error(buff.append(msg).append(e.getMessage()).toString());
+        }
+        return terms;
+    }
 
-            xmlReader.setContentHandler(ditamapIndexTermReader);
+    private IndexTermCollection extractMapIndexTerm(final String ditamap) {
+        final IndexTermCollection terms = new IndexTermCollection();
+        final DitamapIndexTermReader ditamapIndexTermReader = new DitamapIndexTermReader(terms, true);
+        ditamapIndexTermReader.setLogger(logger);
+        final String currentMapPathName = FileUtils.getRelativeUnixPath(
+                inputMap, ditamap);
+        String mapPathFromInputMap = "";
 
-            for (final String ditamap : ditamapList) {
-                final String currentMapPathName = FileUtils.getRelativeUnixPath(
-                        inputMap, ditamap);
-                String mapPathFromInputMap = "";
+        if (currentMapPathName.lastIndexOf(SLASH) != -1) {
+            mapPathFromInputMap = currentMapPathName.substring(0,
+                    currentMapPathName.lastIndexOf(SLASH));
+        }
 
-                if (currentMapPathName.lastIndexOf(SLASH) != -1) {
-                    mapPathFromInputMap = currentMapPathName.substring(0,
-                            currentMapPathName.lastIndexOf(SLASH));
-                }
+        ditamapIndexTermReader.setMapPath(mapPathFromInputMap);
+        try {
+            parse(new File(job.tempDir, ditamap), ditamapIndexTermReader);
+        } catch (final Exception e) {
+            String msg = null;
+            msg = MessageUtils.getInstance().getMessage("DOTJ013E", ditamap).toString();
+            logger.error(msg, e);
+        }
+        return terms;
+    }
 
-                ditamapIndexTermReader.setMapPath(mapPathFromInputMap);
-                try {
-                    /*if(!new File(job.tempDir, ditamap).exists()){
-                        logger.logWarn("Cannot find file "+ ditamap);
-						continue;
-					}*/
-                    inputStream = new FileInputStream(new File(job.tempDir,
-                            ditamap));
-                    xmlReader.parse(new InputSource(inputStream));
-                    inputStream.close();
-                } catch (final Exception e) {
-                    String msg = null;
-                    msg = MessageUtils.getInstance().getMessage("DOTJ013E", ditamap).toString();
-                    logger.error(msg, e);
-                }
-            }
+    private void parse(final File file, final ContentHandler handler) throws IOException, SAXException {
+        XMLReader xmlReader = null;
+        FileInputStream inputStream = null;
+        try {
+            xmlReader = XMLUtils.borrowXMLReader();
+            xmlReader.setContentHandler(handler);
+            inputStream = new FileInputStream(file);
+            xmlReader.parse(new InputSource(inputStream));
         } finally {
+            XMLUtils.releaseXMLReader(xmlReader);
             if (inputStream != null) {
                 try {
                     inputStream.close();
                 } catch (final IOException e) {
                     logger.error(e.getMessage(), e) ;
                 }
-
             }
         }
     }
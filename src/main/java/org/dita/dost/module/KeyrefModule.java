@@ -97,6 +97,9 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
             final Map<String, Element> keyDefinition = reader.getKeyDefinition();
             transtype = input.getAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE);
             delayConrefUtils = transtype.equals(INDEX_TYPE_ECLIPSEHELP) ? new DelayConrefUtils() : null;
+            if (delayConrefUtils != null) {
+                delayConrefUtils.setLogger(logger);
+            }
             
             final Set<URI> normalProcessingRole = new HashSet<URI>();
             for (final FileInfo f: fis) {
@@ -12,23 +12,21 @@ import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.util.CatalogUtils;
+import org.dita.dost.util.SAXEventBuffer;
+import org.dita.dost.util.XMLUtils;
 import org.dita.dost.writer.DitaLinksWriter;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.NamespaceSupport;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.stream.StreamSource;
 import java.io.*;
 import java.net.URI;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 import static org.dita.dost.util.Constants.*;
 import static org.dita.dost.util.URLUtils.*;
@@ -36,6 +34,11 @@ import static org.dita.dost.util.URLUtils.*;
 /**
  * MoveLinksModule implements move links step in preprocess. It reads the map links
  * information from the input map and inserts the links into topics.
+ *
+ * <p>Map links are streamed from the link stylesheet into a spill file as
+ * compact SAX event records and only an index of record positions per target
+ * topic is kept in memory. Each topic reads its own records back when links
+ * are inserted.</p>
  */
 final class MoveLinksModule extends AbstractPipelineModuleImpl {
 
@@ -51,85 +54,265 @@ final class MoveLinksModule extends AbstractPipelineModuleImpl {
         final File inputFile = new File(job.tempDir, input.getAttribute(ANT_INVOKER_PARAM_INPUTMAP));
         final File styleFile = new File(input.getAttribute(ANT_INVOKER_EXT_PARAM_STYLE));
 
-        Document doc;
-        InputStream in = null;
+        final LinkCollector links;
         try {
-            doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            final Transformer transformer = TransformerFactory.newInstance().newTransformer(new StreamSource(styleFile));
-            transformer.setURIResolver(CatalogUtils.getCatalogResolver());
-            if (input.getAttribute("include.rellinks") != null) {
-                transformer.setParameter("include.rellinks", input.getAttribute("include.rellinks"));
+            links = new LinkCollector(job.tempDir);
+        } catch (final IOException e) {
+            throw new DITAOTException("Failed to create link spill file: " + e.getMessage(), e);
+        }
+        try {
+            InputStream in = null;
+            try {
+                final Transformer transformer = XMLUtils.getTransformerFactory().newTransformer(new StreamSource(styleFile));
+                transformer.setURIResolver(CatalogUtils.getCatalogResolver());
+                if (input.getAttribute("include.rellinks") != null) {
+                    transformer.setParameter("include.rellinks", input.getAttribute("include.rellinks"));
+                }
+                in = new BufferedInputStream(new FileInputStream(inputFile));
+                final Source source = new StreamSource(in);
+                source.setSystemId(inputFile.toURI().toString());
+                transformer.transform(source, new SAXResult(links));
+                links.flush();
+            } catch (final RuntimeException e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new DITAOTException("Failed to read links from " + inputFile + ": " + e.getMessage(), e);
+            } finally {
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (final IOException e) {
+                        logger.error("Failed to close input stream: " + e.getMessage(), e);
+                    }
+                }
+            }
+
+            if (!links.index.isEmpty()) {
+                final DitaLinksWriter linkInserter = new DitaLinksWriter();
+                linkInserter.setLogger(logger);
+                linkInserter.setJob(job);
+                for (final Map.Entry<File, Map<String, List<Segment>>> entry: links.index.entrySet()) {
+                    final File f = new File(job.tempDir, entry.getKey().getPath());
+                    logger.info("Processing {0}", f);
+                    try {
+                        linkInserter.setLinks(links.read(entry.getValue()));
+                    } catch (final IOException e) {
+                        throw new DITAOTException("Failed to read links for " + f + ": " + e.getMessage(), e);
+                    }
+                    try {
+                        linkInserter.write(f);
+                    } catch (final DITAOTException e) {
+                        logger.error("Failed to insert links: " + e.getMessage(), e);
+                    }
+                }
             }
-            in = new BufferedInputStream(new FileInputStream(inputFile));
-            final Source source = new StreamSource(in);
-            source.setSystemId(inputFile.toURI().toString());
-            final DOMResult result = new DOMResult(doc);
-            transformer.transform(source, result);
-        } catch (final RuntimeException e) {
-            throw e;
-        } catch (final Exception e) {
-            throw new DITAOTException("Failed to read links from " + inputFile + ": " + e.getMessage(), e);
         } finally {
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (final IOException e) {
-                    logger.error("Failed to close input stream: " + e.getMessage(), e);
+            links.close();
+        }
+        return null;
+    }
+
+    /** Position of a link record in the spill file. */
+    private static final class Segment {
+        final long offset;
+        final int length;
+
+        Segment(final long offset, final int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Collect contents of map link elements into a spill file. Each map link element
+     * is written as one {@link SAXEventBuffer} record and the records are indexed
+     * by target file and topic ID.
+     */
+    private final class LinkCollector extends DefaultHandler {
+
+        private final File spillFile;
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        private RandomAccessFile spill;
+        private long position;
+        /** Record positions by target file and topic ID. */
+        final Map<File, Map<String, List<Segment>>> index = new HashMap<File, Map<String, List<Segment>>>();
+        private final NamespaceSupport namespaces = new NamespaceSupport();
+        private boolean contextPushed;
+        private int depth;
+        private SAXEventBuffer.Builder buf;
+        private List<Segment> segments;
+        private final List<String> prefixes = new ArrayList<String>();
+
+        LinkCollector(final File tempDir) throws IOException {
+            spillFile = File.createTempFile("maplink", ".tmp", tempDir);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+        }
+
+        /**
+         * Read link content for topics in a single file.
+         *
+         * @param fragments record positions by topic ID
+         * @return link content by topic ID
+         */
+        Map<String, SAXEventBuffer> read(final Map<String, List<Segment>> fragments) throws IOException {
+            if (spill == null) {
+                spill = new RandomAccessFile(spillFile, "r");
+            }
+            final Map<String, SAXEventBuffer> res = new HashMap<String, SAXEventBuffer>();
+            for (final Map.Entry<String, List<Segment>> e: fragments.entrySet()) {
+                final SAXEventBuffer.Builder b = new SAXEventBuffer.Builder();
+                for (final Segment s: e.getValue()) {
+                    final byte[] bytes = new byte[s.length];
+                    spill.seek(s.offset);
+                    spill.readFully(bytes);
+                    b.append(SAXEventBuffer.read(new DataInputStream(new ByteArrayInputStream(bytes))));
                 }
+                res.put(e.getKey(), b.build());
             }
+            return res;
+        }
+
+        void flush() throws IOException {
+            out.flush();
         }
 
-        final Map<File, Map<String, Element>> mapSet = getMapping(doc);
-
-        if (!mapSet.isEmpty()) {
-            final DitaLinksWriter linkInserter = new DitaLinksWriter();
-            linkInserter.setLogger(logger);
-            linkInserter.setJob(job);
-            for (final Map.Entry<File, Map<String, Element>> entry: mapSet.entrySet()) {
-                final File f = new File(job.tempDir, entry.getKey().getPath());
-                logger.info("Processing " + f);
-                linkInserter.setLinks(entry.getValue());
-                try {
-                    linkInserter.write(f);
-                } catch (final DITAOTException e) {
-                    logger.error("Failed to insert links: " + e.getMessage(), e);
+        /**
+         * Close and delete spill file.
+         */
+        void close() {
+            try {
+                out.close();
+                if (spill != null) {
+                    spill.close();
                 }
+            } catch (final IOException e) {
+                logger.error("Failed to close link spill file: " + e.getMessage(), e);
+            }
+            if (!spillFile.delete()) {
+                logger.error("Failed to delete link spill file " + spillFile);
             }
         }
-        return null;
-    }
 
-    private Map<File, Map<String, Element>> getMapping(Document doc) {
-        final Map<File, Map<String, Element>> map = new HashMap<File, Map<String, Element>>();
-        final NodeList maplinks = doc.getDocumentElement().getChildNodes();
-        for (int i = 0; i < maplinks.getLength(); i++) {
-            final Node n = maplinks.item(i);
-            if (n.getNodeType() == Node.ELEMENT_NODE) {
-                final Element maplink = (Element) n;
-                final URI href = toURI(maplink.getAttribute(ATTRIBUTE_NAME_HREF));
-                final File path = toFile(stripFragment(href));
-                String fragment = href.getFragment();
-                if (fragment == null) {
-                    fragment = SHARP;
+        // SAX methods
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            if (buf != null) {
+                buf.startPrefixMapping(prefix, uri);
+            } else {
+                if (!contextPushed) {
+                    namespaces.pushContext();
+                    contextPushed = true;
                 }
-                Map<String, Element> m = map.get(path);
+                namespaces.declarePrefix(prefix, uri);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            if (buf != null) {
+                buf.endPrefixMapping(prefix);
+            }
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            depth++;
+            if (depth > 2) {
+                buf.startElement(uri, localName, qName, atts);
+                return;
+            }
+            if (!contextPushed) {
+                namespaces.pushContext();
+            }
+            contextPushed = false;
+            if (depth == 2) {
+                final String href = atts.getValue(ATTRIBUTE_NAME_HREF);
+                final URI target = toURI(href != null ? href : "");
+                final File path = toFile(stripFragment(target));
+                final String fragment = target.getFragment() != null ? target.getFragment() : SHARP;
+                Map<String, List<Segment>> m = index.get(path);
                 if (m == null) {
-                    m = new HashMap<String, Element>();
-                    map.put(path, m);
+                    m = new HashMap<String, List<Segment>>();
+                    index.put(path, m);
+                }
+                segments = m.get(fragment);
+                if (segments == null) {
+                    segments = new ArrayList<Segment>();
+                    m.put(fragment, segments);
+                }
+                // namespaces in scope in the link stylesheet output
+                buf = new SAXEventBuffer.Builder();
+                prefixes.clear();
+                for (final Enumeration<?> e = namespaces.getPrefixes(); e.hasMoreElements();) {
+                    final String prefix = (String) e.nextElement();
+                    if (!prefix.equals("xml")) {
+                        prefixes.add(prefix);
+                    }
                 }
-                Element stub = m.get(fragment);
-                if (stub == null) {
-                    stub = doc.createElement("stub");
-                    m.put(fragment, stub);
+                final String defaultNamespace = namespaces.getURI("");
+                if (defaultNamespace != null && !defaultNamespace.isEmpty()) {
+                    prefixes.add("");
                 }
-                Node c = maplink.getFirstChild();
-                while (c != null) {
-                    stub.appendChild(maplink.removeChild(c));
-                    c = c.getNextSibling();
+                for (final String prefix: prefixes) {
+                    buf.startPrefixMapping(prefix, namespaces.getURI(prefix));
                 }
             }
         }
-        return map;
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            if (depth > 2) {
+                buf.endElement(uri, localName, qName);
+            } else {
+                if (depth == 2) {
+                    for (final String prefix: prefixes) {
+                        buf.endPrefixMapping(prefix);
+                    }
+                    try {
+                        writeRecord(buf.build());
+                    } catch (final IOException e) {
+                        throw new SAXException("Failed to write link spill file: " + e.getMessage(), e);
+                    }
+                    buf = null;
+                    segments = null;
+                }
+                namespaces.popContext();
+            }
+            depth--;
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) throws SAXException {
+            if (buf != null) {
+                buf.characters(ch, start, length);
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+            if (buf != null) {
+                buf.ignorableWhitespace(ch, start, length);
+            }
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) throws SAXException {
+            if (buf != null) {
+                buf.processingInstruction(target, data);
+            }
+        }
+
+        private void writeRecord(final SAXEventBuffer links) throws IOException {
+            record.reset();
+            links.write(new DataOutputStream(record));
+            record.writeTo(out);
+            segments.add(new Segment(position, record.size()));
+            position += record.size();
+        }
+
     }
 
 }
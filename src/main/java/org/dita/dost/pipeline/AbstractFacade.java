@@ -11,6 +11,7 @@ package org.dita.dost.pipeline;
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.module.AbstractPipelineModule;
+import org.dita.dost.util.BuildContext;
 import org.dita.dost.util.Job;
 
 /**
@@ -60,4 +61,11 @@ public interface AbstractFacade {
 
     public void setJob(Job job);
 
+    /**
+     * Set build context. The context is bound to the executing thread while a module runs.
+     * 
+     * @param context build context
+     */
+    public void setContext(BuildContext context);
+
 }
@@ -10,9 +10,12 @@ package org.dita.dost.pipeline;
 
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.DITAOTLogger;
+import org.dita.dost.log.LogContext;
 import org.dita.dost.module.AbstractPipelineModule;
 import org.dita.dost.module.ModuleFactory;
+import org.dita.dost.util.BuildContext;
 import org.dita.dost.util.Job;
+import org.dita.dost.util.XMLUtils;
 
 /**
  * PipelineFacade implement AbstractFacade and control the constructing and excuting
@@ -25,6 +28,8 @@ public final class PipelineFacade implements AbstractFacade {
 
     private DITAOTLogger logger;
     private Job job;
+    private BuildContext context = new BuildContext();
+    /** Module factory is stateless and can be shared between builds. */
     private final ModuleFactory factory = ModuleFactory.instance();
 
     /**
@@ -51,9 +56,7 @@ public final class PipelineFacade implements AbstractFacade {
          */
         final AbstractPipelineModule module = factory.createModule(pipelineModuleName);
         if (module != null) {
-            module.setLogger(logger);
-            module.setJob(job);
-            return module.execute(input);
+            return execute(module, input);
         }
         return null;
     }
@@ -63,9 +66,7 @@ public final class PipelineFacade implements AbstractFacade {
             final AbstractPipelineInput input) throws DITAOTException {
         final AbstractPipelineModule module = factory.createModule(moduleClass);
         if (module != null) {
-            module.setLogger(logger);
-            module.setJob(job);
-            return module.execute(input);
+            return execute(module, input);
         }
         return null;
     }
@@ -75,7 +76,18 @@ public final class PipelineFacade implements AbstractFacade {
             final AbstractPipelineInput input) throws DITAOTException {
         module.setLogger(logger);
         module.setJob(job);
-        return module.execute(input);
+        module.setContext(context);
+        final BuildContext previous = BuildContext.bind(context);
+        final LogContext previousLogContext = LogContext.bind(LogContext.getCurrent().withModule(module.getClass().getSimpleName()));
+        try {
+            return module.execute(input);
+        } finally {
+            BuildContext.bind(previous);
+            LogContext.bind(previousLogContext);
+            if (logger != null) {
+                logger.debug("XML pool statistics: " + XMLUtils.getPoolStatistics());
+            }
+        }
     }
 
     @Override
@@ -87,5 +99,10 @@ public final class PipelineFacade implements AbstractFacade {
     public void setJob(final Job job) {
         this.job = job;
     }
+
+    @Override
+    public void setContext(final BuildContext context) {
+        this.context = context;
+    }
     
 }
@@ -93,7 +93,13 @@ final class FileGenerator extends XMLFilterImpl {
         }
     }
 
-    private File removeTemplatePrefix(final File templateFile) {
+    /**
+     * Get output file for a template file.
+     * 
+     * @param templateFile template file
+     * @return output file
+     */
+    static File removeTemplatePrefix(final File templateFile) {
         final String f = templateFile.getAbsolutePath();
         final int i = f.lastIndexOf(TEMPLATE_PREFIX);
         if (i != -1) {
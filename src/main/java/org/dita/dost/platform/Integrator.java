@@ -11,12 +11,17 @@ package org.dita.dost.platform;
 import static org.dita.dost.util.Constants.*;
 import static org.dita.dost.util.Configuration.*;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -27,9 +32,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 import java.util.regex.Pattern;
 
+import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.util.ParallelUtils;
 import org.dita.dost.util.XMLUtils;
 import org.xml.sax.SAXException;
 
@@ -54,6 +63,14 @@ public final class Integrator {
 
     private static final String CONF_PLUGIN_IGNORES = "plugin.ignores";
     private static final String CONF_PLUGIN_DIRS = "plugindirs";
+    /** Integration fingerprint file name. */
+    private static final String FINGERPRINT_FILE = "integrator.fingerprint";
+    /** Generated messages configuration file. */
+    private static final String MESSAGES_FILE = "resources" + File.separator + "messages.xml";
+    /** Precompiled message catalog file. */
+    private static final String MESSAGES_CATALOG = "resources" + File.separator + "messages.bin";
+    private static final String FINGERPRINT_SETTINGS = "settings";
+    private static final String FINGERPRINT_FILE_PREFIX = "file.";
     /** Feature name for supported image extensions. */
     public static final String FEAT_IMAGE_EXTENSIONS = "dita.image.extensions";
     /** Feature name for supported image extensions. */
@@ -76,7 +93,6 @@ public final class Integrator {
     private File ditaDir;
     /** Plugin configuration file. */
     private final Set<File> descSet;
-    private final XMLReader reader;
     private DITAOTLogger logger;
     private final Set<String> loadedPlugin;
     private final Hashtable<String, List<String>> featureTable;
@@ -84,6 +100,7 @@ public final class Integrator {
     private File propertiesFile;
     private final Set<String> extensionPoints;
     private boolean strict = false;
+    private boolean force = false;
 
     private Properties properties;
 
@@ -156,8 +173,204 @@ public final class Integrator {
             }
         }
 
+        final File fingerprintFile = new File(ditaDir, "lib" + File.separator + getClass().getPackage().getName() + File.separator + FINGERPRINT_FILE);
+        final String settings = getSettingsFingerprint();
+        if (!force && isUpToDate(fingerprintFile, settings)) {
+            logger.info("Plug-in integration is up to date");
+            return;
+        }
+
         parsePlugin();
         integrate();
+        writeFingerprint(fingerprintFile, settings);
+    }
+
+    /**
+     * Get fingerprint of integration settings and plug-in descriptors.
+     *
+     * @return fingerprint, {@code null} if fingerprint could not be calculated
+     */
+    private String getSettingsFingerprint() {
+        final StringBuilder buf = new StringBuilder();
+        buf.append("strict=").append(strict).append('\n');
+        for (final String key: new TreeSet<String>(properties.stringPropertyNames())) {
+            buf.append(key).append('=').append(properties.getProperty(key)).append('\n');
+        }
+        final Set<String> descPaths = new TreeSet<String>();
+        for (final File descFile: descSet) {
+            descPaths.add(descFile.getAbsolutePath());
+        }
+        try {
+            for (final String descPath: descPaths) {
+                buf.append(descPath).append('=').append(hash(new File(descPath))).append('\n');
+            }
+        } catch (final IOException e) {
+            logger.debug("Failed to calculate integration fingerprint: " + e.getMessage());
+            return null;
+        }
+        return hash(buf.toString());
+    }
+
+    /**
+     * Test whether previous integration results are up to date. Integration is up
+     * to date if settings and plug-in descriptors are unchanged and the templates,
+     * feature files, and generated files have the same content hash as after the
+     * previous integration.
+     *
+     * @param fingerprintFile fingerprint file
+     * @param settings current settings fingerprint
+     * @return {@code true} if integration is up to date, otherwise {@code false}
+     */
+    private boolean isUpToDate(final File fingerprintFile, final String settings) {
+        if (settings == null || !fingerprintFile.exists()) {
+            return false;
+        }
+        final Properties fingerprint = new Properties();
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(fingerprintFile));
+            fingerprint.load(in);
+            if (!settings.equals(fingerprint.getProperty(FINGERPRINT_SETTINGS))) {
+                return false;
+            }
+            for (final String key: fingerprint.stringPropertyNames()) {
+                if (key.startsWith(FINGERPRINT_FILE_PREFIX)) {
+                    final File file = new File(key.substring(FINGERPRINT_FILE_PREFIX.length()));
+                    if (!file.isFile() || !fingerprint.getProperty(key).equals(hash(file))) {
+                        logger.debug("Integration input or output " + file.getPath() + " changed");
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } catch (final IOException e) {
+            logger.debug("Failed to read integration fingerprint: " + e.getMessage());
+            return false;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (final IOException e) {
+                    logger.error(e.getMessage(), e) ;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write integration fingerprint.
+     *
+     * @param fingerprintFile fingerprint file
+     * @param settings settings fingerprint
+     */
+    private void writeFingerprint(final File fingerprintFile, final String settings) {
+        if (settings == null) {
+            return;
+        }
+        final Set<File> files = new HashSet<File>();
+        for (final String template : templateSet) {
+            final File templateFile = new File(ditaDir, template);
+            files.add(templateFile);
+            files.add(FileGenerator.removeTemplatePrefix(templateFile));
+        }
+        for (final List<String> values: featureTable.values()) {
+            for (final String value: values) {
+                final File file = new File(value);
+                if (file.isFile()) {
+                    files.add(file);
+                }
+            }
+        }
+        files.add(new File(ditaDir, "lib" + File.separator + getClass().getPackage().getName() + File.separator + GEN_CONF_PROPERTIES));
+        files.add(new File(ditaDir, MESSAGES_CATALOG));
+
+        final Properties fingerprint = new Properties();
+        fingerprint.setProperty(FINGERPRINT_SETTINGS, settings);
+        OutputStream out = null;
+        try {
+            for (final File file: files) {
+                if (file.isFile()) {
+                    fingerprint.setProperty(FINGERPRINT_FILE_PREFIX + file.getAbsolutePath(), hash(file));
+                }
+            }
+            out = new BufferedOutputStream(new FileOutputStream(fingerprintFile));
+            fingerprint.store(out, "DITA-OT integration fingerprint, do not edit manually");
+        } catch (final IOException e) {
+            logger.debug("Failed to write integration fingerprint: " + e.getMessage());
+            fingerprintFile.delete();
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (final IOException e) {
+                    logger.error(e.getMessage(), e) ;
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculate hex encoded SHA-1 hash of file content.
+     */
+    private static String hash(final File file) throws IOException {
+        final MessageDigest digest = getMessageDigest();
+        final byte[] buf = new byte[8192];
+        final InputStream in = new FileInputStream(file);
+        try {
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                digest.update(buf, 0, len);
+            }
+        } finally {
+            in.close();
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Calculate hex encoded SHA-1 hash of a string.
+     */
+    private static String hash(final String value) {
+        final MessageDigest digest = getMessageDigest();
+        try {
+            return toHex(digest.digest(value.getBytes("UTF-8")));
+        } catch (final UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static MessageDigest getMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder buf = new StringBuilder(bytes.length * 2);
+        for (final byte b: bytes) {
+            buf.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Compile generated messages configuration file into a precompiled message
+     * catalog so that messages can be loaded without parsing XML at start-up.
+     */
+    private void writeMessageCatalog() {
+        final File messages = new File(ditaDir, MESSAGES_FILE);
+        final File catalog = new File(ditaDir, MESSAGES_CATALOG);
+        if (!messages.exists()) {
+            return;
+        }
+        try {
+            MessageUtils.writeCatalog(messages, catalog);
+        } catch (final Exception e) {
+            logger.error("Failed to write message catalog " + catalog.getPath() + ": " + e.getMessage(), e);
+            catalog.delete();
+        }
     }
 
     /**
@@ -177,6 +390,7 @@ public final class Integrator {
             logger.debug("Process template " + templateFile.getPath());
             fileGen.generate(templateFile);
         }
+        writeMessageCatalog();
 
         // generate configuration properties
         final Properties configuration = new Properties();
@@ -357,42 +571,90 @@ public final class Integrator {
     }
 
     /**
-     * Parse plugin configuration files.
+     * Parse plugin configuration files. Configuration files are parsed
+     * concurrently and the results are added to the plugin table in the
+     * order of the configuration files.
      */
     private void parsePlugin() {
         if (!descSet.isEmpty()) {
-            for (final File descFile : descSet) {
+            final List<File> descFiles = new ArrayList<File>(descSet);
+            final List<Callable<ParseResult>> tasks = new ArrayList<Callable<ParseResult>>(descFiles.size());
+            for (final File descFile : descFiles) {
+                tasks.add(new Callable<ParseResult>() {
+                    @Override
+                    public ParseResult call() {
+                        final ParseResult result = new ParseResult();
+                        try {
+                            result.features = parseDesc(descFile);
+                        } catch (final Exception e) {
+                            result.exception = e;
+                        }
+                        return result;
+                    }
+                });
+            }
+            final List<ParseResult> results;
+            try {
+                results = ParallelUtils.invokeAll(tasks);
+            } catch (final DITAOTException e) {
+                throw new RuntimeException(e);
+            }
+            for (int i = 0; i < descFiles.size(); i++) {
+                final File descFile = descFiles.get(i);
                 logger.debug("Read plug-in configuration " + descFile.getPath());
-                parseDesc(descFile);
+                addPlugin(descFile, results.get(i));
             }
         }
     }
 
+    /**
+     * Result of parsing a plugin configuration file.
+     */
+    private static final class ParseResult {
+        Features features;
+        Exception exception;
+    }
+
     /**
      * Parse plugin configuration file
      * 
      * @param descFile plugin configuration
+     * @return plugin features
      */
-    private void parseDesc(final File descFile) {
+    private Features parseDesc(final File descFile) throws SAXException, IOException {
+        final XMLReader reader = XMLUtils.getXMLReader();
+        final DescParser parser = new DescParser(descFile.getParentFile(), ditaDir);
+        reader.setContentHandler(parser);
+        reader.setErrorHandler(new ErrorHandler() {
+            @Override
+            public void error(final SAXParseException e) throws SAXException {
+                throw e;
+            }
+            @Override
+            public void fatalError(final SAXParseException e) throws SAXException {
+                throw e;
+            }
+            @Override
+            public void warning(final SAXParseException e) throws SAXException {
+                throw e;
+            }
+        });
+        reader.parse(descFile.getAbsolutePath());
+        return parser.getFeatures();
+    }
+
+    /**
+     * Add parsed plugin to plugin table.
+     * 
+     * @param descFile plugin configuration
+     * @param result parse result
+     */
+    private void addPlugin(final File descFile, final ParseResult result) {
         try {
-            final DescParser parser = new DescParser(descFile.getParentFile(), ditaDir);
-            reader.setContentHandler(parser);
-            reader.setErrorHandler(new ErrorHandler() {
-                @Override
-                public void error(final SAXParseException e) throws SAXException {
-                    throw e;
-                }
-                @Override
-                public void fatalError(final SAXParseException e) throws SAXException {
-                    throw e;
-                }
-                @Override
-                public void warning(final SAXParseException e) throws SAXException {
-                    throw e;
-                }
-            });
-            reader.parse(descFile.getAbsolutePath());
-            final Features f = parser.getFeatures();
+            if (result.exception != null) {
+                throw result.exception;
+            }
+            final Features f = result.features;
             final String id = f.getPluginId();
             validatePlugin(f);
             setDefaultValues(f);
@@ -480,11 +742,6 @@ public final class Integrator {
         loadedPlugin = new HashSet<String>(16);
         featureTable = new Hashtable<String, List<String>>(16);
         extensionPoints = new HashSet<String>();
-        try {
-            reader = XMLUtils.getXMLReader();
-        } catch (final Exception e) {
-            throw new RuntimeException("Failed to initialize XML parser: " + e.getMessage(), e);
-        }
     }
 
     /**
@@ -515,6 +772,15 @@ public final class Integrator {
         this.strict = strict;
     }
 
+    /**
+     * Setter for forced integration.
+     * 
+     * @param force {@code true} to integrate even if plug-ins are unchanged, {@code false} to skip unchanged integration
+     */
+    public void setForce(final boolean force) {
+        this.force = force;
+    }
+
     /**
      * Set logger.
      * 
@@ -74,4 +74,12 @@ public final class IntegratorTask extends Task {
         adaptee.setStrict(strict);
     }
 
+    /**
+     * Setter for forced integration.
+     * @param force {@code true} to integrate even if plug-ins are unchanged
+     */
+    public void setForce(final boolean force) {
+        adaptee.setForce(force);
+    }
+
 }
@@ -24,7 +24,6 @@ import java.util.*;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
@@ -251,15 +250,17 @@ public final class ChunkMapReader extends AbstractDomFilter {
 
     private void outputMapFile(final File file, final Document doc) {  
         OutputStream output = null;
+        Transformer t = null;
         try {
             output = new FileOutputStream(file);
-            final Transformer t = TransformerFactory.newInstance().newTransformer();
+            t = XMLUtils.borrowTransformer();
             t.transform(new DOMSource(doc), new StreamResult(output));
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
             logger.error(e.getMessage(), e);
         } finally {
+            XMLUtils.releaseTransformer(t);
             try {
                 if (output != null) {
                     output.close();
@@ -9,44 +9,39 @@
 package org.dita.dost.reader;
 
 import static org.dita.dost.util.Constants.*;
+import static javax.xml.XMLConstants.*;
 import static org.dita.dost.util.URLUtils.*;
 
 import java.io.File;
 import java.net.URI;
 import java.util.Collections;
-import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.stream.FactoryConfigurationError;
-import javax.xml.stream.XMLOutputFactory;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamWriter;
-import javax.xml.transform.dom.DOMResult;
-
+import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.log.MessageUtils;
 import org.dita.dost.util.FileUtils;
+import org.dita.dost.util.SAXEventBuffer;
 import org.dita.dost.util.XMLUtils;
-import org.w3c.dom.Attr;
-import org.w3c.dom.Document;
-import org.w3c.dom.DocumentFragment;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * Class for reading conref push content.
- *
+ * 
+ * <p>Push content is stored as immutable {@link SAXEventBuffer event buffers}.
+ * A reader instance is not thread-safe, but separate instances can read
+ * different files concurrently and their push tables combined with
+ * {@link #merge(List, DITAOTLogger)}.</p>
  */
 public final class ConrefPushReader extends AbstractXMLReader {
 
     /** push table.*/
-    private final Hashtable<File, Hashtable<MoveKey, DocumentFragment>> pushtable;
-    /** Document used to construct push table DocumentFragments. */
-    private final Document pushDocument;
+    private final Map<File, Map<MoveKey, SAXEventBuffer>> pushtable;
     /** push table.*/
     private final XMLReader reader;
 
@@ -60,9 +55,7 @@ public final class ConrefPushReader extends AbstractXMLReader {
 	 in pushcontent href will be resolved if it is relative path
 	 if @conref is in pushconref the target name should be recorded so that it
 	 could be added to conreflist for conref resolution.*/
-    private XMLStreamWriter pushcontentWriter;
-    /** Common document for all push content document fragments. */
-    private DocumentFragment pushcontentDocumentFragment;
+    private SAXEventBuffer.Builder pushcontent;
 
     /**boolean start is used to control whether sax parser can start to
 	 record push content into String pushcontent.*/
@@ -86,10 +79,35 @@ public final class ConrefPushReader extends AbstractXMLReader {
      * 
      * @return unmodifiable push table
      */
-    public Map<File, Hashtable<MoveKey, DocumentFragment>> getPushMap() {
+    public Map<File, Map<MoveKey, SAXEventBuffer>> getPushMap() {
     	return Collections.unmodifiableMap(pushtable);
     }
     
+    /**
+     * Combine push tables read from separate files. Push tables are merged in
+     * list order, so the result is the same as when all files were read in that
+     * order with a single reader.
+     * 
+     * @param pushMaps push tables to merge
+     * @param logger logger for conflicting push replace actions
+     * @return unmodifiable merged push table
+     */
+    public static Map<File, Map<MoveKey, SAXEventBuffer>> merge(final List<Map<File, Map<MoveKey, SAXEventBuffer>>> pushMaps,
+            final DITAOTLogger logger) {
+        final Map<File, Map<MoveKey, SAXEventBuffer>> res = new LinkedHashMap<File, Map<MoveKey, SAXEventBuffer>>();
+        for (final Map<File, Map<MoveKey, SAXEventBuffer>> pushMap: pushMaps) {
+            for (final Map.Entry<File, Map<MoveKey, SAXEventBuffer>> file: pushMap.entrySet()) {
+                for (final Map.Entry<MoveKey, SAXEventBuffer> push: file.getValue().entrySet()) {
+                    put(res, file.getKey(), push.getKey(), push.getValue(), logger);
+                }
+            }
+        }
+        for (final Map.Entry<File, Map<MoveKey, SAXEventBuffer>> file: res.entrySet()) {
+            file.setValue(Collections.unmodifiableMap(file.getValue()));
+        }
+        return Collections.unmodifiableMap(res);
+    }
+    
     /**
      * @param filename filename
      */
@@ -98,7 +116,7 @@ public final class ConrefPushReader extends AbstractXMLReader {
         fileDir = filename.getParentFile().getAbsoluteFile();
         parsefilename = new File(filename.getName());
         start = false;
-        pushcontentWriter = getXMLStreamWriter();
+        pushcontent = new SAXEventBuffer.Builder();
         pushType = null;
         try{
             reader.parse(filename.toURI().toString());
@@ -110,22 +128,11 @@ public final class ConrefPushReader extends AbstractXMLReader {
         }
     }
     
-    private XMLStreamWriter getXMLStreamWriter() {
-        pushcontentDocumentFragment = pushDocument.createDocumentFragment();
-        try {
-            return XMLOutputFactory.newInstance().createXMLStreamWriter(new DOMResult(pushcontentDocumentFragment));
-        } catch (final XMLStreamException e) {
-            throw new RuntimeException(e);
-        } catch (FactoryConfigurationError e) {
-            throw new RuntimeException(e);
-        }
-    }
-    
     /**
      * Constructor.
      */
     public ConrefPushReader() {
-        pushtable = new Hashtable<File, Hashtable<MoveKey,DocumentFragment>>();
+        pushtable = new LinkedHashMap<File, Map<MoveKey, SAXEventBuffer>>();
         try{
             reader = XMLUtils.getXMLReader();
             reader.setFeature(FEATURE_NAMESPACE_PREFIX, false);
@@ -134,9 +141,6 @@ public final class ConrefPushReader extends AbstractXMLReader {
         }catch (final Exception e) {
             throw new RuntimeException("Failed to initialize XML parser: " + e.getMessage(), e);
         }
-
-        final DocumentBuilder documentBuilder = XMLUtils.getDocumentBuilder();
-        pushDocument = documentBuilder.newDocument();
     }
 
     @Override
@@ -153,30 +157,23 @@ public final class ConrefPushReader extends AbstractXMLReader {
         final String conactValue = atts.getValue(ATTRIBUTE_NAME_CONACTION);
         if (!start && conactValue != null) {
             if (ATTR_CONACTION_VALUE_PUSHBEFORE.equals(conactValue)) {
-                if (pushcontentDocumentFragment.getChildNodes().getLength() != 0) {
+                if (!pushcontent.isEmpty()) {
                     // there are redundant "pushbefore", create a new pushcontent and emit a warning message.
-                    if (pushcontentWriter != null) {
-                        try {
-                            pushcontentWriter.close();
-                        } catch (final XMLStreamException e) {
-                            throw new SAXException(e);
-                        }
-                    }
-                    pushcontentWriter = getXMLStreamWriter();
+                    pushcontent = new SAXEventBuffer.Builder();
                     logger.warn(MessageUtils.getInstance().getMessage("DOTJ044W", atts.getValue(ATTRIBUTE_NAME_XTRF), atts.getValue(ATTRIBUTE_NAME_XTRC)).toString());
                 }
                 start = true;
                 level = 1;
-                putElement(name, atts, true);
                 pushType = ATTR_CONACTION_VALUE_PUSHBEFORE;
+                putElement(name, atts, true);
             } else if (ATTR_CONACTION_VALUE_PUSHAFTER.equals(conactValue)) {
                 start = true;
                 level = 1;
                 if (target == null) {
                     logger.error(MessageUtils.getInstance().getMessage("DOTJ039E", atts.getValue(ATTRIBUTE_NAME_XTRF), atts.getValue(ATTRIBUTE_NAME_XTRC)).toString());
                 } else {
-                    putElement(name, atts, true);
                     pushType = ATTR_CONACTION_VALUE_PUSHAFTER;
+                    putElement(name, atts, true);
                 }
             } else if (ATTR_CONACTION_VALUE_PUSHREPLACE.equals(conactValue)) {
                 start = true;
@@ -191,20 +188,12 @@ public final class ConrefPushReader extends AbstractXMLReader {
 
             } else if (ATTR_CONACTION_VALUE_MARK.equals(conactValue)) {
                 target = toURI(atts.getValue(ATTRIBUTE_NAME_CONREF));
-                if (target != null &&
-                        pushcontentDocumentFragment != null && pushcontentDocumentFragment.getChildNodes().getLength() > 0 &&
+                if (target != null && !pushcontent.isEmpty() &&
                         ATTR_CONACTION_VALUE_PUSHBEFORE.equals(pushType)) {
                     //pushcontent != null means it is pushbefore action
                     //we need to add target and content to pushtable
-                    if (pushcontentWriter != null) {
-                        try {
-                            pushcontentWriter.close();
-                        } catch (final XMLStreamException e) {
-                            throw new SAXException(e);
-                        }
-                    }
-                    addtoPushTable(target, replaceContent(pushcontentDocumentFragment), pushType);
-                    pushcontentWriter = getXMLStreamWriter();
+                    addtoPushTable(target, replaceContent(pushcontent.build()), pushType);
+                    pushcontent = new SAXEventBuffer.Builder();
                     target = null;
                     pushType = null;
                 }
@@ -217,32 +206,36 @@ public final class ConrefPushReader extends AbstractXMLReader {
     }
     
     /**
-     * Rewrite link attributes.
+     * Rewrite link attributes of pushbefore content once the target is known.
      */
-    private DocumentFragment replaceContent(final DocumentFragment pushcontent) {
-        final NodeList children = pushcontent.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            final Node child = children.item(i);
-            switch(child.getNodeType()) {
-            case Node.ELEMENT_NODE:
-                final Element e = (Element) child;
-                replaceLinkAttributes(e);
-                final NodeList elements = e.getElementsByTagName("*");
-                for (int j = 0; i < elements.getLength(); i++) {
-                    replaceLinkAttributes((Element) elements.item(j));
+    private SAXEventBuffer replaceContent(final SAXEventBuffer content) throws SAXException {
+        final SAXEventBuffer.Builder res = new SAXEventBuffer.Builder();
+        content.replay(new DefaultHandler() {
+            @Override
+            public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+                final AttributesImpl a = new AttributesImpl(atts);
+                for (int i = 0; i < a.getLength(); i++) {
+                    final String name = a.getQName(i);
+                    if (ATTRIBUTE_NAME_HREF.equals(name) || ATTRIBUTE_NAME_CONREF.equals(name)) {
+                        a.setValue(i, replaceURL(a.getValue(i)));
+                    }
                 }
-                break;
+                res.startElement(uri, localName, qName, a);
             }
-        }
-        return pushcontent;
-    }
-    private void replaceLinkAttributes(final Element pushcontent) {
-        for (final String attName: new String[] { ATTRIBUTE_NAME_HREF, ATTRIBUTE_NAME_CONREF }) {
-            final Attr att = pushcontent.getAttributeNode(attName);
-            if (att != null) {
-                att.setNodeValue(replaceURL(att.getNodeValue()));
+            @Override
+            public void endElement(final String uri, final String localName, final String qName) {
+                res.endElement(uri, localName, qName);
             }
-        }
+            @Override
+            public void characters(final char[] ch, final int start, final int length) {
+                res.characters(ch, start, length);
+            }
+            @Override
+            public void processingInstruction(final String target, final String data) {
+                res.processingInstruction(target, data);
+            }
+        });
+        return res.build();
     }
     
     /**
@@ -251,54 +244,48 @@ public final class ConrefPushReader extends AbstractXMLReader {
      * @param elemName element name
      * @param atts attribute
      * @param removeConref whether remeove conref info
-     * @throws SAXException if writing element failed
      */
-    private void putElement(final String elemName, final Attributes atts, final boolean removeConref) throws SAXException {
+    private void putElement(final String elemName, final Attributes atts, final boolean removeConref) {
         //parameter boolean removeConref specifies whether to remove
         //conref information like @conref @conaction in current element
         //when copying it to pushcontent. True means remove and false means
         //not remove.
-        try {
-            pushcontentWriter.writeStartElement(elemName);
-            for (int index = 0; index < atts.getLength(); index++) {
-                final String name = atts.getQName(index);
-                if (!removeConref ||
-                        !ATTRIBUTE_NAME_CONREF.equals(name) && !ATTRIBUTE_NAME_CONACTION.equals(name)) {
-                    String value = atts.getValue(index);
-                    if (ATTRIBUTE_NAME_HREF.equals(name) || ATTRIBUTE_NAME_CONREF.equals(name)) {
-                        // adjust href for pushbefore and replace
-                        value = replaceURL(value);
-                    }
-                    final int offset = atts.getQName(index).indexOf(":");
-                    final String prefix = offset != -1 ? atts.getQName(index).substring(0, offset) : "";
-                    pushcontentWriter.writeAttribute(prefix, atts.getURI(index), atts.getLocalName(index), value);
+        final AttributesImpl res = new AttributesImpl();
+        for (int index = 0; index < atts.getLength(); index++) {
+            final String name = atts.getQName(index);
+            if (!removeConref ||
+                    !ATTRIBUTE_NAME_CONREF.equals(name) && !ATTRIBUTE_NAME_CONACTION.equals(name)) {
+                String value = atts.getValue(index);
+                if (!ATTR_CONACTION_VALUE_PUSHBEFORE.equals(pushType) &&
+                        (ATTRIBUTE_NAME_HREF.equals(name) || ATTRIBUTE_NAME_CONREF.equals(name))) {
+                    // adjust href for replace and pushafter, pushbefore is adjusted at mark
+                    value = replaceURL(value);
                 }
-    
+                res.addAttribute(atts.getURI(index), atts.getLocalName(index), name, "CDATA", value);
             }
-            //id attribute should only be added to the starting element
-            //which dosen't have id attribute set
-            if (ATTR_CONACTION_VALUE_PUSHREPLACE.equals(pushType) &&
-                    atts.getValue(ATTRIBUTE_NAME_ID) == null &&
-                    level == 1) {
-                final String fragment = target.getFragment();
-                if (fragment == null) {
-                    //if there is no '#' in target string, report error
-                    logger.error(MessageUtils.getInstance().getMessage("DOTJ041E", target.toString()).toString());
+        }
+        //id attribute should only be added to the starting element
+        //which dosen't have id attribute set
+        if (ATTR_CONACTION_VALUE_PUSHREPLACE.equals(pushType) &&
+                atts.getValue(ATTRIBUTE_NAME_ID) == null &&
+                level == 1) {
+            final String fragment = target.getFragment();
+            if (fragment == null) {
+                //if there is no '#' in target string, report error
+                logger.error(MessageUtils.getInstance().getMessage("DOTJ041E", target.toString()).toString());
+            } else {
+                String id = "";
+                //has element id
+                if (fragment.contains(SLASH)) {
+                    id = fragment.substring(fragment.lastIndexOf(SLASH) + 1);
                 } else {
-                    String id = "";
-                    //has element id
-                    if (fragment.contains(SLASH)) {
-                        id = fragment.substring(fragment.lastIndexOf(SLASH) + 1);
-                    } else {
-                        id = fragment;
-                    }
-                    //add id attribute
-                    pushcontentWriter.writeAttribute(ATTRIBUTE_NAME_ID, id);
+                    id = fragment;
                 }
+                //add id attribute
+                res.addAttribute(NULL_NS_URI, ATTRIBUTE_NAME_ID, ATTRIBUTE_NAME_ID, "CDATA", id);
             }
-        } catch (final XMLStreamException e) {
-            throw new SAXException(e);
         }
+        pushcontent.startElement(NULL_NS_URI, elemName, elemName, res);
     }
     /**
      * 
@@ -325,7 +312,7 @@ public final class ConrefPushReader extends AbstractXMLReader {
      * @param pushcontent content
      * @param type push type
      */
-    private void addtoPushTable(URI target, final DocumentFragment pushcontent, final String type) {
+    private void addtoPushTable(URI target, final SAXEventBuffer pushcontent, final String type) {
         if (target.getFragment() == null) {
             //if there is no '#' in target string, report error
             logger.error(MessageUtils.getInstance().getMessage("DOTJ041E", target.toString()).toString());
@@ -337,55 +324,39 @@ public final class ConrefPushReader extends AbstractXMLReader {
             target = toURI(parsefilename.getPath() + target);
         }
         final File key = toFile(FileUtils.resolve(fileDir, target));
-        Hashtable<MoveKey, DocumentFragment> table = null;
-        if (pushtable.containsKey(key)) {
-            //if there is something else push to the same file
-            table = pushtable.get(key);
-        } else {
-            //if there is nothing else push to the same file
-            table = new Hashtable<MoveKey, DocumentFragment>();
-            pushtable.put(key, table);
-        }
-
         final MoveKey moveKey = new MoveKey(SHARP + target.getFragment(), type);
-
-        if (table.containsKey(moveKey)) {
-            //if there is something else push to the same target
-            //append content if type is 'pushbefore' or 'pushafter'
-            //report error if type is 'replace'
-            if (ATTR_CONACTION_VALUE_PUSHREPLACE.equals(type)) {
-                logger.error(MessageUtils.getInstance().getMessage("DOTJ042E", target.toString()).toString());
-            } else {
-                table.put(moveKey, appendPushContent(pushcontent, table.get(moveKey)));
-            }
-
-        } else {
-            //if there is nothing else push to the same target
-            table.put(moveKey, appendPushContent(pushcontent, null));
-        }
+        put(pushtable, key, moveKey, pushcontent, logger);
     }
     
-    private DocumentFragment appendPushContent(final DocumentFragment pushcontent, final DocumentFragment target) {
-        DocumentFragment df = target;
-        if (df == null) {
-            df = pushDocument.createDocumentFragment();
+    /**
+     * Add push content to push table.
+     * 
+     * <p>If there is something else pushed to the same target, content is appended
+     * if type is 'pushbefore' or 'pushafter' and an error is reported if type is
+     * 'pushreplace'.</p>
+     */
+    private static void put(final Map<File, Map<MoveKey, SAXEventBuffer>> pushtable, final File key,
+            final MoveKey moveKey, final SAXEventBuffer pushcontent, final DITAOTLogger logger) {
+        Map<MoveKey, SAXEventBuffer> table = pushtable.get(key);
+        if (table == null) {
+            table = new LinkedHashMap<MoveKey, SAXEventBuffer>();
+            pushtable.put(key, table);
         }
-        final NodeList children = pushcontent.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            df.appendChild(pushDocument.importNode(children.item(i), true));
+        final SAXEventBuffer previous = table.get(moveKey);
+        if (previous == null) {
+            table.put(moveKey, pushcontent);
+        } else if (ATTR_CONACTION_VALUE_PUSHREPLACE.equals(moveKey.action)) {
+            logger.error(MessageUtils.getInstance().getMessage("DOTJ042E", toURI(key).toString() + moveKey.idPath).toString());
+        } else {
+            table.put(moveKey, new SAXEventBuffer.Builder().append(previous).append(pushcontent).build());
         }
-        return df;
     }
 
     @Override
     public void characters(final char[] ch, final int start, final int length)
             throws SAXException {
         if (this.start) {
-            try {
-                pushcontentWriter.writeCharacters(ch, start, length);
-            } catch (XMLStreamException e) {
-                throw new SAXException(e);
-            }
+            pushcontent.characters(ch, start, length);
         }
     }
 
@@ -394,11 +365,7 @@ public final class ConrefPushReader extends AbstractXMLReader {
             throws SAXException {
         if (start) {
             level--;
-            try {
-                pushcontentWriter.writeEndElement();
-            } catch (XMLStreamException e) {
-                throw new SAXException(e);
-            }
+            pushcontent.endElement(NULL_NS_URI, name, name);
         }
         if (level == 0) {
             //turn off start if we reach the end tag of staring element
@@ -407,15 +374,8 @@ public final class ConrefPushReader extends AbstractXMLReader {
                 //if it is pushafter or replace, we need to record content in pushtable
                 //if target == null we have already reported error in startElement;
                 if (target != null) {
-                    if (pushcontentWriter != null) {
-                        try {
-                            pushcontentWriter.close();
-                        } catch (final XMLStreamException e) {
-                            throw new SAXException(e);
-                        }
-                    }
-                    addtoPushTable(target, pushcontentDocumentFragment, pushType);
-                    pushcontentWriter = getXMLStreamWriter();
+                    addtoPushTable(target, pushcontent.build(), pushType);
+                    pushcontent = new SAXEventBuffer.Builder();
                     target = null;
                     pushType = null;
                 }
@@ -0,0 +1,198 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.reader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.xerces.impl.XMLEntityManager;
+import org.apache.xerces.impl.dtd.DTDGrammar;
+import org.apache.xerces.impl.dtd.XMLAttributeDecl;
+import org.apache.xerces.impl.dtd.XMLElementDecl;
+import org.apache.xerces.impl.dtd.XMLEntityDecl;
+import org.apache.xerces.impl.dtd.XMLSimpleType;
+import org.apache.xerces.parsers.XMLGrammarPreparser;
+import org.apache.xerces.util.EntityResolverWrapper;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.apache.xerces.xni.parser.XMLInputSource;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Attribute defaults, attribute types and content types compiled from a DTD
+ * grammar. Used by {@link DTDDefaultsFilter} to add the information a
+ * validating parser would add without loading the DTD for every document.
+ *
+ * <p>Instances are thread-safe.</p>
+ *
+ * @since 2.0
+ */
+final class DTDDefaults {
+
+    /** Element declarations by element name. */
+    private final Map<String, ElementDecl> elements;
+    /** Parsed general entity declarations in declaration order. */
+    private final List<XMLEntityDecl> entities;
+
+    private DTDDefaults(final DTDGrammar grammar) {
+        elements = new HashMap<String, ElementDecl>();
+        final XMLElementDecl elementDecl = new XMLElementDecl();
+        final XMLAttributeDecl attributeDecl = new XMLAttributeDecl();
+        for (int e = grammar.getFirstElementDeclIndex(); e != -1 && grammar.getElementDecl(e, elementDecl);
+                e = grammar.getNextElementDeclIndex(e)) {
+            final Map<String, String> types = new HashMap<String, String>();
+            final List<AttributeDecl> defaults = new ArrayList<AttributeDecl>();
+            for (int a = grammar.getFirstAttributeDeclIndex(e); a != -1; a = grammar.getNextAttributeDeclIndex(a)) {
+                grammar.getAttributeDecl(a, attributeDecl);
+                final String type = getType(attributeDecl.simpleType);
+                types.put(attributeDecl.name.rawname, type);
+                // default value is set for both defaulted and fixed attributes
+                if (attributeDecl.simpleType.defaultValue != null) {
+                    final String qName = attributeDecl.name.rawname;
+                    final int i = qName.indexOf(':');
+                    defaults.add(new AttributeDecl(qName, i != -1 ? qName.substring(0, i) : null,
+                                                   qName.substring(i + 1), type,
+                                                   attributeDecl.simpleType.defaultValue));
+                }
+            }
+            elements.put(elementDecl.name.rawname,
+                         new ElementDecl(elementDecl.type == XMLElementDecl.TYPE_CHILDREN, types,
+                                         defaults.toArray(new AttributeDecl[defaults.size()])));
+        }
+        entities = new ArrayList<XMLEntityDecl>();
+        for (int i = 0;; i++) {
+            final XMLEntityDecl entityDecl = new XMLEntityDecl();
+            if (!grammar.getEntityDecl(i, entityDecl)) {
+                break;
+            }
+            if (!entityDecl.isPE && entityDecl.notation == null) {
+                entities.add(entityDecl);
+            }
+        }
+    }
+
+    /**
+     * Parse and compile external DTD subset.
+     *
+     * @param publicId public ID of the DTD, may be {@code null}
+     * @param systemId absolute system ID of the DTD
+     * @param resolver entity resolver for the DTD and its external parameter entities
+     * @param pool grammar pool to cache the parsed grammar into, may be {@code null}
+     * @return compiled DTD
+     * @throws IOException if reading DTD failed
+     * @throws SAXException if resolving DTD failed
+     */
+    static DTDDefaults compile(final String publicId, final String systemId, final EntityResolver resolver,
+                               final XMLGrammarPool pool) throws IOException, SAXException {
+        final XMLGrammarPreparser preparser = new XMLGrammarPreparser();
+        preparser.registerPreparser(XMLGrammarDescription.XML_DTD, null);
+        if (pool != null) {
+            preparser.setGrammarPool(pool);
+        }
+        final XMLInputSource input = new XMLInputSource(publicId, systemId, null);
+        if (resolver != null) {
+            preparser.setEntityResolver(new EntityResolverWrapper(resolver));
+            final InputSource resolved = resolver.resolveEntity(publicId, systemId);
+            if (resolved != null) {
+                input.setSystemId(resolved.getSystemId());
+                input.setByteStream(resolved.getByteStream());
+                input.setCharacterStream(resolved.getCharacterStream());
+                input.setEncoding(resolved.getEncoding());
+            }
+        }
+        return new DTDDefaults((DTDGrammar) preparser.preparseGrammar(XMLGrammarDescription.XML_DTD, input));
+    }
+
+    /**
+     * Get element declaration.
+     *
+     * @param qName element name
+     * @return element declaration, {@code null} if element is not declared
+     */
+    ElementDecl getElement(final String qName) {
+        return elements.get(qName);
+    }
+
+    /**
+     * Declare parsed general entities of the DTD to the parser. Entities
+     * already declared, e.g. in the internal DTD subset, are not replaced.
+     *
+     * @param entityManager entity manager of the parser
+     * @throws IOException if expanding the system ID of an external entity failed
+     */
+    void declareEntities(final XMLEntityManager entityManager) throws IOException {
+        for (final XMLEntityDecl entityDecl: entities) {
+            if (entityDecl.systemId == null) {
+                entityManager.addInternalEntity(entityDecl.name, entityDecl.value);
+            } else {
+                entityManager.addExternalEntity(entityDecl.name, entityDecl.publicId, entityDecl.systemId,
+                                                entityDecl.baseSystemId);
+            }
+        }
+    }
+
+    /**
+     * Get attribute type as reported by SAX.
+     */
+    private static String getType(final XMLSimpleType simpleType) {
+        switch (simpleType.type) {
+        case XMLSimpleType.TYPE_ENTITY:
+            return simpleType.list ? "ENTITIES" : "ENTITY";
+        case XMLSimpleType.TYPE_ENUMERATION:
+            return "NMTOKEN";
+        case XMLSimpleType.TYPE_ID:
+            return "ID";
+        case XMLSimpleType.TYPE_IDREF:
+            return simpleType.list ? "IDREFS" : "IDREF";
+        case XMLSimpleType.TYPE_NMTOKEN:
+            return simpleType.list ? "NMTOKENS" : "NMTOKEN";
+        case XMLSimpleType.TYPE_NOTATION:
+            return "NOTATION";
+        default:
+            return "CDATA";
+        }
+    }
+
+    /** Element declaration. */
+    static final class ElementDecl {
+        /** Element has element only content. */
+        final boolean elementContent;
+        /** Declared attribute types by attribute name. */
+        final Map<String, String> types;
+        /** Defaulted and fixed attributes in declaration order. */
+        final AttributeDecl[] defaults;
+
+        ElementDecl(final boolean elementContent, final Map<String, String> types, final AttributeDecl[] defaults) {
+            this.elementContent = elementContent;
+            this.types = types;
+            this.defaults = defaults;
+        }
+    }
+
+    /** Attribute with a default value. */
+    static final class AttributeDecl {
+        final String qName;
+        /** Attribute prefix, {@code null} if attribute has no prefix. */
+        final String prefix;
+        final String localName;
+        final String type;
+        final String value;
+
+        AttributeDecl(final String qName, final String prefix, final String localName, final String type,
+                      final String value) {
+            this.qName = qName;
+            this.prefix = prefix;
+            this.localName = localName;
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+}
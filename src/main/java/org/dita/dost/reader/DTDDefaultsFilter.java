@@ -0,0 +1,432 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.reader;
+
+import static org.dita.dost.util.Constants.*;
+import static org.dita.dost.util.URLUtils.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.xerces.impl.XMLEntityManager;
+import org.dita.dost.reader.DTDDefaults.AttributeDecl;
+import org.dita.dost.reader.DTDDefaults.ElementDecl;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.Attributes2;
+import org.xml.sax.ext.Attributes2Impl;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.NamespaceSupport;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Filter that adds DTD defaults to a non-validating parse.
+ *
+ * <p>The parent parser is configured not to load external DTD subsets. The
+ * DTD of each document is compiled once into a table of default attributes,
+ * attribute types and element content types, and the filter adds the
+ * information a validating parser would: defaulted and fixed attributes,
+ * declared attribute types and normalized values, and whitespace in element
+ * content reported as ignorable whitespace. Parsed general entities declared
+ * in the DTD are declared to the parser after the internal DTD subset, so
+ * references to them in content and in attribute values are expanded as in a
+ * validating parse.</p>
+ *
+ * <p>Lexical events are received when a lexical handler is set with the
+ * {@code http://xml.org/sax/properties/lexical-handler} property.</p>
+ *
+ * @since 2.0
+ */
+public final class DTDDefaultsFilter extends XMLFilterImpl implements LexicalHandler {
+
+    private static final String PROPERTY_LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+    private static final String FEATURE_LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+    private static final String PROPERTY_ENTITY_MANAGER = "http://apache.org/xml/properties/internal/entity-manager";
+    private static final String XMLNS = "xmlns";
+
+    private final boolean gramcache;
+    private final XMLEntityManager entityManager;
+    /** Compiled DTDs by public or system ID, used when grammar caching is disabled. */
+    private final Map<String, DTDDefaults> dtds = new HashMap<String, DTDDefaults>();
+    private LexicalHandler lexicalHandler;
+    private Locator locator;
+    private boolean namespaces;
+    private boolean namespacePrefixes;
+    /** DTD of the current document, {@code null} if document has no external DTD subset. */
+    private DTDDefaults dtd;
+    private boolean externalSubset;
+    private final NamespaceSupport namespaceSupport = new NamespaceSupport();
+    private boolean contextPushed;
+    /** Element declaration stack, {@code null} items for undeclared elements. */
+    private final List<ElementDecl> elementStack = new ArrayList<ElementDecl>();
+    /** Stack of prefixes declared with defaulted namespace attributes. */
+    private final List<List<String>> prefixStack = new ArrayList<List<String>>();
+    /** Defaulted prefix mappings to end after the prefix mappings of the parent parser. */
+    private List<String> pendingEndPrefixes;
+    private final Attributes2Impl resAtts = new Attributes2Impl();
+
+    /**
+     * Create new DTD defaults filter.
+     *
+     * @param parent parent parser, must be a Xerces parser that supports not loading external DTD subsets
+     * @param gramcache cache compiled DTDs with the grammar pool
+     * @throws SAXNotRecognizedException if parent parser cannot skip external DTD subsets
+     * @throws SAXNotSupportedException if parent parser cannot skip external DTD subsets or
+     *         does not allow declaring entities
+     */
+    public DTDDefaultsFilter(final XMLReader parent, final boolean gramcache)
+            throws SAXNotRecognizedException, SAXNotSupportedException {
+        super(parent);
+        final Object em = parent.getProperty(PROPERTY_ENTITY_MANAGER);
+        if (!(em instanceof XMLEntityManager)) {
+            throw new SAXNotSupportedException("Parser does not use Xerces entity manager");
+        }
+        entityManager = (XMLEntityManager) em;
+        parent.setFeature(FEATURE_LOAD_EXTERNAL_DTD, false);
+        this.gramcache = gramcache;
+    }
+
+    @Override
+    public void setProperty(final String name, final Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (PROPERTY_LEXICAL_HANDLER.equals(name)) {
+            lexicalHandler = (LexicalHandler) value;
+        } else {
+            super.setProperty(name, value);
+        }
+    }
+
+    @Override
+    public Object getProperty(final String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (PROPERTY_LEXICAL_HANDLER.equals(name)) {
+            return lexicalHandler;
+        }
+        return super.getProperty(name);
+    }
+
+    @Override
+    public void parse(final InputSource input) throws SAXException, IOException {
+        namespaces = getFeature(FEATURE_NAMESPACE);
+        namespacePrefixes = getFeature(FEATURE_NAMESPACE_PREFIX);
+        getParent().setProperty(PROPERTY_LEXICAL_HANDLER, this);
+        super.parse(input);
+    }
+
+    /**
+     * Get compiled DTD.
+     *
+     * @param publicId public ID, may be {@code null}
+     * @param systemId absolute system ID
+     */
+    private DTDDefaults getDTD(final String publicId, final String systemId) throws SAXException {
+        try {
+            if (gramcache) {
+                return GrammarPoolManager.getDTDDefaults(publicId, systemId, getEntityResolver());
+            }
+            final String key = publicId != null ? publicId : systemId;
+            DTDDefaults res = dtds.get(key);
+            if (res == null) {
+                res = DTDDefaults.compile(publicId, systemId, getEntityResolver(), null);
+                dtds.put(key, res);
+            }
+            return res;
+        } catch (final IOException e) {
+            throw new SAXException("Failed to read DTD " + systemId + ": " + e.getMessage(), e);
+        }
+    }
+
+    // ContentHandler methods
+
+    @Override
+    public void setDocumentLocator(final Locator locator) {
+        this.locator = locator;
+        super.setDocumentLocator(locator);
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        dtd = null;
+        externalSubset = false;
+        namespaceSupport.reset();
+        contextPushed = false;
+        elementStack.clear();
+        prefixStack.clear();
+        pendingEndPrefixes = null;
+        super.startDocument();
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        endPendingPrefixes();
+        super.endDocument();
+    }
+
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+        endPendingPrefixes();
+        if (!contextPushed) {
+            namespaceSupport.pushContext();
+            contextPushed = true;
+        }
+        namespaceSupport.declarePrefix(prefix, uri);
+        super.startPrefixMapping(prefix, uri);
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+            throws SAXException {
+        endPendingPrefixes();
+        if (!contextPushed) {
+            namespaceSupport.pushContext();
+        }
+        contextPushed = false;
+        final ElementDecl decl = dtd != null ? dtd.getElement(qName) : null;
+        elementStack.add(decl);
+        if (decl == null) {
+            prefixStack.add(Collections.<String>emptyList());
+            super.startElement(uri, localName, qName, atts);
+            return;
+        }
+
+        resAtts.setAttributes(atts);
+        for (int i = 0; i < resAtts.getLength(); i++) {
+            final String type = decl.types.get(resAtts.getQName(i));
+            if (type != null && !isDeclared(atts, i)) {
+                resAtts.setType(i, type);
+                resAtts.setDeclared(i, true);
+                if (!type.equals("CDATA")) {
+                    resAtts.setValue(i, normalize(resAtts.getValue(i)));
+                }
+            }
+        }
+        List<String> prefixes = null;
+        for (final AttributeDecl a: decl.defaults) {
+            final boolean namespaceDecl = namespaces && (a.qName.equals(XMLNS) || XMLNS.equals(a.prefix));
+            if (namespaceDecl) {
+                final String prefix = a.prefix != null ? a.localName : "";
+                if (isDeclaredPrefix(prefix)) {
+                    continue;
+                }
+                namespaceSupport.declarePrefix(prefix, a.value);
+                if (prefixes == null) {
+                    prefixes = new ArrayList<String>();
+                }
+                prefixes.add(prefix);
+                super.startPrefixMapping(prefix, a.value);
+                if (namespacePrefixes) {
+                    addDefault("", "", a);
+                }
+            } else if (resAtts.getIndex(a.qName) == -1) {
+                if (!namespaces) {
+                    addDefault("", "", a);
+                } else if (a.prefix != null) {
+                    final String attrUri = namespaceSupport.getURI(a.prefix);
+                    addDefault(attrUri != null ? attrUri : "", a.localName, a);
+                } else {
+                    addDefault("", a.qName, a);
+                }
+            }
+        }
+        String elementUri = uri;
+        if (prefixes != null) {
+            final int i = qName.indexOf(':');
+            final String u = namespaceSupport.getURI(i != -1 ? qName.substring(0, i) : "");
+            elementUri = u != null ? u : "";
+        }
+        prefixStack.add(prefixes != null ? prefixes : Collections.<String>emptyList());
+        super.startElement(elementUri, localName, qName, resAtts);
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+        endPendingPrefixes();
+        elementStack.remove(elementStack.size() - 1);
+        super.endElement(uri, localName, qName);
+        namespaceSupport.popContext();
+        final List<String> prefixes = prefixStack.remove(prefixStack.size() - 1);
+        if (!prefixes.isEmpty()) {
+            pendingEndPrefixes = prefixes;
+        }
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        endPendingPrefixes();
+        if (!elementStack.isEmpty()) {
+            final ElementDecl decl = elementStack.get(elementStack.size() - 1);
+            if (decl != null && decl.elementContent && isWhitespace(ch, start, length)) {
+                super.ignorableWhitespace(ch, start, length);
+                return;
+            }
+        }
+        super.characters(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+        endPendingPrefixes();
+        super.ignorableWhitespace(ch, start, length);
+    }
+
+    @Override
+    public void processingInstruction(final String target, final String data) throws SAXException {
+        endPendingPrefixes();
+        super.processingInstruction(target, data);
+    }
+
+    @Override
+    public void skippedEntity(final String name) throws SAXException {
+        endPendingPrefixes();
+        super.skippedEntity(name);
+    }
+
+    // LexicalHandler methods
+
+    @Override
+    public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+        if (systemId != null) {
+            final String base = locator != null ? locator.getSystemId() : null;
+            final String expanded = base != null ? toURI(base).resolve(toURI(systemId)).toString() : systemId;
+            dtd = getDTD(publicId, expanded);
+            externalSubset = true;
+        }
+        if (lexicalHandler != null) {
+            lexicalHandler.startDTD(name, publicId, systemId);
+        }
+    }
+
+    @Override
+    public void endDTD() throws SAXException {
+        if (dtd != null) {
+            try {
+                dtd.declareEntities(entityManager);
+            } catch (final IOException e) {
+                throw new SAXException("Failed to declare DTD entities: " + e.getMessage(), e);
+            }
+        }
+        if (lexicalHandler != null) {
+            if (externalSubset) {
+                lexicalHandler.startEntity("[dtd]");
+                lexicalHandler.endEntity("[dtd]");
+            }
+            lexicalHandler.endDTD();
+        }
+    }
+
+    @Override
+    public void startEntity(final String name) throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.startEntity(name);
+        }
+    }
+
+    @Override
+    public void endEntity(final String name) throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.endEntity(name);
+        }
+    }
+
+    @Override
+    public void startCDATA() throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.startCDATA();
+        }
+    }
+
+    @Override
+    public void endCDATA() throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.endCDATA();
+        }
+    }
+
+    @Override
+    public void comment(final char[] ch, final int start, final int length) throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.comment(ch, start, length);
+        }
+    }
+
+    // Private methods
+
+    /**
+     * End prefix mappings declared with defaulted namespace attributes. The
+     * prefix mappings are ended after the prefix mappings ended by the parent parser.
+     */
+    private void endPendingPrefixes() throws SAXException {
+        if (pendingEndPrefixes != null) {
+            final List<String> prefixes = pendingEndPrefixes;
+            pendingEndPrefixes = null;
+            for (final String prefix: prefixes) {
+                super.endPrefixMapping(prefix);
+            }
+        }
+    }
+
+    private void addDefault(final String uri, final String localName, final AttributeDecl a) {
+        resAtts.addAttribute(uri, localName, a.qName, a.type, a.value);
+        final int i = resAtts.getLength() - 1;
+        resAtts.setDeclared(i, true);
+        resAtts.setSpecified(i, false);
+    }
+
+    private boolean isDeclaredPrefix(final String prefix) {
+        for (final Enumeration<?> e = namespaceSupport.getDeclaredPrefixes(); e.hasMoreElements();) {
+            if (prefix.equals(e.nextElement())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Test if parser already has a declaration for the attribute, e.g. from the internal DTD subset.
+     */
+    private static boolean isDeclared(final Attributes atts, final int i) {
+        return atts instanceof Attributes2 && ((Attributes2) atts).isDeclared(i);
+    }
+
+    private static boolean isWhitespace(final char[] ch, final int start, final int length) {
+        for (int i = start; i < start + length; i++) {
+            final char c = ch[i];
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Normalize non-CDATA attribute value by trimming and collapsing spaces.
+     */
+    private static String normalize(final String value) {
+        final StringBuilder buf = new StringBuilder(value.length());
+        boolean space = false;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == ' ') {
+                space = buf.length() > 0;
+            } else {
+                if (space) {
+                    buf.append(' ');
+                    space = false;
+                }
+                buf.append(c);
+            }
+        }
+        return buf.length() == value.length() ? value : buf.toString();
+    }
+
+}
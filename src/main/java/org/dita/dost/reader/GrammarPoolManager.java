@@ -8,17 +8,25 @@
  */
 package org.dita.dost.reader;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.xerces.xni.grammars.XMLGrammarPool;
 import org.dita.dost.util.XMLGrammarPoolImplUtils;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.SAXException;
 
 /**
  * Manages creation and access to a master Xerces grammar pool.
  * The grammar pool is managed as a ThreadLocal variable so it can
- * be used across Ant task invocations.
+ * be used across Ant task invocations. DTDs compiled for
+ * {@link DTDDefaultsFilter} are cached with the grammar pool.
  */
 public final class GrammarPoolManager {
 
     private static final ThreadLocal<XMLGrammarPool> grammarPool = new ThreadLocal<XMLGrammarPool>();
+    private static final ThreadLocal<Map<String, DTDDefaults>> dtdDefaults = new ThreadLocal<Map<String, DTDDefaults>>();
 
     /**
      * Get grammar pool
@@ -38,5 +46,32 @@ public final class GrammarPoolManager {
         return pool;
     }
 
-}
+    /**
+     * Get compiled DTD. The DTD is parsed into the grammar pool and compiled
+     * once, compiled DTDs are identified by public ID or system ID if there
+     * is no public ID.
+     *
+     * @param publicId public ID, may be {@code null}
+     * @param systemId absolute system ID
+     * @param resolver entity resolver for the DTD
+     * @return compiled DTD
+     * @throws IOException if reading DTD failed
+     * @throws SAXException if resolving DTD failed
+     */
+    static DTDDefaults getDTDDefaults(final String publicId, final String systemId, final EntityResolver resolver)
+            throws IOException, SAXException {
+        Map<String, DTDDefaults> cache = dtdDefaults.get();
+        if (cache == null) {
+            cache = new HashMap<String, DTDDefaults>();
+            dtdDefaults.set(cache);
+        }
+        final String key = publicId != null ? publicId : systemId;
+        DTDDefaults res = cache.get(key);
+        if (res == null) {
+            res = DTDDefaults.compile(publicId, systemId, resolver, getGrammarPool());
+            cache.put(key, res);
+        }
+        return res;
+    }
 
+}
@@ -16,6 +16,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
 import javax.xml.transform.TransformerFactory;
@@ -23,6 +25,7 @@ import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 
+import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLFilterImpl;
 import org.xml.sax.helpers.AttributesImpl;
 
@@ -33,6 +36,7 @@ import org.dita.dost.util.FileUtils;
 import org.dita.dost.util.Job;
 import org.dita.dost.util.Job.FileInfo;
 import org.dita.dost.util.MergeUtils;
+import org.dita.dost.util.SAXEventBuffer;
 import org.dita.dost.util.XMLUtils;
 
 import org.xml.sax.Attributes;
@@ -42,7 +46,9 @@ import org.xml.sax.XMLReader;
 /**
  * MergeMapParser reads the ditamap file after preprocessing and merges
  * different files into one intermediate result. It calls MergeTopicParser
- * to process the topic file. Instances are reusable but not thread-safe.
+ * to process the topic file. Topics are parsed concurrently in advance with
+ * {@link TopicPrefetcher} and merged in map order. Instances are reusable but
+ * not thread-safe.
  */
 public final class MergeMapParser extends XMLFilterImpl {
     
@@ -75,10 +81,9 @@ public final class MergeMapParser extends XMLFilterImpl {
         topicBuffer = new ByteArrayOutputStream();
         try{
             reader = XMLUtils.getXMLReader();
-            reader.setContentHandler(this);
             reader.setFeature(FEATURE_NAMESPACE_PREFIX, true);
             
-            final TransformerFactory tf = TransformerFactory.newInstance();
+            final TransformerFactory tf = XMLUtils.getTransformerFactory();
             if (!tf.getFeature(SAXTransformerFactory.FEATURE)) {
                 throw new RuntimeException("SAX transformation factory not supported");
             }
@@ -136,11 +141,25 @@ public final class MergeMapParser extends XMLFilterImpl {
             reader.setErrorHandler(new DITAOTXMLErrorHandler(filename.getAbsolutePath(), logger));
             topicParser.getContentHandler().startDocument();
             logger.info("Processing " + filename.getAbsolutePath());
+            final MapRecorder map = new MapRecorder();
+            reader.setContentHandler(map);
             reader.parse(filename.toURI().toString());
+            final List<File> topics = map.topics;
+            for (final FileInfo f: job.getFileInfo()) {
+                if (isMergedTarget(f)) {
+                    topics.add(new File(dirPath, getTargetPath(f)));
+                }
+            }
+            topicParser.setPrefetcher(new TopicPrefetcher(topics, logger));
+            startDocument();
+            map.buffer.build().replay(this);
+            endDocument();
             topicParser.getContentHandler().endDocument();
             output.write(topicBuffer.toByteArray());
         }catch(final Exception e){
             logger.error(e.getMessage(), e) ;
+        } finally {
+            topicParser.setPrefetcher(null);
         }
     }
 
@@ -241,14 +260,10 @@ public final class MergeMapParser extends XMLFilterImpl {
         try{
             for (final FileInfo f: job.getFileInfo()) {
                 if (f.isTarget) {
-                    String element = f.file.getPath();
-                    if (!dirPath.equals(tempdir)) {
-                        element = FileUtils.getRelativeUnixPath(new File(dirPath,"a.ditamap").getAbsolutePath(),
-                                                                   new File(tempdir, element).getAbsolutePath());
-                    }
+                    final String element = getTargetPath(f);
                     if (!util.isVisited(toURI(element))) {
                         util.visit(toURI(element));
-                        if (!f.isResourceOnly && (f.isChunked || !f.isSkipChunk)){
+                        if (isMergedTarget(f)) {
                             //ensure the file exists
                             final File file = new File(dirPath, element);
                             if (file.exists()) {
@@ -267,5 +282,92 @@ public final class MergeMapParser extends XMLFilterImpl {
         
         getContentHandler().endDocument();
     }
-    
+
+    /**
+     * Get path of a target file relative to map directory.
+     */
+    private String getTargetPath(final FileInfo f) {
+        String element = f.file.getPath();
+        if (!dirPath.equals(tempdir)) {
+            element = FileUtils.getRelativeUnixPath(new File(dirPath,"a.ditamap").getAbsolutePath(),
+                                                       new File(tempdir, element).getAbsolutePath());
+        }
+        return element;
+    }
+
+    /**
+     * Test if a target file not referenced from the map is merged.
+     */
+    private boolean isMergedTarget(final FileInfo f) {
+        return f.isTarget && !f.isResourceOnly && (f.isChunked || !f.isSkipChunk);
+    }
+
+    /**
+     * Content handler that records map events and collects the topics
+     * referenced from the map in merge order.
+     */
+    private final class MapRecorder extends DefaultHandler {
+
+        final SAXEventBuffer.Builder buffer = new SAXEventBuffer.Builder();
+        /** Referenced topic files in document order. */
+        final List<File> topics = new ArrayList<File>();
+        /** Processing roles of open elements. */
+        private final Stack<String> roles = new Stack<String>();
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) {
+            buffer.startPrefixMapping(prefix, uri);
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) {
+            buffer.endPrefixMapping(prefix);
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+            buffer.startElement(uri, localName, qName, atts);
+            final String role = atts.getValue(ATTRIBUTE_NAME_PROCESSING_ROLE);
+            roles.push(role != null ? role : roles.isEmpty() ? null : roles.peek());
+            if (ATTR_PROCESSING_ROLE_VALUE_RESOURCE_ONLY.equals(roles.peek()) || !MAP_TOPICREF.matches(atts)) {
+                return;
+            }
+            URI href = toURI(atts.getValue(ATTRIBUTE_NAME_HREF));
+            final String scopeValue = atts.getValue(ATTRIBUTE_NAME_SCOPE);
+            final String formatValue = atts.getValue(ATTRIBUTE_NAME_FORMAT);
+            if (href != null
+                    && (scopeValue == null || ATTR_SCOPE_VALUE_LOCAL.equals(scopeValue))
+                    && (formatValue == null || ATTR_FORMAT_VALUE_DITA.equals(formatValue))) {
+                final URI copyTo = toURI(atts.getValue(ATTRIBUTE_NAME_COPY_TO));
+                if (copyTo != null && !copyTo.toString().isEmpty()) {
+                    href = copyTo;
+                }
+                final URI p = stripFragment(href).normalize();
+                topics.add(new File(dirPath, toFile(p).getPath()));
+            }
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) {
+            buffer.endElement(uri, localName, qName);
+            roles.pop();
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            buffer.characters(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) {
+            buffer.ignorableWhitespace(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) {
+            buffer.processingInstruction(target, data);
+        }
+
+    }
+
 }
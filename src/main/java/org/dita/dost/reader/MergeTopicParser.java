@@ -19,6 +19,7 @@ import java.net.URI;
 
 import org.dita.dost.exception.DITAOTXMLErrorHandler;
 import org.dita.dost.log.DITAOTLogger;
+import org.dita.dost.reader.TopicPrefetcher.ParsedTopic;
 import org.dita.dost.util.Configuration;
 import org.dita.dost.util.MergeUtils;
 import org.dita.dost.util.URLUtils;
@@ -48,6 +49,8 @@ public final class MergeTopicParser extends XMLFilterImpl {
     private final MergeUtils util;
     private DITAOTLogger logger;
     private File output;
+    /** Topics parsed in advance, may be {@code null}. */
+    private TopicPrefetcher prefetcher;
     
     /**
      * Default Constructor.
@@ -78,6 +81,15 @@ public final class MergeTopicParser extends XMLFilterImpl {
         this.output = output;
     }
 
+    /**
+     * Set topics parsed in advance.
+     * 
+     * @param prefetcher prefetched topics, may be {@code null}
+     */
+    void setPrefetcher(final TopicPrefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
     /**
      * Get ID of the first topic
      * 
@@ -154,7 +166,10 @@ public final class MergeTopicParser extends XMLFilterImpl {
             if (util.findId(pathFromMap)) {
                 retAttValue = SHARP + util.getIdValue(pathFromMap);
             } else {
-                final String fileId = MergeUtils.getFirstTopicId(pathFromMap, dirPath, false);
+                String fileId = prefetcher != null ? prefetcher.getFirstId(dirPath.toURI().resolve(pathFromMap)) : null;
+                if (fileId == null) {
+                    fileId = MergeUtils.getFirstTopicId(pathFromMap, dirPath, false);
+                }
                 final URI key = setFragment(pathFromMap, fileId);
                 if (util.findId(key)) {
                     util.addId(pathFromMap, util.getIdValue(key));
@@ -185,9 +200,19 @@ public final class MergeTopicParser extends XMLFilterImpl {
         dirPath = dir;
         try {
             final File f = new File(dir, filePath);
-            reader.setErrorHandler(new DITAOTXMLErrorHandler(f.getAbsolutePath(), logger));
             logger.info("Processing " + f.getAbsolutePath());
-            reader.parse(f.toURI().toString());
+            final ParsedTopic topic = prefetcher != null ? prefetcher.get(f) : null;
+            if (topic != null) {
+                startDocument();
+                topic.events.replay(this);
+                if (topic.error != null) {
+                    throw topic.error;
+                }
+                endDocument();
+            } else {
+                reader.setErrorHandler(new DITAOTXMLErrorHandler(f.getAbsolutePath(), logger));
+                reader.parse(f.toURI().toString());
+            }
         } catch (final Exception e) {
             throw new RuntimeException("Failed to parse " + filename + ": " + e.getMessage(), e);
         }
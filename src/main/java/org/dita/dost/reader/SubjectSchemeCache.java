@@ -0,0 +1,178 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.reader;
+
+import static org.dita.dost.util.FilterUtils.SUBJECT_SCHEME_EXTENSION;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.dita.dost.log.DITAOTLogger;
+import org.dita.dost.util.FileUtils;
+import org.dita.dost.util.FilterUtils;
+import org.w3c.dom.Element;
+
+/**
+ * Cache of parsed subject scheme sets.
+ *
+ * <p>Topics usually share the same few subject schemes. Subject schemes are
+ * read once for each distinct set of scheme files and filters refined with
+ * a scheme set are memoized. The least recently used scheme sets are dropped
+ * when the cache is full.</p>
+ *
+ * <p>Instances are thread-safe.</p>
+ *
+ * @since 2.0
+ */
+public final class SubjectSchemeCache {
+
+    /** Default maximum number of cached scheme sets. */
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final File tempDir;
+    private final DITAOTLogger logger;
+    private final Map<Set<File>, SubjectScheme> cache;
+
+    /**
+     * Create new subject scheme cache.
+     *
+     * @param tempDir absolute temporary directory
+     * @param logger logger
+     * @param capacity maximum number of cached scheme sets
+     */
+    public SubjectSchemeCache(final File tempDir, final DITAOTLogger logger, final int capacity) {
+        this.tempDir = tempDir;
+        this.logger = logger;
+        cache = new LinkedHashMap<Set<File>, SubjectScheme>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Set<File>, SubjectScheme> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Create new subject scheme cache with default capacity.
+     *
+     * @param tempDir absolute temporary directory
+     * @param logger logger
+     */
+    public SubjectSchemeCache(final File tempDir, final DITAOTLogger logger) {
+        this(tempDir, logger, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Get subject schemes for a set of scheme files. Scheme files are read
+     * only if the set has not been read before.
+     *
+     * @param schemaSet scheme files relative to temporary directory, without
+     *        {@link FilterUtils#SUBJECT_SCHEME_EXTENSION}, may be {@code null}
+     * @return subject schemes, empty if the set is {@code null} or empty
+     */
+    public SubjectScheme get(final Set<File> schemaSet) {
+        if (schemaSet == null || schemaSet.isEmpty()) {
+            return SubjectScheme.EMPTY;
+        }
+        synchronized (cache) {
+            SubjectScheme scheme = cache.get(schemaSet);
+            if (scheme == null) {
+                logger.debug("Loading subject schemes");
+                final SubjectSchemeReader reader = new SubjectSchemeReader();
+                reader.setLogger(logger);
+                for (final File schema : schemaSet) {
+                    reader.loadSubjectScheme(new File(FileUtils.resolve(tempDir.getAbsolutePath(), schema.getPath()) + SUBJECT_SCHEME_EXTENSION));
+                }
+                scheme = new SubjectScheme(reader.getValidValuesMap(), reader.getDefaultValueMap(), reader.getSubjectSchemeMap());
+                cache.put(new HashSet<File>(schemaSet), scheme);
+            }
+            return scheme;
+        }
+    }
+
+    /**
+     * Subject schemes read from a set of scheme files. The maps must not be modified.
+     */
+    public static final class SubjectScheme {
+
+        /** Empty subject schemes. */
+        public static final SubjectScheme EMPTY = new SubjectScheme(
+                Collections.<String, Map<String, Set<String>>>emptyMap(),
+                Collections.<String, Map<String, String>>emptyMap(),
+                Collections.<String, Map<String, Set<Element>>>emptyMap());
+
+        private final Map<String, Map<String, Set<String>>> validValuesMap;
+        private final Map<String, Map<String, String>> defaultValueMap;
+        private final Map<String, Map<String, Set<Element>>> subjectSchemeMap;
+        /** Refined filters keyed by the base filter. */
+        private final Map<FilterUtils, FilterUtils> refined = new IdentityHashMap<FilterUtils, FilterUtils>();
+
+        private SubjectScheme(final Map<String, Map<String, Set<String>>> validValuesMap,
+                final Map<String, Map<String, String>> defaultValueMap,
+                final Map<String, Map<String, Set<Element>>> subjectSchemeMap) {
+            this.validValuesMap = validValuesMap;
+            this.defaultValueMap = defaultValueMap;
+            this.subjectSchemeMap = subjectSchemeMap;
+        }
+
+        /**
+         * Get map of valid attribute values.
+         *
+         * @return valid attribute values
+         * @see SubjectSchemeReader#getValidValuesMap()
+         */
+        public Map<String, Map<String, Set<String>>> getValidValuesMap() {
+            return validValuesMap;
+        }
+
+        /**
+         * Get map of default values.
+         *
+         * @return default values
+         * @see SubjectSchemeReader#getDefaultValueMap()
+         */
+        public Map<String, Map<String, String>> getDefaultValueMap() {
+            return defaultValueMap;
+        }
+
+        /**
+         * Get map of subject scheme definitions.
+         *
+         * @return subject scheme definitions
+         * @see SubjectSchemeReader#getSubjectSchemeMap()
+         */
+        public Map<String, Map<String, Set<Element>>> getSubjectSchemeMap() {
+            return subjectSchemeMap;
+        }
+
+        /**
+         * Refine filter with subject schemes. The filter is refined only once
+         * and later calls return the same instance.
+         *
+         * @param filterUtils filter to refine
+         * @return refined filter
+         * @see FilterUtils#refine(Map)
+         */
+        public FilterUtils refine(final FilterUtils filterUtils) {
+            if (subjectSchemeMap.isEmpty()) {
+                return filterUtils;
+            }
+            synchronized (refined) {
+                FilterUtils res = refined.get(filterUtils);
+                if (res == null) {
+                    res = filterUtils.refine(subjectSchemeMap);
+                    refined.put(filterUtils, res);
+                }
+                return res;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.reader;
+
+import static org.dita.dost.util.Constants.*;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.exception.DITAOTXMLErrorHandler;
+import org.dita.dost.log.DITAOTLogger;
+import org.dita.dost.util.ParallelUtils;
+import org.dita.dost.util.SAXEventBuffer;
+import org.dita.dost.util.XMLUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Concurrent reader for topics merged by {@link MergeMapParser}.
+ *
+ * <p>Topics are parsed into {@link SAXEventBuffer event buffers} in batches that
+ * follow the planned merge order, and replayed by {@link MergeTopicParser} in map
+ * order. Only the parsing runs concurrently, ID rewriting is still done in merge
+ * order, so the merged output does not depend on the number of threads. Only one
+ * batch of buffers is kept in memory.</p>
+ *
+ * <p>Instances are not thread-safe.</p>
+ *
+ * @since 2.0
+ */
+final class TopicPrefetcher {
+
+    /** Number of topics parsed in a batch per worker thread. */
+    private static final int BATCH_SIZE_PER_THREAD = 16;
+
+    private final DITAOTLogger logger;
+    private final int batchSize;
+    /** Absolute topic URIs in planned merge order. */
+    private final List<URI> plan;
+    /** Index of topic in planned merge order. */
+    private final Map<URI, Integer> planIndex;
+    /** Index of the first topic in plan that has not been parsed. */
+    private int next;
+    /** Parsed topics of the current batch. */
+    private final Map<URI, ParsedTopic> topics = new HashMap<URI, ParsedTopic>();
+    /** ID of the first element with an ID, for all parsed topics. */
+    private final Map<URI, String> firstIds = new HashMap<URI, String>();
+
+    /**
+     * Create new topic prefetcher.
+     *
+     * @param files topic files in planned merge order
+     * @param logger logger
+     */
+    TopicPrefetcher(final Collection<File> files, final DITAOTLogger logger) {
+        this.logger = logger;
+        plan = new ArrayList<URI>(files.size());
+        planIndex = new HashMap<URI, Integer>(files.size() * 2);
+        for (final File file: files) {
+            final URI key = getKey(file);
+            if (!planIndex.containsKey(key)) {
+                planIndex.put(key, plan.size());
+                plan.add(key);
+            }
+        }
+        batchSize = ParallelUtils.getThreadCount() * BATCH_SIZE_PER_THREAD;
+    }
+
+    /**
+     * Get parsed topic. The topic is removed from the prefetcher. If the topic
+     * has not been parsed yet, the batch starting from it is parsed.
+     *
+     * @param file topic file
+     * @return parsed topic, {@code null} if the topic is not in the plan or has already been returned
+     */
+    ParsedTopic get(final File file) throws DITAOTException {
+        final URI key = getKey(file);
+        final Integer index = planIndex.get(key);
+        if (index == null) {
+            return null;
+        }
+        if (index >= next) {
+            load(index);
+        }
+        return topics.remove(key);
+    }
+
+    /**
+     * Get ID of the first element with an ID in a topic that has been parsed.
+     *
+     * @param file absolute topic URI
+     * @return first ID, {@code null} if the topic has not been parsed
+     */
+    String getFirstId(final URI file) {
+        return firstIds.get(file.normalize());
+    }
+
+    /**
+     * Parse the batch of topics starting from a given plan index. Topics of the
+     * previous batch that have not been used are dropped.
+     */
+    private void load(final int start) throws DITAOTException {
+        topics.clear();
+        final int end = Math.min(plan.size(), start + batchSize);
+        final Map<URI, Callable<ParsedTopic>> tasks = new LinkedHashMap<URI, Callable<ParsedTopic>>();
+        for (final URI key: plan.subList(start, end)) {
+            tasks.put(key, new Callable<ParsedTopic>() {
+                @Override
+                public ParsedTopic call() {
+                    return parse(key);
+                }
+            });
+        }
+        final List<ParsedTopic> res = ParallelUtils.invokeAll(tasks.values());
+        int i = 0;
+        for (final URI key: tasks.keySet()) {
+            final ParsedTopic topic = res.get(i++);
+            topics.put(key, topic);
+            if (topic.error == null) {
+                firstIds.put(key, topic.firstId);
+            }
+        }
+        next = end;
+    }
+
+    /**
+     * Parse topic into an event buffer. Parse errors are stored in the result.
+     */
+    private ParsedTopic parse(final URI file) {
+        final Recorder recorder = new Recorder();
+        Exception error = null;
+        XMLReader reader = null;
+        try {
+            reader = XMLUtils.borrowXMLReader();
+            reader.setFeature(FEATURE_NAMESPACE_PREFIX, true);
+            reader.setContentHandler(recorder);
+            reader.setErrorHandler(new DITAOTXMLErrorHandler(new File(file).getAbsolutePath(), logger));
+            reader.parse(file.toString());
+        } catch (final Exception e) {
+            error = e;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.setFeature(FEATURE_NAMESPACE_PREFIX, false);
+                } catch (final SAXException e) {
+                    // NOOP
+                }
+                XMLUtils.releaseXMLReader(reader);
+            }
+        }
+        return new ParsedTopic(recorder.buffer.build(), recorder.firstId.toString(), error);
+    }
+
+    private static URI getKey(final File file) {
+        return file.getAbsoluteFile().toURI().normalize();
+    }
+
+    /**
+     * Topic parsed into an event buffer.
+     */
+    static final class ParsedTopic {
+        /** Topic content events, without document start and end. */
+        final SAXEventBuffer events;
+        /** ID of the first element with an ID, empty if there is none. */
+        final String firstId;
+        /** Parse error, {@code null} if parsing succeeded. Events parsed before the error are in the buffer. */
+        final Exception error;
+
+        ParsedTopic(final SAXEventBuffer events, final String firstId, final Exception error) {
+            this.events = events;
+            this.firstId = firstId;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Content handler that records events and the first ID.
+     */
+    private static final class Recorder extends DefaultHandler {
+
+        final SAXEventBuffer.Builder buffer = new SAXEventBuffer.Builder();
+        final StringBuilder firstId = new StringBuilder();
+        private boolean isFirstId = true;
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) {
+            buffer.startPrefixMapping(prefix, uri);
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) {
+            buffer.endPrefixMapping(prefix);
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+            if (isFirstId) {
+                final String id = atts.getValue(ATTRIBUTE_NAME_ID);
+                if (id != null) {
+                    isFirstId = false;
+                    firstId.append(id);
+                }
+            }
+            buffer.startElement(uri, localName, qName, atts);
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) {
+            buffer.endElement(uri, localName, qName);
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            buffer.characters(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) {
+            buffer.ignorableWhitespace(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) {
+            buffer.processingInstruction(target, data);
+        }
+
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.xml.resolver.tools.CatalogResolver;
+import org.dita.dost.index.IndexTermCollection;
+
+/**
+ * Mutable state of a single build.
+ *
+ * <p>State that used to be held in static fields, such as the catalog resolver,
+ * the index term collection, the index term locale and the collator cache, is
+ * held in a context object so that independent builds can run concurrently in
+ * one JVM. {@link org.dita.dost.pipeline.PipelineFacade PipelineFacade} binds the
+ * context of the build to the executing thread for the duration of a module, and
+ * the legacy static accessors delegate to {@link #getCurrent()}. Threads that run
+ * work on behalf of a module must {@link #bind(BuildContext) bind} the context
+ * themselves.</p>
+ *
+ * <p>Instances are thread-safe.</p>
+ *
+ * @since 2.0
+ */
+public final class BuildContext {
+
+    /** Context used when no context has been bound to the current thread. */
+    private static final BuildContext DEFAULT = new BuildContext();
+    /** Context bound to the current thread. */
+    private static final ThreadLocal<BuildContext> current = new ThreadLocal<BuildContext>();
+
+    /** Absolute directory to find catalog-dita.xml. */
+    private File ditaDir;
+    /** Catalog resolver, lazily created for {@link #ditaDir}. */
+    private CatalogResolver catalogResolver;
+    /** Index term collection. */
+    private IndexTermCollection indexTermCollection;
+    /** Locale used to sort index terms. */
+    private Locale termLocale;
+    /** Collators by locale. Collator instances are not thread-safe and are not shared between builds. */
+    private final Map<Locale, DITAOTCollator> collators = new HashMap<Locale, DITAOTCollator>();
+
+    /**
+     * Get context bound to current thread.
+     *
+     * @return bound context, or a process wide default context if none is bound
+     */
+    public static BuildContext getCurrent() {
+        final BuildContext context = current.get();
+        return context != null ? context : DEFAULT;
+    }
+
+    /**
+     * Bind context to current thread.
+     *
+     * @param context context to bind, {@code null} to unbind
+     * @return previously bound context, may be {@code null}
+     */
+    public static BuildContext bind(final BuildContext context) {
+        final BuildContext previous = current.get();
+        if (context != null) {
+            current.set(context);
+        } else {
+            current.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * Set directory to find catalog-dita.xml. The cached resolver is kept if the
+     * directory has not changed.
+     *
+     * @param ditaDir DITA-OT base directory
+     */
+    public synchronized void setDitaDir(final File ditaDir) {
+        if (this.ditaDir == null || !this.ditaDir.equals(ditaDir)) {
+            catalogResolver = null;
+        }
+        this.ditaDir = ditaDir;
+    }
+
+    /**
+     * Get catalog resolver for the DITA-OT directory.
+     *
+     * @return catalog resolver
+     */
+    public synchronized CatalogResolver getCatalogResolver() {
+        if (catalogResolver == null) {
+            catalogResolver = CatalogUtils.newCatalogResolver(ditaDir);
+        }
+        return catalogResolver;
+    }
+
+    /**
+     * Get index term collection of the build.
+     *
+     * @return index term collection
+     */
+    public synchronized IndexTermCollection getIndexTermCollection() {
+        if (indexTermCollection == null) {
+            indexTermCollection = new IndexTermCollection();
+        }
+        return indexTermCollection;
+    }
+
+    /**
+     * Get locale used to sort index terms.
+     *
+     * @return term locale, may be {@code null}
+     */
+    public synchronized Locale getTermLocale() {
+        return termLocale;
+    }
+
+    /**
+     * Set locale used to sort index terms.
+     *
+     * @param termLocale term locale
+     */
+    public synchronized void setTermLocale(final Locale termLocale) {
+        this.termLocale = termLocale;
+    }
+
+    /**
+     * Get collator for locale.
+     *
+     * @param locale locale
+     * @return cached collator
+     */
+    public synchronized DITAOTCollator getCollator(final Locale locale) {
+        DITAOTCollator collator = collators.get(locale);
+        if (collator == null) {
+            collator = new DITAOTCollator(locale);
+            collators.put(locale, collator);
+        }
+        return collator;
+    }
+
+}
@@ -23,10 +23,6 @@ import org.apache.xml.resolver.tools.CatalogResolver;
 
 public final class CatalogUtils {
 
-    /**apache catalogResolver.*/
-    private static CatalogResolver catalogResolver = null;
-    /** Absolute directory to find catalog-dita.xml.*/
-    private static File ditaDir;
     /**
      * Instances should NOT be constructed in standard programming.
      */
@@ -35,31 +31,38 @@ public final class CatalogUtils {
     }
 
     /**
-     * Set directory to find catalog-dita.xml.
+     * Set directory to find catalog-dita.xml for the current build. The cached
+     * resolver is kept if the directory has not changed, so that consecutive
+     * builds in a long-lived JVM do not reparse the catalog.
      * @param ditaDir ditaDir
+     * @see BuildContext#getCurrent()
      */
-    public static synchronized void setDitaDir(final File ditaDir){
-        catalogResolver=null;
-        CatalogUtils.ditaDir=ditaDir;
+    public static void setDitaDir(final File ditaDir){
+        BuildContext.getCurrent().setDitaDir(ditaDir);
     }
 
     /**
-     * Get CatalogResolver.
+     * Get CatalogResolver for the current build.
      * @return CatalogResolver
+     * @see BuildContext#getCurrent()
      */
-    public static synchronized CatalogResolver getCatalogResolver() {
-        if (catalogResolver == null) {
-            final CatalogManager manager = new CatalogManager();
-            manager.setIgnoreMissingProperties(true);
-            manager.setUseStaticCatalog(false); // We'll use a private catalog.
-            manager.setPreferPublic(true);
-            final File catalogFilePath = new File(ditaDir, Configuration.pluginResourceDirs.get("org.dita.base") + File.separator + FILE_NAME_CATALOG);
-            manager.setCatalogFiles(catalogFilePath.toURI().toASCIIString());
-            //manager.setVerbosity(10);
-            catalogResolver = new CatalogResolver(manager);
-        }
+    public static CatalogResolver getCatalogResolver() {
+        return BuildContext.getCurrent().getCatalogResolver();
+    }
 
-        return catalogResolver;
+    /**
+     * Create new CatalogResolver.
+     * @param ditaDir absolute directory to find catalog-dita.xml
+     * @return CatalogResolver
+     */
+    static CatalogResolver newCatalogResolver(final File ditaDir) {
+        final CatalogManager manager = new CatalogManager();
+        manager.setIgnoreMissingProperties(true);
+        manager.setUseStaticCatalog(false); // We'll use a private catalog.
+        manager.setPreferPublic(true);
+        final File catalogFilePath = new File(ditaDir, Configuration.pluginResourceDirs.get("org.dita.base") + File.separator + FILE_NAME_CATALOG);
+        manager.setCatalogFiles(catalogFilePath.toURI().toASCIIString());
+        //manager.setVerbosity(10);
+        return new CatalogResolver(manager);
     }
 }
-
@@ -778,6 +778,14 @@ public final class Constants {
     public static final String ANT_INVOKER_EXT_PARAN_FORCE_UNIQUE = "force-unique";
     public static final String ANT_INVOKER_EXT_PARAM_GENERATE_DEBUG_ATTR = "generate-debug-attributes";
     public static final String ANT_INVOKER_EXT_PARAM_PROCESSING_MODE = "processing-mode";
+    /** Constants for extensive params used in ant invoker(image-metadata). */
+    public static final String ANT_INVOKER_EXT_PARAM_IMAGE_METADATA = "image-metadata";
+    /** Constants for extensive params used in ant invoker(duplicate-topic-ids). */
+    public static final String ANT_INVOKER_EXT_PARAM_DUPLICATE_TOPIC_IDS = "duplicate-topic-ids";
+    /** Constants for extensive params used in ant invoker(profiles). */
+    public static final String ANT_INVOKER_EXT_PARAM_PROFILES = "profiles";
+    /** Job property set when image metadata has been added to all topics during preprocessing. */
+    public static final String PROPERTY_IMAGE_METADATA = "image-metadata";
     /**Constants for line separator.*/
     public static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
@@ -933,9 +941,17 @@ public final class Constants {
     public static final String CONF_PRINT_TRANSTYPES = "print_transtypes";
     /** Property name for template files. */
     public static final String CONF_TEMPLATES = "templates";
+    /** Property name for number of worker threads used for parallel processing. */
+    public static final String CONF_PARALLEL_THREADS = "parallel.threads";
+    /** Property name for asynchronous logging of pipeline modules. */
+    public static final String CONF_LOGGING_ASYNC = "logging.async";
+    /** Ant property name for JSON log file of pipeline modules. */
+    public static final String ANT_PROPERTY_LOG_JSON = "args.logfile.json";
 
     /** Project reference name for job configuration object. */
     public static final String ANT_REFERENCE_JOB = "job";
+    /** Project reference name for build context object. */
+    public static final String ANT_REFERENCE_CONTEXT = "build.context";
 
     public static final String PI_PATH2PROJ_TARGET = "path2project";
     public static final String PI_PATH2PROJ_TARGET_URI = "path2project-uri";
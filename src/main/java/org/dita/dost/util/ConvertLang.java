@@ -21,17 +21,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
-import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 
 import javax.xml.parsers.DocumentBuilder;
 
+import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.Task;
+import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.log.DITAOTAntLogger;
 import org.w3c.dom.Document;
@@ -43,6 +49,9 @@ import org.w3c.dom.NodeList;
  * This class is for converting charset and escaping
  * entities in html help component files.
  * 
+ * <p>Each file is converted in a single pass and files are
+ * converted concurrently.</p>
+ * 
  * @version 1.0 2010-09-30
  * 
  * @author Zhang Di Hua
@@ -67,8 +76,10 @@ public final class ConvertLang extends Task {
     private final Map<String, String>charsetMap = new HashMap<String, String>();
     //lang map(e.g ar- = 0x0c01 Arabic (EGYPT))
     private final Map<String, String>langMap = new HashMap<String, String>();
-    //entity map(e.g 38 = &amp;)
-    private final Map<String, String>entityMap = new HashMap<String, String>();
+    //entity table indexed by character (e.g [38] = &amp;)
+    private String[] entityTable;
+    //charsets by format
+    private final Map<String, Charset>charsets = new HashMap<String, Charset>();
 
 
     private DITAOTLogger logger;
@@ -92,10 +103,8 @@ public final class ConvertLang extends Task {
         createEntityMap();
         //initialize charset map
         createCharsetMap();
-        //change charset of html files
-        convertHtmlCharset();
-        //update entity and lang code
-        updateAllEntitiesAndLangs();
+        //change charset, entities and lang code of html help files
+        convertFiles();
     }
 
     private void createLangMap() {
@@ -136,8 +145,18 @@ public final class ConvertLang extends Task {
                 } catch (final IOException e) {}
             }
         }
+        final Map<Integer, String> entityMap = new HashMap<Integer, String>();
+        int max = -1;
         for (final Entry<Object, Object> e: entities.entrySet()) {
-            entityMap.put((String) e.getKey(), (String) e.getValue());
+            final int c = Integer.parseInt(((String) e.getKey()).trim());
+            if (c >= 0 && c <= Character.MAX_VALUE) {
+                entityMap.put(c, (String) e.getValue());
+                max = Math.max(max, c);
+            }
+        }
+        entityTable = new String[max + 1];
+        for (final Entry<Integer, String> e: entityMap.entrySet()) {
+            entityTable[e.getKey()] = e.getValue();
         }
 
     }
@@ -184,6 +203,9 @@ public final class ConvertLang extends Task {
                 charsetMap.put(ATTRIBUTE_FORMAT_VALUE_HTML, "iso-8859-1");
                 charsetMap.put(ATTRIBUTE_FORMAT_VALUE_WINDOWS, "windows-1252");
             }
+            for (final String format: new String[] {ATTRIBUTE_FORMAT_VALUE_HTML, ATTRIBUTE_FORMAT_VALUE_WINDOWS}) {
+                charsets.put(format, Charset.forName(charsetMap.get(format)));
+            }
         } catch (final Exception e) {
             throw new RuntimeException("Failed to read charset configuration file: " + e.getMessage(), e);
         } finally {
@@ -201,160 +223,85 @@ public final class ConvertLang extends Task {
         return source.substring(0, startPos) + source.substring(endPos);
     }
 
-    private void convertHtmlCharset() {
-        final File outputDir = new File(outputdir);
-        final File[] files = outputDir.listFiles();
-        if (files != null) {
-            for (final File file : files) {
-                //Recursive method
-                convertCharset(file);
+    /**
+     * Collect HTML Help component files recursively.
+     * 
+     * @param dir directory to search
+     * @param files map of files to file formats to add to
+     */
+    private void collectFiles(final File dir, final Map<File, String> files) {
+        final File[] fs = dir.listFiles();
+        if (fs != null) {
+            for (final File file : fs) {
+                if (file.isDirectory()) {
+                    collectFiles(file, files);
+                } else if (FileUtils.isHTMLFile(file.getName()) ||
+                        FileUtils.isHHCFile(file.getName()) ||
+                        FileUtils.isHHKFile(file.getName())) {
+                    files.put(file, ATTRIBUTE_FORMAT_VALUE_HTML);
+                } else if (FileUtils.isHHPFile(file.getName())) {
+                    files.put(file, ATTRIBUTE_FORMAT_VALUE_WINDOWS);
+                }
             }
         }
     }
-    //Recursive method
-    private void convertCharset(final File inputFile){
-        if(inputFile.isDirectory()){
-            final File[] files = inputFile.listFiles();
-            if (files != null) {
-                for (final File file : files) {
-                    convertCharset(file);
-                }
-            }
-        }else if(FileUtils.isHTMLFile(inputFile.getName())||
-                FileUtils.isHHCFile(inputFile.getName())||
-                FileUtils.isHHKFile(inputFile.getName())){
-
-            final String fileName = inputFile.getAbsolutePath();
-            final File outputFile = new File(fileName + FILE_EXTENSION_TEMP);
-            log("Processing " + fileName, Project.MSG_INFO);
-            BufferedReader reader = null;
-            Writer writer = null;
-            try {
-                //prepare for the input and output
-                final FileInputStream inputStream = new FileInputStream(inputFile);
-                final InputStreamReader streamReader = new InputStreamReader(inputStream, UTF8);
-                reader = new BufferedReader(streamReader);
-
-                final FileOutputStream outputStream = new FileOutputStream(outputFile);
-                final OutputStreamWriter streamWriter = new OutputStreamWriter(outputStream, UTF8);
-                writer = new BufferedWriter(streamWriter);
-
-                String value = reader.readLine();
-                while(value != null){
-                    //meta tag contains charset found
-                    if(value.contains("<meta http-equiv") && value.contains("charset")){
-                        final int insertPoint = value.indexOf("charset=") + "charset=".length();
-                        final String subString = value.substring(0, insertPoint);
-                        final int remainIndex = value.indexOf(UTF8) + UTF8.length();
-                        final String remainString = value.substring(remainIndex);
-                        //change the charset
-                        final String newValue = subString + charsetMap.get(ATTRIBUTE_FORMAT_VALUE_HTML) + remainString;
-                        //write into the output file
-                        writer.write(newValue);
-                        //add line break
-                        writer.write(LINE_SEPARATOR);
-                    }else{
-                        if(value.contains(tag1)){
-                            value = replaceXmlTag(value,tag1);
-                        }else if(value.contains(tag2)){
-                            value = replaceXmlTag(value,tag2);
-                        }else if(value.contains(tag3)){
-                            value = replaceXmlTag(value,tag3);
-                        }
 
-                        //other values
-                        writer.write(value);
-                        writer.write(LINE_SEPARATOR);
-                    }
-                    value = reader.readLine();
-                }
-            } catch (final FileNotFoundException e) {
-                logger.error(e.getMessage(), e) ;
-            } catch (final UnsupportedEncodingException e) {
-            	throw new RuntimeException(e);
-            } catch (final IOException e) {
-                logger.error(e.getMessage(), e) ;
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (final IOException e) {
-                        logger.error("Failed to close input stream: " + e.getMessage());
-                    }
-                }
-                if (writer != null) {
-                    try {
-                        writer.close();
-                    } catch (final IOException e) {
-                        logger.error("Failed to close output stream: " + e.getMessage());
-                    }
+    /**
+     * Convert files concurrently.
+     */
+    private void convertFiles() {
+        final Map<File, String> files = new LinkedHashMap<File, String>();
+        collectFiles(new File(outputdir), files);
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(files.size());
+        for (final Entry<File, String> e: files.entrySet()) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    convertFile(e.getKey(), e.getValue());
+                    return null;
                 }
-            }
-            try {
-                deleteQuietly(inputFile);
-                moveFile(outputFile, inputFile);
-            } catch (final Exception e) {
-                logger.error("Failed to replace " + inputFile + ": " + e.getMessage());
-            }
+            });
         }
-    }
-
-    private void updateAllEntitiesAndLangs() {
-        final File outputDir = new File(outputdir);
-        final File[] files = outputDir.listFiles();
-        if (files != null) {
-            for (final File file : files) {
-                //Recursive method
-                updateEntityAndLang(file);
-            }
+        try {
+            ParallelUtils.invokeAll(tasks);
+        } catch (final DITAOTException e) {
+            throw new BuildException(e);
         }
     }
-    //Recursive method
-    private void updateEntityAndLang(final File inputFile) {
-        //directory case
-        if(inputFile.isDirectory()){
-            final File[] files = inputFile.listFiles();
-            if (files != null) {
-                for (final File file : files) {
-                    updateEntityAndLang(file);
-                }
-            }
-        }
-        //html/hhc/hhk file case
-        else if(FileUtils.isHTMLFile(inputFile.getName())||
-                FileUtils.isHHCFile(inputFile.getName())||
-                FileUtils.isHHKFile(inputFile.getName())){
-            //do converting work
-            convertEntityAndCharset(inputFile, ATTRIBUTE_FORMAT_VALUE_HTML);
 
+    /**
+     * Convert file in a single pass. The file is read as UTF-8 one line at a
+     * time, XML declarations are removed, the charset of HTML meta elements or
+     * the language of HHP files is changed, and the line is escaped with the
+     * entity table and encoded into the charset of the file format.
+     * 
+     * @param inputFile file to convert
+     * @param format file format, either {@code html} or {@code windows}
+     */
+    private void convertFile(final File inputFile, final String format) {
+        final boolean isHHP = format.equals(ATTRIBUTE_FORMAT_VALUE_WINDOWS);
+        final String fileName = inputFile.getAbsolutePath();
+        final File outputFile = new File(fileName + FILE_EXTENSION_TEMP);
+        if (!isHHP) {
+            log("Processing " + fileName, Project.MSG_INFO);
         }
-        //hhp file case
-        else if(FileUtils.isHHPFile(inputFile.getName())){
-            //do converting work
-            convertEntityAndCharset(inputFile, ATTRIBUTE_FORMAT_VALUE_WINDOWS);
-            //update language setting of hhp file
-            final String fileName = inputFile.getAbsolutePath();
-            final File outputFile = new File(fileName + FILE_EXTENSION_TEMP);
-            //get new charset
-            final String charset = charsetMap.get(ATTRIBUTE_FORMAT_VALUE_WINDOWS);
-            BufferedReader reader = null;
-            BufferedWriter writer = null;
-            try {
-                //prepare for the input and output
-                final FileInputStream inputStream = new FileInputStream(inputFile);
-                final InputStreamReader streamReader = new InputStreamReader(inputStream, charset);
-                //wrapped into reader
-                reader = new BufferedReader(streamReader);
-
-                final FileOutputStream outputStream = new FileOutputStream(outputFile);
-
-                //convert charset
-                final OutputStreamWriter streamWriter = new OutputStreamWriter(outputStream, charset);
-                //wrapped into writer
-                writer = new BufferedWriter(streamWriter);
-
-                String value = reader.readLine();
-                while(value != null){
+        BufferedReader reader = null;
+        Writer writer = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(inputFile), UTF8));
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), charsets.get(format)));
+
+            String value = reader.readLine();
+            while(value != null){
+                //meta tag contains charset found
+                if(!isHHP && value.contains("<meta http-equiv") && value.contains("charset")){
+                    final int insertPoint = value.indexOf("charset=") + "charset=".length();
+                    final String subString = value.substring(0, insertPoint);
+                    final int remainIndex = value.indexOf(UTF8) + UTF8.length();
+                    final String remainString = value.substring(remainIndex);
+                    //change the charset
+                    value = subString + charsetMap.get(ATTRIBUTE_FORMAT_VALUE_HTML) + remainString;
+                }else{
                     if(value.contains(tag1)){
                         value = replaceXmlTag(value,tag1);
                     }else if(value.contains(tag2)){
@@ -362,99 +309,25 @@ public final class ConvertLang extends Task {
                     }else if(value.contains(tag3)){
                         value = replaceXmlTag(value,tag3);
                     }
-
-                    //meta tag contains charset found
-                    if(value.contains("Language=")){
+                    //language setting of hhp file
+                    if(isHHP && value.contains("Language=")){
                         String newValue = langMap.get(langcode);
                         if (newValue == null) {
                             newValue = langMap.get(langcode.split("-")[0]);
                         }
                         if (newValue != null) {
-                            writer.write("Language=" + newValue);
-                            writer.write(LINE_SEPARATOR);
+                            value = "Language=" + newValue;
                         } else {
                             throw new IllegalArgumentException("Unsupported language code '" + langcode + "', unable to map to a Locale ID.");
                         }
-
-                    }else{
-                        //other values
-                        writer.write(value);
-                        writer.write(LINE_SEPARATOR);
                     }
-                    value = reader.readLine();
-                }
-            } catch (final FileNotFoundException e) {
-                logger.error(e.getMessage(), e) ;
-            } catch (final UnsupportedEncodingException e) {
-                throw new RuntimeException(e);
-            } catch (final IOException e) {
-                logger.error(e.getMessage(), e) ;
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (final IOException e) {
-                        logger.error("Failed to close input stream: " + e.getMessage());
-                    }
-                }
-                if (writer != null) {
-                    try {
-                        writer.close();
-                    } catch (final IOException e) {
-                        logger.error("Failed to close output stream: " + e.getMessage());
-                    }
-                }
-            }
-            try {
-                deleteQuietly(inputFile);
-                moveFile(outputFile, inputFile);
-            } catch (final Exception e) {
-                logger.error("Failed to replace " + inputFile + ": " + e.getMessage());
-            }
-        }
-
-    }
-
-    private void convertEntityAndCharset(final File inputFile, final String format) {
-        final String fileName = inputFile.getAbsolutePath();
-        final File outputFile = new File(fileName + FILE_EXTENSION_TEMP);
-        BufferedReader reader = null;
-        BufferedWriter writer = null;
-        try {
-            //prepare for the input and output
-            final FileInputStream inputStream = new FileInputStream(inputFile);
-            final InputStreamReader streamReader = new InputStreamReader(inputStream, UTF8);
-            //wrapped into reader
-            reader = new BufferedReader(streamReader);
-
-            final FileOutputStream outputStream = new FileOutputStream(outputFile);
-            //get new charset
-            final String charset = charsetMap.get(format);
-            //convert charset
-            final OutputStreamWriter streamWriter = new OutputStreamWriter(outputStream, charset);
-            //wrapped into writer
-            writer = new BufferedWriter(streamWriter);
-
-            //read a character
-            int charCode = reader.read();
-            while(charCode != -1){
-                final String key = String.valueOf(charCode);
-                //Is an entity char
-                if(entityMap.containsKey(key)){
-                    //get related entity
-                    final String value = entityMap.get(key);
-                    //write entity into output file
-                    writer.write(value);
-                }else{
-                    //normal process
-                    writer.write(charCode);
                 }
-                charCode = reader.read();
+                writeEscaped(writer, value);
+                writer.write(LINE_SEPARATOR);
+                value = reader.readLine();
             }
         } catch (final FileNotFoundException e) {
             logger.error(e.getMessage(), e) ;
-        } catch (final UnsupportedEncodingException e) {
-            logger.error(e.getMessage(), e) ;
         } catch (final IOException e) {
             logger.error(e.getMessage(), e) ;
         } finally {
@@ -481,6 +354,23 @@ public final class ConvertLang extends Task {
         }
     }
 
+    /**
+     * Write string replacing characters that have an entity in the entity table.
+     */
+    private void writeEscaped(final Writer writer, final String value) throws IOException {
+        final int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < entityTable.length && entityTable[c] != null) {
+                writer.write(value, start, i - start);
+                writer.write(entityTable[c]);
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, length - start);
+    }
+
     public void setBasedir(final String basedir) {
         this.basedir = basedir;
     }
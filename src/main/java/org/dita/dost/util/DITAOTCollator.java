@@ -11,7 +11,6 @@ package org.dita.dost.util;
 import java.lang.reflect.Method;
 import java.text.Collator;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Locale;
 
 /**
@@ -20,7 +19,6 @@ import java.util.Locale;
  * @author Wu, Zhi Qiang
  */
 public final class DITAOTCollator implements Comparator {
-    static final HashMap<Locale, DITAOTCollator> cache = new HashMap<Locale, DITAOTCollator>();
 
     /**
      * Return the DITAOTCollator instance, Locale.US is default.
@@ -31,7 +29,8 @@ public final class DITAOTCollator implements Comparator {
     }
 
     /**
-     * Return the DITAOTCollator instance specifying Locale.
+     * Return the DITAOTCollator instance specifying Locale. Instances are cached
+     * per build, see {@link BuildContext#getCollator(Locale)}.
      * @param locale the locale
      * @return DITAOTCollator
      */
@@ -39,13 +38,7 @@ public final class DITAOTCollator implements Comparator {
         if (locale == null) {
             throw new NullPointerException("Locale may not be null");
         }
-        DITAOTCollator instance = null;
-        instance = cache.get(locale);
-        if (instance == null) {
-            instance = new DITAOTCollator(locale);
-            cache.put(locale, instance);
-        }
-        return instance;
+        return BuildContext.getCurrent().getCollator(locale);
     }
 
     private Object collatorInstance = null;
@@ -62,7 +55,7 @@ public final class DITAOTCollator implements Comparator {
      * Constructor specifying Locale.
      * @param locale
      */
-    private DITAOTCollator(final Locale locale) {
+    DITAOTCollator(final Locale locale) {
         init(locale);
     }
 
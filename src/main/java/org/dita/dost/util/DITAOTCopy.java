@@ -17,14 +17,21 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Task;
-import org.apache.tools.ant.util.FileUtils;
+import org.dita.dost.exception.DITAOTException;
 
 /**
- * Class description goes here.
+ * Copy files listed in an includes list or includes file.
+ * 
+ * <p>Files are copied with {@link FileCopier}, so they are copied concurrently
+ * and unchanged destination files are skipped.</p>
  *
  * @author Wu, Zhi Qiang
  */
@@ -33,8 +40,12 @@ public final class DITAOTCopy extends Task {
     private String includes = null;
     private File includesFile = null;
     private String relativePaths = null;
+    /** Source base directory */
+    private File srcDir = null;
     /** Destination directory */
     private File destDir = null;
+    private boolean link = false;
+    private boolean overwrite = false;
 
     /**
      * Default Constructor.
@@ -59,6 +70,16 @@ public final class DITAOTCopy extends Task {
         this.includesFile = includesFile;
     }
 
+    /**
+     * Set the source base directory. If set, includes are relative to the source
+     * directory and files are copied to the same relative path in the destination
+     * directory.
+     * @param srcdir the source base directory.
+     */
+    public void setSrcdir(final File srcdir) {
+        srcDir = srcdir;
+    }
+
     /**
      * Set the destination directory.
      * @param destdir the destination directory.
@@ -77,6 +98,22 @@ public final class DITAOTCopy extends Task {
         }
     }
 
+    /**
+     * Set whether to create hard links instead of copies when possible.
+     * @param link {@code true} to link files
+     */
+    public void setLink(final boolean link) {
+        this.link = link;
+    }
+
+    /**
+     * Set whether to copy files even if the destination is unchanged.
+     * @param overwrite {@code true} to always copy
+     */
+    public void setOverwrite(final boolean overwrite) {
+        this.overwrite = overwrite;
+    }
+
     /**
      * @see org.apache.tools.ant.Task#execute()
      */
@@ -88,38 +125,64 @@ public final class DITAOTCopy extends Task {
         if (destDir == null) {
             throw new BuildException("Destination directory not defined");
         }
+        if (srcDir != null && !destDir.exists()) {
+            destDir.mkdirs();
+        }
         if (!destDir.exists()) {
             throw new BuildException("Destination directory " + destDir + " does not exists");
         }
         try {
-            final FileUtils fileUtils = FileUtils.newFileUtils();
             final List<String> incs = getIncludes();
-            if (relativePaths == null) {
+            // keyed by destination so that the last source for a destination wins
+            final Map<File, File> dests = new LinkedHashMap<File, File>();
+            if (srcDir != null) {
+                for (final String inc: incs) {
+                    final File srcFile = new File(srcDir, inc);
+                    if (srcFile.isFile()) {
+                        dests.put(new File(destDir, inc), srcFile);
+                    }
+                }
+            } else if (relativePaths == null) {
                 for (final String inc: incs) {
                     final File srcFile = new File(inc);
                     if (srcFile.exists()) {
-                        final File destFile = new File(destDir, srcFile.getName());
-                        fileUtils.copyFile(srcFile, destFile);
+                        dests.put(new File(destDir, srcFile.getName()), srcFile);
                     }
                 }
             } else {
+                final Map<String, File> relFiles = new HashMap<String, File>();
+                for (final String rel: relativePaths.split(COMMA)) {
+                    final File temp = new File(destDir, rel);
+                    final String name = temp.getName().toLowerCase(Locale.ENGLISH);
+                    if (!relFiles.containsKey(name)) {
+                        relFiles.put(name, temp);
+                    }
+                }
                 for (final String inc: incs) {
                     final File srcFile = new File(inc);
-                    File destFile = null;
-                    for (final String rel: relativePaths.split(COMMA)) {
-					    final File temp = new File(destDir, rel);
-						if (temp.getName().equalsIgnoreCase(srcFile.getName())) {
-							destFile = temp;
-							break;
-						}
-					}
-                    if (srcFile.exists() && destFile != null) {                      
-                        fileUtils.copyFile(srcFile, destFile);
+                    final File destFile = relFiles.get(srcFile.getName().toLowerCase(Locale.ENGLISH));
+                    if (srcFile.exists() && destFile != null) {
+                        dests.put(destFile, srcFile);
                     }
                 }
             }
+            final Map<File, File> files = new LinkedHashMap<File, File>();
+            for (final Map.Entry<File, File> e: dests.entrySet()) {
+                files.put(e.getValue(), e.getKey());
+            }
+            if (!files.isEmpty()) {
+                final FileCopier copier = new FileCopier();
+                copier.setLink(link);
+                copier.setOverwrite(overwrite);
+                final int count = copier.copy(files);
+                if (count > 0) {
+                    log("Copying " + count + " file" + (count == 1 ? "" : "s") + " to " + destDir.getAbsolutePath());
+                }
+            }
         } catch (final IOException e) {
             throw new BuildException(e.getMessage(), e);
+        } catch (final DITAOTException e) {
+            throw new BuildException(e.getMessage(), e);
         }
     }
 
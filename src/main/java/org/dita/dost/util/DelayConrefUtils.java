@@ -11,11 +11,12 @@ package org.dita.dost.util;
 import static org.dita.dost.util.Constants.*;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -37,7 +38,11 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * 
@@ -47,8 +52,10 @@ import org.xml.sax.InputSource;
  */
 public final class DelayConrefUtils {
 
-    /** Root element of export.xml Document */
-    private Document root = null;
+    /** Exported anchors by file name, read from export.xml on first use. */
+    private Map<String, ExportedAnchors> exportIndex = null;
+    /** Topic IDs by absolute file path. */
+    private final Map<File, Set<String>> topicIdIndex = new HashMap<File, Set<String>>();
 
     private DITAOTLogger logger;
 
@@ -57,7 +64,6 @@ public final class DelayConrefUtils {
      */
     public DelayConrefUtils() {
         super();
-        root = null;
     }
 
     public void setLogger(final DITAOTLogger logger) {
@@ -65,111 +71,132 @@ public final class DelayConrefUtils {
     }
 
     /**
-     * Find whether an id is refer to a topic in a dita file.
+     * Find whether an id is refer to a topic in a dita file. Topic IDs of
+     * each file are read only once.
      * @param absolutePathToFile the absolute path of dita file
      * @param id topic id
      * @return true if id find and false otherwise
      */
-    public boolean findTopicId(final File absolutePathToFile, final String id) {
+    public synchronized boolean findTopicId(final File absolutePathToFile, final String id) {
 
         if(!absolutePathToFile.exists()){
             return false;
         }
-        try {
-            //load the file
-            final DocumentBuilder builder = XMLUtils.getDocumentBuilder();
-            builder.setEntityResolver(CatalogUtils.getCatalogResolver());
-            final Document root = builder.parse(new InputSource(new FileInputStream(absolutePathToFile)));
-
-            //get root element
-            final Element doc = root.getDocumentElement();
-            //do BFS
-            final Queue<Element> queue = new LinkedList<Element>();
-            queue.offer(doc);
-            while (!queue.isEmpty()) {
-                final Element pe = queue.poll();
-                final NodeList pchildrenList = pe.getChildNodes();
-                for (int i = 0; i < pchildrenList.getLength(); i++) {
-                    final Node node = pchildrenList.item(i);
-                    if (node.getNodeType() == Node.ELEMENT_NODE) {
-                        queue.offer((Element)node);
-                    }
-                }
-                final String classValue = pe.getAttribute(ATTRIBUTE_NAME_CLASS);
-                if(classValue!=null && TOPIC_TOPIC.matches(classValue)){
-                    //topic id found
-                    if(pe.getAttribute(ATTRIBUTE_NAME_ID).equals(id)){
-                        return true;
+        Set<String> ids = topicIdIndex.get(absolutePathToFile);
+        if (ids == null) {
+            ids = new HashSet<String>();
+            final Set<String> topicIds = ids;
+            try {
+                parse(new InputSource(absolutePathToFile.toURI().toString()), new DefaultHandler() {
+                    @Override
+                    public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+                        final String classValue = atts.getValue(ATTRIBUTE_NAME_CLASS);
+                        if (classValue != null && TOPIC_TOPIC.matches(classValue)) {
+                            final String topicId = atts.getValue(ATTRIBUTE_NAME_ID);
+                            topicIds.add(topicId != null ? topicId : "");
+                        }
                     }
-                }
+                }, true);
+            } catch (final Exception e) {
+                logger.error("Failed to read document: " + e.getMessage(), e);
+                return false;
             }
-            return false;
-
-        } catch (final Exception e) {
-            logger.error("Failed to read document: " + e.getMessage(), e);
+            topicIdIndex.put(absolutePathToFile, ids);
         }
-        return false;
+        return ids.contains(id);
     }
 
     /**check whether the href/id element defined by keys has been exported.
+     * The export file is read into an index on first call.
      * @param href href
      * @param id id
      * @param key keyname
      * @param tempDir absolute path to temporary director
      * @return result list
      */
-    public List<Boolean> checkExport(String href, final String id, final String key, final File tempDir) {
-        //parsed export .xml to get exported elements
-        final File exportFile = new File(tempDir, FILE_NAME_EXPORT_XML);
+    public synchronized List<Boolean> checkExport(String href, final String id, final String key, final File tempDir) {
+        if (exportIndex == null) {
+            exportIndex = readExportIndex(new File(tempDir, FILE_NAME_EXPORT_XML));
+        }
+        final ExportedAnchors anchors = !StringUtils.isEmptyString(href) ? exportIndex.get(href) : null;
+        final boolean idExported = anchors != null && id != null && anchors.ids.contains(id);
+        final boolean keyrefExported = anchors != null && key != null && anchors.keys.contains(key);
+        final List<Boolean> list = new ArrayList<Boolean>();
+        list.add(idExported);
+        list.add(keyrefExported);
+        return list;
+    }
 
-        boolean idExported = false;
-        boolean keyrefExported = false;
+    /**
+     * Read export file into an index. Only the first {@code file} element
+     * for a file name is used.
+     * 
+     * @param exportFile export file
+     * @return exported anchors by file name, empty if the export file could not be read
+     */
+    private Map<String, ExportedAnchors> readExportIndex(final File exportFile) {
+        final Map<String, ExportedAnchors> index = new HashMap<String, ExportedAnchors>();
         try {
-            //load export.xml only once
-            if(root==null){
-                final DocumentBuilder builder = XMLUtils.getDocumentBuilder();
-                builder.setEntityResolver(CatalogUtils.getCatalogResolver());
-                root = builder.parse(new InputSource(new FileInputStream(exportFile)));
-            }
-            //get file node which contains the export node
-            final Element fileNode = searchForKey(root.getDocumentElement(), href, "file");
-            if(fileNode!=null){
-                //iterate the child nodes
-                final NodeList pList = fileNode.getChildNodes();
-                for (int j = 0; j < pList.getLength(); j++) {
-                    final Node node = pList.item(j);
-                    if(Node.ELEMENT_NODE == node.getNodeType()){
-                        final Element child = (Element)node;
-                        //compare keys
-                        if(child.getNodeName().equals("keyref")&&
-                                child.getAttribute(ATTRIBUTE_NAME_NAME)
-                                .equals(key)){
-                            keyrefExported = true;
-                            //compare topic id
-                        }else if(child.getNodeName().equals("topicid")&&
-                                child.getAttribute(ATTRIBUTE_NAME_NAME)
-                                .equals(id)){
-                            idExported = true;
-                            //compare element id
-                        }else if(child.getNodeName().equals("id")&&
-                                child.getAttribute(ATTRIBUTE_NAME_NAME)
-                                .equals(id)){
-                            idExported = true;
+            parse(new InputSource(exportFile.toURI().toString()), new DefaultHandler() {
+                private ExportedAnchors current;
+                @Override
+                public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+                    final String name = atts.getValue(ATTRIBUTE_NAME_NAME);
+                    if (qName.equals("file")) {
+                        if (!StringUtils.isEmptyString(name) && !index.containsKey(name)) {
+                            current = new ExportedAnchors();
+                            index.put(name, current);
+                        } else {
+                            current = null;
+                        }
+                    } else if (current != null && name != null) {
+                        if (qName.equals("keyref")) {
+                            current.keys.add(name);
+                        } else if (qName.equals("topicid") || qName.equals("id")) {
+                            current.ids.add(name);
                         }
                     }
-                    if(idExported && keyrefExported){
-                        break;
+                }
+                @Override
+                public void endElement(final String uri, final String localName, final String qName) {
+                    if (qName.equals("file")) {
+                        current = null;
                     }
                 }
-            }
+            }, false);
         } catch (final Exception e) {
-            e.printStackTrace();
+            if (logger != null) {
+                logger.error("Failed to read export anchors: " + e.getMessage(), e);
+            } else {
+                e.printStackTrace();
+            }
+            index.clear();
         }
-        final List<Boolean> list = new ArrayList<Boolean>();
-        list.add(idExported);
-        list.add(keyrefExported);
-        return list;
+        return index;
     }
+
+    private void parse(final InputSource in, final DefaultHandler handler, final boolean useCatalog) throws IOException, SAXException {
+        XMLReader reader = null;
+        try {
+            reader = XMLUtils.borrowXMLReader();
+            if (useCatalog) {
+                reader.setEntityResolver(CatalogUtils.getCatalogResolver());
+            }
+            reader.setContentHandler(handler);
+            reader.parse(in);
+        } finally {
+            XMLUtils.releaseXMLReader(reader);
+        }
+    }
+
+    /** Exported anchors of a file. */
+    private static final class ExportedAnchors {
+        /** Exported topic and element IDs. */
+        final Set<String> ids = new HashSet<String>();
+        /** Exported keys. */
+        final Set<String> keys = new HashSet<String>();
+    }
+
     /**
      * Search specific element by key and tagName.
      * @param root root element
@@ -241,7 +268,7 @@ public final class DelayConrefUtils {
             entry.setAttribute("key", key);
             entry.appendChild(doc.createTextNode(prop.getProperty(key)));
         }
-        final TransformerFactory tf = TransformerFactory.newInstance();
+        final TransformerFactory tf = XMLUtils.getTransformerFactory();
         Transformer t = null;
         try {
             t = tf.newTransformer();
@@ -0,0 +1,153 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.dita.dost.exception.DITAOTException;
+
+/**
+ * Copy engine for resource files.
+ *
+ * <p>Files are copied concurrently with {@link ParallelUtils} using
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel) transferTo},
+ * which lets the operating system copy without moving file content through the
+ * Java heap. Destination files get the modification time of the source, and a
+ * destination with the same size and modification time as its source is
+ * considered unchanged and skipped unless overwrite is enabled. Optionally
+ * destination files are created as hard links to the source, falling back to
+ * copying when the file system does not support links.</p>
+ *
+ * @since 2.0
+ */
+public final class FileCopier {
+
+    private boolean link = false;
+    private boolean overwrite = false;
+
+    /**
+     * Set whether to create hard links instead of copies. Linked files share
+     * content with the source, so they must not be modified in place.
+     *
+     * @param link {@code true} to create hard links, defaults to {@code false}
+     */
+    public void setLink(final boolean link) {
+        this.link = link;
+    }
+
+    /**
+     * Set whether to copy files even if the destination is unchanged.
+     *
+     * @param overwrite {@code true} to always copy, defaults to {@code false}
+     */
+    public void setOverwrite(final boolean overwrite) {
+        this.overwrite = overwrite;
+    }
+
+    /**
+     * Copy files.
+     *
+     * @param files map of source files to destination files, destination files must be distinct
+     * @return number of files copied, not counting skipped files
+     * @throws DITAOTException if copying a file failed
+     * @throws IllegalArgumentException if two source files have the same destination
+     */
+    public int copy(final Map<File, File> files) throws DITAOTException {
+        final List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>(files.size());
+        final Set<File> dsts = new HashSet<File>(files.size());
+        for (final Map.Entry<File, File> e: files.entrySet()) {
+            final File src = e.getKey();
+            final File dst = e.getValue();
+            if (!dsts.add(dst.getAbsoluteFile())) {
+                throw new IllegalArgumentException("Multiple source files for destination " + dst.getAbsolutePath());
+            }
+            tasks.add(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws IOException {
+                    if (!overwrite && isUpToDate(src, dst)) {
+                        return false;
+                    }
+                    copyFile(src, dst);
+                    return true;
+                }
+            });
+        }
+        int count = 0;
+        for (final Boolean copied: ParallelUtils.invokeAll(tasks)) {
+            if (copied) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Test if destination file has the same size and modification time as the source file.
+     *
+     * @param src source file
+     * @param dst destination file
+     * @return {@code true} if destination is unchanged, otherwise {@code false}
+     */
+    static boolean isUpToDate(final File src, final File dst) {
+        return dst.isFile() && dst.length() == src.length() && dst.lastModified() == src.lastModified();
+    }
+
+    private void copyFile(final File src, final File dst) throws IOException {
+        final File dir = dst.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs() && !dir.exists()) {
+            throw new IOException("Failed to create directory " + dir.getAbsolutePath());
+        }
+        if (link) {
+            try {
+                Files.deleteIfExists(dst.toPath());
+                Files.createLink(dst.toPath(), src.toPath());
+                return;
+            } catch (final IOException e) {
+                // fall back to copy, e.g. different file systems
+            } catch (final UnsupportedOperationException e) {
+                // fall back to copy
+            }
+        }
+        FileInputStream in = null;
+        FileOutputStream out = null;
+        try {
+            in = new FileInputStream(src);
+            out = new FileOutputStream(dst);
+            final FileChannel inChannel = in.getChannel();
+            final FileChannel outChannel = out.getChannel();
+            final long size = inChannel.size();
+            long position = 0;
+            while (position < size) {
+                final long count = inChannel.transferTo(position, size - position, outChannel);
+                if (count <= 0) {
+                    throw new IOException("Failed to copy " + src.getAbsolutePath() + ": source file changed during copy");
+                }
+                position += count;
+            }
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+            if (out != null) {
+                out.close();
+            }
+        }
+        if (!dst.setLastModified(src.lastModified())) {
+            throw new IOException("Failed to set modification time of " + dst.getAbsolutePath());
+        }
+    }
+
+}
@@ -208,52 +208,7 @@ public final class FileUtils {
      * @return relative path using {@link Constants#UNIX_SEPARATOR} path separator
      */
     public static String getRelativePath(final String basePath, final String refPath, final String sep) {
-        final StringBuilder upPathBuffer = new StringBuilder(128);
-        final StringBuilder downPathBuffer = new StringBuilder(128);
-        final StringTokenizer mapTokenizer = new StringTokenizer(normalizePath(basePath, File.separator), File.separator);
-        final StringTokenizer topicTokenizer = new StringTokenizer(normalizePath(refPath, File.separator), File.separator);
-
-        while (mapTokenizer.countTokens() > 1
-                && topicTokenizer.countTokens() > 1) {
-            final String mapToken = mapTokenizer.nextToken();
-            final String topicToken = topicTokenizer.nextToken();
-            boolean equals = false;
-            if (OS_NAME.toLowerCase().contains(OS_NAME_WINDOWS)){
-                //if OS is Windows, we need to ignore case when comparing path names.
-                equals = mapToken.equalsIgnoreCase(topicToken);
-            }else{
-                equals = mapToken.equals(topicToken);
-            }
-
-            if (!equals) {
-                if(mapToken.endsWith(COLON) ||
-                        topicToken.endsWith(COLON)){
-                    //the two files are in different disks under Windows
-                    return refPath;
-                }
-                upPathBuffer.append("..");
-                upPathBuffer.append(sep);
-                downPathBuffer.append(topicToken);
-                downPathBuffer.append(sep);
-                break;
-            }
-        }
-
-        while (mapTokenizer.countTokens() > 1) {
-            mapTokenizer.nextToken();
-
-            upPathBuffer.append("..");
-            upPathBuffer.append(sep);
-        }
-
-        while (topicTokenizer.hasMoreTokens()) {
-            downPathBuffer.append(topicTokenizer.nextToken());
-            if (topicTokenizer.hasMoreTokens()) {
-                downPathBuffer.append(sep);
-            }
-        }
-
-        return upPathBuffer.append(downPathBuffer).toString();
+        return RelativePathCache.INSTANCE.getRelativePath(basePath, refPath, sep);
     }
 
     /**
@@ -292,13 +247,12 @@ public final class FileUtils {
      * @return relative path to base path, {@code null} if reference path was a single file
      */
     private static String getRelativePathForPath(final String relativePath, final String sep) {
-        final StringTokenizer tokenizer = new StringTokenizer(separatorsToUnix(relativePath), UNIX_SEPARATOR);
-        final StringBuilder buffer = new StringBuilder();
-        if (tokenizer.countTokens() == 1){
+        final int count = RelativePathCache.split(separatorsToUnix(relativePath), UNIX_SEPARATOR.charAt(0)).length;
+        if (count == 1){
             return null;
         }else{
-            while(tokenizer.countTokens() > 1){
-                tokenizer.nextToken();
+            final StringBuilder buffer = new StringBuilder();
+            for (int i = 1; i < count; i++) {
                 buffer.append("..");
                 buffer.append(sep);
             }
@@ -375,7 +329,7 @@ public final class FileUtils {
      * @param separator directory separator
      * @return processed path
      */
-    private static String normalizePath(final String path, final String separator) {
+    static String normalizePath(final String path, final String separator) {
         final String p = path.replace(WINDOWS_SEPARATOR, separator).replace(UNIX_SEPARATOR, separator);
         // remove "." from the directory.
         final List<String> dirs = new LinkedList<String>();
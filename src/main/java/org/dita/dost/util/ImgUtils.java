@@ -13,13 +13,17 @@ import static org.dita.dost.util.URLUtils.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.CharBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.imageio.ImageIO;
 
-import org.apache.commons.codec.binary.Base64;
 import org.dita.dost.log.DITAOTJavaLogger;
 import org.dita.dost.log.MessageUtils;
 
@@ -32,6 +36,16 @@ import org.dita.dost.log.MessageUtils;
  */
 public final class ImgUtils {
 	
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] BASE64_DIGITS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int BUFFER_SIZE = 8 * 1024;
+    /** Maximum number of characters held in encoded content cache. */
+    private static final int CACHE_LIMIT = 16 * 1024 * 1024;
+    /** Encoded content cache in access order, keyed by encoding, file path, length and modification time. */
+    private static final Map<String, String> cache = new LinkedHashMap<String, String>(16, 0.75f, true);
+    /** Number of characters in encoded content cache. */
+    private static long cacheSize = 0;
+    
     /**
      * Private default constructor to make class uninstantiable.
      */
@@ -95,37 +109,10 @@ public final class ImgUtils {
      * 				The Hexical binary of image data converted to String.
      */
     public static String getBinData (final String dirName, final String fileName){
-        final DITAOTJavaLogger logger = new DITAOTJavaLogger();
         final File imgInput = new File(dirName, toFile(fileName).getPath());
-        FileInputStream binInput = null;
-        try{
-            String binStr = null;
-            final StringBuilder ret = new StringBuilder(16*1024);
-            binInput = new FileInputStream(imgInput);
-            int bin = binInput.read();
-            while (bin != -1){
-                binStr = Integer.toHexString(bin);
-                if(binStr.length() < 2){
-                    ret.append("0");
-                }
-                ret.append(binStr);
-                bin = binInput.read();
-            }
-            return ret.toString();
-        }catch (final Exception e){
-            logger.error(MessageUtils.getInstance().getMessage("DOTJ023E").toString());
-            logger.error(e.getMessage(), e) ;
-            return null;
-        }finally{
-            if (binInput != null) {
-                try{
-                    binInput.close();
-                }catch(final IOException ioe){
-                    logger.error(ioe.getMessage(), ioe) ;
-                }
-            }
-        }
+        return getEncoded(imgInput, false);
     }
+    
     /**
      * Get Base64 encoding content. For ODT transformation
      * @param dirName -
@@ -136,36 +123,151 @@ public final class ImgUtils {
      * @return base64 encoded binary data.
      */
     public static String getBASE64(final String dirName, final String fileName) {
-        final DITAOTJavaLogger logger = new DITAOTJavaLogger();
         final URI imgInputURI = toURI(fileName);
         final File imgInput = imgInputURI.isAbsolute() ? new File(imgInputURI) : new File(dirName, toFile(imgInputURI).getPath());
-        //BASE64Encoder encoder = new BASE64Encoder();
-        final Base64 encoder = new Base64();
-        final byte   buff[]=new   byte[(int)imgInput.length()];
-        FileInputStream file = null;
+        return getEncoded(imgInput, true);
+    }
+    
+    /**
+     * Write binary data as lower case hexadecimal digits.
+     * 
+     * @param in input stream to read
+     * @param out output to write to
+     * @throws IOException if reading or writing failed
+     */
+    public static void writeBinData(final InputStream in, final Appendable out) throws IOException {
+        final byte[] buf = new byte[BUFFER_SIZE];
+        final char[] chars = new char[BUFFER_SIZE * 2];
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            int j = 0;
+            for (int i = 0; i < len; i++) {
+                final int b = buf[i] & 0xFF;
+                chars[j++] = HEX_DIGITS[b >>> 4];
+                chars[j++] = HEX_DIGITS[b & 0x0F];
+            }
+            append(out, chars, j);
+        }
+    }
+    
+    /**
+     * Write binary data as unchunked Base64.
+     * 
+     * @param in input stream to read
+     * @param out output to write to
+     * @throws IOException if reading or writing failed
+     */
+    public static void writeBASE64(final InputStream in, final Appendable out) throws IOException {
+        // buffer size is a multiple of 3 so that only the last block needs padding
+        final byte[] buf = new byte[BUFFER_SIZE / 3 * 3];
+        final char[] chars = new char[buf.length / 3 * 4];
+        int len;
+        while ((len = readFully(in, buf)) > 0) {
+            int j = 0;
+            int i = 0;
+            for (; i + 3 <= len; i += 3) {
+                final int b = (buf[i] & 0xFF) << 16 | (buf[i + 1] & 0xFF) << 8 | buf[i + 2] & 0xFF;
+                chars[j++] = BASE64_DIGITS[b >>> 18];
+                chars[j++] = BASE64_DIGITS[b >>> 12 & 0x3F];
+                chars[j++] = BASE64_DIGITS[b >>> 6 & 0x3F];
+                chars[j++] = BASE64_DIGITS[b & 0x3F];
+            }
+            if (i < len) {
+                final int b = (buf[i] & 0xFF) << 16 | (i + 1 < len ? (buf[i + 1] & 0xFF) << 8 : 0);
+                chars[j++] = BASE64_DIGITS[b >>> 18];
+                chars[j++] = BASE64_DIGITS[b >>> 12 & 0x3F];
+                chars[j++] = i + 1 < len ? BASE64_DIGITS[b >>> 6 & 0x3F] : '=';
+                chars[j++] = '=';
+            }
+            append(out, chars, j);
+            if (len < buf.length) {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Get encoded file content, using cached content if the file has not changed.
+     * 
+     * @param imgInput image file
+     * @param base64 {@code true} for Base64, {@code false} for hexadecimal
+     * @return encoded content, {@code null} if reading failed
+     */
+    private static String getEncoded(final File imgInput, final boolean base64) {
+        final String key = (base64 ? "base64:" : "hex:") + imgInput.getAbsolutePath() + File.pathSeparator
+                + imgInput.length() + File.pathSeparator + imgInput.lastModified();
+        synchronized (cache) {
+            final String cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final DITAOTJavaLogger logger = new DITAOTJavaLogger();
+        final long length = imgInput.length();
+        final StringBuilder ret = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8,
+                                                                   base64 ? (length + 2) / 3 * 4 : length * 2));
+        InputStream in = null;
         try {
-            file = new FileInputStream(imgInput);
-            file.read(buff);
-            //String ret = encoder.encode(buff);
-            return encoder.encodeToString(buff);
-        } catch (final FileNotFoundException e) {
-            logger.error(MessageUtils.getInstance().getMessage("DOTJ023E").toString());
-            logger.error(e.getMessage(), e) ;
-            return null;
+            in = new FileInputStream(imgInput);
+            if (base64) {
+                writeBASE64(in, ret);
+            } else {
+                writeBinData(in, ret);
+            }
         } catch (final IOException e) {
             logger.error(MessageUtils.getInstance().getMessage("DOTJ023E").toString());
             logger.error(e.getMessage(), e) ;
             return null;
-        }finally{
-            if (file != null) {
-                try{
-                    file.close();
-                }catch(final IOException ioe){
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (final IOException ioe) {
                     logger.error(ioe.getMessage(), ioe) ;
                 }
             }
         }
-
+        final String res = ret.toString();
+        if (res.length() <= CACHE_LIMIT) {
+            synchronized (cache) {
+                if (cache.put(key, res) == null) {
+                    cacheSize += res.length();
+                }
+                final Iterator<String> it = cache.values().iterator();
+                while (cacheSize > CACHE_LIMIT && it.hasNext()) {
+                    cacheSize -= it.next().length();
+                    it.remove();
+                }
+            }
+        }
+        return res;
+    }
+    
+    /**
+     * Read until buffer is full or end of stream is reached.
+     * 
+     * @return number of bytes read
+     */
+    private static int readFully(final InputStream in, final byte[] buf) throws IOException {
+        int len = 0;
+        while (len < buf.length) {
+            final int i = in.read(buf, len, buf.length - len);
+            if (i == -1) {
+                break;
+            }
+            len += i;
+        }
+        return len;
+    }
+    
+    private static void append(final Appendable out, final char[] chars, final int len) throws IOException {
+        if (out instanceof Writer) {
+            ((Writer) out).write(chars, 0, len);
+        } else if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(chars, 0, len);
+        } else {
+            out.append(CharBuffer.wrap(chars, 0, len));
+        }
     }
 
 }
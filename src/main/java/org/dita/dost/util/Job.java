@@ -536,7 +536,10 @@ public final class Job {
         FileInfo i = files.get(f); 
         if (i == null) {
             i = new FileInfo(f);
-            files.put(i.uri, i);
+            final FileInfo prev = files.putIfAbsent(i.uri, i);
+            if (prev != null) {
+                i = prev;
+            }
         }
         return i;
     }
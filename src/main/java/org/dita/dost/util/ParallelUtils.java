@@ -0,0 +1,153 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.dita.dost.util.Constants.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.log.LogContext;
+
+/**
+ * Utilities for running independent tasks concurrently.
+ *
+ * <p>The {@link BuildContext} and {@link LogContext} of the calling thread are bound to the worker
+ * threads for the duration of each task. The number of worker threads is read
+ * from the {@value Constants#CONF_PARALLEL_THREADS} configuration property and
+ * defaults to the number of available processors; a value of 1 runs all tasks
+ * on the calling thread.</p>
+ *
+ * @since 2.0
+ */
+public final class ParallelUtils {
+
+    /** Number of worker threads. */
+    private static final int threadCount;
+    static {
+        int count = Runtime.getRuntime().availableProcessors();
+        final String value = Configuration.configuration.get(CONF_PARALLEL_THREADS);
+        if (value != null && !value.trim().isEmpty()) {
+            try {
+                final int i = Integer.parseInt(value.trim());
+                if (i > 0) {
+                    count = i;
+                }
+            } catch (final NumberFormatException e) {
+                Configuration.logger.error("Invalid " + CONF_PARALLEL_THREADS + " configuration value " + value);
+            }
+        }
+        threadCount = count;
+    }
+
+    private ParallelUtils() {
+    }
+
+    /**
+     * Get number of worker threads.
+     *
+     * @return number of worker threads, at least 1
+     */
+    public static int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Run tasks concurrently and wait for all of them to finish.
+     *
+     * @param tasks tasks to run
+     * @return task results in the iteration order of the tasks
+     * @throws DITAOTException if a task threw a checked exception, the first
+     *         failure in task order is thrown
+     */
+    public static <T> List<T> invokeAll(final Collection<? extends Callable<T>> tasks) throws DITAOTException {
+        final List<T> res = new ArrayList<T>(tasks.size());
+        final int threads = Math.min(threadCount, tasks.size());
+        if (threads <= 1) {
+            for (final Callable<T> task: tasks) {
+                try {
+                    res.add(task.call());
+                } catch (final Exception e) {
+                    throw toDITAOTException(e);
+                }
+            }
+            return res;
+        }
+
+        final BuildContext context = BuildContext.getCurrent();
+        final LogContext logContext = LogContext.getCurrent();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+        try {
+            final List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+            for (final Callable<T> task: tasks) {
+                futures.add(executor.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        final BuildContext previous = BuildContext.bind(context);
+                        final LogContext previousLogContext = LogContext.bind(logContext);
+                        try {
+                            return task.call();
+                        } finally {
+                            BuildContext.bind(previous);
+                            LogContext.bind(previousLogContext);
+                        }
+                    }
+                }));
+            }
+            for (final Future<T> future: futures) {
+                res.add(future.get());
+            }
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw toDITAOTException((Exception) cause);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DITAOTException("Interrupted while waiting for tasks to finish", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return res;
+    }
+
+    private static DITAOTException toDITAOTException(final Exception e) {
+        if (e instanceof DITAOTException) {
+            return (DITAOTException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        return new DITAOTException(e.getMessage(), e);
+    }
+
+    /** Thread factory for daemon worker threads. */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger poolNumber = new AtomicInteger(1);
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String prefix = "dita-ot-worker-" + poolNumber.getAndIncrement() + "-";
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread t = new Thread(r, prefix + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
+
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.dita.dost.util.Constants.*;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Memoizing relative path and URI resolver used by {@link FileUtils} and {@link URLUtils}.
+ *
+ * <p>Base paths are split into path segments once and results are memoized
+ * per base and reference. Results are the same as computed by
+ * {@link FileUtils#getRelativePath(String, String, String)} and
+ * {@link URLUtils#getRelativePath(URI, URI)}. When a cache grows past its
+ * limit it is cleared.</p>
+ *
+ * <p>Instances are thread-safe.</p>
+ *
+ * @since 2.0
+ */
+final class RelativePathCache {
+
+    /** Shared instance for the current platform. */
+    static final RelativePathCache INSTANCE = new RelativePathCache(OS_NAME.toLowerCase().contains(OS_NAME_WINDOWS));
+
+    /** Maximum number of cached base paths. */
+    private static final int MAX_BASES = 1024;
+    /** Maximum number of cached results per base path. */
+    private static final int MAX_RESULTS = 4096;
+    private static final String[] EMPTY = new String[0];
+
+    /** Compare path segments ignoring case. */
+    private final boolean ignoreCase;
+    private final ConcurrentMap<String, Base> fileBases = new ConcurrentHashMap<String, Base>();
+    private final ConcurrentMap<String, Base> unixBases;
+    private final ConcurrentMap<String, Base> uriBases = new ConcurrentHashMap<String, Base>();
+
+    /**
+     * Create new relative path cache.
+     *
+     * @param ignoreCase compare path segments ignoring case, as on Windows
+     */
+    RelativePathCache(final boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        unixBases = File.separator.equals(UNIX_SEPARATOR) ? fileBases : new ConcurrentHashMap<String, Base>();
+    }
+
+    /**
+     * Resolves a path reference against a base path.
+     *
+     * @param basePath base path
+     * @param refPath reference path
+     * @param sep path separator
+     * @return relative path, or reference path if the paths are on different drives
+     * @see FileUtils#getRelativePath(String, String, String)
+     */
+    String getRelativePath(final String basePath, final String refPath, final String sep) {
+        final ConcurrentMap<String, Base> bases = sep.equals(File.separator) ? fileBases
+                                                  : sep.equals(UNIX_SEPARATOR) ? unixBases
+                                                  : null;
+        if (bases == null) {
+            return relativize(splitFile(basePath), refPath, sep);
+        }
+        final Base base = getBase(bases, basePath, null);
+        String res = (String) base.results.get(refPath);
+        if (res == null) {
+            res = relativize(base.segments, refPath, sep);
+            put(base, refPath, res);
+        }
+        return res;
+    }
+
+    private String relativize(final String[] base, final String refPath, final String sep) {
+        final String res = relativize(base, splitFile(refPath), sep);
+        return res != null ? res : refPath;
+    }
+
+    /**
+     * Resolves absolute URI against another absolute URI.
+     *
+     * @param base absolute base file URI
+     * @param ref absolute reference file URI
+     * @return relative URI if possible, otherwise original reference file URI argument
+     * @see URLUtils#getRelativePath(URI, URI)
+     */
+    URI getRelativePath(final URI base, final URI ref) {
+        final String baseKey = base.toString();
+        final String refKey = ref.toString();
+        final Base b = getBase(uriBases, baseKey, base);
+        URI res = (URI) b.results.get(refKey);
+        if (res == null) {
+            res = relativize(base, b.segments, ref);
+            put(b, refKey, res);
+        }
+        return res;
+    }
+
+    private URI relativize(final URI base, final String[] baseSegments, final URI ref) {
+        final String baseScheme = base.getScheme();
+        final String refScheme = ref.getScheme();
+        final String baseAuth = base.getAuthority();
+        final String refAuth = ref.getAuthority();
+        if (!(((baseScheme == null && refScheme == null) || (baseScheme != null && refScheme != null && baseScheme.equals(refScheme))) &&
+                ((baseAuth == null && refAuth == null) || (baseAuth != null && refAuth != null && baseAuth.equals(refAuth))))) {
+            return ref;
+        }
+
+        URI rel;
+        if (base.getPath().equals(ref.getPath()) && ref.getFragment() != null) {
+            rel = URLUtils.toURI("");
+        } else {
+            final String path = relativize(baseSegments, split(ref.normalize().getPath(), URI_SEPARATOR.charAt(0)), URI_SEPARATOR);
+            if (path == null) {
+                //the two files are in different disks under Windows
+                return ref;
+            }
+            try {
+                rel = new URI(null, null, path, null, null);
+            } catch (final URISyntaxException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        return URLUtils.setFragment(rel, ref.getFragment());
+    }
+
+    /**
+     * Relativize reference path segments against base path segments. The last
+     * base segment is the base file name.
+     *
+     * @return relative path, {@code null} if the paths are on different drives
+     */
+    private String relativize(final String[] base, final String[] ref, final String sep) {
+        int i = 0;
+        while (i < base.length - 1 && i < ref.length - 1) {
+            //if OS is Windows, we need to ignore case when comparing path names.
+            final boolean equals = ignoreCase ? base[i].equalsIgnoreCase(ref[i]) : base[i].equals(ref[i]);
+            if (!equals) {
+                if (base[i].endsWith(COLON) || ref[i].endsWith(COLON)) {
+                    return null;
+                }
+                break;
+            }
+            i++;
+        }
+        final StringBuilder buf = new StringBuilder(128);
+        for (int j = i; j < base.length - 1; j++) {
+            buf.append("..").append(sep);
+        }
+        for (int j = i; j < ref.length; j++) {
+            if (j > i) {
+                buf.append(sep);
+            }
+            buf.append(ref[j]);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Get interned base path.
+     *
+     * @param bases interned base paths
+     * @param key base path or URI string
+     * @param uri base URI, {@code null} for file paths
+     */
+    private Base getBase(final ConcurrentMap<String, Base> bases, final String key, final URI uri) {
+        Base base = bases.get(key);
+        if (base == null) {
+            final String[] segments;
+            if (uri != null) {
+                String basePath = uri.normalize().getPath();
+                if (basePath.endsWith(URI_SEPARATOR)) {
+                    basePath = basePath + "dummy";
+                }
+                segments = split(basePath, URI_SEPARATOR.charAt(0));
+            } else {
+                segments = splitFile(key);
+            }
+            if (bases.size() >= MAX_BASES) {
+                bases.clear();
+            }
+            base = new Base(segments);
+            final Base prev = bases.putIfAbsent(key, base);
+            if (prev != null) {
+                base = prev;
+            }
+        }
+        return base;
+    }
+
+    private static void put(final Base base, final String key, final Object value) {
+        if (base.results.size() >= MAX_RESULTS) {
+            base.results.clear();
+        }
+        base.results.put(key, value);
+    }
+
+    /**
+     * Normalize file path and split it into segments.
+     */
+    private static String[] splitFile(final String path) {
+        return split(FileUtils.normalizePath(path, File.separator), File.separatorChar);
+    }
+
+    /**
+     * Split path into non-empty segments.
+     *
+     * @param path path
+     * @param sep path separator
+     * @return path segments
+     */
+    static String[] split(final String path, final char sep) {
+        int count = 0;
+        final int len = path.length();
+        for (int i = 0; i < len; i++) {
+            if (path.charAt(i) != sep && (i == 0 || path.charAt(i - 1) == sep)) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        final String[] segments = new String[count];
+        int n = 0;
+        int start = -1;
+        for (int i = 0; i <= len; i++) {
+            if (i == len || path.charAt(i) == sep) {
+                if (start != -1) {
+                    segments[n++] = path.substring(start, i);
+                    start = -1;
+                }
+            } else if (start == -1) {
+                start = i;
+            }
+        }
+        return segments;
+    }
+
+    /** Base path segments and memoized results. */
+    private static final class Base {
+        final String[] segments;
+        /** Results by reference. */
+        final ConcurrentMap<String, Object> results = new ConcurrentHashMap<String, Object>();
+
+        Base(final String[] segments) {
+            this.segments = segments;
+        }
+    }
+
+}
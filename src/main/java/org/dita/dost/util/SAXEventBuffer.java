@@ -0,0 +1,452 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Compact, immutable recording of a sequence of SAX content events.
+ *
+ * <p>Events are stored as opcodes and indices into a string pool and a shared
+ * character array instead of as a DOM tree, so a buffer is cheap to keep in
+ * memory and can be replayed any number of times, from any number of threads,
+ * into a {@link ContentHandler}. Buffers are created with a {@link Builder}.</p>
+ *
+ * @since 2.0
+ */
+public final class SAXEventBuffer {
+
+    private static final byte START_ELEMENT = 1;
+    private static final byte END_ELEMENT = 2;
+    private static final byte CHARACTERS = 3;
+    private static final byte PROCESSING_INSTRUCTION = 4;
+    private static final byte IGNORABLE_WHITESPACE = 5;
+    private static final byte START_PREFIX_MAPPING = 6;
+    private static final byte END_PREFIX_MAPPING = 7;
+
+    /** Empty buffer. */
+    public static final SAXEventBuffer EMPTY = new Builder().build();
+
+    /** Event opcodes. */
+    private final byte[] events;
+    /** Event arguments, either string pool indices or character offsets and lengths. */
+    private final int[] args;
+    /** String pool. */
+    private final String[] strings;
+    /** Character content. */
+    private final char[] chars;
+
+    private SAXEventBuffer(final byte[] events, final int[] args, final String[] strings, final char[] chars) {
+        this.events = events;
+        this.args = args;
+        this.strings = strings;
+        this.chars = chars;
+    }
+
+    /**
+     * Test if buffer contains any events.
+     *
+     * @return {@code true} if buffer is empty, otherwise {@code false}
+     */
+    public boolean isEmpty() {
+        return events.length == 0;
+    }
+
+    /**
+     * Get attributes of the first element in the buffer.
+     *
+     * @return attributes of the first element, {@code null} if the buffer contains no elements
+     */
+    public Attributes getFirstElementAttributes() {
+        int a = 0;
+        for (final byte event: events) {
+            switch (event) {
+            case START_ELEMENT:
+                final AttributesImpl atts = new AttributesImpl();
+                readAttributes(a + 3, atts);
+                return atts;
+            case END_ELEMENT:
+                a += 3;
+                break;
+            case CHARACTERS:
+            case PROCESSING_INSTRUCTION:
+            case IGNORABLE_WHITESPACE:
+            case START_PREFIX_MAPPING:
+                a += 2;
+                break;
+            case END_PREFIX_MAPPING:
+                a += 1;
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replay buffered events.
+     *
+     * @param handler content handler to receive events
+     * @throws SAXException if the content handler threw an exception
+     */
+    public void replay(final ContentHandler handler) throws SAXException {
+        final AttributesImpl atts = new AttributesImpl();
+        int a = 0;
+        for (final byte event: events) {
+            switch (event) {
+            case START_ELEMENT:
+                atts.clear();
+                final int end = readAttributes(a + 3, atts);
+                handler.startElement(strings[args[a]], strings[args[a + 1]], strings[args[a + 2]], atts);
+                a = end;
+                break;
+            case END_ELEMENT:
+                handler.endElement(strings[args[a]], strings[args[a + 1]], strings[args[a + 2]]);
+                a += 3;
+                break;
+            case CHARACTERS:
+                handler.characters(chars, args[a], args[a + 1]);
+                a += 2;
+                break;
+            case PROCESSING_INSTRUCTION:
+                handler.processingInstruction(strings[args[a]], strings[args[a + 1]]);
+                a += 2;
+                break;
+            case IGNORABLE_WHITESPACE:
+                handler.ignorableWhitespace(chars, args[a], args[a + 1]);
+                a += 2;
+                break;
+            case START_PREFIX_MAPPING:
+                handler.startPrefixMapping(strings[args[a]], strings[args[a + 1]]);
+                a += 2;
+                break;
+            case END_PREFIX_MAPPING:
+                handler.endPrefixMapping(strings[args[a]]);
+                a += 1;
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    /**
+     * Write buffer to a data output. The buffer can be read back with
+     * {@link #read(DataInput)}.
+     *
+     * @param out data output
+     * @throws IOException if writing failed
+     */
+    public void write(final DataOutput out) throws IOException {
+        out.writeInt(events.length);
+        out.write(events);
+        out.writeInt(args.length);
+        for (final int arg: args) {
+            out.writeInt(arg);
+        }
+        out.writeInt(strings.length);
+        for (final String string: strings) {
+            out.writeInt(string.length());
+            out.writeChars(string);
+        }
+        out.writeInt(chars.length);
+        for (final char c: chars) {
+            out.writeChar(c);
+        }
+    }
+
+    /**
+     * Read buffer written with {@link #write(DataOutput)}.
+     *
+     * @param in data input
+     * @return event buffer
+     * @throws IOException if reading failed
+     */
+    public static SAXEventBuffer read(final DataInput in) throws IOException {
+        final byte[] events = new byte[in.readInt()];
+        in.readFully(events);
+        final int[] args = new int[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = in.readInt();
+        }
+        final String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = new String(readChars(in, in.readInt()));
+        }
+        final char[] chars = readChars(in, in.readInt());
+        return new SAXEventBuffer(events, args, strings, chars);
+    }
+
+    private static char[] readChars(final DataInput in, final int length) throws IOException {
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = in.readChar();
+        }
+        return chars;
+    }
+
+    /**
+     * Read attributes of a start element event.
+     *
+     * @param a index of attribute count in arguments
+     * @param atts attributes to add to
+     * @return index of the next event's arguments
+     */
+    private int readAttributes(int a, final AttributesImpl atts) {
+        final int count = args[a++];
+        for (int i = 0; i < count; i++) {
+            atts.addAttribute(strings[args[a]], strings[args[a + 1]], strings[args[a + 2]],
+                              strings[args[a + 3]], strings[args[a + 4]]);
+            a += 5;
+        }
+        return a;
+    }
+
+    /**
+     * Builder for event buffers. Builders are not thread-safe.
+     */
+    public static final class Builder {
+
+        private byte[] events = new byte[64];
+        private int eventCount;
+        private int[] args = new int[256];
+        private int argCount;
+        private final List<String> strings = new ArrayList<String>();
+        private final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+        private char[] chars = new char[256];
+        private int charCount;
+
+        /**
+         * Record start element event.
+         *
+         * @param uri namespace URI
+         * @param localName local name
+         * @param qName qualified name
+         * @param atts attributes
+         * @return this builder
+         */
+        public Builder startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+            addEvent(START_ELEMENT);
+            addString(uri);
+            addString(localName);
+            addString(qName);
+            final int count = atts.getLength();
+            addArg(count);
+            for (int i = 0; i < count; i++) {
+                addString(atts.getURI(i));
+                addString(atts.getLocalName(i));
+                addString(atts.getQName(i));
+                addString(atts.getType(i));
+                addString(atts.getValue(i));
+            }
+            return this;
+        }
+
+        /**
+         * Record end element event.
+         *
+         * @param uri namespace URI
+         * @param localName local name
+         * @param qName qualified name
+         * @return this builder
+         */
+        public Builder endElement(final String uri, final String localName, final String qName) {
+            addEvent(END_ELEMENT);
+            addString(uri);
+            addString(localName);
+            addString(qName);
+            return this;
+        }
+
+        /**
+         * Record character content event.
+         *
+         * @param ch characters
+         * @param start start offset
+         * @param length number of characters
+         * @return this builder
+         */
+        public Builder characters(final char[] ch, final int start, final int length) {
+            addEvent(CHARACTERS);
+            addChars(ch, start, length);
+            return this;
+        }
+
+        /**
+         * Record ignorable whitespace event.
+         *
+         * @param ch characters
+         * @param start start offset
+         * @param length number of characters
+         * @return this builder
+         */
+        public Builder ignorableWhitespace(final char[] ch, final int start, final int length) {
+            addEvent(IGNORABLE_WHITESPACE);
+            addChars(ch, start, length);
+            return this;
+        }
+
+        /**
+         * Record start of namespace prefix mapping event.
+         *
+         * @param prefix namespace prefix
+         * @param uri namespace URI
+         * @return this builder
+         */
+        public Builder startPrefixMapping(final String prefix, final String uri) {
+            addEvent(START_PREFIX_MAPPING);
+            addString(prefix);
+            addString(uri);
+            return this;
+        }
+
+        /**
+         * Record end of namespace prefix mapping event.
+         *
+         * @param prefix namespace prefix
+         * @return this builder
+         */
+        public Builder endPrefixMapping(final String prefix) {
+            addEvent(END_PREFIX_MAPPING);
+            addString(prefix);
+            return this;
+        }
+
+        /**
+         * Record processing instruction event.
+         *
+         * @param target processing instruction target
+         * @param data processing instruction data
+         * @return this builder
+         */
+        public Builder processingInstruction(final String target, final String data) {
+            addEvent(PROCESSING_INSTRUCTION);
+            addString(target);
+            addString(data);
+            return this;
+        }
+
+        /**
+         * Record all events in a buffer.
+         *
+         * @param buffer buffer to append
+         * @return this builder
+         */
+        public Builder append(final SAXEventBuffer buffer) {
+            final AttributesImpl atts = new AttributesImpl();
+            int a = 0;
+            for (final byte event: buffer.events) {
+                switch (event) {
+                case START_ELEMENT:
+                    atts.clear();
+                    final int end = buffer.readAttributes(a + 3, atts);
+                    startElement(buffer.strings[buffer.args[a]], buffer.strings[buffer.args[a + 1]],
+                                 buffer.strings[buffer.args[a + 2]], atts);
+                    a = end;
+                    break;
+                case END_ELEMENT:
+                    endElement(buffer.strings[buffer.args[a]], buffer.strings[buffer.args[a + 1]],
+                               buffer.strings[buffer.args[a + 2]]);
+                    a += 3;
+                    break;
+                case CHARACTERS:
+                    characters(buffer.chars, buffer.args[a], buffer.args[a + 1]);
+                    a += 2;
+                    break;
+                case PROCESSING_INSTRUCTION:
+                    processingInstruction(buffer.strings[buffer.args[a]], buffer.strings[buffer.args[a + 1]]);
+                    a += 2;
+                    break;
+                case IGNORABLE_WHITESPACE:
+                    ignorableWhitespace(buffer.chars, buffer.args[a], buffer.args[a + 1]);
+                    a += 2;
+                    break;
+                case START_PREFIX_MAPPING:
+                    startPrefixMapping(buffer.strings[buffer.args[a]], buffer.strings[buffer.args[a + 1]]);
+                    a += 2;
+                    break;
+                case END_PREFIX_MAPPING:
+                    endPrefixMapping(buffer.strings[buffer.args[a]]);
+                    a += 1;
+                    break;
+                default:
+                    throw new IllegalStateException();
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Test if no events have been recorded.
+         *
+         * @return {@code true} if builder is empty, otherwise {@code false}
+         */
+        public boolean isEmpty() {
+            return eventCount == 0;
+        }
+
+        /**
+         * Create immutable buffer of the recorded events.
+         *
+         * @return event buffer
+         */
+        public SAXEventBuffer build() {
+            return new SAXEventBuffer(Arrays.copyOf(events, eventCount),
+                                      Arrays.copyOf(args, argCount),
+                                      strings.toArray(new String[strings.size()]),
+                                      Arrays.copyOf(chars, charCount));
+        }
+
+        private void addEvent(final byte event) {
+            if (eventCount == events.length) {
+                events = Arrays.copyOf(events, events.length * 2);
+            }
+            events[eventCount++] = event;
+        }
+
+        private void addArg(final int arg) {
+            if (argCount == args.length) {
+                args = Arrays.copyOf(args, args.length * 2);
+            }
+            args[argCount++] = arg;
+        }
+
+        private void addChars(final char[] ch, final int start, final int length) {
+            if (charCount + length > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+            }
+            System.arraycopy(ch, start, chars, charCount, length);
+            addArg(charCount);
+            addArg(length);
+            charCount += length;
+        }
+
+        private void addString(final String value) {
+            final String s = value != null ? value : "";
+            Integer i = stringIndex.get(s);
+            if (i == null) {
+                i = strings.size();
+                strings.add(s);
+                stringIndex.put(s, i);
+            }
+            addArg(i);
+        }
+
+    }
+
+}
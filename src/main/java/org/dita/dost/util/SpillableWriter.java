@@ -0,0 +1,373 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Character buffer for serialized XML content that spills to a temporary file.
+ *
+ * <p>Content is kept in memory until it grows over a threshold, after which
+ * the beginning of the content is written to a UTF-8 encoded temporary file.
+ * Content starting from the last end tag is always kept in memory, so that
+ * other buffers can be inserted before the last end tag without reading the
+ * temporary file back. Buffers are combined and copied to their final
+ * destination with file channel transfers.</p>
+ *
+ * <p>The temporary file is deleted when the writer is closed. Not thread-safe.</p>
+ *
+ * @since 2.0
+ */
+public final class SpillableWriter extends Writer {
+
+    /** Default number of characters kept in memory before spilling. */
+    public static final int DEFAULT_THRESHOLD = 1 << 20;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File tempDir;
+    private final int threshold;
+    /** Content not yet written to the temporary file. */
+    private char[] buf = new char[256];
+    private int bufLen;
+    /** Number of characters written to the temporary file. */
+    private long spilledChars;
+    /** Number of bytes written to the temporary file. */
+    private long spilledBytes;
+    /** Last character written to the temporary file. */
+    private char spilledLast;
+    private File file;
+    private FileOutputStream fileOut;
+    private Writer fileWriter;
+    /** First character written. */
+    private char first;
+    /** Last character written. */
+    private char prev;
+    /** Character position of the last end tag, {@code -1} if none. */
+    private long lastEndTag = -1;
+    /** Byte position of the last end tag, valid only if the end tag has been spilled. */
+    private long lastEndTagByte = -1;
+    private boolean closed;
+
+    /**
+     * Create new writer with default threshold.
+     *
+     * @param tempDir directory for the temporary file, {@code null} for the system default
+     */
+    public SpillableWriter(final File tempDir) {
+        this(tempDir, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Create new writer.
+     *
+     * @param tempDir directory for the temporary file, {@code null} for the system default
+     * @param threshold number of characters kept in memory before spilling
+     */
+    public SpillableWriter(final File tempDir, final int threshold) {
+        this.tempDir = tempDir;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Get content length.
+     *
+     * @return number of characters written
+     */
+    public long length() {
+        return spilledChars + bufLen;
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return;
+        }
+        if (bufLen + len > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, bufLen + len));
+        }
+        if (length() == 0) {
+            first = cbuf[off];
+        }
+        for (int i = 0; i < len; i++) {
+            final char c = cbuf[off + i];
+            if (prev == '<' && c == '/') {
+                lastEndTag = length() + i - 1;
+                if (lastEndTag < spilledChars) {
+                    lastEndTagByte = spilledBytes - 1;
+                }
+            }
+            prev = c;
+        }
+        System.arraycopy(cbuf, off, buf, bufLen, len);
+        bufLen += len;
+        if (bufLen > threshold) {
+            spill(false);
+        }
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        write(str.toCharArray(), off, len);
+    }
+
+    /**
+     * Append the content of another buffer.
+     *
+     * @param content buffer to append
+     * @throws IOException if reading or writing the temporary files failed
+     */
+    public void append(final SpillableWriter content) throws IOException {
+        ensureOpen();
+        if (content.file == null) {
+            write(content.buf, 0, content.bufLen);
+            return;
+        }
+        spill(true);
+        fileWriter.flush();
+        final long charsBefore = spilledChars;
+        final long bytesBefore = spilledBytes;
+        if (prev == '<' && content.first == '/') {
+            lastEndTag = charsBefore - 1;
+            lastEndTagByte = bytesBefore - 1;
+        }
+        spilledBytes += content.transferFile(fileOut.getChannel());
+        spilledChars += content.spilledChars;
+        spilledLast = content.spilledLast;
+        if (content.lastEndTag >= 0 && content.lastEndTag < content.spilledChars) {
+            lastEndTag = charsBefore + content.lastEndTag;
+            lastEndTagByte = bytesBefore + content.lastEndTagByte;
+        }
+        prev = content.spilledLast;
+        write(content.buf, 0, content.bufLen);
+    }
+
+    /**
+     * Insert the content of another buffer before the last end tag.
+     *
+     * @param content buffer to insert
+     * @return {@code true} if content was inserted, {@code false} if there is no complete end tag
+     * @throws IOException if reading or writing the temporary files failed
+     */
+    public boolean insertBeforeLastEndTag(final SpillableWriter content) throws IOException {
+        ensureOpen();
+        if (lastEndTag < 0) {
+            return false;
+        }
+        if (lastEndTag < spilledChars) {
+            unspill();
+        }
+        final int pos = (int) (lastEndTag - spilledChars);
+        boolean complete = false;
+        for (int i = pos; i < bufLen; i++) {
+            if (buf[i] == '>') {
+                complete = true;
+                break;
+            }
+        }
+        if (!complete) {
+            return false;
+        }
+        final char[] tail = Arrays.copyOfRange(buf, pos, bufLen);
+        bufLen = pos;
+        prev = pos > 0 ? buf[pos - 1] : spilledLast;
+        lastEndTag = -1;
+        append(content);
+        write(tail, 0, tail.length);
+        return true;
+    }
+
+    /**
+     * Write content as UTF-8 to a channel.
+     *
+     * @param out channel to write to
+     * @throws IOException if reading the temporary file or writing to the channel failed
+     */
+    public void copyTo(final WritableByteChannel out) throws IOException {
+        ensureOpen();
+        transferFile(out);
+        final ByteBuffer bytes = UTF_8.encode(CharBuffer.wrap(buf, 0, bufLen));
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileWriter != null) {
+            fileWriter.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buf = null;
+        if (fileWriter != null) {
+            try {
+                fileWriter.close();
+            } finally {
+                if (!file.delete() && file.exists()) {
+                    file.deleteOnExit();
+                }
+            }
+        }
+    }
+
+    // Private methods
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+    }
+
+    /**
+     * Write the beginning of the in-memory content to the temporary file.
+     *
+     * @param all {@code true} to write all content, {@code false} to keep content starting from the last end tag
+     */
+    private void spill(final boolean all) throws IOException {
+        int end;
+        if (all) {
+            end = bufLen;
+        } else {
+            if (lastEndTag >= spilledChars) {
+                end = (int) (lastEndTag - spilledChars);
+            } else {
+                end = bufLen;
+                // keep possible start of an end tag
+                if (end > 0 && buf[end - 1] == '<') {
+                    end--;
+                }
+            }
+            if (end > 0 && Character.isHighSurrogate(buf[end - 1])) {
+                end--;
+            }
+        }
+        if (end == 0) {
+            return;
+        }
+        if (fileWriter == null) {
+            file = File.createTempFile("spill", ".tmp", tempDir);
+            fileOut = new FileOutputStream(file);
+            fileWriter = new BufferedWriter(new OutputStreamWriter(fileOut, UTF_8));
+        }
+        if (lastEndTag >= spilledChars && lastEndTag < spilledChars + end) {
+            lastEndTagByte = spilledBytes + utf8Length(buf, 0, (int) (lastEndTag - spilledChars));
+        }
+        fileWriter.write(buf, 0, end);
+        spilledBytes += utf8Length(buf, 0, end);
+        spilledChars += end;
+        spilledLast = buf[end - 1];
+        System.arraycopy(buf, end, buf, 0, bufLen - end);
+        bufLen -= end;
+    }
+
+    /**
+     * Move content starting from the last end tag from the temporary file back to memory.
+     */
+    private void unspill() throws IOException {
+        fileWriter.flush();
+        final FileChannel out = fileOut.getChannel();
+        final ByteBuffer bytes = ByteBuffer.allocate((int) (spilledBytes - lastEndTagByte));
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            final FileChannel channel = in.getChannel();
+            long position = lastEndTagByte;
+            while (bytes.hasRemaining()) {
+                final int count = channel.read(bytes, position);
+                if (count < 0) {
+                    throw new IOException("Unexpected end of file " + file.getAbsolutePath());
+                }
+                position += count;
+            }
+        } finally {
+            in.close();
+        }
+        bytes.flip();
+        final CharBuffer chars = UTF_8.decode(bytes);
+        out.truncate(lastEndTagByte);
+        out.position(lastEndTagByte);
+        final char[] b = new char[Math.max(buf.length, chars.remaining() + bufLen)];
+        final int count = chars.remaining();
+        chars.get(b, 0, count);
+        System.arraycopy(buf, 0, b, count, bufLen);
+        buf = b;
+        bufLen += count;
+        spilledChars = lastEndTag;
+        spilledBytes = lastEndTagByte;
+        spilledLast = 0;
+    }
+
+    /**
+     * Transfer the temporary file to a channel.
+     *
+     * @return number of bytes transferred
+     */
+    private long transferFile(final WritableByteChannel out) throws IOException {
+        if (fileWriter == null) {
+            return 0;
+        }
+        fileWriter.flush();
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            final FileChannel channel = in.getChannel();
+            final long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                final long count = channel.transferTo(position, size - position, out);
+                if (count <= 0) {
+                    throw new IOException("Failed to copy " + file.getAbsolutePath());
+                }
+                position += count;
+            }
+            return size;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Get UTF-8 encoded length of characters. Unpaired surrogates are counted
+     * as one byte because the encoder replaces them with a question mark.
+     */
+    private static long utf8Length(final char[] chars, final int off, final int len) {
+        long count = 0;
+        final int end = off + len;
+        for (int i = off; i < end; i++) {
+            final char c = chars[i];
+            if (c < 0x80) {
+                count++;
+            } else if (c < 0x800) {
+                count += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                count += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                count++;
+            } else {
+                count += 3;
+            }
+        }
+        return count;
+    }
+
+}
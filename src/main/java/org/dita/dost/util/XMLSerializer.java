@@ -67,7 +67,7 @@ public class XMLSerializer {
     }
 
     private TransformerHandler initializeTransformerHandler() throws TransformerFactoryConfigurationError {
-        final TransformerFactory tf = TransformerFactory.newInstance();
+        final TransformerFactory tf = XMLUtils.getTransformerFactory();
         if (tf.getFeature(SAXTransformerFactory.FEATURE)) {
             final SAXTransformerFactory stf = (SAXTransformerFactory) tf;
             try {
@@ -16,7 +16,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -170,9 +173,12 @@ public final class XMLUtils {
         
         InputStream in = null;
         OutputStream out = null;
+        Transformer transformer = null;
+        XMLReader parser = null;
         try {
-            final Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            XMLReader reader = getXMLReader();
+            transformer = borrowTransformer();
+            parser = borrowXMLReader();
+            XMLReader reader = parser;
             for (final XMLFilter filter : filters) {
                 // ContentHandler must be reset so e.g. Saxon 9.1 will reassign ContentHandler
                 // when reusing filter with multiple Transformers.
@@ -191,6 +197,8 @@ public final class XMLUtils {
         } catch (final Exception e) {
             throw new DITAOTException("Failed to transform " + inputFile + ": " + e.getMessage(), e);
         } finally {
+            releaseTransformer(transformer);
+            releaseXMLReader(parser);
             if (in != null) {
                 try {
                     in.close();
@@ -258,6 +266,63 @@ public final class XMLUtils {
         return escaped.toString();
     }
 
+    // Factory and pool layer
+
+    private static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+    /** Maximum number of idle pooled instances per type and thread. */
+    private static final int MAX_POOL_SIZE = 4;
+    /** Cached DOM parser factories. Factories are not thread-safe, so one is kept per thread. */
+    private static final ThreadLocal<DocumentBuilderFactory> documentBuilderFactory = new ThreadLocal<DocumentBuilderFactory>() {
+        @Override
+        protected DocumentBuilderFactory initialValue() {
+            return DocumentBuilderFactory.newInstance();
+        }
+    };
+    /** Cached transformer factories. Factories are not thread-safe, so one is kept per thread. */
+    private static final ThreadLocal<TransformerFactory> transformerFactory = new ThreadLocal<TransformerFactory>() {
+        @Override
+        protected TransformerFactory initialValue() {
+            return TransformerFactory.newInstance();
+        }
+    };
+    private static final ThreadLocal<Deque<XMLReader>> xmlReaderPool = new ThreadLocal<Deque<XMLReader>>() {
+        @Override
+        protected Deque<XMLReader> initialValue() {
+            return new ArrayDeque<XMLReader>();
+        }
+    };
+    private static final ThreadLocal<Deque<DocumentBuilder>> documentBuilderPool = new ThreadLocal<Deque<DocumentBuilder>>() {
+        @Override
+        protected Deque<DocumentBuilder> initialValue() {
+            return new ArrayDeque<DocumentBuilder>();
+        }
+    };
+    private static final ThreadLocal<Deque<Transformer>> transformerPool = new ThreadLocal<Deque<Transformer>>() {
+        @Override
+        protected Deque<Transformer> initialValue() {
+            return new ArrayDeque<Transformer>();
+        }
+    };
+    private static final PoolStatistics statistics = new PoolStatistics();
+
+    /** Lazy holder for preferred SAX driver class name. */
+    private static final class SAXDriver {
+        /** Preferred SAX driver class name, {@code null} if none of the preferred drivers is available. */
+        static final String className = findSAXDriver();
+
+        private static String findSAXDriver() {
+            for (final String driver: new String[] { SAX_DRIVER_DEFAULT_CLASS, SAX_DRIVER_SUN_HACK_CLASS, SAX_DRIVER_CRIMSON_CLASS }) {
+                try {
+                    Class.forName(driver);
+                    return driver;
+                } catch (final ClassNotFoundException e) {
+                    // try next
+                }
+            }
+            return null;
+        }
+    }
+
     /**
      * Get preferred SAX parser.
      *
@@ -269,29 +334,21 @@ public final class XMLUtils {
      *   <li>{@link Constants#SAX_DRIVER_CRIMSON_CLASS Crimson}</li>
      * </ol>
      *
+     * The available driver is looked up only once.
+     *
      * @return XML parser instance.
      * @throws org.xml.sax.SAXException if instantiating XMLReader failed
      */
     public static XMLReader getXMLReader() throws SAXException {
-        XMLReader reader;
+        statistics.xmlReadersCreated.incrementAndGet();
         if (System.getProperty(SAX_DRIVER_PROPERTY) != null) {
             return XMLReaderFactory.createXMLReader();
         }
-        try {
-            Class.forName(SAX_DRIVER_DEFAULT_CLASS);
-            reader = XMLReaderFactory.createXMLReader(SAX_DRIVER_DEFAULT_CLASS);
-        } catch (final ClassNotFoundException e) {
-            try {
-                Class.forName(SAX_DRIVER_SUN_HACK_CLASS);
-                reader = XMLReaderFactory.createXMLReader(SAX_DRIVER_SUN_HACK_CLASS);
-            } catch (final ClassNotFoundException ex) {
-                try {
-                    Class.forName(SAX_DRIVER_CRIMSON_CLASS);
-                    reader = XMLReaderFactory.createXMLReader(SAX_DRIVER_CRIMSON_CLASS);
-                } catch (final ClassNotFoundException exc){
-                    reader = XMLReaderFactory.createXMLReader();
-                }
-            }
+        XMLReader reader;
+        if (SAXDriver.className != null) {
+            reader = XMLReaderFactory.createXMLReader(SAXDriver.className);
+        } else {
+            reader = XMLReaderFactory.createXMLReader();
         }
         if (Configuration.DEBUG) {
             reader = new DebugXMLReader(reader);
@@ -306,10 +363,10 @@ public final class XMLUtils {
      * @throws RuntimeException if instantiating DocumentBuilder failed
      */
     public static DocumentBuilder getDocumentBuilder() {
-        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        statistics.documentBuildersCreated.incrementAndGet();
         DocumentBuilder builder;
         try {
-            builder = factory.newDocumentBuilder();
+            builder = documentBuilderFactory.get().newDocumentBuilder();
         } catch (final ParserConfigurationException e) {
             throw new RuntimeException(e);
         }
@@ -319,6 +376,197 @@ public final class XMLUtils {
         return builder;
     }
 
+    /**
+     * Get cached transformer factory for the current thread. The returned factory
+     * must not be shared with other threads or reconfigured.
+     *
+     * @return transformer factory
+     */
+    public static TransformerFactory getTransformerFactory() {
+        return transformerFactory.get();
+    }
+
+    /**
+     * Borrow SAX parser from the pool of the current thread. The parser must be
+     * returned with {@link #releaseXMLReader(XMLReader)} when it is no longer used.
+     * Parser features and properties must not be changed.
+     *
+     * @return XML parser instance
+     * @throws SAXException if instantiating XMLReader failed
+     */
+    public static XMLReader borrowXMLReader() throws SAXException {
+        final XMLReader reader = xmlReaderPool.get().pollFirst();
+        if (reader != null) {
+            statistics.xmlReadersReused.incrementAndGet();
+            return reader;
+        }
+        return getXMLReader();
+    }
+
+    /**
+     * Return SAX parser to the pool of the current thread. Handlers of the parser are reset.
+     *
+     * @param reader parser borrowed with {@link #borrowXMLReader()}, may be {@code null}
+     */
+    public static void releaseXMLReader(final XMLReader reader) {
+        if (reader == null) {
+            return;
+        }
+        final Deque<XMLReader> pool = xmlReaderPool.get();
+        if (pool.size() >= MAX_POOL_SIZE) {
+            return;
+        }
+        reader.setContentHandler(null);
+        reader.setDTDHandler(null);
+        reader.setEntityResolver(null);
+        reader.setErrorHandler(null);
+        try {
+            reader.setProperty(LEXICAL_HANDLER_PROPERTY, null);
+        } catch (final SAXException e) {
+            // lexical handler may still be set, do not reuse
+            return;
+        }
+        pool.addFirst(reader);
+    }
+
+    /**
+     * Borrow DOM parser from the pool of the current thread. The parser must be
+     * returned with {@link #releaseDocumentBuilder(DocumentBuilder)} when it is no longer used.
+     *
+     * @return DOM document builder instance
+     * @throws RuntimeException if instantiating DocumentBuilder failed
+     */
+    public static DocumentBuilder borrowDocumentBuilder() {
+        final DocumentBuilder builder = documentBuilderPool.get().pollFirst();
+        if (builder != null) {
+            statistics.documentBuildersReused.incrementAndGet();
+            return builder;
+        }
+        return getDocumentBuilder();
+    }
+
+    /**
+     * Return DOM parser to the pool of the current thread. The parser is reset.
+     *
+     * @param builder parser borrowed with {@link #borrowDocumentBuilder()}, may be {@code null}
+     */
+    public static void releaseDocumentBuilder(final DocumentBuilder builder) {
+        if (builder == null) {
+            return;
+        }
+        final Deque<DocumentBuilder> pool = documentBuilderPool.get();
+        if (pool.size() >= MAX_POOL_SIZE) {
+            return;
+        }
+        try {
+            builder.reset();
+        } catch (final UnsupportedOperationException e) {
+            return;
+        }
+        pool.addFirst(builder);
+    }
+
+    /**
+     * Borrow identity transformer from the pool of the current thread. The transformer
+     * must be returned with {@link #releaseTransformer(Transformer)} when it is no longer used.
+     *
+     * @return identity transformer
+     * @throws TransformerConfigurationException if instantiating Transformer failed
+     */
+    public static Transformer borrowTransformer() throws TransformerConfigurationException {
+        final Transformer transformer = transformerPool.get().pollFirst();
+        if (transformer != null) {
+            statistics.transformersReused.incrementAndGet();
+            return transformer;
+        }
+        statistics.transformersCreated.incrementAndGet();
+        return getTransformerFactory().newTransformer();
+    }
+
+    /**
+     * Return identity transformer to the pool of the current thread. Output properties,
+     * parameters, URI resolver and error listener of the transformer are reset.
+     *
+     * @param transformer transformer borrowed with {@link #borrowTransformer()}, may be {@code null}
+     */
+    public static void releaseTransformer(final Transformer transformer) {
+        if (transformer == null) {
+            return;
+        }
+        final Deque<Transformer> pool = transformerPool.get();
+        if (pool.size() >= MAX_POOL_SIZE) {
+            return;
+        }
+        try {
+            transformer.reset();
+        } catch (final UnsupportedOperationException e) {
+            return;
+        }
+        pool.addFirst(transformer);
+    }
+
+    /**
+     * Get parser and transformer pool statistics.
+     *
+     * @return statistics for all threads since start
+     */
+    public static PoolStatistics getPoolStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Parser and transformer instance counters. Thread-safe.
+     *
+     * @since 2.0
+     */
+    public static final class PoolStatistics {
+        final AtomicLong xmlReadersCreated = new AtomicLong();
+        final AtomicLong xmlReadersReused = new AtomicLong();
+        final AtomicLong documentBuildersCreated = new AtomicLong();
+        final AtomicLong documentBuildersReused = new AtomicLong();
+        final AtomicLong transformersCreated = new AtomicLong();
+        final AtomicLong transformersReused = new AtomicLong();
+
+        private PoolStatistics() {}
+
+        /** @return number of created SAX parsers */
+        public long getXMLReadersCreated() {
+            return xmlReadersCreated.get();
+        }
+
+        /** @return number of SAX parsers reused from a pool */
+        public long getXMLReadersReused() {
+            return xmlReadersReused.get();
+        }
+
+        /** @return number of created DOM parsers */
+        public long getDocumentBuildersCreated() {
+            return documentBuildersCreated.get();
+        }
+
+        /** @return number of DOM parsers reused from a pool */
+        public long getDocumentBuildersReused() {
+            return documentBuildersReused.get();
+        }
+
+        /** @return number of created identity transformers */
+        public long getTransformersCreated() {
+            return transformersCreated.get();
+        }
+
+        /** @return number of identity transformers reused from a pool */
+        public long getTransformersReused() {
+            return transformersReused.get();
+        }
+
+        @Override
+        public String toString() {
+            return "SAX parsers created " + xmlReadersCreated + ", reused " + xmlReadersReused
+                    + "; DOM parsers created " + documentBuildersCreated + ", reused " + documentBuildersReused
+                    + "; transformers created " + transformersCreated + ", reused " + transformersReused;
+        }
+    }
+
     /**
      * Convenience builder for {@link org.xml.sax.Attributes SAX Attributes}.
      */
@@ -6,7 +6,6 @@ import java.io.IOException;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
@@ -28,8 +27,9 @@ public abstract class AbstractDomFilter implements AbstractReader {
     @Override
     public void read(final File filename) {
         Document doc = null;
+        DocumentBuilder builder = null;
         try {
-            final DocumentBuilder builder = XMLUtils.getDocumentBuilder();
+            builder = XMLUtils.borrowDocumentBuilder();
             builder.setErrorHandler(new DITAOTXMLErrorHandler(filename.getPath(), logger));
             doc = builder.parse(filename);
         } catch (final RuntimeException e) {
@@ -37,23 +37,27 @@ public abstract class AbstractDomFilter implements AbstractReader {
         } catch (final Exception e) {
             logger.error("Failed to parse " + filename.getAbsolutePath() + ":" + e.getMessage(), e);
             return;
+        } finally {
+            XMLUtils.releaseDocumentBuilder(builder);
         }
 
         final Document resDoc = process(doc);
 
         if (resDoc != null) {
             FileOutputStream file = null;
+            Transformer tf = null;
             try {
                 file = new FileOutputStream(filename);
                 final StreamResult res = new StreamResult(file);
                 final DOMSource ds = new DOMSource(resDoc);
-                final Transformer tf = TransformerFactory.newInstance().newTransformer();
+                tf = XMLUtils.borrowTransformer();
                 tf.transform(ds, res);
             } catch (final RuntimeException e) {
                 throw e;
             } catch (final Exception e) {
                 logger.error("Failed to serialize " + filename.getAbsolutePath() + ": " + e.getMessage(), e);
             } finally {
+                XMLUtils.releaseTransformer(tf);
                 if (file != null) {
                     try {
                         file.close();
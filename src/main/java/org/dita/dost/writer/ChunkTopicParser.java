@@ -10,6 +10,7 @@ package org.dita.dost.writer;
 
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.MessageUtils;
+import org.dita.dost.util.SpillableWriter;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -60,7 +61,7 @@ public final class ChunkTopicParser extends AbstractChunkTopicParser {
         // pass map's directory path
         filePath = filename;
         try {
-            output = new StringWriter();
+            output = newBuffer();
             processChunk(rootTopicref, null);
             if (!copyto.isEmpty()) {
                 updateList();
@@ -132,7 +133,7 @@ public final class ChunkTopicParser extends AbstractChunkTopicParser {
                     // after processing is finished
                     tempWriter = output;
                     tempTopicID = topicID;
-                    output = new StringWriter();
+                    output = newBuffer();
                     topicID = new HashSet<String>();
                     if (MAP_MAP.matches(classValue)) {
                         // Very special case, we have a map element with
@@ -251,8 +252,8 @@ public final class ChunkTopicParser extends AbstractChunkTopicParser {
                 // if current element has child nodes and chunk results for
                 // this element has value
                 // which means current element makes sense for chunk action.
-                final StringWriter tempOutput = (StringWriter) output;
-                output = new StringWriter();
+                final SpillableWriter tempOutput = (SpillableWriter) output;
+                output = newBuffer();
                 final NodeList children = topicref.getChildNodes();
                 for (int i = 0; i < children.getLength(); i++) {
                     final Node current = children.item(i);
@@ -262,28 +263,35 @@ public final class ChunkTopicParser extends AbstractChunkTopicParser {
                 }
 
                 // merge results
-                final StringBuffer parentResult = tempOutput.getBuffer();
-                final CharSequence tmpContent = ((StringWriter) output).getBuffer();
-                // Skip empty parents and @processing-role='resource-only' entries.
-                // append into root topic
-                if (parentResult.length() > 0
-                        && parseFilePath != null
-                        && !ATTR_PROCESSING_ROLE_VALUE_RESOURCE_ONLY.equals(processRoleValue)) {
-                    insertAfter(hrefValue, parentResult, tmpContent);
-                // replace contents
-                } else {
-                    parentResult.append(tmpContent);
+                final SpillableWriter tmpContent = (SpillableWriter) output;
+                try {
+                    // Skip empty parents and @processing-role='resource-only' entries.
+                    // append into root topic
+                    if (tempOutput.length() > 0
+                            && parseFilePath != null
+                            && !ATTR_PROCESSING_ROLE_VALUE_RESOURCE_ONLY.equals(processRoleValue)) {
+                        insertAfter(hrefValue, tempOutput, tmpContent);
+                    // replace contents
+                    } else {
+                        tempOutput.append(tmpContent);
+                    }
+                } finally {
+                    tmpContent.close();
+                    // restore back to parent's output this is a different temp
+                    output = tempOutput;
                 }
-                // restore back to parent's output this is a different temp
-                output = tempOutput;
             }
 
             if (chunkValue.contains(CHUNK_TO_CONTENT)) {
-                final String tmpContent = ((StringWriter) output).toString();
-                writeToContentChunk(tmpContent, outputFileName, needWriteDitaTag);
-                // restore back original output
-                output = tempWriter;
-                topicID = tempTopicID;
+                final SpillableWriter tmpContent = (SpillableWriter) output;
+                try {
+                    writeToContentChunk(tmpContent, outputFileName, needWriteDitaTag);
+                } finally {
+                    tmpContent.close();
+                    // restore back original output
+                    output = tempWriter;
+                    topicID = tempTopicID;
+                }
             }
         } catch (final RuntimeException e) {
             throw e;
@@ -292,33 +300,38 @@ public final class ChunkTopicParser extends AbstractChunkTopicParser {
         }
     }
 
+    /**
+     * Create chunk content buffer.
+     */
+    private SpillableWriter newBuffer() {
+        return new SpillableWriter(job != null ? job.tempDir : null);
+    }
+
     /**
      * Append XML content into root element
      *
+     * <p>Content is inserted before the last end tag. The buffer never
+     * contains the {@code dita} end tag, because it is not written into
+     * chunk content.</p>
+     *
      * @param hrefValue href of the topicref
      * @param parentResult XML content to insert into
      * @param tmpContent XML content to insert
      */
-    private void insertAfter(String hrefValue, StringBuffer parentResult, CharSequence tmpContent) {
-        int insertpoint = parentResult.lastIndexOf("</");
-        final int end = parentResult.indexOf(">", insertpoint);
-
-        if (insertpoint == -1 || end == -1) {
+    private void insertAfter(final String hrefValue, final SpillableWriter parentResult, final SpillableWriter tmpContent) throws IOException {
+        if (!parentResult.insertBeforeLastEndTag(tmpContent)) {
             logger.error(MessageUtils.getInstance().getMessage("DOTJ033E", hrefValue).toString());
-        } else {
-            if (ELEMENT_NAME_DITA.equals(parentResult.substring(insertpoint, end).trim())) {
-                insertpoint = parentResult.lastIndexOf("</", insertpoint - 1);
-            }
-            parentResult.insert(insertpoint, tmpContent);
         }
     }
 
     // flush the buffer to file after processing is finished
-    private void writeToContentChunk(final String tmpContent, final File outputFileName, final boolean needWriteDitaTag) throws IOException {
+    private void writeToContentChunk(final SpillableWriter tmpContent, final File outputFileName, final boolean needWriteDitaTag) throws IOException {
         logger.info("Writing " + outputFileName);
-        OutputStreamWriter ditaFileOutput = null;
+        FileOutputStream out = null;
+        Writer ditaFileOutput = null;
         try {
-            ditaFileOutput = new OutputStreamWriter(new FileOutputStream(outputFileName), UTF8);
+            out = new FileOutputStream(outputFileName);
+            ditaFileOutput = new BufferedWriter(new OutputStreamWriter(out, UTF8));
             if (outputFileName.getPath().equals(changeTable.get(outputFileName.getPath()))) {
                 // if the output file is newly generated file
                 // write the xml header and workdir PI into new file
@@ -348,7 +361,8 @@ public final class ChunkTopicParser extends AbstractChunkTopicParser {
                 writeStartElement(ditaFileOutput, ELEMENT_NAME_DITA, atts);
             }
             // write the final result to the output file
-            ditaFileOutput.write(tmpContent);
+            ditaFileOutput.flush();
+            tmpContent.copyTo(out.getChannel());
             if (needWriteDitaTag) {
                 writeEndElement(ditaFileOutput, ELEMENT_NAME_DITA);
             }
@@ -356,6 +370,8 @@ public final class ChunkTopicParser extends AbstractChunkTopicParser {
         } finally {
             if (ditaFileOutput != null) {
                 ditaFileOutput.close();
+            } else if (out != null) {
+                out.close();
             }
         }
     }
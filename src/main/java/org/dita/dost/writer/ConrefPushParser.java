@@ -9,41 +9,40 @@
 package org.dita.dost.writer;
 
 import static org.apache.commons.io.FilenameUtils.*;
-import static javax.xml.XMLConstants.*;
 import static org.dita.dost.util.Constants.*;
 import static org.dita.dost.reader.ConrefPushReader.*;
 import static org.dita.dost.util.URLUtils.*;
 
 import org.dita.dost.util.Job.FileInfo;
-import org.dita.dost.util.XMLUtils.*;
 
 import java.io.File;
 import java.net.URI;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
+import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.MessageUtils;
 import org.dita.dost.util.DitaClass;
-import org.w3c.dom.Attr;
-import org.w3c.dom.DocumentFragment;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.dita.dost.util.SAXEventBuffer;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * This class is for writing conref push contents into
  * specific files.
+ * 
+ * <p>Push content is replayed from shared immutable event buffers, so separate
+ * parser instances can write different target files concurrently. The job
+ * configuration is updated but not written to disk.</p>
  */
 public final class ConrefPushParser extends AbstractXMLFilter {
 
     /**table containing conref push contents.*/
-    private Hashtable<MoveKey, DocumentFragment> movetable = null;
+    private Map<MoveKey, SAXEventBuffer> movetable = null;
 
     /**topicId keep the current topic id value.*/
     private String topicId = null;
@@ -98,7 +97,7 @@ public final class ConrefPushParser extends AbstractXMLFilter {
 	to "pushafter" action because we don't know the value of id when processing the
 	end tag of an element. That's why we need to store the content for push after
 	into variable in startElement(...)*/
-    private DocumentFragment contentForPushAfter = null;
+    private SAXEventBuffer contentForPushAfter = null;
 
     /**contentForPushAfterStack is used to store the history value of contentForPushAfter
 	It is possible that we have pushafter action for both parent and child element.
@@ -106,7 +105,11 @@ public final class ConrefPushParser extends AbstractXMLFilter {
 	before getting value contentForPushAfter for child element from movetable. When we
 	finished pushafter action for child element, we need to restore the original value for
 	parent. */
-    private Stack<DocumentFragment> contentForPushAfterStack = null;
+    private Stack<SAXEventBuffer> contentForPushAfterStack = null;
+    /**class of the element contentForPushAfter is pushed after.*/
+    private DitaClass contentForPushAfterClass = null;
+    /**contentForPushAfterClassStack stores history values of contentForPushAfterClass.*/
+    private Stack<DitaClass> contentForPushAfterClassStack = null;
 
     /**if the pushcontent has @conref, it should be paid attention to it. Because the current
 	file may not contain any @conref attribute, it will not resolved by the conref.xsl,
@@ -123,11 +126,17 @@ public final class ConrefPushParser extends AbstractXMLFilter {
     public ConrefPushParser() {
         topicSpecSet = new HashSet<String>();
         levelForPushAfterStack = new Stack<Integer>();
-        contentForPushAfterStack = new Stack<DocumentFragment>();
+        contentForPushAfterStack = new Stack<SAXEventBuffer>();
+        contentForPushAfterClassStack = new Stack<DitaClass>();
     }
 
-    public void setMoveTable(final Hashtable<MoveKey, DocumentFragment> movetable) {
-        this.movetable = movetable;
+    /**
+     * Set push content for the file. The table is copied and not modified.
+     * 
+     * @param movetable push content by target
+     */
+    public void setMoveTable(final Map<MoveKey, SAXEventBuffer> movetable) {
+        this.movetable = new HashMap<MoveKey, SAXEventBuffer>(movetable);
     }
     
     /**
@@ -152,7 +161,8 @@ public final class ConrefPushParser extends AbstractXMLFilter {
         idStack = new Stack<String>();
         topicSpecSet = new HashSet<String>();
         levelForPushAfterStack = new Stack<Integer>();
-        contentForPushAfterStack = new Stack<DocumentFragment>();
+        contentForPushAfterStack = new Stack<SAXEventBuffer>();
+        contentForPushAfterClassStack = new Stack<DitaClass>();
 
         super.write(filename);
 
@@ -164,7 +174,7 @@ public final class ConrefPushParser extends AbstractXMLFilter {
         }
     }
     /**
-     * Update conref list in job configuration and in conref list file.
+     * Update conref list in job configuration.
      * 
      * @param filename filename
      */
@@ -178,7 +188,6 @@ public final class ConrefPushParser extends AbstractXMLFilter {
             if (hasKeyref) {
                 f.hasKeyref = true;
             }
-            job.write();
         } catch (final Exception e) {
             logger.error(e.getMessage(), e) ;
         }
@@ -227,7 +236,7 @@ public final class ConrefPushParser extends AbstractXMLFilter {
                 //write the pushcontent after the end tag
                 try {
                     if (contentForPushAfter != null) {
-                        writeNode(contentForPushAfter);
+                        writeNode(contentForPushAfterClass, contentForPushAfter);
                     }
                 } catch (final Exception e) {
                     logger.error(e.getMessage(), e) ;
@@ -236,6 +245,7 @@ public final class ConrefPushParser extends AbstractXMLFilter {
                         !contentForPushAfterStack.isEmpty()) {
                     levelForPushAfter = levelForPushAfterStack.pop();
                     contentForPushAfter = contentForPushAfterStack.pop();
+                    contentForPushAfterClass = contentForPushAfterClassStack.pop();
                 } else {
                     hasPushafter = false;
                     //empty the contentForPushAfter since it is write to output
@@ -254,105 +264,18 @@ public final class ConrefPushParser extends AbstractXMLFilter {
      * @param content pushedContent
      * @return boolean: if type match, return true, else return false
      */
-    private boolean isPushedTypeMatch(final DitaClass targetClassAttribute, final DocumentFragment content) {
+    private boolean isPushedTypeMatch(final DitaClass targetClassAttribute, final SAXEventBuffer content) {
         DitaClass clazz = null;
-
-        if (content.hasChildNodes()) {
-            final NodeList nodeList = content.getChildNodes();
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                final Node node = nodeList.item(i);
-                if (node.getNodeType() == Node.ELEMENT_NODE) {
-                    final Element elem = (Element) node;
-                    clazz = new DitaClass(elem.getAttribute(ATTRIBUTE_NAME_CLASS));
-                    break;
-                    // get type of the target element
-                }
-            }
+        final Attributes atts = content.getFirstElementAttributes();
+        if (atts != null) {
+            // get type of the target element
+            final String cls = atts.getValue(ATTRIBUTE_NAME_CLASS);
+            clazz = new DitaClass(cls != null ? cls : "");
         }
 
         return targetClassAttribute.matches(clazz);
     }
 
-    /**
-     * 
-     * @param targetClassAttribute targetClassAttribute
-     * @param content string
-     * @return string
-     */
-    private DocumentFragment replaceElementName(final DitaClass targetClassAttribute, final DocumentFragment content) {        
-        try {
-            if (content.hasChildNodes()) {
-                final NodeList nodeList = content.getChildNodes();
-                for (int i = 0; i < nodeList.getLength(); i++) {
-                    final Node node = nodeList.item(i);
-                    if (node.getNodeType() == Node.ELEMENT_NODE) {
-                        final Element elem = (Element) node;
-                        final DitaClass clazz = DitaClass.getInstance(elem);
-                        // get type of the target element
-                        final String type = targetClassAttribute.toString().substring(1, targetClassAttribute.toString().indexOf("/")).trim();
-                        if (!clazz.equals(targetClassAttribute) && targetClassAttribute.matches(clazz)) {
-                            // Specializing the pushing content is not handled here
-                            // but we can catch such a situation to emit a warning by comparing the class values.
-                            final String targetElementName = targetClassAttribute.toString().substring(targetClassAttribute.toString().indexOf("/") + 1 ).trim();
-                            if (elem.getAttributeNode(ATTRIBUTE_NAME_CONREF) != null) {
-                                hasConref = true;
-                            }
-                            if (elem.getAttributeNode(ATTRIBUTE_NAME_KEYREF) != null) {
-                                hasKeyref = true;
-                            }
-                            elem.getOwnerDocument().renameNode(elem, elem.getNamespaceURI(), targetElementName);                            
-                            // process the child nodes of the current node
-                            final NodeList nList = elem.getChildNodes();
-                            for (int j = 0; j < nList.getLength(); j++) {
-                                final Node subNode = nList.item(j);
-                                if (subNode.getNodeType() == Node.ELEMENT_NODE) {
-                                    //replace the subElement Name
-                                    replaceSubElementName(type, (Element) subNode);
-                                }
-                            }
-                        } else {
-                            replaceSubElementName(STRING_BLANK, elem);
-                        }
-                    }
-                }
-            }
-        } catch (final Exception e) {
-            e.printStackTrace();
-        }
-        return content;
-    }
-    
-    /**
-     * 
-     * @param type pushtype
-     * @param elem element
-     * @return string
-     */
-    private void replaceSubElementName(final String type, final Element elem) {
-        final DitaClass classValue = DitaClass.getInstance(elem);
-        if (elem.getAttributeNode(ATTRIBUTE_NAME_CONREF) != null) {
-            hasConref = true;
-        }
-        if (elem.getAttributeNode(ATTRIBUTE_NAME_KEYREF) != null) {
-            hasKeyref = true;
-        }
-        String generalizedElemName = elem.getNodeName();
-        if (classValue != null) {
-            if (classValue.toString().contains(type) && !type.equals(STRING_BLANK)) {
-                generalizedElemName = classValue.toString().substring(classValue.toString().indexOf("/") + 1, classValue.toString().indexOf(STRING_BLANK, classValue.toString().indexOf("/"))).trim();
-            }
-        }
-        elem.getOwnerDocument().renameNode(elem, elem.getNamespaceURI(), generalizedElemName);
-        final NodeList nodeList = elem.getChildNodes();
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            final Node node = nodeList.item(i);
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                replaceSubElementName(type, (Element) node);
-            }
-        }
-    }
-
-
     @Override
     public void startElement(final String uri, final String localName, final String name,
             final Attributes atts) throws SAXException {
@@ -419,12 +342,14 @@ public final class ConrefPushParser extends AbstractXMLFilter {
                 //initialize it.
                 levelForPushAfterStack.push(levelForPushAfter);
                 contentForPushAfterStack.push(contentForPushAfter);
+                contentForPushAfterClassStack.push(contentForPushAfterClass);
             } else {
                 hasPushafter = true;
             }
             levelForPushAfter = 0;
             levelForPushAfter++;
-            contentForPushAfter = replaceElementName(classValue, movetable.remove(containkey));
+            contentForPushAfter = movetable.remove(containkey);
+            contentForPushAfterClass = classValue;
             //The output for the pushcontent will be in endElement(...)
         }
     }
@@ -445,7 +370,7 @@ public final class ConrefPushParser extends AbstractXMLFilter {
             }
         }
         if (containpushplace) {
-            writeNode(replaceElementName(classValue, movetable.remove(containkey)));
+            writeNode(classValue, movetable.remove(containkey));
             isReplaced = true;
             level = 0;
             level++;
@@ -469,44 +394,65 @@ public final class ConrefPushParser extends AbstractXMLFilter {
             }
         }
         if (containpushbefore) {
-            writeNode(replaceElementName(classValue, movetable.remove(containkey)));
+            writeNode(classValue, movetable.remove(containkey));
         }
     }
 
-    private void writeNode(final Node node) throws SAXException {
-        switch(node.getNodeType()) {
-        case Node.DOCUMENT_FRAGMENT_NODE: {
-            final NodeList children = node.getChildNodes();
-            for (int i = 0; i < children.getLength(); i++) {
-                writeNode(children.item(i));
+    /**
+     * Write push content. If the pushed element is a specialization of the target
+     * element, it is renamed to the target element name and its descendants are
+     * generalized to the target module.
+     * 
+     * @param targetClassAttribute class of the target element
+     * @param content push content
+     */
+    private void writeNode(final DitaClass targetClassAttribute, final SAXEventBuffer content) throws SAXException {
+        // get type of the target element
+        final String type = targetClassAttribute.toString().substring(1, targetClassAttribute.toString().indexOf("/")).trim();
+        content.replay(new DefaultHandler() {
+            private final Stack<String> names = new Stack<String>();
+            private String generalizeType = null;
+            @Override
+            public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                    throws SAXException {
+                if (atts.getValue(ATTRIBUTE_NAME_CONREF) != null) {
+                    hasConref = true;
+                }
+                if (atts.getValue(ATTRIBUTE_NAME_KEYREF) != null) {
+                    hasKeyref = true;
+                }
+                final DitaClass clazz = DitaClass.getInstance(atts);
+                String name = qName;
+                if (names.isEmpty()) {
+                    if (clazz != null && !clazz.equals(targetClassAttribute) && targetClassAttribute.matches(clazz)) {
+                        // Specializing the pushing content is not handled here
+                        // but we can catch such a situation to emit a warning by comparing the class values.
+                        name = targetClassAttribute.localName;
+                        generalizeType = type;
+                    } else {
+                        generalizeType = null;
+                    }
+                } else if (generalizeType != null && clazz != null && clazz.toString().contains(generalizeType)) {
+                    final String cls = clazz.toString();
+                    name = cls.substring(cls.indexOf("/") + 1, cls.indexOf(STRING_BLANK, cls.indexOf("/"))).trim();
+                }
+                names.push(name);
+                getContentHandler().startElement(uri, name, name, atts);
             }
-            break;
-        }
-        case Node.ELEMENT_NODE:
-            final Element e = (Element) node;
-            final AttributesBuilder b = new AttributesBuilder();
-            final NamedNodeMap atts = e.getAttributes();
-            for (int i = 0; i < atts.getLength(); i++) {
-                b.add((Attr) atts.item(i));
+            @Override
+            public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+                final String name = names.pop();
+                getContentHandler().endElement(uri, name, name);
             }
-            final String ns = e.getNamespaceURI() != null ? e.getNamespaceURI() : NULL_NS_URI;
-            getContentHandler().startElement(ns, e.getTagName(), e.getNodeName(), b.build());
-            final NodeList children = e.getChildNodes();
-            for (int i = 0; i < children.getLength(); i++) {
-                writeNode(children.item(i));
+            @Override
+            public void characters(final char[] ch, final int start, final int length) throws SAXException {
+                getContentHandler().characters(ch, start, length);
             }
-            getContentHandler().endElement(ns, e.getTagName(), e.getNodeName());
-            break;
-        case Node.TEXT_NODE:
-            final char[] data = node.getNodeValue().toCharArray();
-            getContentHandler().characters(data, 0, data.length);
-            break;
-        case Node.PROCESSING_INSTRUCTION_NODE:
-            getContentHandler().processingInstruction(node.getNodeName(), node.getNodeValue());
-            break;
-        default:
-            throw new UnsupportedOperationException();
-        }
+            @Override
+            public void processingInstruction(final String target, final String data) throws SAXException {
+                getContentHandler().processingInstruction(target, data);
+            }
+        });
     }
     
 }
@@ -9,18 +9,11 @@
 package org.dita.dost.writer;
 
 import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.util.SAXEventBuffer;
 import org.dita.dost.util.StringUtils;
-import org.dita.dost.util.XMLUtils;
-import org.w3c.dom.*;
 import org.xml.sax.Attributes;
-import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
-import org.xml.sax.helpers.AttributesImpl;
-import org.xml.sax.helpers.XMLFilterImpl;
 
-import javax.xml.transform.*;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.sax.SAXResult;
 import java.io.File;
 import java.util.*;
 
@@ -30,18 +23,18 @@ import static org.dita.dost.util.XMLUtils.addOrSetAttribute;
 import static org.dita.dost.util.XMLUtils.AttributesBuilder;
 
 /**
- * Read DITA topic file and insert map links information into it.
+ * Read DITA topic file and insert map links information into it. Links are
+ * replayed from recorded SAX events, no DOM is built.
  */
 public final class DitaLinksWriter extends AbstractXMLFilter {
     
     private String curMatchTopic;
     private boolean firstTopic;
 
-    private Map<String, Element> indexEntries;
+    private Map<String, SAXEventBuffer> indexEntries;
     /** Stack of topic IDs. */
     private Deque<String> topicIdStack;
     private final ArrayList<String> topicSpecList;
-    final Transformer saxToDomTransformer;
     private static final Attributes relatedLinksAtts = new AttributesBuilder()
             .add(ATTRIBUTE_NAME_CLASS, TOPIC_RELATED_LINKS.toString())
             .build();
@@ -52,20 +45,15 @@ public final class DitaLinksWriter extends AbstractXMLFilter {
     public DitaLinksWriter() {
         super();
         topicSpecList = new ArrayList<String>();
-        try {
-            saxToDomTransformer = TransformerFactory.newInstance().newTransformer();
-        } catch (final TransformerConfigurationException e) {
-            throw new RuntimeException("Failed to configure DOM to SAX transformer: " + e.getMessage(), e);
-        }
     }
     
     /**
      * Set relates links
      * 
-     * @param indexEntries map of related links. Keys are topic IDs and
+     * @param indexEntries map of related links content. Keys are topic IDs and
      * {@link org.dita.dost.util.Constants#SHARP #} is used to denote root element
      */
-    public void setLinks(final Map<String, Element> indexEntries) {
+    public void setLinks(final Map<String, SAXEventBuffer> indexEntries) {
         this.indexEntries = indexEntries;
     }
 
@@ -100,7 +88,7 @@ public final class DitaLinksWriter extends AbstractXMLFilter {
             if (curMatchTopic != null && !firstTopic) {
                 try {
                     getContentHandler().startElement(NULL_NS_URI, TOPIC_RELATED_LINKS.localName, TOPIC_RELATED_LINKS.localName, relatedLinksAtts);
-                    domToSax(indexEntries.get(curMatchTopic));
+                    indexEntries.get(curMatchTopic).replay(getContentHandler());
                     getContentHandler().endElement(NULL_NS_URI, TOPIC_RELATED_LINKS.localName, TOPIC_RELATED_LINKS.localName);
                     curMatchTopic = null;
                 } catch (final Exception e) {
@@ -119,7 +107,7 @@ public final class DitaLinksWriter extends AbstractXMLFilter {
         }
         getContentHandler().startElement(uri, localName, qName, atts);
         if (TOPIC_RELATED_LINKS.matches(atts) && curMatchTopic != null) {
-            domToSax(indexEntries.get(curMatchTopic));
+            indexEntries.get(curMatchTopic).replay(getContentHandler());
             curMatchTopic = null;
         }
     }
@@ -138,45 +126,11 @@ public final class DitaLinksWriter extends AbstractXMLFilter {
         if (curMatchTopic != null && topicSpecList.contains(localName)) {
             // if <TOPIC_RELATED_LINKS> doesn't exist
             getContentHandler().startElement(NULL_NS_URI, TOPIC_RELATED_LINKS.localName, TOPIC_RELATED_LINKS.localName, relatedLinksAtts);
-            domToSax(indexEntries.get(curMatchTopic));
+            indexEntries.get(curMatchTopic).replay(getContentHandler());
             getContentHandler().endElement(NULL_NS_URI, TOPIC_RELATED_LINKS.localName, TOPIC_RELATED_LINKS.localName);
             curMatchTopic = null;
         }
         getContentHandler().endElement(uri, localName, qName);
     }
 
-    // DOM to SAX conversion methods
-
-    private void domToSax(final Node root) throws SAXException {
-        try {
-            final Result result = new SAXResult(new FilterHandler(getContentHandler()));
-            final NodeList children = root.getChildNodes();
-            for (int i = 0; i < children.getLength(); i++) {
-                final Source source = new DOMSource(children.item(i));
-                saxToDomTransformer.transform(source, result);
-            }
-        } catch (TransformerException e) {
-            throw new SAXException("Failed to serialize DOM node to SAX: " + e.getMessage(), e);
-        }
-    }
-
-    private static class FilterHandler extends XMLFilterImpl {
-
-        public FilterHandler(final ContentHandler handler) {
-            super();
-            setContentHandler(handler);
-        }
-
-        @Override
-        public void startDocument() throws SAXException {
-            // ignore
-        }
-
-        @Override
-        public void endDocument() throws SAXException {
-            // ignore
-        }
-
-    }
-
 }
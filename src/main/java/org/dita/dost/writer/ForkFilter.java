@@ -0,0 +1,231 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.writer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Filter that forwards content events both to its own content handler and to
+ * branch content handlers. Branches receive events after the filter's own
+ * content handler.
+ *
+ * <p>Lexical events are received when a lexical handler is set with the
+ * {@code http://xml.org/sax/properties/lexical-handler} property, and they are
+ * forwarded to the set lexical handler and to the branch lexical handlers.</p>
+ *
+ * @since 2.0
+ */
+public final class ForkFilter extends XMLFilterImpl implements LexicalHandler {
+
+    private static final String PROPERTY_LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
+    private final List<ContentHandler> branches;
+    private final List<LexicalHandler> lexicalBranches;
+    private LexicalHandler lexicalHandler;
+
+    /**
+     * Create new fork filter.
+     *
+     * @param branches branch content handlers
+     * @param lexicalBranches branch lexical handlers
+     */
+    public ForkFilter(final List<ContentHandler> branches, final List<LexicalHandler> lexicalBranches) {
+        super();
+        this.branches = new ArrayList<ContentHandler>(branches);
+        this.lexicalBranches = new ArrayList<LexicalHandler>(lexicalBranches);
+    }
+
+    @Override
+    public void setProperty(final String name, final Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (PROPERTY_LEXICAL_HANDLER.equals(name)) {
+            lexicalHandler = (LexicalHandler) value;
+            super.setProperty(name, this);
+        } else {
+            super.setProperty(name, value);
+        }
+    }
+
+    @Override
+    public Object getProperty(final String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (PROPERTY_LEXICAL_HANDLER.equals(name)) {
+            return lexicalHandler;
+        }
+        return super.getProperty(name);
+    }
+
+    // ContentHandler methods
+
+    @Override
+    public void setDocumentLocator(final Locator locator) {
+        super.setDocumentLocator(locator);
+        for (final ContentHandler branch: branches) {
+            branch.setDocumentLocator(locator);
+        }
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        super.startDocument();
+        for (final ContentHandler branch: branches) {
+            branch.startDocument();
+        }
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        super.endDocument();
+        for (final ContentHandler branch: branches) {
+            branch.endDocument();
+        }
+    }
+
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+        super.startPrefixMapping(prefix, uri);
+        for (final ContentHandler branch: branches) {
+            branch.startPrefixMapping(prefix, uri);
+        }
+    }
+
+    @Override
+    public void endPrefixMapping(final String prefix) throws SAXException {
+        super.endPrefixMapping(prefix);
+        for (final ContentHandler branch: branches) {
+            branch.endPrefixMapping(prefix);
+        }
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+            throws SAXException {
+        super.startElement(uri, localName, qName, atts);
+        for (final ContentHandler branch: branches) {
+            branch.startElement(uri, localName, qName, atts);
+        }
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+        super.endElement(uri, localName, qName);
+        for (final ContentHandler branch: branches) {
+            branch.endElement(uri, localName, qName);
+        }
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        super.characters(ch, start, length);
+        for (final ContentHandler branch: branches) {
+            branch.characters(ch, start, length);
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+        super.ignorableWhitespace(ch, start, length);
+        for (final ContentHandler branch: branches) {
+            branch.ignorableWhitespace(ch, start, length);
+        }
+    }
+
+    @Override
+    public void processingInstruction(final String target, final String data) throws SAXException {
+        super.processingInstruction(target, data);
+        for (final ContentHandler branch: branches) {
+            branch.processingInstruction(target, data);
+        }
+    }
+
+    @Override
+    public void skippedEntity(final String name) throws SAXException {
+        super.skippedEntity(name);
+        for (final ContentHandler branch: branches) {
+            branch.skippedEntity(name);
+        }
+    }
+
+    // LexicalHandler methods
+
+    @Override
+    public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.startDTD(name, publicId, systemId);
+        }
+        for (final LexicalHandler branch: lexicalBranches) {
+            branch.startDTD(name, publicId, systemId);
+        }
+    }
+
+    @Override
+    public void endDTD() throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.endDTD();
+        }
+        for (final LexicalHandler branch: lexicalBranches) {
+            branch.endDTD();
+        }
+    }
+
+    @Override
+    public void startEntity(final String name) throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.startEntity(name);
+        }
+        for (final LexicalHandler branch: lexicalBranches) {
+            branch.startEntity(name);
+        }
+    }
+
+    @Override
+    public void endEntity(final String name) throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.endEntity(name);
+        }
+        for (final LexicalHandler branch: lexicalBranches) {
+            branch.endEntity(name);
+        }
+    }
+
+    @Override
+    public void startCDATA() throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.startCDATA();
+        }
+        for (final LexicalHandler branch: lexicalBranches) {
+            branch.startCDATA();
+        }
+    }
+
+    @Override
+    public void endCDATA() throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.endCDATA();
+        }
+        for (final LexicalHandler branch: lexicalBranches) {
+            branch.endCDATA();
+        }
+    }
+
+    @Override
+    public void comment(final char[] ch, final int start, final int length) throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.comment(ch, start, length);
+        }
+        for (final LexicalHandler branch: lexicalBranches) {
+            branch.comment(ch, start, length);
+        }
+    }
+
+}
@@ -10,16 +10,22 @@ import static org.dita.dost.util.URLUtils.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
 
 import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.util.Job;
+import org.dita.dost.util.ParallelUtils;
 import org.dita.dost.util.XMLUtils;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
@@ -28,6 +34,11 @@ import org.xml.sax.SAXException;
 
 /**
  * Image metadata filter.
+ *
+ * <p>The filter can be used either to rewrite topics in the temporary directory
+ * with images resolved against the output directory, or as a stage of a
+ * preprocessing filter chain with metadata {@link #readMetadata(Collection, DITAOTLogger)
+ * read ahead of time} for source images.</p>
  */
 public final class ImageMetadataFilter extends AbstractXMLFilter {
 
@@ -48,6 +59,12 @@ public final class ImageMetadataFilter extends AbstractXMLFilter {
     private int depth = 0;
     private final Map<File, Attributes> cache = new HashMap<File, Attributes>();
     private final Job job;
+    /** Image metadata by absolute source URI, {@code null} if images are resolved against output directory. */
+    private final Map<URI, Attributes> metadata;
+    /** Absolute source URI of the current file. */
+    private URI currentSrc;
+    /** Image without a resolved reference has been found. */
+    private boolean unresolved;
 
     // Constructors ------------------------------------------------------------
 
@@ -59,6 +76,75 @@ public final class ImageMetadataFilter extends AbstractXMLFilter {
         this.job = job;
         this.tempDir = job.tempDir;
         this.uplevels = job.getProperty("uplevels");
+        this.metadata = null;
+    }
+
+    /**
+     * Constructor for preprocessing filter chain.
+     * 
+     * @param metadata image metadata by absolute source URI
+     */
+    public ImageMetadataFilter(final Map<URI, Attributes> metadata) {
+        this.outputDir = null;
+        this.job = null;
+        this.tempDir = null;
+        this.uplevels = null;
+        this.metadata = metadata;
+    }
+
+    /**
+     * Set current source file for preprocessing filter chain.
+     * 
+     * @param currentSrc absolute source URI of the current file
+     */
+    public void setCurrentFile(final URI currentSrc) {
+        this.currentSrc = currentSrc;
+    }
+
+    /**
+     * Test if images without resolved references have been found, e.g. images
+     * that only have a key reference.
+     * 
+     * @return {@code true} if image metadata may be incomplete
+     */
+    public boolean hasUnresolvedImages() {
+        return unresolved;
+    }
+
+    /**
+     * Read metadata of image files concurrently.
+     * 
+     * @param images absolute image URIs
+     * @param logger logger
+     * @return image metadata by absolute image URI, images that do not exist are omitted
+     * @throws DITAOTException if reading metadata failed
+     */
+    public static Map<URI, Attributes> readMetadata(final Collection<URI> images, final DITAOTLogger logger)
+            throws DITAOTException {
+        final List<URI> files = new ArrayList<URI>();
+        final List<Callable<Attributes>> tasks = new ArrayList<Callable<Attributes>>();
+        for (final URI image: images) {
+            if (!"file".equals(image.getScheme())) {
+                continue;
+            }
+            final File imgInput = new File(image);
+            if (!imgInput.exists()) {
+                continue;
+            }
+            files.add(image);
+            tasks.add(new Callable<Attributes>() {
+                @Override
+                public Attributes call() {
+                    return readMetadata(imgInput, logger);
+                }
+            });
+        }
+        final List<Attributes> res = ParallelUtils.invokeAll(tasks);
+        final Map<URI, Attributes> metadata = new HashMap<URI, Attributes>(files.size() * 2);
+        for (int i = 0; i < files.size(); i++) {
+            metadata.put(files.get(i), res.get(i));
+        }
+        return metadata;
     }
 
     // AbstractWriter methods --------------------------------------------------
@@ -81,12 +167,23 @@ public final class ImageMetadataFilter extends AbstractXMLFilter {
             final Attributes atts) throws SAXException {
         if (TOPIC_IMAGE.matches(atts)) {
             final XMLUtils.AttributesBuilder a = new XMLUtils.AttributesBuilder(atts);
-            if (atts.getValue(ATTRIBUTE_NAME_HREF) != null) {
+            if (metadata != null) {
+                final String href = atts.getValue(ATTRIBUTE_NAME_HREF);
+                if (atts.getValue(ATTRIBUTE_NAME_KEYREF) != null) {
+                    // key resolution may replace href, metadata is read after keyref
+                    unresolved = true;
+                } else if (href != null) {
+                    final Attributes m = metadata.get(stripFragment(currentSrc.resolve(toURI(href))));
+                    if (m != null) {
+                        a.addAll(m);
+                    }
+                }
+            } else if (atts.getValue(ATTRIBUTE_NAME_HREF) != null) {
                 final File imgInput = getImageFile(toURI(atts.getValue(ATTRIBUTE_NAME_HREF)));
                 if (imgInput.exists()) {
                     Attributes m = cache.get(imgInput);
                     if (m == null) {
-                        m = readMetadata(imgInput);
+                        m = readMetadata(imgInput, logger);
                         cache.put(imgInput, m);
                     }
                     a.addAll(m);
@@ -116,7 +213,7 @@ public final class ImageMetadataFilter extends AbstractXMLFilter {
 
     // Private methods ---------------------------------------------------------
     
-    private Attributes readMetadata(final File imgInput) {
+    private static Attributes readMetadata(final File imgInput, final DITAOTLogger logger) {
         logger.info("Reading " + imgInput);
         final XMLUtils.AttributesBuilder a = new XMLUtils.AttributesBuilder();
         try {
@@ -11,9 +11,13 @@ import static org.dita.dost.util.URLUtils.toURI;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Deque;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -27,12 +31,18 @@ import org.xml.sax.helpers.LocatorImpl;
 
 /**
  * Validation and optional error recovery filter.
+ * 
+ * <p>The filter can be reused for multiple documents.</p>
  */
 public final class ValidationFilter extends AbstractXMLFilter {
 
     private final MessageUtils messageUtils = MessageUtils.getInstance();
-	private final Set<String> topicIds = new HashSet<String>();
+	private final IdSet topicIds = new IdSet();
 	private Map<String, Map<String, Set<String>>> validateMap = null;
+	/** Attribute value rules compiled from validate map, keyed by attribute name. */
+	private Map<String, AttributeRule> attributeRules = Collections.emptyMap();
+	/** Topic IDs of all processed documents, {@code null} if duplicates across documents are not reported. */
+	private TopicIdIndex documentTopicIds;
 	private Locator locator;
     /** Deque of domains attibute values */
 	private final Deque<String[][]> domains = new LinkedList<String[][]>();
@@ -62,12 +72,35 @@ public final class ValidationFilter extends AbstractXMLFilter {
      * For default element mapping, the value is {@code *}.
      */
     public void setValidateMap(final Map<String, Map<String, Set<String>>> validateMap) {
-        this.validateMap = validateMap;
+        if (validateMap != this.validateMap) {
+            this.validateMap = validateMap;
+            attributeRules = compile(validateMap);
+        }
     }
 
     public void setCurrentFile(final URI currentFile) {
         assert currentFile.isAbsolute();
         this.currentFile = currentFile;
+        if (documentTopicIds != null) {
+            documentTopicIds.setCurrentFile(currentFile);
+        }
+    }
+
+    /**
+     * Report topic IDs that are used in more than one document. Topic IDs
+     * are tracked as 64-bit hashes for all documents processed with this filter.
+     * 
+     * @param checkDuplicateTopicIds report topic IDs used in more than one document
+     */
+    public void setCheckDuplicateTopicIds(final boolean checkDuplicateTopicIds) {
+        if (!checkDuplicateTopicIds) {
+            documentTopicIds = null;
+        } else if (documentTopicIds == null) {
+            documentTopicIds = new TopicIdIndex();
+            if (currentFile != null) {
+                documentTopicIds.setCurrentFile(currentFile);
+            }
+        }
     }
 
     public void setJob(final Job job) {
@@ -88,6 +121,16 @@ public final class ValidationFilter extends AbstractXMLFilter {
 	
 	// SAX methods
 
+	@Override
+	public void startDocument() throws SAXException {
+	    topicIds.clear();
+	    domains.clear();
+	    cols = 0;
+	    columnNumber = 0;
+	    colsLocator = null;
+	    super.startDocument();
+	}
+
 	@Override
 	public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
 			throws SAXException {
@@ -185,23 +228,37 @@ public final class ValidationFilter extends AbstractXMLFilter {
         final String cls = atts.getValue(ATTRIBUTE_NAME_CLASS);
         if (TOPIC_TOPIC.matches(cls) || MAP_MAP.matches(cls)) {
 			topicIds.clear();
+			if (documentTopicIds != null && TOPIC_TOPIC.matches(cls)) {
+			    validateDocumentTopicId(atts.getValue(ATTRIBUTE_NAME_ID));
+			}
         } else if (TOPIC_RESOURCEID.matches(cls) || DELAY_D_ANCHORID.matches(cls)) {
             // not considered a normal element ID
         } else {
 			final String id = atts.getValue(ATTRIBUTE_NAME_ID);
 			if (id != null) {
-				if (topicIds.contains(id)) {
+				if (!topicIds.add(id)) {
 					if (processingMode == Mode.STRICT) {
 						throw new SAXException(messageUtils.getMessage("DOTJ057E", id).setLocation(locator).toString());
 					} else {
 						logger.warn(messageUtils.getMessage("DOTJ057E", id).setLocation(locator).toString());			
 					}
 				}
-				topicIds.add(id);
 			}
 		}
     }
 
+    /**
+     * Validate topic {@code id} attribute for uniqueness across documents.
+     */
+    private void validateDocumentTopicId(final String id) {
+        if (id != null) {
+            final URI previous = documentTopicIds.add(id);
+            if (previous != null) {
+                logger.warn(messageUtils.getMessage("DOTJ065W", id, previous.toString()).setLocation(locator).toString());
+            }
+        }
+    }
+
 	/**
 	 * Validate and fix {@code href} attribute for URI validity.
 	 * 
@@ -245,23 +302,29 @@ public final class ValidationFilter extends AbstractXMLFilter {
      * @param atts attributes
      */
     private void validateAttributeValues(final String qName, final Attributes atts) {
-        if (validateMap == null || validateMap.isEmpty()) {
+        if (attributeRules.isEmpty()) {
             return;
         }
         for (int i = 0; i < atts.getLength(); i++) {
-            final String attrName = atts.getQName(i);
-            final Map<String, Set<String>> valueMap = validateMap.get(attrName);
-            if (valueMap != null) {
-                Set<String> valueSet = valueMap.get(qName);
-                if (valueSet == null) {
-                    valueSet = valueMap.get("*");
-                }
+            final AttributeRule rule = attributeRules.get(atts.getQName(i));
+            if (rule != null) {
+                final ValueSet valueSet = rule.get(qName);
                 if (valueSet != null) {
                     final String attrValue = atts.getValue(i);
-                    final String[] keylist = attrValue.trim().split("\\s+");
-                    for (final String s : keylist) {
-                        if (!StringUtils.isEmptyString(s) && !valueSet.contains(s)) {
-                            logger.warn(messageUtils.getMessage("DOTJ049W", attrName, qName, attrValue, StringUtils.join(valueSet, COMMA)).toString());
+                    final String value = attrValue.trim();
+                    final int length = value.length();
+                    int start = -1;
+                    for (int j = 0; j <= length; j++) {
+                        if (j == length || isWhitespace(value.charAt(j))) {
+                            if (start != -1) {
+                                final String s = value.substring(start, j);
+                                if (!StringUtils.isEmptyString(s) && !valueSet.values.contains(s)) {
+                                    logger.warn(messageUtils.getMessage("DOTJ049W", rule.name, qName, attrValue, valueSet.description).toString());
+                                }
+                                start = -1;
+                            }
+                        } else if (start == -1) {
+                            start = j;
                         }
                     }
                 }
@@ -269,6 +332,42 @@ public final class ValidationFilter extends AbstractXMLFilter {
         }
     }
 
+    /**
+     * Test if character is a whitespace character as matched by {@code \s} in regular expressions.
+     */
+    private static boolean isWhitespace(final char c) {
+        switch (c) {
+        case ' ':
+        case '\t':
+        case '\n':
+        case '\u000B':
+        case '\f':
+        case '\r':
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Compile validate map into attribute value rules.
+     * 
+     * @param validateMap valid attribute values, may be {@code null}
+     * @return attribute value rules by attribute name
+     */
+    private static Map<String, AttributeRule> compile(final Map<String, Map<String, Set<String>>> validateMap) {
+        if (validateMap == null || validateMap.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, AttributeRule> res = new HashMap<String, AttributeRule>(validateMap.size() * 2);
+        for (final Map.Entry<String, Map<String, Set<String>>> e: validateMap.entrySet()) {
+            if (e.getValue() != null) {
+                res.put(e.getKey(), new AttributeRule(e.getKey(), e.getValue()));
+            }
+        }
+        return res;
+    }
+
     /**
      * Validate {@code keys} attribute
      */
@@ -402,4 +501,200 @@ public final class ValidationFilter extends AbstractXMLFilter {
         return res;
     }
 
+    /**
+     * Valid values of an attribute, by element name.
+     */
+    private static final class AttributeRule {
+        /** Attribute name. */
+        final String name;
+        /** Valid values by element name. */
+        private final Map<String, ValueSet> elements;
+        /** Valid values for elements without element specific values. */
+        private final ValueSet defaults;
+
+        AttributeRule(final String name, final Map<String, Set<String>> valueMap) {
+            this.name = name;
+            elements = new HashMap<String, ValueSet>(valueMap.size() * 2);
+            for (final Map.Entry<String, Set<String>> e: valueMap.entrySet()) {
+                elements.put(e.getKey(), e.getValue() != null ? new ValueSet(e.getValue()) : null);
+            }
+            defaults = elements.get("*");
+        }
+
+        /**
+         * Get valid values for an element.
+         * 
+         * @return valid values, {@code null} if values are not validated
+         */
+        ValueSet get(final String qName) {
+            final ValueSet res = elements.get(qName);
+            return res != null ? res : defaults;
+        }
+    }
+
+    /**
+     * Set of valid values and its description for messages.
+     */
+    private static final class ValueSet {
+        final Set<String> values;
+        final String description;
+
+        ValueSet(final Set<String> values) {
+            this.values = values;
+            description = StringUtils.join(values, COMMA);
+        }
+    }
+
+    /**
+     * Set of IDs that can be cleared in constant time. Cleared sets retain their
+     * capacity, so the set is not rehashed for every topic.
+     */
+    static final class IdSet {
+        private String[] keys = new String[64];
+        /** Generation of each slot, slot is in use if it equals current generation. */
+        private int[] generations = new int[64];
+        private int generation = 1;
+        private int size;
+
+        /**
+         * Add ID to set.
+         * 
+         * @param id ID to add
+         * @return {@code true} if the set did not already contain the ID
+         */
+        boolean add(final String id) {
+            final int mask = keys.length - 1;
+            int i = mix(id.hashCode()) & mask;
+            while (generations[i] == generation) {
+                if (keys[i].equals(id)) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = id;
+            generations[i] = generation;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return true;
+        }
+
+        /**
+         * Remove all IDs from set.
+         */
+        void clear() {
+            if (size == 0) {
+                return;
+            }
+            size = 0;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(generations, 0);
+                Arrays.fill(keys, null);
+                generation = 1;
+            } else {
+                generation++;
+            }
+        }
+
+        private void grow() {
+            final String[] oldKeys = keys;
+            final int[] oldGenerations = generations;
+            keys = new String[oldKeys.length * 2];
+            generations = new int[oldKeys.length * 2];
+            final int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldGenerations[j] == generation) {
+                    int i = mix(oldKeys[j].hashCode()) & mask;
+                    while (generations[i] == generation) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    generations[i] = generation;
+                }
+            }
+        }
+
+        private static int mix(final int h) {
+            final int m = h * 0x9E3779B9;
+            return m ^ (m >>> 16);
+        }
+    }
+
+    /**
+     * Index of topic IDs across documents. IDs are stored as 64-bit hashes with
+     * the index of the first document that used them, so the IDs themselves are
+     * not retained.
+     */
+    static final class TopicIdIndex {
+        private long[] hashes = new long[1024];
+        private int[] files = new int[1024];
+        private int size;
+        private final List<URI> fileList = new ArrayList<URI>();
+
+        /**
+         * Set the document topic IDs are added from.
+         */
+        void setCurrentFile(final URI file) {
+            if (fileList.isEmpty() || !fileList.get(fileList.size() - 1).equals(file)) {
+                fileList.add(file);
+            }
+        }
+
+        /**
+         * Add topic ID of current document.
+         * 
+         * @param id topic ID
+         * @return first other document that uses the topic ID, {@code null} if none
+         */
+        URI add(final String id) {
+            final int current = fileList.size() - 1;
+            final long hash = hash(id);
+            final int mask = hashes.length - 1;
+            int i = (int) (hash ^ (hash >>> 32)) & mask;
+            while (hashes[i] != 0) {
+                if (hashes[i] == hash) {
+                    return files[i] != current ? fileList.get(files[i]) : null;
+                }
+                i = (i + 1) & mask;
+            }
+            hashes[i] = hash;
+            files[i] = current;
+            if (++size * 2 > hashes.length) {
+                grow();
+            }
+            return null;
+        }
+
+        private void grow() {
+            final long[] oldHashes = hashes;
+            final int[] oldFiles = files;
+            hashes = new long[oldHashes.length * 2];
+            files = new int[oldHashes.length * 2];
+            final int mask = hashes.length - 1;
+            for (int j = 0; j < oldHashes.length; j++) {
+                final long hash = oldHashes[j];
+                if (hash != 0) {
+                    int i = (int) (hash ^ (hash >>> 32)) & mask;
+                    while (hashes[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    hashes[i] = hash;
+                    files[i] = oldFiles[j];
+                }
+            }
+        }
+
+        /**
+         * 64-bit FNV-1a hash of ID, never zero.
+         */
+        private static long hash(final String id) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < id.length(); i++) {
+                h ^= id.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return h != 0 ? h : 1;
+        }
+    }
+
 }
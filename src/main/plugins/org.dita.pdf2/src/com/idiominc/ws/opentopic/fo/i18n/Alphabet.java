@@ -1,7 +1,8 @@
 package com.idiominc.ws.opentopic.fo.i18n;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 
 
 /*
@@ -37,13 +38,28 @@ See the accompanying license.txt file for applicable licenses.
 public class Alphabet {
     private final String name;
 
-    private final Set<Character> charset = new HashSet<Character>();
+    /** Code points in this alphabet. */
+    private final BitSet charset = new BitSet();
 
 
     public Alphabet(final String theName, final Character[] theChars) {
         this.name = theName;
         for (final Character aChar : theChars) {
-            this.charset.add(aChar);
+            this.charset.set(aChar.charValue());
+        }
+    }
+
+
+    /**
+     * Create alphabet from Unicode code points.
+     *
+     * @param theName alphabet name
+     * @param theCodePoints code points in alphabet
+     */
+    public Alphabet(final String theName, final int[] theCodePoints) {
+        this.name = theName;
+        for (final int codePoint : theCodePoints) {
+            this.charset.set(codePoint);
         }
     }
 
@@ -54,12 +70,42 @@ public class Alphabet {
 
 
     public boolean isContain(final char theChar) {
-        return this.charset.contains(new Character(theChar));
+        return this.charset.get(theChar);
     }
 
 
+    /**
+     * Test if alphabet contains a code point.
+     *
+     * @param theCodePoint Unicode code point
+     * @return <code>true</code> if alphabet contains the code point
+     */
+    public boolean isContain(final int theCodePoint) {
+        return this.charset.get(theCodePoint);
+    }
+
+
+    /**
+     * Get all characters in the Basic Multilingual Plane.
+     */
     public Character[] getAllChars() {
-        final Character[] characters = (Character[]) charset.toArray(new Character[charset.size()]);
-        return characters;
+        final List<Character> characters = new ArrayList<Character>();
+        for (int i = charset.nextSetBit(0); i >= 0 && i <= Character.MAX_VALUE; i = charset.nextSetBit(i + 1)) {
+            characters.add(Character.valueOf((char) i));
+        }
+        return characters.toArray(new Character[characters.size()]);
+    }
+
+
+    /**
+     * Get all code points in ascending order.
+     */
+    public int[] getAllCodePoints() {
+        final int[] codePoints = new int[charset.cardinality()];
+        int j = 0;
+        for (int i = charset.nextSetBit(0); i >= 0; i = charset.nextSetBit(i + 1)) {
+            codePoints[j++] = i;
+        }
+        return codePoints;
     }
 }
@@ -4,8 +4,10 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 
 import com.idiominc.ws.opentopic.fo.i18n.Alphabet;
 
@@ -43,11 +45,16 @@ public class Configuration {
     private static final String BAD_CONF_MESSAGE = "Bad configuration file format!";
 
     private final Alphabet[] alphabets;
+    /** Alphabet lookup table for the Basic Multilingual Plane, indexed by char. */
+    private final Alphabet[] bmpAlphabets = new Alphabet[Character.MAX_VALUE + 1];
+    /** Alphabets for supplementary code points. */
+    private final Map<Integer, Alphabet> supplementaryAlphabets = new HashMap<Integer, Alphabet>();
 
 
     public Configuration(final Document theConfigurationFile)
             throws ConfigurationException {
         this.alphabets = initAlphabets(theConfigurationFile);
+        initLookup();
     }
 
 
@@ -62,14 +69,38 @@ public class Configuration {
      *      or <code>null</code> if no alphabets contains given char.
      */
     public Alphabet getAlphabetForChar(final char theChar) {
-        Alphabet result = null;
-        for (final Alphabet alphabet : this.alphabets) {
-            if (alphabet.isContain(theChar)) {
-                result = alphabet;
-                break;
+        return this.bmpAlphabets[theChar];
+    }
+
+
+    /**
+     * Searches alphabets for a code point
+     * @return first founded alphabet that contains given code point
+     *      or <code>null</code> if no alphabets contains given code point.
+     */
+    public Alphabet getAlphabetForCodePoint(final int theCodePoint) {
+        if (theCodePoint <= Character.MAX_VALUE) {
+            return this.bmpAlphabets[theCodePoint];
+        }
+        return this.supplementaryAlphabets.get(theCodePoint);
+    }
+
+
+    /**
+     * Build code point lookup tables. The first alphabet that contains a code
+     * point wins.
+     */
+    private void initLookup() {
+        for (int i = this.alphabets.length - 1; i >= 0; i--) {
+            final Alphabet alphabet = this.alphabets[i];
+            for (final int codePoint : alphabet.getAllCodePoints()) {
+                if (codePoint <= Character.MAX_VALUE) {
+                    this.bmpAlphabets[codePoint] = alphabet;
+                } else {
+                    this.supplementaryAlphabets.put(codePoint, alphabet);
+                }
             }
         }
-        return result;
     }
 
 
@@ -99,7 +130,7 @@ public class Configuration {
                 final Node alphabetChildNode = alphabetChildNodes.item(j);
                 final String childNodeName = alphabetChildNode.getNodeName();
                 if ("character-set".equals(childNodeName)) {
-                    final Character[] chars = processCharacterSetNode(alphabetChildNode);
+                    final int[] chars = processCharacterSetNode(alphabetChildNode);
                     alphabetList.add(new Alphabet(charSetName, chars));
                 } else {
                     //                    System.out.println("Unprocessed element [" + childNodeName + "]");
@@ -110,20 +141,16 @@ public class Configuration {
     }
 
 
-    private Character[] processCharacterSetNode(final Node theNode)
+    private int[] processCharacterSetNode(final Node theNode)
             throws ConfigurationException {
-        final List<Character> characterList = new ArrayList<Character>();
+        final List<Integer> characterList = new ArrayList<Integer>();
 
         final NodeList ranges = theNode.getChildNodes();
         for (int i = 0; i < ranges.getLength(); i++) {
             final Node node = ranges.item(i);
 
             if ("character".equals(node.getNodeName())) {
-                final char[] aChars = node.getFirstChild().getNodeValue().toCharArray();
-                if (aChars.length != 1) {
-                    throw new ConfigurationException(BAD_CONF_MESSAGE);
-                }
-                characterList.add(new Character(aChars[0]));
+                characterList.add(getCodePoint(node));
             } else if ("character-range".equals(node.getNodeName())) {
                 Node start = null;
                 Node end = null;
@@ -143,24 +170,34 @@ public class Configuration {
                     throw new ConfigurationException(BAD_CONF_MESSAGE);
                 }
 
-                final char[] startChars = start.getFirstChild().getNodeValue().toCharArray();
-                final char[] endChars = end.getFirstChild().getNodeValue().toCharArray();
+                final int startChar = getCodePoint(start);
+                final int endChar = getCodePoint(end);
 
-                if (startChars.length != 1 || endChars.length != 1) {
-                    throw new ConfigurationException(BAD_CONF_MESSAGE);
-                }
-
-                final char startChar = startChars[0];
-                final char endChar = endChars[0];
-
-                for (char ch = startChar; ch <= endChar; ch++) {
-                    characterList.add(new Character(ch));
+                for (int ch = startChar; ch <= endChar; ch++) {
+                    characterList.add(ch);
                 }
             } else {
                 //                System.out.println("Unprocessed element [" + node + "]");
             }
         }
 
-        return (Character[]) characterList.toArray(new Character[characterList.size()]);
+        final int[] res = new int[characterList.size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = characterList.get(i);
+        }
+        return res;
+    }
+
+
+    /**
+     * Get the single code point contained in an element.
+     */
+    private int getCodePoint(final Node theNode)
+            throws ConfigurationException {
+        final String value = theNode.getFirstChild().getNodeValue();
+        if (value.codePointCount(0, value.length()) != 1) {
+            throw new ConfigurationException(BAD_CONF_MESSAGE);
+        }
+        return value.codePointAt(0);
     }
 }
@@ -44,8 +44,8 @@ This file is part of the DITA Open Toolkit project.
 See the accompanying license.txt file for applicable licenses.
  */
 public class MultilanguagePreprocessor {
-     private static final String NAMESPACE_URL = "http://www.idiominc.com/opentopic/i18n";
-     private static final String PREFIX = "opentopic-i18n";
+     static final String NAMESPACE_URL = "http://www.idiominc.com/opentopic/i18n";
+     static final String PREFIX = "opentopic-i18n";
 
      private final Configuration configuration;
 
@@ -110,10 +110,8 @@ public class MultilanguagePreprocessor {
 
              Alphabet currentAlphabet = null;
 
-             final char[] chars = nodeValue.toCharArray();
-             for (int i = 0; i < chars.length; i++) {
-                 final char aChar = chars[i];
-                 final Alphabet alphabetForChar = this.configuration.getAlphabetForChar(aChar);
+             for (int i = 0; i < nodeValue.length(); i += Character.charCount(nodeValue.codePointAt(i))) {
+                 final Alphabet alphabetForChar = this.configuration.getAlphabetForCodePoint(nodeValue.codePointAt(i));
                  if (null != alphabetForChar && alphabetForChar.equals(currentAlphabet)) {
                      continue;
                  } else if (null == alphabetForChar && null == currentAlphabet) {
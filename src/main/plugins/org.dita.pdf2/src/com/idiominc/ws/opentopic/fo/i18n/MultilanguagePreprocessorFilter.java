@@ -0,0 +1,268 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package com.idiominc.ws.opentopic.fo.i18n;
+
+import static com.idiominc.ws.opentopic.fo.i18n.MultilanguagePreprocessor.*;
+
+import java.io.IOException;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.sax.TransformerHandler;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Streaming variant of {@link MultilanguagePreprocessor}. Text is split into
+ * runs of characters that belong to the same alphabet, and runs that belong to
+ * an alphabet are wrapped into {@code opentopic-i18n:text-fragment} elements.
+ * Adjacent character events are combined before splitting, so the result does
+ * not depend on how the parser reports text. CDATA sections are passed through
+ * unsplit.
+ *
+ * <p>If the content handler is a {@link TransformerHandler}, the document type
+ * declaration of the input is copied to its output properties.</p>
+ */
+public class MultilanguagePreprocessorFilter extends XMLFilterImpl implements LexicalHandler {
+
+    private static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+    private static final String ELEMENT_TEXT_FRAGMENT = "text-fragment";
+
+    private final Configuration configuration;
+    /** Pending character content. */
+    private char[] text = new char[1024];
+    private int textLength;
+    private boolean inCDATA;
+    private boolean inDTD;
+    private boolean documentStarted;
+    private int depth;
+    private String doctypePublic;
+    private String doctypeSystem;
+
+    public MultilanguagePreprocessorFilter(final Configuration theConfiguration) {
+        if (null == theConfiguration) {
+            throw new IllegalArgumentException("Configuration argument may not be null");
+        }
+        this.configuration = theConfiguration;
+    }
+
+    @Override
+    public void parse(final InputSource input) throws SAXException, IOException {
+        final XMLReader parent = getParent();
+        if (parent != null) {
+            try {
+                parent.setProperty(LEXICAL_HANDLER_PROPERTY, this);
+            } catch (final SAXNotRecognizedException e) {
+                // comments and CDATA sections are not preserved
+            } catch (final SAXNotSupportedException e) {
+                // comments and CDATA sections are not preserved
+            }
+        }
+        super.parse(input);
+    }
+
+    // ContentHandler methods
+
+    @Override
+    public void startDocument() throws SAXException {
+        textLength = 0;
+        inCDATA = false;
+        inDTD = false;
+        documentStarted = false;
+        depth = 0;
+        doctypePublic = null;
+        doctypeSystem = null;
+        // output is started lazily, after the document type declaration has been read
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        flush();
+        getContentHandler().endDocument();
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+            throws SAXException {
+        flush();
+        if (depth == 0) {
+            getContentHandler().startPrefixMapping(PREFIX, NAMESPACE_URL);
+        }
+        depth++;
+        getContentHandler().startElement(uri, localName, qName, atts);
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+        flush();
+        getContentHandler().endElement(uri, localName, qName);
+        depth--;
+        if (depth == 0) {
+            getContentHandler().endPrefixMapping(PREFIX);
+        }
+    }
+
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+        flush();
+        getContentHandler().startPrefixMapping(prefix, uri);
+    }
+
+    @Override
+    public void endPrefixMapping(final String prefix) throws SAXException {
+        flush();
+        getContentHandler().endPrefixMapping(prefix);
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        if (inCDATA) {
+            getContentHandler().characters(ch, start, length);
+            return;
+        }
+        if (textLength + length > text.length) {
+            final char[] buf = new char[Math.max(text.length * 2, textLength + length)];
+            System.arraycopy(text, 0, buf, 0, textLength);
+            text = buf;
+        }
+        System.arraycopy(ch, start, text, textLength, length);
+        textLength += length;
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+        characters(ch, start, length);
+    }
+
+    @Override
+    public void processingInstruction(final String target, final String data) throws SAXException {
+        flush();
+        getContentHandler().processingInstruction(target, data);
+    }
+
+    @Override
+    public void skippedEntity(final String name) throws SAXException {
+        flush();
+        getContentHandler().skippedEntity(name);
+    }
+
+    // LexicalHandler methods
+
+    @Override
+    public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+        inDTD = true;
+        doctypePublic = publicId;
+        doctypeSystem = systemId;
+    }
+
+    @Override
+    public void endDTD() throws SAXException {
+        inDTD = false;
+    }
+
+    @Override
+    public void startEntity(final String name) throws SAXException {
+        // entity boundaries are not preserved
+    }
+
+    @Override
+    public void endEntity(final String name) throws SAXException {
+        // entity boundaries are not preserved
+    }
+
+    @Override
+    public void startCDATA() throws SAXException {
+        flush();
+        inCDATA = true;
+        if (getContentHandler() instanceof LexicalHandler) {
+            ((LexicalHandler) getContentHandler()).startCDATA();
+        }
+    }
+
+    @Override
+    public void endCDATA() throws SAXException {
+        inCDATA = false;
+        if (getContentHandler() instanceof LexicalHandler) {
+            ((LexicalHandler) getContentHandler()).endCDATA();
+        }
+    }
+
+    @Override
+    public void comment(final char[] ch, final int start, final int length) throws SAXException {
+        if (inDTD) {
+            return;
+        }
+        flush();
+        if (getContentHandler() instanceof LexicalHandler) {
+            ((LexicalHandler) getContentHandler()).comment(ch, start, length);
+        }
+    }
+
+    // Private methods
+
+    /**
+     * Start output if not started yet and write pending character content split
+     * into alphabet runs.
+     */
+    private void flush() throws SAXException {
+        final ContentHandler handler = getContentHandler();
+        if (!documentStarted) {
+            documentStarted = true;
+            if (handler instanceof TransformerHandler) {
+                final TransformerHandler transformerHandler = (TransformerHandler) handler;
+                if (doctypePublic != null) {
+                    transformerHandler.getTransformer().setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doctypePublic);
+                }
+                if (doctypeSystem != null) {
+                    transformerHandler.getTransformer().setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doctypeSystem);
+                }
+            }
+            handler.startDocument();
+        }
+        if (textLength == 0) {
+            return;
+        }
+
+        int processedPosition = 0;
+        Alphabet currentAlphabet = null;
+        for (int i = 0; i < textLength;) {
+            final int codePoint = Character.codePointAt(text, i, textLength);
+            final Alphabet alphabetForChar = this.configuration.getAlphabetForCodePoint(codePoint);
+            if (alphabetForChar != currentAlphabet) {
+                writeRun(currentAlphabet, processedPosition, i);
+                currentAlphabet = alphabetForChar;
+                processedPosition = i;
+            }
+            i += Character.charCount(codePoint);
+        }
+        writeRun(currentAlphabet, processedPosition, textLength);
+        textLength = 0;
+    }
+
+    private void writeRun(final Alphabet theAlphabet, final int start, final int end) throws SAXException {
+        if (start == end) {
+            return;
+        }
+        final ContentHandler handler = getContentHandler();
+        if (theAlphabet != null) {
+            final AttributesImpl atts = new AttributesImpl();
+            atts.addAttribute("", "char-set", "char-set", "CDATA", theAlphabet.getName());
+            handler.startElement(NAMESPACE_URL, ELEMENT_TEXT_FRAGMENT, PREFIX + ":" + ELEMENT_TEXT_FRAGMENT, atts);
+            handler.characters(text, start, end - start);
+            handler.endElement(NAMESPACE_URL, ELEMENT_TEXT_FRAGMENT, PREFIX + ":" + ELEMENT_TEXT_FRAGMENT);
+        } else {
+            handler.characters(text, start, end - start);
+        }
+    }
+
+}
@@ -5,18 +5,24 @@ import org.apache.tools.ant.Task;
 import org.apache.xml.resolver.tools.CatalogResolver;
 import org.w3c.dom.Document;
 
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.OutputStream;
 
 import com.idiominc.ws.opentopic.fo.i18n.Configuration;
-import com.idiominc.ws.opentopic.fo.i18n.MultilanguagePreprocessor;
 
 /*
 Copyright (c) 2004-2006 by Idiom Technologies, Inc. All rights reserved.
@@ -68,26 +74,30 @@ public class PreprocessorTask extends Task {
              final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
              final DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
              documentBuilder.setEntityResolver(new CatalogResolver());
-
-             final Document doc = documentBuilder.parse(new File(this.input));
              final Document conf = documentBuilder.parse(new File(this.config));
-             final MultilanguagePreprocessor preprocessor = new MultilanguagePreprocessor(new Configuration(conf));
-             final Document document = preprocessor.process(doc);
 
-             final TransformerFactory transformerFactory = TransformerFactory.newInstance();
-             final Transformer transformer = transformerFactory.newTransformer();
+             final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+             parserFactory.setNamespaceAware(true);
+             final XMLReader reader = parserFactory.newSAXParser().getXMLReader();
+             reader.setEntityResolver(new CatalogResolver());
+             final MultilanguagePreprocessorFilter filter = new MultilanguagePreprocessorFilter(new Configuration(conf));
+             filter.setParent(reader);
+
+             final SAXTransformerFactory transformerFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
+             final TransformerHandler transformerHandler = transformerFactory.newTransformerHandler();
+             final Transformer transformer = transformerHandler.getTransformer();
              transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
              transformer.setOutputProperty(OutputKeys.INDENT, "no");
              transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-             if (doc.getDoctype() != null) {
-                 transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doc.getDoctype().getPublicId());
-                 transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doc.getDoctype().getSystemId());
-             }
 
-             final FileOutputStream out = new FileOutputStream(this.output);
-             final StreamResult streamResult = new StreamResult(out);
-             transformer.transform(new DOMSource(document), streamResult);
-             out.close();
+             final OutputStream out = new BufferedOutputStream(new FileOutputStream(this.output));
+             try {
+                 transformerHandler.setResult(new StreamResult(out));
+                 filter.setContentHandler(transformerHandler);
+                 filter.parse(new InputSource(new File(this.input).toURI().toString()));
+             } finally {
+                 out.close();
+             }
          } catch (final Exception e) {
              throw new BuildException(e);
          }
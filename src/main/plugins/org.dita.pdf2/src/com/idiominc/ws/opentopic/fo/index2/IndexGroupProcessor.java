@@ -47,10 +47,25 @@ See the accompanying license.txt file for applicable licenses.
 public final class IndexGroupProcessor {
     
     private DITAOTLogger logger;
+    private boolean failOnError;
+    private boolean processingFailed;
     
     public void setLogger(final DITAOTLogger logger) {
         this.logger = logger;
     }
+
+    public void setFailOnError(final boolean failOnError) {
+        this.failOnError = failOnError;
+    }
+
+    /**
+     * Test if processing failed with unassigned index entries and fail on error is enabled.
+     * 
+     * @return {@code true} if processing failed, otherwise {@code false}
+     */
+    public boolean isProcessingFailed() {
+        return processingFailed;
+    }
     
     /**
      * Puts index entries to the group they are belongs
@@ -148,9 +163,9 @@ public final class IndexGroupProcessor {
                     logger.error(MessageUtils.getInstance().getMessage("PDFJ001E", entry.toString()).toString());
                 }
             }
-            if (IndexPreprocessorTask.failOnError) {
+            if (failOnError) {
                 logger.error(MessageUtils.getInstance().getMessage("PDFJ002E").toString());
-                IndexPreprocessorTask.processingFaild=true;
+                processingFailed = true;
             }
         }
 
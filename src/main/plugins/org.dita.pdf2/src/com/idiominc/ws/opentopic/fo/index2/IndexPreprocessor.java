@@ -78,6 +78,19 @@ public final class IndexPreprocessor {
         indexDitaProcessor.setLogger(logger);
         indexGroupProcessor.setLogger(logger);
     }
+
+    public void setFailOnError(final boolean failOnError) {
+        indexGroupProcessor.setFailOnError(failOnError);
+    }
+
+    /**
+     * Test if creating index groups failed.
+     * 
+     * @return {@code true} if processing failed, otherwise {@code false}
+     */
+    public boolean isProcessingFailed() {
+        return indexGroupProcessor.isProcessingFailed();
+    }
     
     /**
      * Process index terms.
@@ -118,12 +131,25 @@ public final class IndexPreprocessor {
     }
 
     public void createAndAddIndexGroups(final IndexEntry[] theIndexEntries, final IndexConfiguration theConfiguration, final Document theDocument, final Locale theLocale) {
+        final Element rootElement = theDocument.getDocumentElement();
+        rootElement.appendChild(createIndexGroups(theIndexEntries, theConfiguration, theDocument, theLocale));
+    }
+
+
+    /**
+     * Create index groups element.
+     * 
+     * @param theIndexEntries index entries
+     * @param theConfiguration index configuration
+     * @param theDocument document used to create nodes
+     * @param theLocale index locale
+     * @return index groups element, not attached to the document
+     */
+    Element createIndexGroups(final IndexEntry[] theIndexEntries, final IndexConfiguration theConfiguration, final Document theDocument, final Locale theLocale) {
         final IndexComparator indexEntryComparator = new IndexComparator(theLocale);
 
         final IndexGroup[] indexGroups = indexGroupProcessor.process(theIndexEntries, theConfiguration, theLocale);
 
-        final Element rootElement = theDocument.getDocumentElement();
-
         final Element indexGroupsElement = theDocument.createElementNS(namespace_url, "index.groups");
         indexGroupsElement.setPrefix(prefix);
 
@@ -145,7 +171,17 @@ public final class IndexPreprocessor {
             indexGroupsElement.appendChild(groupElement);
         }
 
-        rootElement.appendChild(indexGroupsElement);
+        return indexGroupsElement;
+    }
+
+
+    String getPrefix() {
+        return prefix;
+    }
+
+
+    String getNamespace() {
+        return namespace_url;
     }
 
 
@@ -175,7 +211,7 @@ public final class IndexPreprocessor {
         }
     }
 
-    private Node[] processIndexNode(final Node theNode, final Document theTargetDocument, final IndexEntryFoundListener theIndexEntryFoundListener) {
+    Node[] processIndexNode(final Node theNode, final Document theTargetDocument, final IndexEntryFoundListener theIndexEntryFoundListener) {
         theNode.normalize();
 
         boolean ditastyle = false;
@@ -0,0 +1,371 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package com.idiominc.ws.opentopic.fo.index2;
+
+import static org.dita.dost.util.Constants.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.sax.TransformerHandler;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import com.idiominc.ws.opentopic.fo.index2.configuration.IndexConfiguration;
+
+/**
+ * Streaming variant of {@link IndexPreprocessor#process(Document)}.
+ *
+ * <p>Content outside index terms is passed through as is. Each top level index
+ * term element is collected into a small DOM fragment, processed with
+ * {@link IndexPreprocessor} and written out as index entry elements, and the
+ * index groups are written at the end of the root element. Memory use depends
+ * on the size of the index, not on the size of the document.</p>
+ *
+ * <p>If the content handler is a {@link TransformerHandler}, the document type
+ * declaration of the input is copied to its output properties.</p>
+ */
+public final class IndexPreprocessorFilter extends XMLFilterImpl implements LexicalHandler {
+
+    private static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+
+    private final IndexPreprocessor preprocessor;
+    private final IndexConfiguration configuration;
+    private final Locale locale;
+    /** Document used to build index term fragments. */
+    private final Document document;
+    private final List<IndexEntry> indexEntries = new ArrayList<IndexEntry>();
+    private final IndexEntryFoundListener listener = new IndexEntryFoundListener() {
+        public void foundEntry(final IndexEntry theEntry) {
+            indexEntries.add(theEntry);
+        }
+    };
+    /** Element depth in the input document. */
+    private int depth;
+    /** Current node of the index term fragment, {@code null} when outside index terms. */
+    private Node current;
+    private boolean inDTD;
+    private boolean documentStarted;
+    private String doctypePublic;
+    private String doctypeSystem;
+
+    /**
+     * Create new index preprocessor filter.
+     *
+     * @param thePreprocessor index preprocessor
+     * @param theConfiguration index configuration used to create index groups
+     * @param theLocale index locale
+     */
+    public IndexPreprocessorFilter(final IndexPreprocessor thePreprocessor, final IndexConfiguration theConfiguration,
+            final Locale theLocale) {
+        this.preprocessor = thePreprocessor;
+        this.configuration = theConfiguration;
+        this.locale = theLocale;
+        final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        try {
+            document = documentBuilderFactory.newDocumentBuilder().newDocument();
+        } catch (final ParserConfigurationException e) {
+            throw new RuntimeException("Unable to create a document builder: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get index entries found in the document.
+     *
+     * @return index entries in document order
+     */
+    public IndexEntry[] getIndexEntries() {
+        return indexEntries.toArray(new IndexEntry[indexEntries.size()]);
+    }
+
+    @Override
+    public void parse(final InputSource input) throws SAXException, IOException {
+        final XMLReader parent = getParent();
+        if (parent != null) {
+            try {
+                parent.setProperty(LEXICAL_HANDLER_PROPERTY, this);
+            } catch (final SAXNotRecognizedException e) {
+                // comments are not preserved
+            } catch (final SAXNotSupportedException e) {
+                // comments are not preserved
+            }
+        }
+        super.parse(input);
+    }
+
+    // ContentHandler methods
+
+    @Override
+    public void startDocument() throws SAXException {
+        indexEntries.clear();
+        depth = 0;
+        current = null;
+        inDTD = false;
+        documentStarted = false;
+        doctypePublic = null;
+        doctypeSystem = null;
+        // output is started at the first event after the document type declaration
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        startOutput();
+        getContentHandler().endDocument();
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+            throws SAXException {
+        depth++;
+        if (current == null && !isIndexElement(atts)) {
+            startOutput();
+            if (depth == 1) {
+                getContentHandler().startPrefixMapping(preprocessor.getPrefix(), preprocessor.getNamespace());
+            }
+            getContentHandler().startElement(uri, localName, qName, atts);
+            return;
+        }
+
+        final Element element = document.createElementNS(uri.isEmpty() ? null : uri, qName);
+        for (int i = 0; i < atts.getLength(); i++) {
+            final String attUri = atts.getURI(i);
+            element.setAttributeNS(attUri.isEmpty() ? null : attUri, atts.getQName(i), atts.getValue(i));
+        }
+        if (current != null) {
+            current.appendChild(element);
+        }
+        current = element;
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+        depth--;
+        if (current == null) {
+            if (depth == 0) {
+                writeIndexGroups();
+            }
+            getContentHandler().endElement(uri, localName, qName);
+            if (depth == 0) {
+                getContentHandler().endPrefixMapping(preprocessor.getPrefix());
+            }
+            return;
+        }
+
+        final Node parent = current.getParentNode();
+        if (parent == null) {
+            final Node indexNode = current;
+            current = null;
+            startOutput();
+            for (final Node node : preprocessor.processIndexNode(indexNode, document, listener)) {
+                writeNode(node);
+            }
+        } else {
+            current = parent;
+        }
+    }
+
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+        if (current == null) {
+            startOutput();
+            getContentHandler().startPrefixMapping(prefix, uri);
+        }
+    }
+
+    @Override
+    public void endPrefixMapping(final String prefix) throws SAXException {
+        if (current == null) {
+            getContentHandler().endPrefixMapping(prefix);
+        }
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        if (current == null) {
+            startOutput();
+            getContentHandler().characters(ch, start, length);
+        } else {
+            final Node last = current.getLastChild();
+            if (last != null && last.getNodeType() == Node.TEXT_NODE) {
+                ((org.w3c.dom.Text) last).appendData(new String(ch, start, length));
+            } else {
+                current.appendChild(document.createTextNode(new String(ch, start, length)));
+            }
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+        characters(ch, start, length);
+    }
+
+    @Override
+    public void processingInstruction(final String target, final String data) throws SAXException {
+        if (current == null) {
+            startOutput();
+            getContentHandler().processingInstruction(target, data);
+        } else {
+            current.appendChild(document.createProcessingInstruction(target, data));
+        }
+    }
+
+    // LexicalHandler methods
+
+    @Override
+    public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+        inDTD = true;
+        doctypePublic = publicId;
+        doctypeSystem = systemId;
+    }
+
+    @Override
+    public void endDTD() throws SAXException {
+        inDTD = false;
+    }
+
+    @Override
+    public void startEntity(final String name) throws SAXException {
+        // NOOP
+    }
+
+    @Override
+    public void endEntity(final String name) throws SAXException {
+        // NOOP
+    }
+
+    @Override
+    public void startCDATA() throws SAXException {
+        // CDATA sections are written as text
+    }
+
+    @Override
+    public void endCDATA() throws SAXException {
+        // CDATA sections are written as text
+    }
+
+    @Override
+    public void comment(final char[] ch, final int start, final int length) throws SAXException {
+        if (inDTD) {
+            return;
+        }
+        if (current == null) {
+            startOutput();
+            if (getContentHandler() instanceof LexicalHandler) {
+                ((LexicalHandler) getContentHandler()).comment(ch, start, length);
+            }
+        } else {
+            current.appendChild(document.createComment(new String(ch, start, length)));
+        }
+    }
+
+    // Private methods
+
+    /**
+     * Check if element is an index term element or specialization of one.
+     */
+    private boolean isIndexElement(final Attributes atts) {
+        return TOPIC_INDEXTERM.matches(atts)
+                || INDEXING_D_INDEX_SORT_AS.matches(atts)
+                || INDEXING_D_INDEX_SEE.matches(atts)
+                || INDEXING_D_INDEX_SEE_ALSO.matches(atts);
+    }
+
+    /**
+     * Start output document if not started yet.
+     */
+    private void startOutput() throws SAXException {
+        if (documentStarted) {
+            return;
+        }
+        documentStarted = true;
+        final ContentHandler handler = getContentHandler();
+        if (handler instanceof TransformerHandler) {
+            final TransformerHandler transformerHandler = (TransformerHandler) handler;
+            if (doctypePublic != null) {
+                transformerHandler.getTransformer().setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doctypePublic);
+            }
+            if (doctypeSystem != null) {
+                transformerHandler.getTransformer().setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doctypeSystem);
+            }
+        }
+        handler.startDocument();
+    }
+
+    /**
+     * Create index groups and write them.
+     */
+    private void writeIndexGroups() throws SAXException {
+        final Element indexGroups = preprocessor.createIndexGroups(getIndexEntries(), configuration, document, locale);
+        writeNode(indexGroups);
+    }
+
+    /**
+     * Write DOM node as SAX events.
+     */
+    private void writeNode(final Node node) throws SAXException {
+        final ContentHandler handler = getContentHandler();
+        switch (node.getNodeType()) {
+        case Node.ELEMENT_NODE:
+            final AttributesImpl atts = new AttributesImpl();
+            final NamedNodeMap attrs = node.getAttributes();
+            for (int i = 0; i < attrs.getLength(); i++) {
+                final Attr attr = (Attr) attrs.item(i);
+                if (attr.getNodeName().equals("xmlns") || attr.getNodeName().startsWith("xmlns:")) {
+                    continue;
+                }
+                atts.addAttribute(attr.getNamespaceURI() != null ? attr.getNamespaceURI() : "",
+                                  attr.getLocalName() != null ? attr.getLocalName() : attr.getNodeName(),
+                                  attr.getNodeName(), "CDATA", attr.getNodeValue());
+            }
+            final String uri = node.getNamespaceURI() != null ? node.getNamespaceURI() : "";
+            final String localName = node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+            handler.startElement(uri, localName, node.getNodeName(), atts);
+            final NodeList children = node.getChildNodes();
+            for (int i = 0; i < children.getLength(); i++) {
+                writeNode(children.item(i));
+            }
+            handler.endElement(uri, localName, node.getNodeName());
+            break;
+        case Node.TEXT_NODE:
+        case Node.CDATA_SECTION_NODE:
+            final char[] data = node.getNodeValue().toCharArray();
+            handler.characters(data, 0, data.length);
+            break;
+        case Node.PROCESSING_INSTRUCTION_NODE:
+            handler.processingInstruction(node.getNodeName(), node.getNodeValue());
+            break;
+        case Node.COMMENT_NODE:
+            if (handler instanceof LexicalHandler) {
+                final char[] comment = node.getNodeValue().toCharArray();
+                ((LexicalHandler) handler).comment(comment, 0, comment.length);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+}
@@ -8,17 +8,22 @@ import org.apache.tools.ant.Task;
 import org.apache.tools.ant.Project;
 import org.apache.xml.resolver.tools.CatalogResolver;
 import org.dita.dost.log.DITAOTAntLogger;
-import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Locale;
 
 /*
@@ -59,8 +64,7 @@ extends Task {
     private String catalogs = null;
     private String locale = "ja";
     private String indexConfig = "";
-    public static boolean failOnError = false;
-    public static boolean processingFaild = false;
+    private boolean failOnError = false;
     private static final String prefix = "opentopic-index";
     private static final String namespace_url = "http://www.idiominc.com/opentopic/index";
 
@@ -75,10 +79,9 @@ extends Task {
             System.setProperty("xml.catalog.files", this.catalogs);
         }
 
+        OutputStream out = null;
         try {
-            final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            final DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-            documentBuilder.setEntityResolver(new CatalogResolver() {
+            final CatalogResolver resolver = new CatalogResolver() {
                 @Override
                 public InputSource resolveEntity(final String publicId, String systemId) {
                     // strip path from DTD location
@@ -90,21 +93,13 @@ extends Task {
                     // resolve real location with XMLCatalogResolver
                     return super.resolveEntity(publicId, systemId);
                 }
-            });
-
-            final Document doc = documentBuilder.parse(input);
-            final IndexPreprocessor preprocessor = new IndexPreprocessor(this.prefix, this.namespace_url);
-            preprocessor.setLogger(new DITAOTAntLogger(getProject()));
-
-            // Walks through source document and builds an array of IndexEntry and builds
-            // new Document with pre-processed index entries included.
-            final IndexPreprocessResult result = preprocessor.process(doc);
-
-            final Document resultDoc = result.getDocument();
+            };
+            final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+            final DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            documentBuilder.setEntityResolver(resolver);
 
             // Parse index configuration from file specified from ANT script
             final IndexConfiguration configuration = IndexConfiguration.parse(documentBuilder.parse(this.indexConfig));
-            final IndexEntry[] indexEntries = result.getIndexEntries();
 
             Locale loc;
             // Split passed locale string to lang and country codes
@@ -113,34 +108,47 @@ extends Task {
             } else {
                 loc = new Locale(this.locale);
             }
-            // Append index groups to the end of document
-            preprocessor.createAndAddIndexGroups(indexEntries, configuration, resultDoc, loc);
 
-            if (processingFaild) {
-                setActiveProjectProperty("ws.runtime.index.preprocess.fail","true");
-            }
-            // Serialize processed document
-            final TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            final Transformer transformer = transformerFactory.newTransformer();
+            final IndexPreprocessor preprocessor = new IndexPreprocessor(this.prefix, this.namespace_url);
+            preprocessor.setLogger(new DITAOTAntLogger(getProject()));
+            preprocessor.setFailOnError(failOnError);
+
+            final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+            parserFactory.setNamespaceAware(true);
+            final XMLReader reader = parserFactory.newSAXParser().getXMLReader();
+            reader.setEntityResolver(resolver);
+
+            // Stream source document, replacing index terms with pre-processed index entries
+            // and appending index groups to the end of document
+            final IndexPreprocessorFilter filter = new IndexPreprocessorFilter(preprocessor, configuration, loc);
+            filter.setParent(reader);
+
+            final SAXTransformerFactory transformerFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
+            final TransformerHandler serializer = transformerFactory.newTransformerHandler();
+            final Transformer transformer = serializer.getTransformer();
             transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
             transformer.setOutputProperty(OutputKeys.INDENT, "no");
             transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
             transformer.setOutputProperty(OutputKeys.STANDALONE, "yes");
-            if (doc.getDoctype() != null) {
-                if (null != doc.getDoctype().getPublicId()) {
-                    transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doc.getDoctype().getPublicId());
-                }
-                if (null != doc.getDoctype().getSystemId()) {
-                    transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doc.getDoctype().getSystemId());
-                }
+            out = new BufferedOutputStream(new FileOutputStream(this.output));
+            serializer.setResult(new StreamResult(out));
+            filter.setContentHandler(serializer);
+            filter.parse(new InputSource(input));
+
+            if (preprocessor.isProcessingFailed()) {
+                setActiveProjectProperty("ws.runtime.index.preprocess.fail","true");
             }
-            final FileOutputStream out = new FileOutputStream(this.output);
-            final StreamResult streamResult = new StreamResult(out);
-            transformer.transform(new DOMSource(resultDoc), streamResult);
-            out.close();
         } catch (final Exception e) {
             e.printStackTrace();
             throw new BuildException(e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (final IOException e) {
+                    // ignore
+                }
+            }
         }
     }
 
@@ -0,0 +1,108 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package com.idiominc.ws.opentopic.fo.i18n;
+
+import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.custommonkey.xmlunit.XMLUnit;
+import org.dita.dost.TestUtils;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+public class MultilanguagePreprocessorFilterTest {
+
+    private static final File srcDir = new File(TestUtils.getResourceDir(MultilanguagePreprocessorFilterTest.class), "src");
+    private static Configuration configuration;
+    private static DocumentBuilder builder;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        builder = factory.newDocumentBuilder();
+        configuration = new Configuration(builder.parse(new File(srcDir, "config.xml")));
+    }
+
+    @After
+    public void tearDown() {
+        TestUtils.resetXMLUnit();
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        final File input = new File(srcDir, "test.xml");
+        final Document exp = new MultilanguagePreprocessor(configuration).process(builder.parse(input));
+        final String act = filter(input);
+
+        assertEquals(11, exp.getElementsByTagNameNS(MultilanguagePreprocessor.NAMESPACE_URL, "text-fragment").getLength());
+        XMLUnit.setNormalizeWhitespace(false);
+        XMLUnit.setIgnoreWhitespace(false);
+        XMLUnit.setIgnoreComments(false);
+        assertXMLEqual(serialize(exp), act);
+        assertCharSets(exp, builder.parse(new InputSource(new StringReader(act))));
+    }
+
+    /**
+     * Run input through the SAX filter and serialize the result.
+     */
+    private static String filter(final File input) throws Exception {
+        final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+        parserFactory.setNamespaceAware(true);
+        final XMLReader parser = parserFactory.newSAXParser().getXMLReader();
+        final MultilanguagePreprocessorFilter filter = new MultilanguagePreprocessorFilter(configuration);
+        filter.setParent(parser);
+        final TransformerHandler handler = ((SAXTransformerFactory) TransformerFactory.newInstance()).newTransformerHandler();
+        final StringWriter buf = new StringWriter();
+        handler.setResult(new StreamResult(buf));
+        filter.setContentHandler(handler);
+        filter.parse(new InputSource(input.toURI().toString()));
+        return buf.toString();
+    }
+
+    /**
+     * Compare character set of every text fragment in document order.
+     */
+    private static void assertCharSets(final Document exp, final Document act) {
+        final NodeList expFragments = exp.getElementsByTagNameNS(MultilanguagePreprocessor.NAMESPACE_URL, "text-fragment");
+        final NodeList actFragments = act.getElementsByTagNameNS(MultilanguagePreprocessor.NAMESPACE_URL, "text-fragment");
+        assertEquals(expFragments.getLength(), actFragments.getLength());
+        for (int i = 0; i < expFragments.getLength(); i++) {
+            final Element e = (Element) expFragments.item(i);
+            final Element a = (Element) actFragments.item(i);
+            assertEquals(e.getAttribute("char-set"), a.getAttribute("char-set"));
+            assertEquals(e.getTextContent(), a.getTextContent());
+        }
+    }
+
+    /**
+     * Serialize document the same way as the SAX filter result.
+     */
+    private static String serialize(final Document doc) throws Exception {
+        final StringWriter buf = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(doc), new StreamResult(buf));
+        return buf.toString();
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package com.idiominc.ws.opentopic.fo.index2;
+
+import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Locale;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.custommonkey.xmlunit.XMLUnit;
+import org.dita.dost.TestUtils;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import com.idiominc.ws.opentopic.fo.index2.configuration.IndexConfiguration;
+
+public class IndexPreprocessorFilterTest {
+
+    private static final File srcDir = new File(TestUtils.getResourceDir(IndexPreprocessorFilterTest.class), "src");
+    private static final String PREFIX = "opentopic-index";
+    private static final String NAMESPACE = "http://www.idiominc.com/opentopic/index";
+    private static IndexConfiguration configuration;
+    private static DocumentBuilder builder;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        builder = factory.newDocumentBuilder();
+        configuration = IndexConfiguration.parse(builder.parse(new File(srcDir, "config.xml")));
+    }
+
+    @After
+    public void tearDown() {
+        TestUtils.resetXMLUnit();
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        final File input = new File(srcDir, "test.xml");
+
+        final IndexPreprocessor domPreprocessor = new IndexPreprocessor(PREFIX, NAMESPACE);
+        domPreprocessor.setLogger(new TestUtils.TestLogger());
+        final IndexPreprocessResult result = domPreprocessor.process(builder.parse(input));
+        domPreprocessor.createAndAddIndexGroups(result.getIndexEntries(), configuration, result.getDocument(),
+                                                Locale.ENGLISH);
+        final Document exp = result.getDocument();
+
+        final IndexPreprocessor saxPreprocessor = new IndexPreprocessor(PREFIX, NAMESPACE);
+        saxPreprocessor.setLogger(new TestUtils.TestLogger());
+        final IndexPreprocessorFilter filter = new IndexPreprocessorFilter(saxPreprocessor, configuration,
+                                                                           Locale.ENGLISH);
+        final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+        parserFactory.setNamespaceAware(true);
+        filter.setParent(parserFactory.newSAXParser().getXMLReader());
+        final TransformerHandler handler = ((SAXTransformerFactory) TransformerFactory.newInstance()).newTransformerHandler();
+        final StringWriter act = new StringWriter();
+        handler.setResult(new StreamResult(act));
+        filter.setContentHandler(handler);
+        filter.parse(new InputSource(input.toURI().toString()));
+
+        assertFalse(domPreprocessor.isProcessingFailed());
+        assertFalse(saxPreprocessor.isProcessingFailed());
+        assertEquals(result.getIndexEntries().length, filter.getIndexEntries().length);
+        final Element groups = (Element) exp.getElementsByTagNameNS(NAMESPACE, "index.groups").item(0);
+        assertEquals(4, groups.getElementsByTagNameNS(NAMESPACE, "index.group").getLength());
+        assertEquals(1, groups.getElementsByTagNameNS(NAMESPACE, "see-childs").getLength());
+        assertEquals(1, groups.getElementsByTagNameNS(NAMESPACE, "see-also-childs").getLength());
+        final Element sortAs = (Element) groups.getElementsByTagNameNS(NAMESPACE, "index.group").item(3)
+                .getLastChild();
+        assertEquals("Zucchini", sortAs.getAttribute("value"));
+        assertEquals("Courgette", sortAs.getAttribute("sort-string"));
+        XMLUnit.setNormalizeWhitespace(false);
+        XMLUnit.setIgnoreWhitespace(false);
+        XMLUnit.setIgnoreComments(false);
+        assertXMLEqual(serialize(exp), act.toString());
+    }
+
+    /**
+     * Serialize document the same way as the SAX filter result.
+     */
+    private static String serialize(final Document doc) throws Exception {
+        final StringWriter buf = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(doc), new StreamResult(buf));
+        return buf.toString();
+    }
+
+}
@@ -33,7 +33,7 @@ import javax.xml.transform.stream.StreamResult;
 
 import org.custommonkey.xmlunit.XMLUnit;
 
-import org.dita.dost.log.DITAOTLogger;
+import org.dita.dost.log.AbstractLogger;
 import org.dita.dost.util.CatalogUtils;
 
 import org.xml.sax.Attributes;
@@ -294,7 +294,7 @@ public class TestUtils {
     /**
      * DITA-OT logger that will throw an assertion error for error messages.
      */
-    public static class TestLogger implements DITAOTLogger {
+    public static class TestLogger extends AbstractLogger {
 
         private boolean failOnError;
         
@@ -336,7 +336,7 @@ public class TestUtils {
     /**
      * DITA-OT logger that will cache messages.
      */
-    public static final class CachingLogger implements DITAOTLogger {
+    public static final class CachingLogger extends AbstractLogger {
 
         private List<Message> buf = new ArrayList<Message>();
         
@@ -115,6 +115,35 @@ public class IndexTermCollectionTest {
                 new HashSet<IndexTerm>(i.getTermList()));
     }
 
+    @Test
+    public void testAddTerms() {
+        final IndexTermCollection serial = new IndexTermCollection();
+        final IndexTermCollection merged = new IndexTermCollection();
+        final IndexTermCollection[] files = { new IndexTermCollection(), new IndexTermCollection() };
+        final String[][] terms = { { "first", "a" }, { "second", "b" }, { "first", "c" }, { "first", "a" } };
+        for (int j = 0; j < terms.length; j++) {
+            serial.addTerm(newTerm(terms[j][0], terms[j][1]));
+            files[j / 2].addTerm(newTerm(terms[j][0], terms[j][1]));
+        }
+        for (final IndexTermCollection file: files) {
+            merged.addTerms(file);
+        }
+        assertEquals(serial.getTermList(), merged.getTermList());
+        assertEquals(2, merged.getTermList().size());
+        assertEquals(2, merged.getTermList().get(0).getTargetList().size());
+    }
+
+    private static IndexTerm newTerm(final String name, final String target) {
+        final IndexTerm term = new IndexTerm();
+        term.setTermName(name);
+        term.setTermKey(name);
+        final IndexTermTarget t = new IndexTermTarget();
+        t.setTargetName(target);
+        t.setTargetURI(target);
+        term.addTarget(t);
+        return term;
+    }
+
     @Test
     public void testSort() {
         final IndexTermCollection i = IndexTermCollection.getInstantce();
@@ -0,0 +1,126 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.invoker;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.tools.ant.MagicNames;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.ProjectHelper;
+import org.dita.dost.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FanOutTaskTest {
+
+    private static final File buildFile = new File(TestUtils.getResourceDir(FanOutTaskTest.class), "src" + File.separator + "build.xml");
+    private File tempBaseDir;
+    private File tempDir;
+    private File outputDir;
+    private File logDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempBaseDir = TestUtils.createTempDir(getClass());
+        tempDir = new File(tempBaseDir, "temp");
+        outputDir = new File(tempBaseDir, "out");
+        logDir = new File(tempBaseDir, "log");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempBaseDir);
+    }
+
+    @Test
+    public void testSharedPreprocess() throws IOException {
+        run("a, b");
+
+        assertEquals(Arrays.asList("a"), readLog("gen-list"));
+        assertEquals(Collections.emptyList(), readLog("keyref"));
+        assertEquals(Arrays.asList("a", "b"), readLog("copy-image"));
+        for (final String transtype: Arrays.asList("a", "b")) {
+            final Properties stage = readStage(transtype);
+            assertEquals(transtype, stage.getProperty("transtype"));
+            assertEquals(new File(tempDir, transtype).getAbsolutePath(), stage.getProperty("temp"));
+            assertEquals(new File(new File(tempDir, transtype), "topic.xml").getAbsolutePath(),
+                         stage.getProperty("gen-list.result"));
+            assertEquals("true", stage.getProperty("gen-list.skip"));
+            assertEquals("${preprocess.copy-image.skip}", stage.getProperty("copy-image.skip"));
+            assertEquals("true", stage.getProperty("init-temp.skip"));
+            assertEquals("a", TestUtils.readFileToString(new File(new File(tempDir, transtype), "topic.xml")));
+        }
+    }
+
+    @Test
+    public void testSeparatePreprocess() throws IOException {
+        run("a, c, b");
+
+        assertEquals(Arrays.asList("a", "c"), readLog("gen-list"));
+        assertEquals(Arrays.asList("c"), readLog("keyref"));
+        assertEquals(Arrays.asList("a", "b", "c"), readLog("copy-image"));
+        final Properties c = readStage("c");
+        assertEquals(new File(tempDir, "c").getAbsolutePath(), c.getProperty("temp"));
+        assertEquals(new File(new File(tempDir, "c"), "topic.xml").getAbsolutePath(),
+                     c.getProperty("gen-list.result"));
+        assertEquals("true", c.getProperty("gen-list.skip"));
+        assertEquals("c", TestUtils.readFileToString(new File(new File(tempDir, "c"), "topic.xml")));
+        assertEquals("a", TestUtils.readFileToString(new File(new File(tempDir, "b"), "topic.xml")));
+    }
+
+    @Test
+    public void testSingleTranstype() throws IOException {
+        run("c");
+
+        assertEquals(Arrays.asList("c"), readLog("gen-list"));
+        assertEquals(Arrays.asList("c"), Arrays.asList(tempDir.list()));
+        assertEquals("c", readStage("c").getProperty("transtype"));
+    }
+
+    private void run(final String transtypes) {
+        final Project project = new Project();
+        project.init();
+        project.setUserProperty(MagicNames.ANT_FILE, buildFile.getAbsolutePath());
+        project.setUserProperty("transtypes", transtypes);
+        project.setUserProperty("dita.temp.dir", tempDir.getAbsolutePath());
+        project.setUserProperty("output.dir", outputDir.getAbsolutePath());
+        project.setUserProperty("log.dir", logDir.getAbsolutePath());
+        ProjectHelper.configureProject(project, buildFile);
+        project.executeTarget("fan-out");
+    }
+
+    private List<String> readLog(final String target) throws IOException {
+        final File log = new File(logDir, target + ".log");
+        if (!log.exists()) {
+            return Collections.emptyList();
+        }
+        // output stages run in parallel
+        final List<String> res = Arrays.asList(TestUtils.readFileToString(log).trim().split("\\s+"));
+        Collections.sort(res);
+        return res;
+    }
+
+    private Properties readStage(final String transtype) throws IOException {
+        final Properties res = new Properties();
+        final InputStream in = new FileInputStream(new File(new File(outputDir, transtype), "stage.properties"));
+        try {
+            res.load(in);
+        } finally {
+            in.close();
+        }
+        return res;
+    }
+
+}
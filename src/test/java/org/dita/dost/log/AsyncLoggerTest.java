@@ -0,0 +1,188 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.log;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dita.dost.TestUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AsyncLoggerTest {
+
+    private static final File resourceDir = TestUtils.getResourceDir(MessageUtilsTest.class);
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        final InputStream in = new FileInputStream(new File(resourceDir, "messages.xml"));
+        try {
+            MessageUtils.getInstance().loadMessages(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testOrder() throws Exception {
+        final CollectingLogger delegate = new CollectingLogger();
+        final AsyncLogger logger = new AsyncLogger(delegate, null, 4);
+        for (int i = 0; i < 100; i++) {
+            logger.info(Integer.toString(i));
+        }
+        logger.close();
+        assertEquals(100, delegate.messages.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("INFO " + i, delegate.messages.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        final CollectingLogger delegate = new CollectingLogger();
+        final AsyncLogger logger = new AsyncLogger(delegate, null, 16);
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int id = t;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 250; i++) {
+                        logger.warn(id + ":" + i);
+                    }
+                }
+            });
+        }
+        for (final Thread t: threads) {
+            t.start();
+        }
+        for (final Thread t: threads) {
+            t.join();
+        }
+        logger.close();
+        assertEquals(1000, delegate.messages.size());
+    }
+
+    @Test
+    public void testLog() throws Exception {
+        final CollectingLogger delegate = new CollectingLogger();
+        final AsyncLogger logger = new AsyncLogger(delegate, null);
+        logger.log("XXX234E", "foo", "bar baz");
+        logger.close();
+        assertEquals(Collections.singletonList("ERROR [XXX234E][ERROR] Error foo reason bar baz. Error foo response bar baz."),
+                     delegate.messages);
+    }
+
+    @Test
+    public void testFormat() throws Exception {
+        final CollectingLogger delegate = new CollectingLogger();
+        final AsyncLogger logger = new AsyncLogger(delegate, null);
+        logger.info("Processing {0}", new File("a.dita"));
+        logger.debug("Processing {0} to {1}", "a.dita", "b.dita");
+        logger.close();
+        assertEquals(Arrays.asList("INFO Processing a.dita", "DEBUG Processing a.dita to b.dita"),
+                     delegate.messages);
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        final CollectingLogger delegate = new CollectingLogger();
+        final AsyncLogger logger = new AsyncLogger(delegate, null, 4);
+        for (int i = 0; i < 10; i++) {
+            logger.info(Integer.toString(i));
+        }
+        logger.flush();
+        assertEquals(10, delegate.messages.size());
+        logger.close();
+        logger.flush();
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final CollectingLogger delegate = new CollectingLogger() {
+            @Override
+            public void warn(final String msg) {
+                throw new IllegalStateException("Failed " + msg);
+            }
+        };
+        final AsyncLogger logger = new AsyncLogger(delegate, null);
+        logger.warn("foo");
+        logger.info("bar");
+        try {
+            logger.close();
+            fail();
+        } catch (final IOException e) {
+            assertEquals("Failed foo", e.getCause().getMessage());
+        }
+        assertEquals(Collections.singletonList("INFO bar"), delegate.messages);
+    }
+
+    @Test
+    public void testJSON() throws Exception {
+        final StringWriter json = new StringWriter();
+        final AsyncLogger logger = new AsyncLogger(null, json);
+        final LogContext previous = LogContext.bind(LogContext.EMPTY.withModule("TestModule").withFile("a \"b\".dita"));
+        try {
+            logger.debug("line\nbreak");
+        } finally {
+            LogContext.bind(previous);
+        }
+        logger.close();
+        final String act = json.toString();
+        assertTrue(act.startsWith("{\"time\":"));
+        assertTrue(act.endsWith("}\n"));
+        assertTrue(act.contains(",\"level\":\"DEBUG\","));
+        assertTrue(act.contains(",\"module\":\"TestModule\","));
+        assertTrue(act.contains(",\"file\":\"a \\\"b\\\".dita\","));
+        assertTrue(act.contains(",\"message\":\"line\\nbreak\"}"));
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        MessageUtils.getInstance().loadDefaultMessages();
+    }
+
+    private static class CollectingLogger extends AbstractLogger {
+
+        final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void info(final String msg) {
+            messages.add("INFO " + msg);
+        }
+
+        @Override
+        public void warn(final String msg) {
+            messages.add("WARN " + msg);
+        }
+
+        @Override
+        public void error(final String msg) {
+            messages.add("ERROR " + msg);
+        }
+
+        @Override
+        public void error(final String msg, final Throwable t) {
+            messages.add("ERROR " + msg);
+        }
+
+        @Override
+        public void debug(final String msg) {
+            messages.add("DEBUG " + msg);
+        }
+
+    }
+
+}
@@ -91,6 +91,27 @@ public class MessageUtilsTest {
         assertEquals(exp.toString(), MessageUtils.getInstance().getMessage("XXX234E", "foo", "bar baz", "qux").toString());
     }
 
+    @Test
+    public void testWriteCatalog() throws Exception {
+        final File tempDir = TestUtils.createTempDir(MessageUtilsTest.class);
+        try {
+            final File catalog = new File(tempDir, "messages.bin");
+            MessageUtils.writeCatalog(new File(resourceDir, "messages.xml"), catalog);
+            final InputStream in = new FileInputStream(catalog);
+            try {
+                MessageUtils.getInstance().loadCatalog(in);
+            } finally {
+                in.close();
+            }
+            assertEquals(new MessageBean("XXX123F", "FATAL", "Fatal reason.","Fatal response.").toString(),
+                         MessageUtils.getInstance().getMessage("XXX123F").toString());
+            assertEquals(new MessageBean("XXX234E", "ERROR", "Error foo reason bar baz.", "Error foo response bar baz.").toString(),
+                         MessageUtils.getInstance().getMessage("XXX234E", "foo", "bar baz").toString());
+        } finally {
+            TestUtils.forceDelete(tempDir);
+        }
+    }
+
     @AfterClass
     public static void tearDown() throws Exception {
         MessageUtils.getInstance().loadDefaultMessages();
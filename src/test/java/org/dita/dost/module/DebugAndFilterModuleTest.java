@@ -5,8 +5,12 @@
 package org.dita.dost.module;
 
 import static org.dita.dost.util.Constants.ANT_INVOKER_EXT_PARAM_GENERATE_DEBUG_ATTR;
+import static org.dita.dost.util.Constants.ANT_INVOKER_EXT_PARAM_PROFILES;
 import static org.dita.dost.util.Constants.ANT_INVOKER_EXT_PARAM_TRANSTYPE;
+import static org.dita.dost.util.Constants.ANT_INVOKER_EXT_PARAN_FORCE_UNIQUE;
+import static org.dita.dost.util.Constants.ANT_INVOKER_PARAM_DITAVAL;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.dita.dost.util.URLUtils.toURI;
@@ -15,6 +19,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -54,9 +59,11 @@ public class DebugAndFilterModuleTest {
     }
     
     @Before
-    public void setUp() throws IOException, DITAOTException {
+    public void setUp() throws IOException {
         tempDir = TestUtils.createTempDir(getClass());
+    }
 
+    private void runDefault() throws IOException, DITAOTException {
         inputDir = new File(resourceDir, "input");
         final File inputMap = new File(inputDir, "maps" + File.separator + "root-map-01.ditamap");
         final File outDir = new File(tempDir, "out");
@@ -99,7 +106,8 @@ public class DebugAndFilterModuleTest {
     }
 
     @Test
-    public void testGeneratedFiles() throws SAXException, IOException {
+    public void testGeneratedFiles() throws SAXException, IOException, DITAOTException {
+        runDefault();
         final File[] files = {
                 new File("maps", "root-map-01.ditamap"),
                 new File("topics", "target-topic-a.xml"),
@@ -127,6 +135,84 @@ public class DebugAndFilterModuleTest {
         }
     }
 
+    @Test
+    public void testProfiles() throws Exception {
+        final File profilesDir = new File(resourceDir, "profiles");
+        final File ditaval = new File(profilesDir, "linux.ditaval");
+        final Map<String, String> forked = new HashMap<String, String>();
+        forked.put(ANT_INVOKER_EXT_PARAM_PROFILES, ditaval.getAbsolutePath());
+        final File forkedDir = runProfiles("forked", forked);
+        final Map<String, String> single = new HashMap<String, String>();
+        single.put(ANT_INVOKER_PARAM_DITAVAL, ditaval.getAbsolutePath());
+        final File singleDir = runProfiles("single", single);
+
+        final File profileDir = new File(forkedDir, "profiles" + File.separator + "linux");
+        final Job exp = new Job(singleDir);
+        final Job act = new Job(profileDir);
+        assertEquals(getFiles(exp), getFiles(act));
+        assertEquals(new HashSet<String>(Arrays.asList("maps/map.ditamap", "topics/a.dita", "topics/b.dita",
+                                                       "topics/b_2.dita")),
+                     getFiles(act));
+        for (final String f: getFiles(exp)) {
+            assertEquals(f,
+                         TestUtils.readXmlToString(new File(singleDir, f), false, true),
+                         TestUtils.readXmlToString(new File(profileDir, f), false, true));
+        }
+        // copy-to targets of the main profile are not created in the profile
+        assertTrue(new File(forkedDir, "topics" + File.separator + "a_2.dita").exists());
+        assertTrue(new File(forkedDir, "topics" + File.separator + "b_3.dita").exists());
+        assertFalse(new File(profileDir, "topics" + File.separator + "a_2.dita").exists());
+        assertFalse(new File(profileDir, "topics" + File.separator + "b_3.dita").exists());
+    }
+
+    /**
+     * Run debug and filter with force unique on the profiles test input.
+     *
+     * @param name name of the temporary directory
+     * @param params additional module parameters
+     * @return temporary directory
+     */
+    private File runProfiles(final String name, final Map<String, String> params) throws IOException, DITAOTException {
+        final File input = new File(resourceDir, "profiles" + File.separator + "input");
+        final File inputMap = new File(input, "maps" + File.separator + "map.ditamap");
+        final File outDir = new File(tempDir, name + "-out");
+        final File temp = new File(tempDir, name);
+        TestUtils.copy(new File(resourceDir, "profiles" + File.separator + "temp"), temp);
+        final Job job = new Job(temp);
+        for (final Job.FileInfo fi: job.getFileInfo()) {
+            job.add(new Job.FileInfo.Builder(fi).src(input.toURI().resolve(fi.uri)).build());
+        }
+        job.setInputFile(inputMap.getAbsoluteFile());
+        job.setGeneratecopyouter("1");
+        job.setOutputDir(outDir);
+        job.setProperty("user.input.dir", input.getAbsolutePath());
+        job.write();
+
+        final PipelineHashIO pipelineInput = new PipelineHashIO();
+        pipelineInput.setAttribute("basedir", input.getAbsolutePath());
+        pipelineInput.setAttribute("ditadir", ditaDir.getAbsolutePath());
+        pipelineInput.setAttribute("validate", "false");
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAN_FORCE_UNIQUE, Boolean.TRUE.toString());
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE, "xhtml");
+        for (final Map.Entry<String, String> e: params.entrySet()) {
+            pipelineInput.setAttribute(e.getKey(), e.getValue());
+        }
+
+        final AbstractFacade facade = new PipelineFacade();
+        facade.setLogger(new TestUtils.TestLogger());
+        facade.setJob(new Job(temp));
+        facade.execute("DebugAndFilter", pipelineInput);
+        return temp;
+    }
+
+    private static Set<String> getFiles(final Job job) {
+        final Set<String> res = new HashSet<String>();
+        for (final Job.FileInfo fi: job.getFileInfo()) {
+            res.add(fi.uri.toString());
+        }
+        return res;
+    }
+
     @After
     public void tearDown() throws IOException {
         TestUtils.forceDelete(tempDir);
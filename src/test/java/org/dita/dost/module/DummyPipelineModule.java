@@ -9,6 +9,7 @@ import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.module.AbstractPipelineModule;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
+import org.dita.dost.util.BuildContext;
 import org.dita.dost.util.Job;
 
 /**
@@ -36,4 +37,9 @@ public class DummyPipelineModule implements AbstractPipelineModule {
         // Noop
     }
 
+    @Override
+    public void setContext(final BuildContext context) {
+        // Noop
+    }
+
 }
\ No newline at end of file
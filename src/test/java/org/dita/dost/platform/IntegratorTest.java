@@ -10,8 +10,11 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Properties;
@@ -106,6 +109,41 @@ public class IntegratorTest {
 
     }
 
+    @Test
+    public void testExecuteUpToDate() throws Exception {
+        final File libDir = new File(tempDir, "lib");
+        if (!libDir.exists() && !libDir.mkdirs()) {
+            throw new IOException("Failed to create directory " + libDir);
+        }
+        final File buildFile = new File(tempDir, "build.xml");
+
+        final Integrator first = new Integrator();
+        first.setDitaDir(tempDir);
+        first.setProperties(new File(tempDir, "integrator.properties"));
+        first.execute();
+        assertTrue(buildFile.setLastModified(0L));
+
+        final Integrator unchanged = new Integrator();
+        unchanged.setDitaDir(tempDir);
+        unchanged.setProperties(new File(tempDir, "integrator.properties"));
+        unchanged.execute();
+        assertEquals(0L, buildFile.lastModified());
+
+        final File descFile = new File(tempDir, "plugins" + File.separator + "dummy" + File.separator + "plugin.xml");
+        final String desc = TestUtils.readFileToString(descFile);
+        final Writer out = new OutputStreamWriter(new FileOutputStream(descFile), "UTF-8");
+        try {
+            out.write(desc + "<!-- changed -->");
+        } finally {
+            out.close();
+        }
+        final Integrator changed = new Integrator();
+        changed.setDitaDir(tempDir);
+        changed.setProperties(new File(tempDir, "integrator.properties"));
+        changed.execute();
+        assertTrue(buildFile.lastModified() != 0L);
+    }
+
     private Properties getProperties(final File f) throws IOException {
         final Properties p = new Properties();
         InputStream in = null;
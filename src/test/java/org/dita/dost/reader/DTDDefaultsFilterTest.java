@@ -0,0 +1,145 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.reader;
+
+import static org.dita.dost.util.Constants.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.dita.dost.TestUtils;
+import org.dita.dost.util.XMLUtils;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.Attributes2;
+import org.xml.sax.ext.DefaultHandler2;
+
+public class DTDDefaultsFilterTest {
+
+    private static final File srcDir = new File(TestUtils.getResourceDir(DTDDefaultsFilterTest.class), "src");
+    private static final File testFile = new File(srcDir, "test.xml");
+
+    @Test
+    public void testParse() throws Exception {
+        for (final boolean namespacePrefixes: new boolean[] { false, true }) {
+            for (final boolean gramcache: new boolean[] { false, true }) {
+                final XMLReader validating = XMLUtils.getXMLReader();
+                validating.setFeature(FEATURE_NAMESPACE_PREFIX, namespacePrefixes);
+                validating.setFeature(FEATURE_VALIDATION, true);
+                final String exp = parse(validating);
+
+                final XMLReader filter = new DTDDefaultsFilter(XMLUtils.getXMLReader(), gramcache);
+                filter.setFeature(FEATURE_NAMESPACE_PREFIX, namespacePrefixes);
+                final String act = parse(filter);
+
+                assertEquals(exp, act);
+            }
+        }
+    }
+
+    @Test
+    public void testDefaults() throws Exception {
+        final String act = parse(new DTDDefaultsFilter(XMLUtils.getXMLReader(), false));
+        assertTrue(act.contains("<doc {}ids|ids[IDREFS,true,true]=x y {}kind|kind[NMTOKEN,true,true]=y"
+                                + " {urn:p}v|p:v[CDATA,true,false]=pv {}class|class[CDATA,true,false]=- topic/doc \n"));
+        assertTrue(act.contains("<a {}t|t[NMTOKENS,true,true]=a b {}c|c[CDATA,true,true]=  keep   {}z|z[CDATA,true,false]=zed\n"));
+        assertTrue(act.contains("start entity txt\ncharacters plain \u00a0text\nend entity txt\n"));
+    }
+
+    @Test
+    public void testEntities() throws Exception {
+        final String act = parse(new DTDDefaultsFilter(XMLUtils.getXMLReader(), false));
+        assertTrue(act.contains("<a {}c|c[CDATA,true,true]=x plain \u00a0text y {}t|t[NMTOKENS,true,true]=internal"));
+        assertTrue(act.contains("start entity mark\n<b {}c|c[CDATA,true,false]=bee\n</b\ncharacters  mark\nend entity mark\n"));
+        assertTrue(act.contains("start entity ext\ncharacters "));
+        assertTrue(act.contains("<b {}c|c[CDATA,true,false]=bee\n</b\nend entity ext\n"));
+    }
+
+    /**
+     * Parse test file and record SAX events outside the DTD.
+     */
+    private static String parse(final XMLReader reader) throws Exception {
+        final StringBuilder buf = new StringBuilder();
+        final DefaultHandler2 handler = new DefaultHandler2() {
+            private boolean inDTD;
+            @Override
+            public void startPrefixMapping(final String prefix, final String uri) {
+                buf.append("start prefix ").append(prefix).append('=').append(uri).append('\n');
+            }
+            @Override
+            public void endPrefixMapping(final String prefix) {
+                buf.append("end prefix ").append(prefix).append('\n');
+            }
+            @Override
+            public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+                buf.append('<').append(qName);
+                final Attributes2 atts2 = (Attributes2) atts;
+                for (int i = 0; i < atts.getLength(); i++) {
+                    buf.append(" {").append(atts.getURI(i)).append('}').append(atts.getLocalName(i))
+                        .append('|').append(atts.getQName(i))
+                        .append('[').append(atts.getType(i)).append(',').append(atts2.isDeclared(i))
+                        .append(',').append(atts2.isSpecified(i)).append("]=").append(atts.getValue(i));
+                }
+                buf.append('\n');
+            }
+            @Override
+            public void endElement(final String uri, final String localName, final String qName) {
+                buf.append("</").append(qName).append('\n');
+            }
+            @Override
+            public void characters(final char[] ch, final int start, final int length) {
+                buf.append("characters ").append(ch, start, length).append('\n');
+            }
+            @Override
+            public void ignorableWhitespace(final char[] ch, final int start, final int length) {
+                buf.append("whitespace ").append(ch, start, length).append('\n');
+            }
+            @Override
+            public void processingInstruction(final String target, final String data) {
+                buf.append("pi ").append(target).append(' ').append(data).append('\n');
+            }
+            @Override
+            public void skippedEntity(final String name) {
+                buf.append("skipped ").append(name).append('\n');
+            }
+            @Override
+            public void startDTD(final String name, final String publicId, final String systemId) {
+                buf.append("start DTD ").append(name).append(' ').append(systemId).append('\n');
+                inDTD = true;
+            }
+            @Override
+            public void endDTD() {
+                inDTD = false;
+                buf.append("end DTD\n");
+            }
+            @Override
+            public void startEntity(final String name) {
+                if (!inDTD) {
+                    buf.append("start entity ").append(name).append('\n');
+                }
+            }
+            @Override
+            public void endEntity(final String name) {
+                if (!inDTD) {
+                    buf.append("end entity ").append(name).append('\n');
+                }
+            }
+            @Override
+            public void comment(final char[] ch, final int start, final int length) {
+                if (!inDTD) {
+                    buf.append("comment ").append(ch, start, length).append('\n');
+                }
+            }
+        };
+        reader.setContentHandler(handler);
+        reader.setErrorHandler(handler);
+        reader.setProperty("http://xml.org/sax/properties/lexical-handler", handler);
+        reader.parse(testFile.toURI().toString());
+        return buf.toString();
+    }
+
+}
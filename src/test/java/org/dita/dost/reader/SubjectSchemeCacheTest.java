@@ -0,0 +1,73 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.reader;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.dita.dost.TestUtils;
+import org.dita.dost.reader.SubjectSchemeCache.SubjectScheme;
+import org.dita.dost.util.FilterUtils;
+import org.dita.dost.util.FilterUtils.Action;
+import org.dita.dost.util.FilterUtils.FilterKey;
+import org.junit.Test;
+import org.xml.sax.helpers.AttributesImpl;
+
+public class SubjectSchemeCacheTest {
+
+    private final File srcDir = new File(TestUtils.getResourceDir(SubjectSchemeCacheTest.class), "src");
+
+    @Test
+    public void testGet() {
+        final SubjectSchemeCache cache = new SubjectSchemeCache(srcDir, new TestUtils.TestLogger());
+        final Set<File> schemes = Collections.singleton(new File("scheme"));
+
+        final SubjectScheme scheme = cache.get(schemes);
+        assertSame(scheme, cache.get(new HashSet<File>(schemes)));
+        assertEquals(new HashSet<String>(Arrays.asList("os", "linux", "redhat", "suse", "windows")),
+                scheme.getValidValuesMap().get("platform").get("*"));
+        assertEquals("windows", scheme.getDefaultValueMap().get("platform").get("*"));
+        assertTrue(scheme.getSubjectSchemeMap().containsKey("platform"));
+
+        assertSame(SubjectScheme.EMPTY, cache.get(null));
+        assertSame(SubjectScheme.EMPTY, cache.get(Collections.<File>emptySet()));
+    }
+
+    @Test
+    public void testRefine() {
+        final Map<FilterKey, Action> filterMap = new HashMap<FilterKey, Action>();
+        filterMap.put(new FilterKey("platform", "linux"), Action.EXCLUDE);
+        final FilterUtils base = new FilterUtils(filterMap);
+        base.setLogger(new TestUtils.TestLogger());
+        final SubjectSchemeCache cache = new SubjectSchemeCache(srcDir, new TestUtils.TestLogger());
+        final SubjectScheme scheme = cache.get(Collections.singleton(new File("scheme")));
+
+        final FilterUtils refined = scheme.refine(base);
+        assertNotSame(base, refined);
+        assertSame(refined, scheme.refine(base));
+        final AttributesImpl atts = new AttributesImpl();
+        atts.addAttribute("", "platform", "platform", "CDATA", "redhat");
+        assertFalse(base.needExclude(atts, null));
+        assertTrue(refined.needExclude(atts, null));
+
+        assertSame(base, SubjectScheme.EMPTY.refine(base));
+    }
+
+    @Test
+    public void testCapacity() {
+        final SubjectSchemeCache cache = new SubjectSchemeCache(srcDir, new TestUtils.TestLogger(), 1);
+        final SubjectScheme first = cache.get(Collections.singleton(new File("scheme")));
+        cache.get(Collections.singleton(new File("missing")));
+        assertNotSame(first, cache.get(Collections.singleton(new File("scheme"))));
+    }
+
+}
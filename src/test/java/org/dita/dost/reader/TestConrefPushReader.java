@@ -10,20 +10,24 @@ package org.dita.dost.reader;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+
 import org.junit.AfterClass;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.dita.dost.TestUtils;
 import org.dita.dost.reader.ConrefPushReader;
 import org.dita.dost.reader.ConrefPushReader.MoveKey;
+import org.dita.dost.util.SAXEventBuffer;
 import org.junit.BeforeClass;
 import org.junit.Test;
-import org.w3c.dom.DocumentFragment;
-import org.xml.sax.SAXException;
+import org.w3c.dom.Document;
 
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
@@ -41,7 +45,7 @@ public class TestConrefPushReader {
     }
 
     @Test
-    public void testRead() throws SAXException, IOException{
+    public void testRead() throws Exception {
         /*
          * the part of content of conrefpush_stup.xml is
          *  <steps>
@@ -55,26 +59,37 @@ public class TestConrefPushReader {
         final File filename = new File(srcDir, "conrefpush_stub.xml");
         final ConrefPushReader pushReader = new ConrefPushReader();
         pushReader.read(filename.getAbsoluteFile());
-        final Map<File, Hashtable<MoveKey, DocumentFragment>> pushSet = pushReader.getPushMap();
-        final Iterator<Map.Entry<File, Hashtable<MoveKey, DocumentFragment>>> it= pushSet.entrySet().iterator();
+        final Map<File, Map<MoveKey, SAXEventBuffer>> pushSet = pushReader.getPushMap();
+        final Iterator<Map.Entry<File, Map<MoveKey, SAXEventBuffer>>> it= pushSet.entrySet().iterator();
         if (it.hasNext()){
             // pushSet has only one entry, so there is no need to iterate it.
-            final Hashtable<MoveKey, DocumentFragment> table = it.next().getValue();
+            final Map<MoveKey, SAXEventBuffer> table = it.next().getValue();
             assertTrue(table.containsKey(new MoveKey("#X/A", "pushbefore")));
             XMLUnit.compareXML(
-                    table.get(new MoveKey("#X/A", "pushbefore")).getOwnerDocument(),
+                    toDocument(table.get(new MoveKey("#X/A", "pushbefore"))),
                     XMLUnit.buildControlDocument("<step class=\"- topic/li task/step \"><cmd class=\"- topic/ph task/cmd \">before</cmd></step>"));
             assertTrue(table.containsKey(new MoveKey("#X/B", "pushafter")));
             XMLUnit.compareXML(
-                    table.get(new MoveKey("#X/B", "pushafter")).getOwnerDocument(),
+                    toDocument(table.get(new MoveKey("#X/B", "pushafter"))),
                     XMLUnit.buildControlDocument("<step class=\"- topic/li task/step \"><cmd class=\"- topic/ph task/cmd \">after</cmd></step>"));
             assertTrue(table.containsKey(new MoveKey("#X/C", "pushreplace")));
             XMLUnit.compareXML(
-                    table.get(new MoveKey("#X/C", "pushreplace")).getOwnerDocument(),
+                    toDocument(table.get(new MoveKey("#X/C", "pushreplace"))),
                     XMLUnit.buildControlDocument("<step class=\"- topic/li task/step \" id=\"C\"><cmd class=\"- topic/ph task/cmd \">replace</cmd></step>"));
         }
     }
 
+    private static Document toDocument(final SAXEventBuffer buffer) throws Exception {
+        final SAXTransformerFactory tf = (SAXTransformerFactory) TransformerFactory.newInstance();
+        final TransformerHandler h = tf.newTransformerHandler();
+        final DOMResult res = new DOMResult();
+        h.setResult(res);
+        h.startDocument();
+        buffer.replay(h);
+        h.endDocument();
+        return (Document) res.getNode();
+    }
+
     @AfterClass
     public static void teardown() throws IOException {
         TestUtils.forceDelete(tempDir);
@@ -0,0 +1,66 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Locale;
+
+import org.dita.dost.index.IndexTerm;
+import org.dita.dost.index.IndexTermCollection;
+import org.junit.Test;
+
+public class BuildContextTest {
+
+    @Test
+    public void testBind() {
+        final BuildContext context = new BuildContext();
+        final BuildContext previous = BuildContext.bind(context);
+        try {
+            assertSame(context, BuildContext.getCurrent());
+            assertSame(context.getIndexTermCollection(), IndexTermCollection.getInstantce());
+            IndexTerm.setTermLocale(Locale.FRANCE);
+            assertEquals(Locale.FRANCE, context.getTermLocale());
+            assertSame(context.getCollator(Locale.FRANCE), DITAOTCollator.getInstance(Locale.FRANCE));
+        } finally {
+            BuildContext.bind(previous);
+        }
+        assertNotSame(context, BuildContext.getCurrent());
+        assertNotSame(context.getIndexTermCollection(), IndexTermCollection.getInstantce());
+    }
+
+    @Test
+    public void testIsolation() throws InterruptedException {
+        final BuildContext first = new BuildContext();
+        final BuildContext second = new BuildContext();
+        final IndexTermCollection[] collections = new IndexTermCollection[2];
+        final Thread t1 = new Thread() {
+            @Override
+            public void run() {
+                BuildContext.bind(first);
+                IndexTerm.setTermLocale(Locale.GERMANY);
+                collections[0] = IndexTermCollection.getInstantce();
+            }
+        };
+        final Thread t2 = new Thread() {
+            @Override
+            public void run() {
+                BuildContext.bind(second);
+                IndexTerm.setTermLocale(Locale.JAPAN);
+                collections[1] = IndexTermCollection.getInstantce();
+            }
+        };
+        t1.start();
+        t2.start();
+        t1.join();
+        t2.join();
+        assertEquals(Locale.GERMANY, first.getTermLocale());
+        assertEquals(Locale.JAPAN, second.getTermLocale());
+        assertSame(first.getIndexTermCollection(), collections[0]);
+        assertSame(second.getIndexTermCollection(), collections[1]);
+        assertNotSame(collections[0], collections[1]);
+    }
+
+}
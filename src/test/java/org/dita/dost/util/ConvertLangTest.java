@@ -0,0 +1,71 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.dita.dost.util.Constants.*;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.Project;
+import org.dita.dost.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConvertLangTest {
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+    }
+
+    @Test
+    public void testExecute() throws IOException {
+        final File html = new File(tempDir, "sub" + File.separator + "topic.html");
+        FileUtils.writeStringToFile(html,
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?><html>\r\n" +
+                "<meta http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\">\n" +
+                "<p>caf\u00e9\u00a0\u00a9 \u2603</p>",
+                UTF8);
+        final File hhp = new File(tempDir, "map.hhp");
+        FileUtils.writeStringToFile(hhp,
+                "[OPTIONS]\n" +
+                "Language=0x0409 English (United States)\n" +
+                "Title=caf\u00e9\n",
+                UTF8);
+        final File txt = new File(tempDir, "readme.txt");
+        FileUtils.writeStringToFile(txt, "caf\u00e9", UTF8);
+
+        final ConvertLang task = new ConvertLang();
+        task.setProject(new Project());
+        task.setMessage("Convert Language");
+        task.setBasedir(tempDir.getAbsolutePath());
+        task.setOutputdir(tempDir.getAbsolutePath());
+        task.setLangcode("fr-fr");
+        task.execute();
+
+        assertEquals("<html>" + LINE_SEPARATOR +
+                     "<meta http-equiv=\"Content-Type\" content=\"text/html; charset=iso-8859-1\">" + LINE_SEPARATOR +
+                     "<p>caf&eacute;&nbsp;&copy; ?</p>" + LINE_SEPARATOR,
+                     FileUtils.readFileToString(html, "iso-8859-1"));
+        assertEquals("[OPTIONS]" + LINE_SEPARATOR +
+                     "Language=0x040c French (FRANCE)" + LINE_SEPARATOR +
+                     "Title=caf&eacute;" + LINE_SEPARATOR,
+                     FileUtils.readFileToString(hhp, "windows-1252"));
+        assertEquals("caf\u00e9", FileUtils.readFileToString(txt, UTF8));
+        assertEquals(3, tempDir.listFiles().length);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+}
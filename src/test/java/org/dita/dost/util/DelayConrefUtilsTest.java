@@ -0,0 +1,42 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.dita.dost.TestUtils;
+import org.junit.Test;
+
+public class DelayConrefUtilsTest {
+
+    private final File srcDir = new File(TestUtils.getResourceDir(DelayConrefUtilsTest.class), "src");
+
+    @Test
+    public void testCheckExport() {
+        final DelayConrefUtils utils = new DelayConrefUtils();
+        utils.setLogger(new TestUtils.TestLogger());
+        assertEquals(Arrays.asList(true, true), utils.checkExport("topic.dita", "topic", "key", srcDir));
+        assertEquals(Arrays.asList(true, false), utils.checkExport("topic.dita", "section", "missing", srcDir));
+        assertEquals(Arrays.asList(false, false), utils.checkExport("topic.dita", "second", "missing", srcDir));
+        assertEquals(Arrays.asList(true, false), utils.checkExport("other.dita", "other", "key", srcDir));
+        assertEquals(Arrays.asList(false, false), utils.checkExport("missing.dita", "topic", "key", srcDir));
+        assertEquals(Arrays.asList(false, false), utils.checkExport("", "topic", "key", srcDir));
+    }
+
+    @Test
+    public void testFindTopicId() {
+        final DelayConrefUtils utils = new DelayConrefUtils();
+        utils.setLogger(new TestUtils.TestLogger());
+        final File topic = new File(srcDir, "topic.dita").getAbsoluteFile();
+        assertTrue(utils.findTopicId(topic, "topic"));
+        assertTrue(utils.findTopicId(topic, "nested"));
+        assertFalse(utils.findTopicId(topic, "body"));
+        assertFalse(utils.findTopicId(new File(srcDir, "missing.dita").getAbsoluteFile(), "topic"));
+    }
+
+}
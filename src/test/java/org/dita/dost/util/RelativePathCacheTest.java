@@ -0,0 +1,55 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.junit.Assert.*;
+
+import java.net.URI;
+
+import org.junit.Test;
+
+public class RelativePathCacheTest {
+
+    @Test
+    public void testGetRelativePath() {
+        final RelativePathCache cache = new RelativePathCache(false);
+        assertEquals("../a.dita", cache.getRelativePath("/map/map.ditamap", "/a.dita", "/"));
+        assertEquals("../a.dita", cache.getRelativePath("/map/map.ditamap", "/a.dita", "/"));
+        assertEquals("a.dita", cache.getRelativePath("/map1/map2/map.ditamap", "/map1/map2/a.dita", "/"));
+        assertEquals("..\\topic\\a.dita", cache.getRelativePath("/map1/map.ditamap", "/topic/a.dita", "\\"));
+        assertEquals("../Map/a.dita", cache.getRelativePath("/map/map.ditamap", "/Map/a.dita", "/"));
+        assertEquals("d:/a.dita", cache.getRelativePath("c:/map/map.ditamap", "d:/a.dita", "/"));
+    }
+
+    @Test
+    public void testGetRelativePathIgnoreCase() {
+        final RelativePathCache cache = new RelativePathCache(true);
+        assertEquals("a.dita", cache.getRelativePath("c:/Map/map.ditamap", "C:/map/a.dita", "/"));
+        assertEquals("../topic/a.dita", cache.getRelativePath("c:/map1/map.ditamap", "c:/topic/a.dita", "/"));
+        assertEquals("d:/a.dita", cache.getRelativePath("c:/map/map.ditamap", "d:/a.dita", "/"));
+        assertEquals(URI.create("file:/D:/a.dita"), cache.getRelativePath(URI.create("file:/c:/map.ditamap"), URI.create("file:/D:/a.dita")));
+        assertEquals(URI.create("a.dita"), cache.getRelativePath(URI.create("file:/C:/Map/map.ditamap"), URI.create("file:/c:/map/a.dita")));
+    }
+
+    @Test
+    public void testGetRelativePathURI() {
+        final RelativePathCache cache = new RelativePathCache(false);
+        assertEquals(URI.create("../a.dita"), cache.getRelativePath(URI.create("file:/map/"), URI.create("file:/a.dita")));
+        assertEquals(URI.create("../a.dita"), cache.getRelativePath(URI.create("file:/map/"), URI.create("file:/a.dita")));
+        assertEquals(URI.create("a.dita#bar"), cache.getRelativePath(URI.create("file:/map.ditamap#foo"), URI.create("file:/a.dita#bar")));
+        assertEquals(URI.create("#bar"), cache.getRelativePath(URI.create("file:/a.dita#foo"), URI.create("file:/a.dita#bar")));
+        assertEquals(URI.create("FILE:/a.dita"), cache.getRelativePath(URI.create("file:/map.ditamap"), URI.create("FILE:/a.dita")));
+        assertEquals(URI.create("a.dita"), cache.getRelativePath(URI.create("file:/map.ditamap"), URI.create("file:/a.dita")));
+    }
+
+    @Test
+    public void testSplit() {
+        assertArrayEquals(new String[0], RelativePathCache.split("", '/'));
+        assertArrayEquals(new String[0], RelativePathCache.split("//", '/'));
+        assertArrayEquals(new String[] { "a", "b" }, RelativePathCache.split("/a//b/", '/'));
+        assertArrayEquals(new String[] { "a" }, RelativePathCache.split("a", '/'));
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.dita.dost.util.XMLUtils.AttributesBuilder;
+import org.junit.Test;
+
+public class SAXEventBufferTest {
+
+    @Test
+    public void testWriteRead() throws Exception {
+        final char[] text = "caf\u00e9 & <x>".toCharArray();
+        final SAXEventBuffer buf = new SAXEventBuffer.Builder()
+                .startPrefixMapping("x", "urn:x")
+                .startElement("", "linkpool", "linkpool", new AttributesBuilder().add("class", "- topic/linkpool ").build())
+                .startElement("urn:x", "link", "x:link", new AttributesBuilder().add("href", "a.dita").build())
+                .characters(text, 0, text.length)
+                .endElement("urn:x", "link", "x:link")
+                .processingInstruction("pi", null)
+                .endElement("", "linkpool", "linkpool")
+                .endPrefixMapping("x")
+                .build();
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        buf.write(new DataOutputStream(bytes));
+        final SAXEventBuffer res = SAXEventBuffer.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(serialize(buf), serialize(res));
+    }
+
+    @Test
+    public void testWriteReadEmpty() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SAXEventBuffer.EMPTY.write(new DataOutputStream(bytes));
+        final SAXEventBuffer res = SAXEventBuffer.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertTrue(res.isEmpty());
+    }
+
+    private static String serialize(final SAXEventBuffer buf) throws Exception {
+        final TransformerHandler handler = ((SAXTransformerFactory) TransformerFactory.newInstance()).newTransformerHandler();
+        handler.getTransformer().setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        final StringWriter out = new StringWriter();
+        handler.setResult(new StreamResult(out));
+        handler.startDocument();
+        buf.replay(handler);
+        handler.endDocument();
+        return out.toString();
+    }
+
+}
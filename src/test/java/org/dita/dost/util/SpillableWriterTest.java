@@ -0,0 +1,115 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import org.dita.dost.TestUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SpillableWriterTest {
+
+    private static File tempDir;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(SpillableWriterTest.class);
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        for (final int threshold: new int[] { 4, 16, SpillableWriter.DEFAULT_THRESHOLD }) {
+            final SpillableWriter w = new SpillableWriter(tempDir, threshold);
+            w.write("<topic><title>ä😀</title><body>");
+            w.write("text</body></topic>");
+            assertEquals("<topic><title>ä😀</title><body>text</body></topic>", toString(w));
+            assertEquals(50, w.length());
+            w.close();
+        }
+        assertEquals(0, tempDir.list().length);
+    }
+
+    @Test
+    public void testAppend() throws IOException {
+        for (final int threshold: new int[] { 4, 16, SpillableWriter.DEFAULT_THRESHOLD }) {
+            final SpillableWriter parent = new SpillableWriter(tempDir, threshold);
+            parent.write("<topic id=\"a\"><title>A</title>");
+            final SpillableWriter child = new SpillableWriter(tempDir, threshold);
+            child.write("<topic id=\"b\"><title>B</title></topic>");
+            parent.append(child);
+            child.close();
+            parent.write("</topic>");
+            assertEquals("<topic id=\"a\"><title>A</title><topic id=\"b\"><title>B</title></topic></topic>", toString(parent));
+            parent.close();
+        }
+        assertEquals(0, tempDir.list().length);
+    }
+
+    @Test
+    public void testInsertBeforeLastEndTag() throws IOException {
+        for (final int threshold: new int[] { 4, 16, SpillableWriter.DEFAULT_THRESHOLD }) {
+            final SpillableWriter parent = new SpillableWriter(tempDir, threshold);
+            parent.write("<topic id=\"a\"><title>ä</title></topic>");
+            for (final String id: new String[] { "b", "c" }) {
+                final SpillableWriter child = new SpillableWriter(tempDir, threshold);
+                child.write("<topic id=\"" + id + "\"><title>" + id + "</title></topic>");
+                assertTrue(parent.insertBeforeLastEndTag(child));
+                child.close();
+            }
+            assertEquals("<topic id=\"a\"><title>ä</title>"
+                    + "<topic id=\"b\"><title>b</title></topic>"
+                    + "<topic id=\"c\"><title>c</title></topic></topic>", toString(parent));
+            parent.close();
+        }
+        assertEquals(0, tempDir.list().length);
+    }
+
+    @Test
+    public void testInsertBeforeLastEndTagAfterText() throws IOException {
+        final SpillableWriter parent = new SpillableWriter(tempDir, 4);
+        parent.write("<p>x</p>");
+        final SpillableWriter text = new SpillableWriter(tempDir, 4);
+        text.write("  text without end tags  ");
+        parent.append(text);
+        text.close();
+        final SpillableWriter child = new SpillableWriter(tempDir, 4);
+        child.write("<b/>");
+        assertTrue(parent.insertBeforeLastEndTag(child));
+        child.close();
+        assertEquals("<p>x<b/></p>  text without end tags  ", toString(parent));
+        parent.close();
+    }
+
+    @Test
+    public void testInsertBeforeLastEndTagWithoutEndTag() throws IOException {
+        final SpillableWriter parent = new SpillableWriter(tempDir, 4);
+        parent.write("<topic>");
+        final SpillableWriter child = new SpillableWriter(tempDir, 4);
+        child.write("<p/>");
+        assertFalse(parent.insertBeforeLastEndTag(child));
+        child.close();
+        assertEquals("<topic>", toString(parent));
+        parent.close();
+    }
+
+    private static String toString(final SpillableWriter w) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        w.copyTo(Channels.newChannel(out));
+        return new String(out.toByteArray(), "UTF-8");
+    }
+
+    @AfterClass
+    public static void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+}
@@ -10,6 +10,7 @@ package org.dita.dost.util;
 
 import static org.apache.commons.io.FileUtils.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.io.IOException;
 
@@ -50,6 +51,65 @@ public class TestDITAOTCopy {
                 TestUtils.readFileToString(mydestFile));
     }
 
+    @Test
+    public void testexecuteSrcdir() throws BuildException, IOException
+    {
+        final File src = new File(tempDir, "src");
+        final File dest = new File(tempDir, "dest");
+        copyFile(new File(srcDir, "testbuild.xml"), new File(src, "sub" + File.separator + "testbuild.xml"));
+        final File destFile = new File(dest, "sub" + File.separator + "testbuild.xml");
+
+        final DITAOTCopy ditaotcopy = new DITAOTCopy();
+        ditaotcopy.setProject(new Project());
+        ditaotcopy.setSrcdir(src);
+        ditaotcopy.setIncludes("sub/testbuild.xml,missing.xml");
+        ditaotcopy.setTodir(dest);
+        ditaotcopy.execute();
+
+        assertEquals(TestUtils.readFileToString(new File(src, "sub" + File.separator + "testbuild.xml")),
+                TestUtils.readFileToString(destFile));
+        assertEquals(new File(src, "sub" + File.separator + "testbuild.xml").lastModified(), destFile.lastModified());
+
+        // unchanged destination is not copied again
+        writeStringToFile(destFile, TestUtils.readFileToString(destFile).replace('<', '['));
+        destFile.setLastModified(new File(src, "sub" + File.separator + "testbuild.xml").lastModified());
+        ditaotcopy.execute();
+        assertTrue(TestUtils.readFileToString(destFile).indexOf('<') == -1);
+
+        ditaotcopy.setOverwrite(true);
+        ditaotcopy.execute();
+        assertEquals(TestUtils.readFileToString(new File(src, "sub" + File.separator + "testbuild.xml")),
+                TestUtils.readFileToString(destFile));
+    }
+
+    @Test
+    public void testexecuteSameName() throws BuildException, IOException
+    {
+        final File first = new File(tempDir, "first" + File.separator + "image.png");
+        final File second = new File(tempDir, "second" + File.separator + "image.png");
+        writeStringToFile(first, "first");
+        writeStringToFile(second, "second");
+
+        final File flat = new File(tempDir, "flat");
+        flat.mkdirs();
+        final DITAOTCopy ditaotcopy = new DITAOTCopy();
+        ditaotcopy.setProject(new Project());
+        ditaotcopy.setIncludes(first.getPath() + "," + second.getPath());
+        ditaotcopy.setTodir(flat);
+        ditaotcopy.execute();
+        assertEquals("second", TestUtils.readFileToString(new File(flat, "image.png")));
+
+        final File rel = new File(tempDir, "rel");
+        rel.mkdirs();
+        final DITAOTCopy relcopy = new DITAOTCopy();
+        relcopy.setProject(new Project());
+        relcopy.setIncludes(second.getPath() + "," + first.getPath());
+        relcopy.setTodir(rel);
+        relcopy.setRelativePaths("images/image.png");
+        relcopy.execute();
+        assertEquals("first", TestUtils.readFileToString(new File(rel, "images" + File.separator + "image.png")));
+    }
+
     @AfterClass
     public static void tearDown() throws IOException {
         TestUtils.forceDelete(tempDir);
@@ -12,6 +12,7 @@ import static org.junit.Assert.assertEquals;
 
 import static org.dita.dost.util.Constants.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -19,6 +20,8 @@ import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.util.Properties;
 
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.FileUtils;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 
@@ -63,6 +66,29 @@ public class TestImgUtils {
                 ImgUtils.getBinData(srcDir.getAbsolutePath(), "img.jpg"));
     }
 
+    @Test
+    public void testgetbase64() throws IOException
+    {
+        final String exp = Base64.encodeBase64String(FileUtils.readFileToByteArray(new File(srcDir, "img.jpg")));
+        assertEquals(exp, ImgUtils.getBASE64(srcDir.getAbsolutePath(), "img.jpg"));
+        // cached result
+        assertEquals(exp, ImgUtils.getBASE64(srcDir.getAbsolutePath(), "img.jpg"));
+    }
+
+    @Test
+    public void testwritebase64() throws IOException
+    {
+        for (int len = 0; len < 10; len++) {
+            final byte[] data = new byte[len];
+            for (int i = 0; i < len; i++) {
+                data[i] = (byte) (i * 37 + 200);
+            }
+            final StringBuilder act = new StringBuilder();
+            ImgUtils.writeBASE64(new ByteArrayInputStream(data), act);
+            assertEquals(Base64.encodeBase64String(data), act.toString());
+        }
+    }
+
     @AfterClass
     public static void tearDown() throws IOException {
         TestUtils.forceDelete(tempDir);
@@ -7,13 +7,19 @@ package org.dita.dost.util;
 import static javax.xml.XMLConstants.*;
 import static org.junit.Assert.*;
 
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+
 import org.w3c.dom.Element;
 import org.w3c.dom.Document;
 import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.Attr;
 import org.xml.sax.Attributes;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.AttributesImpl;
 import org.junit.Test;
 
@@ -160,4 +166,41 @@ public class XMLUtilsTest {
         assertEquals(expected, result);
     }
 
+    @Test
+    public void testBorrowXMLReader() throws Exception {
+        final XMLReader first = XMLUtils.borrowXMLReader();
+        first.setContentHandler(new DefaultHandler());
+        XMLUtils.releaseXMLReader(first);
+        final long reused = XMLUtils.getPoolStatistics().getXMLReadersReused();
+        final XMLReader second = XMLUtils.borrowXMLReader();
+        assertSame(first, second);
+        assertNull(second.getContentHandler());
+        assertEquals(reused + 1, XMLUtils.getPoolStatistics().getXMLReadersReused());
+        assertNotSame(second, XMLUtils.borrowXMLReader());
+        XMLUtils.releaseXMLReader(second);
+    }
+
+    @Test
+    public void testBorrowTransformer() throws Exception {
+        final Transformer first = XMLUtils.borrowTransformer();
+        first.setOutputProperty(OutputKeys.INDENT, "yes");
+        XMLUtils.releaseTransformer(first);
+        final Transformer second = XMLUtils.borrowTransformer();
+        assertSame(first, second);
+        final Transformer fresh = XMLUtils.getTransformerFactory().newTransformer();
+        assertEquals(fresh.getOutputProperties(), second.getOutputProperties());
+        assertEquals(fresh.getOutputProperty(OutputKeys.INDENT), second.getOutputProperty(OutputKeys.INDENT));
+        XMLUtils.releaseTransformer(second);
+    }
+
+    @Test
+    public void testBorrowDocumentBuilder() throws Exception {
+        final DocumentBuilder first = XMLUtils.borrowDocumentBuilder();
+        XMLUtils.releaseDocumentBuilder(first);
+        final DocumentBuilder second = XMLUtils.borrowDocumentBuilder();
+        assertSame(first, second);
+        assertNotNull(second.newDocument());
+        XMLUtils.releaseDocumentBuilder(second);
+    }
+
 }
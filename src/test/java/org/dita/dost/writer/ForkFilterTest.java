@@ -0,0 +1,85 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.writer;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dita.dost.util.XMLUtils;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.DefaultHandler2;
+import org.xml.sax.ext.LexicalHandler;
+
+public class ForkFilterTest {
+
+    @Test
+    public void testFork() throws Exception {
+        final RecordingHandler main = new RecordingHandler();
+        final RecordingHandler first = new RecordingHandler();
+        final RecordingHandler second = new RecordingHandler();
+        final ForkFilter f = new ForkFilter(Arrays.<ContentHandler>asList(first, second),
+                                            Collections.<LexicalHandler>singletonList(first));
+        f.setParent(XMLUtils.getXMLReader());
+        f.setContentHandler(main);
+        f.setProperty("http://xml.org/sax/properties/lexical-handler", main);
+        f.parse(new InputSource(new StringReader("<root><!--c--><x>text</x><?pi data?></root>")));
+
+        final List<String> exp = Arrays.asList("startDocument", "<root", "#c", "<x", "text", "x>", "?pi", "root>", "endDocument");
+        assertEquals(exp, main.events);
+        assertEquals(exp, first.events);
+        final List<String> noComments = new ArrayList<String>(exp);
+        noComments.remove("#c");
+        assertEquals(noComments, second.events);
+    }
+
+    private static final class RecordingHandler extends DefaultHandler2 {
+        final List<String> events = new ArrayList<String>();
+
+        @Override
+        public void startDocument() {
+            events.add("startDocument");
+        }
+
+        @Override
+        public void endDocument() {
+            events.add("endDocument");
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+            events.add("<" + qName);
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) {
+            events.add(qName + ">");
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            events.add(new String(ch, start, length));
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) {
+            events.add("?" + target);
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) throws SAXException {
+            events.add("#" + new String(ch, start, length));
+        }
+    }
+
+}
@@ -6,20 +6,29 @@ package org.dita.dost.writer;
 
 import static org.apache.commons.io.FileUtils.*;
 import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import org.custommonkey.xmlunit.XMLUnit;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLFilter;
 
 import org.dita.dost.TestUtils;
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.util.Job;
+import org.dita.dost.util.XMLUtils;
 
 public class ImageMetadataFilterTest {
 
@@ -70,6 +79,49 @@ public class ImageMetadataFilterTest {
                 new InputSource(f.toURI().toString()));
     }
 
+    @Test
+    public void testPreprocessFilter() throws DITAOTException, SAXException, IOException {
+        final File src = new File(srcDir, "test.dita");
+        final File f = new File(tempDir, "preprocess.dita");
+        final List<URI> images = new ArrayList<URI>();
+        for (final String image: new String[] { "img.jpg", "img.png", "img.gif", "missing.png" }) {
+            images.add(new File(srcDir, image).toURI());
+        }
+
+        final Map<URI, Attributes> metadata = ImageMetadataFilter.readMetadata(images, new TestUtils.TestLogger());
+        assertEquals(3, metadata.size());
+        final ImageMetadataFilter filter = new ImageMetadataFilter(metadata);
+        filter.setLogger(new TestUtils.TestLogger());
+        filter.setCurrentFile(src.toURI());
+        XMLUtils.transform(src, f, Arrays.asList((XMLFilter) filter));
+        assertFalse(filter.hasUnresolvedImages());
+
+        TestUtils.resetXMLUnit();
+        XMLUnit.setIgnoreWhitespace(true);
+        assertXMLEqual(new InputSource(new File(expDir, "test.dita").toURI().toString()),
+                new InputSource(f.toURI().toString()));
+    }
+
+    @Test
+    public void testPreprocessFilterKeyref() throws DITAOTException, SAXException, IOException {
+        final File src = new File(srcDir, "keyref.dita");
+        final File f = new File(tempDir, "keyref.dita");
+        final List<URI> images = new ArrayList<URI>();
+        images.add(new File(srcDir, "img.jpg").toURI());
+
+        final Map<URI, Attributes> metadata = ImageMetadataFilter.readMetadata(images, new TestUtils.TestLogger());
+        assertEquals(1, metadata.size());
+        final ImageMetadataFilter filter = new ImageMetadataFilter(metadata);
+        filter.setLogger(new TestUtils.TestLogger());
+        filter.setCurrentFile(src.toURI());
+        XMLUtils.transform(src, f, Arrays.asList((XMLFilter) filter));
+        assertTrue(filter.hasUnresolvedImages());
+
+        final String act = readFileToString(f, "UTF-8");
+        assertFalse(act.contains("width="));
+        assertFalse(act.contains("height="));
+    }
+
     @AfterClass
     public static void teardown() throws IOException {
         TestUtils.forceDelete(tempDir);
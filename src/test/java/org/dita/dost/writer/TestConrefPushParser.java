@@ -12,7 +12,6 @@ import static org.apache.commons.io.FileUtils.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -30,10 +29,10 @@ import org.dita.dost.TestUtils;
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.reader.ConrefPushReader;
 import org.dita.dost.reader.ConrefPushReader.MoveKey;
+import org.dita.dost.util.SAXEventBuffer;
 import org.dita.dost.util.Constants;
 import org.junit.Test;
 import org.w3c.dom.Document;
-import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
@@ -103,10 +102,10 @@ public class TestConrefPushParser {
         final ConrefPushReader reader = new ConrefPushReader();
 
         reader.read(inputFile.getAbsoluteFile());
-        final Map<File, Hashtable<MoveKey, DocumentFragment>> pushSet = reader.getPushMap();
-        final Iterator<Map.Entry<File, Hashtable<MoveKey, DocumentFragment>>> iter = pushSet.entrySet().iterator();
+        final Map<File, Map<MoveKey, SAXEventBuffer>> pushSet = reader.getPushMap();
+        final Iterator<Map.Entry<File, Map<MoveKey, SAXEventBuffer>>> iter = pushSet.entrySet().iterator();
         if(iter.hasNext()){
-            final Map.Entry<File, Hashtable<MoveKey, DocumentFragment>> entry = iter.next();
+            final Map.Entry<File, Map<MoveKey, SAXEventBuffer>> entry = iter.next();
             // initialize the parsed file
             copyFile(new File(srcDir, "conrefpush_stub2_backup.xml"), entry.getKey());
             //            final Content content = new ContentImpl();
@@ -5,9 +5,16 @@ import static org.dita.dost.util.Constants.*;
 import static org.junit.Assert.*;
 import static org.dita.dost.util.XMLUtils.AttributesBuilder;
 
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.dita.dost.TestUtils;
 import org.dita.dost.TestUtils.CachingLogger.Message;
@@ -197,4 +204,87 @@ public class ValidationFilterTest {
         assertEquals(TestUtils.CachingLogger.Message.Level.ERROR, l.getMessages().get(0).level);
     }
 
+    @Test
+    public void testIdReuse() throws SAXException {
+        final ValidationFilter f = new ValidationFilter();
+        f.setContentHandler(new DefaultHandler());
+        final TestUtils.CachingLogger l = new TestUtils.CachingLogger();
+        f.setLogger(l);
+
+        for (int i = 0; i < 2; i++) {
+            f.startDocument();
+            for (int j = 0; j < 200; j++) {
+                f.startElement(NULL_NS_URI, TOPIC_P.localName, TOPIC_P.localName, new AttributesBuilder()
+                        .add(ATTRIBUTE_NAME_CLASS, TOPIC_P.toString())
+                        .add(ATTRIBUTE_NAME_ID, "p" + j)
+                        .build());
+            }
+        }
+        assertEquals(0, l.getMessages().size());
+        f.startElement(NULL_NS_URI, TOPIC_P.localName, TOPIC_P.localName, new AttributesBuilder()
+                .add(ATTRIBUTE_NAME_CLASS, TOPIC_P.toString())
+                .add(ATTRIBUTE_NAME_ID, "p199")
+                .build());
+        assertEquals(1, l.getMessages().size());
+    }
+
+    @Test
+    public void testDuplicateTopicIds() throws SAXException {
+        final ValidationFilter f = new ValidationFilter();
+        f.setContentHandler(new DefaultHandler());
+        final TestUtils.CachingLogger l = new TestUtils.CachingLogger();
+        f.setLogger(l);
+        f.setCheckDuplicateTopicIds(true);
+
+        final String[][] topics = { { "file:/a.dita", "a", "shared" }, { "file:/b.dita", "b", "shared" } };
+        for (final String[] topic: topics) {
+            f.setCurrentFile(URI.create(topic[0]));
+            f.startDocument();
+            for (int i = 1; i < topic.length; i++) {
+                f.startElement(NULL_NS_URI, TOPIC_TOPIC.localName, TOPIC_TOPIC.localName, new AttributesBuilder()
+                        .add(ATTRIBUTE_NAME_CLASS, TOPIC_TOPIC.toString())
+                        .add(ATTRIBUTE_NAME_ID, topic[i])
+                        .build());
+            }
+        }
+
+        assertEquals(1, l.getMessages().size());
+        assertEquals(TestUtils.CachingLogger.Message.Level.WARN, l.getMessages().get(0).level);
+        assertTrue(l.getMessages().get(0).message.contains("file:/a.dita"));
+    }
+
+    @Test
+    public void testAttributeValues() throws SAXException {
+        final ValidationFilter f = new ValidationFilter();
+        f.setContentHandler(new DefaultHandler());
+        final TestUtils.CachingLogger l = new TestUtils.CachingLogger();
+        f.setLogger(l);
+        final Map<String, Set<String>> values = new HashMap<String, Set<String>>();
+        values.put("*", new HashSet<String>(Arrays.asList("linux", "windows")));
+        values.put("codeblock", Collections.singleton("unix"));
+        final Map<String, Map<String, Set<String>>> validateMap = new HashMap<String, Map<String, Set<String>>>();
+        validateMap.put("platform", values);
+        f.setValidateMap(validateMap);
+
+        f.startElement(NULL_NS_URI, "p", "p", new AttributesBuilder()
+                .add("platform", " linux\twindows ")
+                .build());
+        f.startElement(NULL_NS_URI, "codeblock", "codeblock", new AttributesBuilder()
+                .add("platform", "unix")
+                .build());
+        assertEquals(0, l.getMessages().size());
+
+        f.startElement(NULL_NS_URI, "p", "p", new AttributesBuilder()
+                .add("platform", "linux mac unix")
+                .build());
+        assertEquals(2, l.getMessages().size());
+        f.startElement(NULL_NS_URI, "codeblock", "codeblock", new AttributesBuilder()
+                .add("platform", "linux")
+                .build());
+        assertEquals(3, l.getMessages().size());
+        for (final Message m: l.getMessages()) {
+            assertEquals(TestUtils.CachingLogger.Message.Level.WARN, m.level);
+        }
+    }
+
 }